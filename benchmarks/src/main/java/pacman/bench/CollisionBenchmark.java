@@ -0,0 +1,85 @@
+package pacman.bench;
+
+import org.openjdk.jmh.annotations.*;
+import pacman.entities.Ghost;
+import pacman.entities.PacMan;
+import pacman.game.CollisionGrid;
+import pacman.game.GameController;
+import pacman.game.LevelPack;
+import pacman.game.Simulation;
+import pacman.utils.Constants;
+import pacman.utils.Rng;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PacMan-versus-ghosts collision as the ghost count grows: the grid query
+ * used by {@link GameController#update()} against a linear overlap scan,
+ * with ghosts spread over the maze by a few thousand frames of play.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollisionBenchmark {
+
+    @Param({"4", "64", "256"})
+    public int ghosts;
+
+    private GameController game;
+    private CollisionGrid grid;
+    private int[] hits;
+    private int query;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Simulation sim = new Simulation(new GameController(Fixtures.SEED, LevelPack.CLASSIC, ghosts));
+        sim.start();
+        Rng input = new Rng(Fixtures.SEED);
+        for (int i = 0; i < 4000; i++) {
+            if (sim.isGameOver()) sim.start();
+            Fixtures.steer(sim, input);
+            sim.step();
+        }
+        game = sim.getController();
+        grid = new CollisionGrid(game.map.getRows(), game.map.getCols(), ghosts);
+        for (Ghost g : game.ghosts) grid.add(g.x, g.y);
+        hits = new int[ghosts];
+    }
+
+    /** Query point walking over the maze, so results are not a single cached cell. */
+    private int nextX() {
+        return (query++ * 37) % (game.map.getCols() * Constants.TILE_UNITS);
+    }
+
+    @Benchmark
+    public int gridQuery() {
+        return grid.query(nextX(), game.pacman.y, Ghost.HIT_SIZE, hits);
+    }
+
+    @Benchmark
+    public int linearScan() {
+        PacMan p = game.pacman;
+        int x = nextX();
+        int saved = p.x;
+        p.x = x;
+        int n = 0;
+        List<Ghost> list = game.ghosts;
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).overlaps(p)) n++;
+        }
+        p.x = saved;
+        return n;
+    }
+
+    /** A whole frame, ghost AI included; grows with the ghost count regardless of the broadphase. */
+    @Benchmark
+    public int update() {
+        game.update();
+        if (game.state == GameController.State.GAME_OVER) game.startGame();
+        return game.score;
+    }
+}
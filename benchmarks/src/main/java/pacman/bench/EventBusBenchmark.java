@@ -0,0 +1,50 @@
+package pacman.bench;
+
+import org.openjdk.jmh.annotations.*;
+import pacman.events.EventBus;
+import pacman.game.Simulation;
+import pacman.utils.Rng;
+
+import java.util.concurrent.TimeUnit;
+
+/** What publishing game events costs the simulation thread. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventBusBenchmark {
+
+    @Param({"false", "true"})
+    public boolean events;
+
+    private EventBus bus;
+    private Simulation sim;
+    private Rng input;
+    private int row;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        bus = new EventBus();
+        sim = Fixtures.midGame(Fixtures.SEED, 0);
+        if (events) sim.getController().setEvents(bus);
+        input = new Rng(Fixtures.SEED);
+    }
+
+    /** One event into the ring with nobody reading it. */
+    @Benchmark
+    public long publish() {
+        bus.pelletEaten(row++ & 31, 5, 10, 1, 200);
+        return bus.getPublished();
+    }
+
+    /** A full frame, as in {@link SimulationBenchmark}, with or without a bus attached. */
+    @Benchmark
+    public int update() {
+        if (sim.isGameOver()) sim.start();
+        Fixtures.steer(sim, input);
+        sim.step();
+        return sim.getController().score;
+    }
+}
@@ -0,0 +1,32 @@
+package pacman.bench;
+
+import pacman.game.Simulation;
+import pacman.utils.Direction;
+import pacman.utils.Rng;
+
+/** Seeded game setups shared by the benchmarks so every run measures the same states. */
+final class Fixtures {
+    static final long SEED = 0x5EED_CAFEL;
+
+    private Fixtures() {}
+
+    /** A game already {@code warmTicks} frames in, driven by {@link #steer}. */
+    static Simulation midGame(long seed, int warmTicks) {
+        Simulation sim = new Simulation(seed);
+        sim.start();
+        Rng input = new Rng(seed);
+        for (int i = 0; i < warmTicks; i++) {
+            if (sim.isGameOver()) sim.start();
+            steer(sim, input);
+            sim.step();
+        }
+        return sim;
+    }
+
+    /** Deterministic pseudo-player: picks a new direction roughly once per tile. */
+    static void steer(Simulation sim, Rng input) {
+        if (sim.getTick() % 12 == 0) {
+            sim.setDirection(Direction.MOVES[input.nextInt(4)]);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package pacman.bench;
+
+import org.openjdk.jmh.annotations.*;
+import pacman.game.GameMap;
+import pacman.game.PelletIndex;
+
+import java.util.concurrent.TimeUnit;
+
+/** Cost of restoring the maze at the start of each level, and of pellet index queries. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameMapBenchmark {
+
+    private GameMap map;
+    private int query;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        map = new GameMap();
+    }
+
+    @Benchmark
+    public int reset() {
+        map.reset();
+        return map.getTotalPellets();
+    }
+
+    /** Eats every pellet in layout order, then resets: a whole level's worth of index updates. */
+    @Benchmark
+    public int eatAllAndReset() {
+        PelletIndex pellets = map.getPellets();
+        int cols = map.getCols();
+        while (pellets.remaining() > 0) {
+            int tile = pellets.get(pellets.remaining() - 1);
+            map.setTile(tile / cols, tile % cols, GameMap.EMPTY);
+        }
+        map.reset();
+        return pellets.remaining();
+    }
+
+    /** Nearest pellet from a walking query point on a full board. */
+    @Benchmark
+    public int nearestPellet() {
+        int q = query++;
+        return map.getPellets().nearest(q % map.getRows(), (q / map.getRows()) % map.getCols());
+    }
+}
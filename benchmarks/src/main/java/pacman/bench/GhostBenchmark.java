@@ -0,0 +1,49 @@
+package pacman.bench;
+
+import org.openjdk.jmh.annotations.*;
+import pacman.entities.Ghost;
+import pacman.entities.PacMan;
+import pacman.game.GameController;
+import pacman.game.GameMap;
+
+import java.util.concurrent.TimeUnit;
+
+/** Per-ghost movement and the tile-boundary decision in isolation. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GhostBenchmark {
+
+    @Param({"false", "true"})
+    public boolean frightened;
+
+    private GameMap map;
+    private PacMan pacman;
+    private Ghost ghost;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        // 400 frames in, every ghost has left the house
+        GameController c = Fixtures.midGame(Fixtures.SEED, 400).getController();
+        map = c.map;
+        pacman = c.pacman;
+        ghost = c.ghosts.get(0);
+        if (frightened) ghost.setFrightened();
+    }
+
+    @Benchmark
+    public int update() {
+        ghost.update(map, pacman);
+        if (frightened && !ghost.frightened) ghost.setFrightened();
+        return ghost.x;
+    }
+
+    @Benchmark
+    public Object chooseDirection() {
+        ghost.chooseDirection(map, pacman);
+        return ghost.dir;
+    }
+}
@@ -0,0 +1,68 @@
+package pacman.bench;
+
+import org.openjdk.jmh.annotations.*;
+import pacman.game.GameController;
+import pacman.game.LockstepBatch;
+import pacman.game.Maze;
+import pacman.utils.Direction;
+import pacman.utils.Rng;
+
+import java.util.concurrent.TimeUnit;
+
+/** One frame of many games: a controller per game against one {@link LockstepBatch}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LockstepBenchmark {
+
+    @Param({"1024"})
+    public int games;
+
+    private GameController[] controllers;
+    private LockstepBatch batch;
+    private Rng input;
+    private int tick;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        long[] seeds = new long[games];
+        controllers = new GameController[games];
+        for (int i = 0; i < games; i++) {
+            seeds[i] = Fixtures.SEED + i;
+            controllers[i] = new GameController(seeds[i]);
+            controllers[i].startGame();
+        }
+        batch = new LockstepBatch(Maze.CLASSIC, seeds, 4);
+        for (int i = 0; i < games; i++) batch.start(i);
+        input = new Rng(Fixtures.SEED);
+    }
+
+    @Benchmark
+    public int controllers() {
+        boolean turn = tick++ % 12 == 0;
+        int score = 0;
+        for (GameController c : controllers) {
+            if (c.state == GameController.State.GAME_OVER) c.startGame();
+            if (turn) c.setDirection(Direction.MOVES[input.nextInt(4)]);
+            c.update();
+            score += c.score;
+        }
+        return score;
+    }
+
+    @Benchmark
+    public int lockstep() {
+        boolean turn = tick++ % 12 == 0;
+        int score = 0;
+        for (int i = 0; i < games; i++) {
+            if (batch.isGameOver(i)) batch.start(i);
+            if (turn) batch.setDirection(i, Direction.MOVES[input.nextInt(4)]);
+        }
+        batch.update();
+        for (int i = 0; i < games; i++) score += batch.getScore(i);
+        return score;
+    }
+}
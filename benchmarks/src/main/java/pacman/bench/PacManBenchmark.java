@@ -0,0 +1,35 @@
+package pacman.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pacman.entities.PacMan;
+import pacman.game.GameController;
+import pacman.game.GameMap;
+import pacman.utils.Direction;
+
+import java.util.concurrent.TimeUnit;
+
+/** Wall probing for all four directions from a mid-game position. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PacManBenchmark {
+
+    private GameMap map;
+    private PacMan pacman;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        GameController c = Fixtures.midGame(Fixtures.SEED, 200).getController();
+        map = c.map;
+        pacman = c.pacman;
+    }
+
+    @Benchmark
+    public void canMove(Blackhole bh) {
+        for (Direction d : Direction.MOVES) bh.consume(pacman.canMove(d, map));
+    }
+}
@@ -0,0 +1,68 @@
+package pacman.bench;
+
+import org.openjdk.jmh.annotations.*;
+import pacman.entities.Ghost;
+import pacman.game.GameController;
+import pacman.game.Simulation;
+import pacman.ui.GamePanel;
+import pacman.ui.SpriteAtlas;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Painting into an offscreen image: a full {@code GamePanel} frame, and just the sprites; runs headless. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class RenderBenchmark {
+
+    private GamePanel panel;
+    private BufferedImage image;
+    private Graphics2D g;
+    private GameController game;
+    private SpriteAtlas sprites;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Simulation sim = Fixtures.midGame(Fixtures.SEED, 400);
+        panel = new GamePanel(sim);   // timer is never started
+        Dimension size = panel.getPreferredSize();
+        panel.setSize(size);
+        image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+        g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        game = sim.getController();
+        List<Color> colors = new ArrayList<>();
+        for (Ghost ghost : game.ghosts) colors.add(ghost.color);
+        sprites = new SpriteAtlas(colors);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paintComponent() {
+        panel.paint(g);
+        return image;
+    }
+
+    /** The entity layer alone, which is most of what a dirty-region repaint draws. */
+    @Benchmark
+    public BufferedImage drawSprites() {
+        for (int i = 0; i < game.ghosts.size(); i++) {
+            Ghost ghost = game.ghosts.get(i);
+            sprites.drawGhost(g, ghost, (int) ghost.renderX(1f), (int) ghost.renderY(1f));
+        }
+        sprites.drawPacMan(g, game.pacman, (int) game.pacman.renderX(1f), (int) game.pacman.renderY(1f));
+        return image;
+    }
+}
@@ -0,0 +1,35 @@
+package pacman.bench;
+
+import org.openjdk.jmh.annotations.*;
+import pacman.game.GameController;
+import pacman.game.Simulation;
+import pacman.utils.Rng;
+
+import java.util.concurrent.TimeUnit;
+
+/** Cost of one full {@link GameController#update()} frame, through {@link Simulation#step()}, under scripted play. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulationBenchmark {
+
+    private Simulation sim;
+    private Rng input;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        sim = Fixtures.midGame(Fixtures.SEED, 0);
+        input = new Rng(Fixtures.SEED);
+    }
+
+    @Benchmark
+    public int update() {
+        if (sim.isGameOver()) sim.start();
+        Fixtures.steer(sim, input);
+        sim.step();
+        return sim.getController().score;
+    }
+}
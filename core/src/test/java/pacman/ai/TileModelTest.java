@@ -0,0 +1,79 @@
+package pacman.ai;
+
+import org.junit.jupiter.api.Test;
+import pacman.game.GameController;
+import pacman.game.LevelPack;
+import pacman.game.MazeGenerator;
+import pacman.utils.Direction;
+import pacman.utils.Rng;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TileModelTest {
+
+    /**
+     * With moves that are open at each tile, PacMan's path and pellet score in
+     * the model match the real game action for action, until a ghost is involved.
+     */
+    @Test
+    void pacManFollowsTheGame() {
+        for (long seed = 0; seed < 20; seed++) {
+            GameController game = new GameController(seed);
+            game.startGame();
+            TileModel model = new TileModel(game.ghosts.size(), new Rng(seed));
+            model.load(game);
+            model.reset();
+            int cols = game.map.getCols();
+            Rng rng = new Rng(seed);
+
+            int compared = 0;
+            while (game.state == GameController.State.PLAYING && model.alive() && game.ghostsEaten == 0) {
+                int tile = model.pacTile();
+                int exits = game.map.getExits(tile / cols, tile % cols);
+                int move;
+                do move = rng.nextInt(4); while ((exits & Direction.MOVES[move].bit) == 0);
+
+                model.step(move);
+                game.setDirection(Direction.MOVES[move]);
+                for (int t = 0; t < Autopilot.ACTION_TICKS && game.state == GameController.State.PLAYING; t++) {
+                    game.update();
+                }
+                if (game.state != GameController.State.PLAYING || !model.alive() || game.ghostsEaten > 0) break;
+                int real = game.pacman.getRow() * cols + game.map.wrapColumn(game.pacman.getCol());
+                assertEquals(real, model.pacTile(), "seed " + seed + " action " + compared);
+                assertEquals(game.score, model.score, "seed " + seed + " action " + compared);
+                compared++;
+            }
+            assertTrue(compared > 5, "seed " + seed + " compared only " + compared + " actions");
+        }
+    }
+
+    @Test
+    void ghostsCatchAPacManStandingStill() {
+        GameController game = new GameController(1);
+        game.startGame();
+        TileModel model = new TileModel(game.ghosts.size(), new Rng(1));
+        model.load(game);
+        model.reset();
+        // Into the wall below the spawn: PacMan never moves
+        for (int i = 0; i < 200 && model.alive(); i++) model.step(Direction.DOWN.ordinal());
+        assertEquals(TileModel.DIED, model.status);
+    }
+
+    /** The search copy follows the game's own level pack rather than the classic maze. */
+    @Test
+    void searchesGamesOnOtherMazes() {
+        LevelPack pack = LevelPack.rotating(List.of(new MazeGenerator().generate(42)));
+        GameController game = new GameController(3, pack, 4);
+        game.startGame();
+        try (Autopilot pilot = new Autopilot(1, 1_000_000L, 3)) {
+            Direction d = pilot.search(game);
+            assertNotEquals(Direction.NONE, d);
+            assertTrue(pilot.getLastIterations() > 0);
+        }
+    }
+}
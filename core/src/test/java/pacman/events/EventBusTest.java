@@ -0,0 +1,187 @@
+package pacman.events;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventBusTest {
+
+    /** What a handler saw, copied out of the reused event. */
+    private record Seen(long sequence, GameEvent.Type type, int row, int col, int score, int level,
+                        int remaining, int ghost, int lives, boolean endOfBatch) {
+    }
+
+    private static EventHandler recorder(List<Seen> seen) {
+        return (e, end) -> seen.add(new Seen(e.sequence, e.type, e.row, e.col, e.score, e.level,
+                e.remaining, e.ghost, e.lives, end));
+    }
+
+    /** Publishes event {@code i} of a stream whose fields are all derived from {@code i}. */
+    private static void publish(EventBus bus, int i) {
+        switch (i % 5) {
+            case 0 -> bus.pelletEaten(i & 31, i >> 5 & 31, i, i ^ 0x5A5A, ~i);
+            case 1 -> bus.powerPelletEaten(i & 31, i >> 5 & 31, i, i ^ 0x5A5A, ~i);
+            case 2 -> bus.ghostEaten(i & 3, i & 31, i >> 5 & 31, i, i ^ 0x5A5A);
+            case 3 -> bus.pacManDied(i & 31, i >> 5 & 31, i & 7, i, i ^ 0x5A5A);
+            default -> bus.levelCleared(i ^ 0x5A5A, i);
+        }
+    }
+
+    /** Whether {@code e} is intact event {@code i} of the stream {@link #publish} writes. */
+    private static boolean isEvent(GameEvent e, int i) {
+        if (e.type != GameEvent.Type.VALUES[i % 5] || e.score != i || e.level != (i ^ 0x5A5A)) return false;
+        return switch (e.type) {
+            case PELLET_EATEN, POWER_PELLET_EATEN -> e.row == (i & 31) && e.col == (i >> 5 & 31)
+                    && e.remaining == ~i && e.ghost == -1 && e.lives == -1;
+            case GHOST_EATEN -> e.ghost == (i & 3) && e.row == (i & 31) && e.col == (i >> 5 & 31)
+                    && e.remaining == -1 && e.lives == -1;
+            case PACMAN_DIED -> e.row == (i & 31) && e.col == (i >> 5 & 31) && e.lives == (i & 7)
+                    && e.remaining == -1 && e.ghost == -1;
+            case LEVEL_CLEARED -> e.row == -1 && e.col == -1 && e.remaining == -1 && e.ghost == -1 && e.lives == -1;
+        };
+    }
+
+    @Test
+    void deliversInOrderAndFlagsTheEndOfEachBatch() {
+        EventBus bus = new EventBus(16);
+        publish(bus, 0);   // before the subscription, so never seen
+        List<Seen> seen = new ArrayList<>();
+        EventBus.Consumer consumer = bus.subscribe(recorder(seen));
+        assertEquals(0, consumer.poll());
+
+        int next = 1;
+        for (int batch : new int[] {1, 5, 16, 3}) {
+            seen.clear();
+            for (int k = 0; k < batch; k++) publish(bus, next++);
+            assertEquals(batch, consumer.getLag());
+            assertEquals(batch, consumer.poll());
+            assertEquals(batch, seen.size());
+            for (int k = 0; k < batch; k++) {
+                Seen s = seen.get(k);
+                int i = next - batch + k;
+                assertEquals(i, s.sequence());
+                assertEquals(GameEvent.Type.VALUES[i % 5], s.type());
+                assertEquals(i, s.score());
+                assertEquals(k == batch - 1, s.endOfBatch(), "event " + i);
+            }
+            assertEquals(0, consumer.getLag());
+            assertEquals(0, consumer.poll());
+        }
+        assertEquals(25, consumer.getConsumed());
+        assertEquals(16, consumer.getMaxLag());
+        assertEquals(0, consumer.getDropped());
+    }
+
+    @Test
+    void eventsCarryTheirFieldsAndMinusOneForTheRest() {
+        EventBus bus = new EventBus(8);
+        List<Seen> seen = new ArrayList<>();
+        EventBus.Consumer consumer = bus.subscribe(recorder(seen));
+        bus.pelletEaten(1, 2, 10, 1, 200);
+        bus.ghostEaten(3, 4, 5, 400, 2);
+        bus.pacManDied(6, 7, 2, 410, 2);
+        bus.levelCleared(2, 3_000);
+        consumer.poll();
+        assertEquals(List.of(
+                new Seen(0, GameEvent.Type.PELLET_EATEN, 1, 2, 10, 1, 200, -1, -1, false),
+                new Seen(1, GameEvent.Type.GHOST_EATEN, 4, 5, 400, 2, -1, 3, -1, false),
+                new Seen(2, GameEvent.Type.PACMAN_DIED, 6, 7, 410, 2, -1, -1, 2, false),
+                new Seen(3, GameEvent.Type.LEVEL_CLEARED, -1, -1, 3_000, 2, -1, -1, -1, true)), seen);
+    }
+
+    @Test
+    void lappedConsumerDropsExactlyTheOverwrittenEvents() {
+        int capacity = 16;
+        EventBus bus = new EventBus(capacity);
+        List<Seen> seen = new ArrayList<>();
+        EventBus.Consumer consumer = bus.subscribe(recorder(seen));
+        int next = 0;
+
+        // A full ring is not a lap: nothing is lost
+        for (int k = 0; k < capacity; k++) publish(bus, next++);
+        assertEquals(capacity, consumer.poll());
+        assertEquals(0, consumer.getDropped());
+
+        long dropped = 0;
+        for (int over : new int[] {1, 5, capacity, 3 * capacity + 7}) {
+            seen.clear();
+            for (int k = 0; k < capacity + over; k++) publish(bus, next++);
+            assertEquals(capacity + over, consumer.getLag());
+            assertEquals(capacity, consumer.poll(), "lapped by " + over);
+            dropped += over;
+            assertEquals(dropped, consumer.getDropped(), "lapped by " + over);
+            // The newest ring's worth, in order, intact
+            for (int k = 0; k < capacity; k++) {
+                Seen s = seen.get(k);
+                assertEquals(next - capacity + k, s.sequence());
+                assertEquals(next - capacity + k, s.score());
+                assertEquals(k == capacity - 1, s.endOfBatch());
+            }
+            assertEquals(0, consumer.getLag());
+        }
+        assertEquals(capacity + 4L * capacity, consumer.getConsumed());
+        assertEquals(bus.getPublished(), consumer.getConsumed() + consumer.getDropped());
+        assertEquals(capacity + 3L * capacity + 7, consumer.getMaxLag());
+    }
+
+    @Test
+    void consumersKeepTheirOwnPositions() {
+        EventBus bus = new EventBus(8);
+        List<Seen> fast = new ArrayList<>(), slow = new ArrayList<>();
+        EventBus.Consumer a = bus.subscribe(recorder(fast)), b = bus.subscribe(recorder(slow));
+        for (int i = 0; i < 20; i++) {
+            publish(bus, i);
+            a.poll();
+        }
+        assertEquals(20, fast.size());
+        assertEquals(0, a.getDropped());
+        assertEquals(8, b.poll());
+        assertEquals(12, b.getDropped());
+        assertEquals(12, slow.get(0).sequence());
+    }
+
+    @Test
+    void rejectsCapacitiesThatAreNotPowersOfTwo() {
+        for (int capacity : new int[] {-4, 0, 1, 3, 100}) {
+            assertThrows(IllegalArgumentException.class, () -> new EventBus(capacity), "capacity " + capacity);
+        }
+    }
+
+    /**
+     * A producer far faster than a small ring laps the consumer's thread over
+     * and over; every event handled must still be whole and the counts add up.
+     */
+    @Test
+    void concurrentConsumerNeverSeesTornEvents() throws InterruptedException {
+        int events = 2_000_000;
+        EventBus bus = new EventBus(64);
+        AtomicLong torn = new AtomicLong(), disordered = new AtomicLong();
+        long[] last = {-1};
+        EventBus.Consumer consumer = bus.subscribe((e, end) -> {
+            if (!isEvent(e, (int) e.sequence)) torn.incrementAndGet();
+            if (e.sequence <= last[0]) disordered.incrementAndGet();
+            last[0] = e.sequence;
+        }).start("events-test");
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < events; i++) publish(bus, i);
+        });
+        producer.start();
+        producer.join();
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (consumer.getLag() > 0 && System.nanoTime() < deadline) Thread.sleep(1);
+        consumer.close();
+
+        assertEquals(0, torn.get(), "torn events");
+        assertEquals(0, disordered.get(), "events out of order");
+        assertEquals(events - 1, last[0]);
+        assertEquals(events, consumer.getConsumed() + consumer.getDropped());
+        assertTrue(consumer.getConsumed() > 0);
+    }
+}
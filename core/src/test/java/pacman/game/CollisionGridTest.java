@@ -0,0 +1,144 @@
+package pacman.game;
+
+import org.junit.jupiter.api.Test;
+import pacman.utils.Constants;
+import pacman.utils.Rng;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CollisionGridTest {
+
+    private static final int TILE = Constants.TILE_UNITS;
+    private static final int ROWS = 31, COLS = 28;
+
+    /** A coordinate on an axis of {@code tiles} tiles, up to three tiles past either end, as in the tunnel. */
+    private static int coordinate(Rng rng, int tiles) {
+        return rng.nextInt((tiles + 6) * TILE) - 3 * TILE;
+    }
+
+    /** Ids within {@code extent} of the point on both axes, ascending. */
+    private static int[] bruteForce(int[] xs, int[] ys, int x, int y, int extent) {
+        int[] out = new int[xs.length];
+        int n = 0;
+        for (int id = 0; id < xs.length; id++) {
+            if (Math.abs(xs[id] - x) < extent && Math.abs(ys[id] - y) < extent) out[n++] = id;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int cell(int v, int n) {
+        return Math.max(0, Math.min(n - 1, v >> Constants.TILE_BITS));
+    }
+
+    /**
+     * Entities wander, jump and sit past the maze edges; every query answers
+     * exactly what a scan of all of them would, in id order, and checks only
+     * the entities filed in the 3x3 cells around the clamped point.
+     */
+    @Test
+    void queriesMatchBruteForceThroughRandomMoves() {
+        Rng rng = new Rng(14);
+        int entities = 120;
+        CollisionGrid grid = new CollisionGrid(ROWS, COLS, entities);
+        int[] xs = new int[entities], ys = new int[entities];
+        for (int id = 0; id < entities; id++) {
+            xs[id] = coordinate(rng, COLS);
+            ys[id] = coordinate(rng, ROWS);
+            assertEquals(id, grid.add(xs[id], ys[id]));
+        }
+        assertEquals(entities, grid.size());
+
+        int[] out = new int[entities];
+        long hits = 0;
+        for (int step = 0; step < 50_000; step++) {
+            int id = rng.nextInt(entities);
+            if (rng.nextInt(4) == 0) {
+                xs[id] = coordinate(rng, COLS);
+                ys[id] = coordinate(rng, ROWS);
+            } else {
+                // A short move, within its cell or across into the next
+                xs[id] += rng.nextInt(TILE) - TILE / 2;
+                ys[id] += rng.nextInt(TILE) - TILE / 2;
+            }
+            grid.move(id, xs[id], ys[id]);
+
+            // Query near an entity, so most queries hit something
+            int near = rng.nextInt(entities);
+            int x = xs[near] + rng.nextInt(2 * TILE) - TILE, y = ys[near] + rng.nextInt(2 * TILE) - TILE;
+            int extent = 1 + rng.nextInt(TILE);
+            int n = grid.query(x, y, extent, out);
+            int[] expected = bruteForce(xs, ys, x, y, extent);
+            assertArrayEquals(expected, Arrays.copyOf(out, n), "step " + step);
+            hits += n;
+
+            int filed = 0;
+            for (int e = 0; e < entities; e++) {
+                boolean around = Math.abs(cell(xs[e], COLS) - cell(x, COLS)) <= 1
+                        && Math.abs(cell(ys[e], ROWS) - cell(y, ROWS)) <= 1;
+                if (around) filed++;
+            }
+            assertEquals(filed, grid.getLastChecks(), "step " + step);
+        }
+        assertTrue(hits > 10_000, "hits " + hits);
+    }
+
+    /** Hits come back in id order however the cells' lists were built. */
+    @Test
+    void hitsAreInIdOrder() {
+        int entities = 40;
+        CollisionGrid grid = new CollisionGrid(ROWS, COLS, entities);
+        Rng rng = new Rng(3);
+        for (int id = 0; id < entities; id++) grid.add(coordinate(rng, COLS), coordinate(rng, ROWS));
+        // Gather everyone around one point, in a scrambled order, across four cells
+        int x = 10 * TILE, y = 12 * TILE;
+        int[] order = new int[entities];
+        for (int i = 0; i < entities; i++) order[i] = i;
+        for (int i = entities - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+        for (int i = 0; i < entities; i++) {
+            int id = order[i];
+            grid.move(id, x + (i % 2 == 0 ? -1 : 1) * (id % 7), y + (i % 3 == 0 ? -1 : 1) * (id % 5));
+        }
+        int[] out = new int[entities];
+        assertEquals(entities, grid.query(x, y, TILE, out));
+        for (int i = 0; i < entities; i++) assertEquals(i, out[i]);
+    }
+
+    /** The tunnel mouths: positions past the left and right edges still meet those at the edge. */
+    @Test
+    void positionsPastTheEdgesMeetTheirNeighbours() {
+        CollisionGrid grid = new CollisionGrid(ROWS, COLS, 4);
+        int y = 14 * TILE;
+        grid.add(-TILE / 2, y);                      // half a tile into the left tunnel
+        grid.add(TILE / 4, y);                       // on the edge column
+        grid.add(COLS * TILE + TILE / 3, y);         // past the right edge
+        grid.add((COLS - 1) * TILE + TILE / 2, y);   // on the last column
+        int[] out = new int[4];
+        assertEquals(2, grid.query(-TILE / 4, y, TILE, out));
+        assertArrayEquals(new int[] {0, 1}, Arrays.copyOf(out, 2));
+        assertEquals(2, grid.query(COLS * TILE, y, TILE, out));
+        assertArrayEquals(new int[] {2, 3}, Arrays.copyOf(out, 2));
+        // Far out in the tunnel, clamped into the same edge cell but not overlapping
+        assertEquals(0, grid.query(-3 * TILE, y, TILE, out));
+    }
+
+    @Test
+    void rejectsExtentsLargerThanATileAndOverfilling() {
+        CollisionGrid grid = new CollisionGrid(ROWS, COLS, 2);
+        grid.add(0, 0);
+        grid.add(TILE, TILE);
+        int[] out = new int[2];
+        assertThrows(IllegalArgumentException.class, () -> grid.query(0, 0, TILE + 1, out));
+        assertEquals(2, grid.query(TILE / 2, TILE / 2, TILE, out));
+        assertThrows(IllegalStateException.class, () -> grid.add(0, 0));
+    }
+}
@@ -0,0 +1,79 @@
+package pacman.game;
+
+import org.junit.jupiter.api.Test;
+import pacman.utils.Constants;
+import pacman.utils.Direction;
+import pacman.utils.Rng;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The per-frame path of {@link GameController#update()} must not allocate:
+ * ghost decisions, pellet collection and the collision broadphase all run on
+ * preallocated state. Counted with the JVM's per-thread allocation counter.
+ */
+class GameControllerAllocationTest {
+
+    private static final int WARMUP_GAMES = 200;
+    private static final int MEASURED_TICKS = 20_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void updateDoesNotAllocate() {
+        assertTrue(THREADS.isThreadAllocatedMemorySupported(), "allocation counter unavailable");
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        // Warm up so the measured ticks run compiled code, as they do in play
+        for (int seed = 0; seed < WARMUP_GAMES; seed++) play(seed, 5_000);
+
+        // Everything the measured loop touches is created up front
+        Direction[] inputs = inputs(7, MEASURED_TICKS);
+        GameController game = new GameController(7, LevelPack.CLASSIC, 8);
+        game.startGame();
+        long overhead = allocatedSince(THREADS.getCurrentThreadAllocatedBytes());
+
+        // Deaths, level clears and restarts reuse the same entities and maze
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        int games = 1;
+        for (int t = 0; t < MEASURED_TICKS; t++) {
+            if (game.state == GameController.State.GAME_OVER) {
+                game.startGame();
+                games++;
+            }
+            if (inputs[t] != Direction.NONE) game.setDirection(inputs[t]);
+            game.update();
+        }
+        long allocated = allocatedSince(before) - overhead;
+
+        assertEquals(0, allocated, "bytes allocated over " + MEASURED_TICKS + " ticks in " + games + " games");
+    }
+
+    private static long allocatedSince(long before) {
+        return THREADS.getCurrentThreadAllocatedBytes() - before;
+    }
+
+    private static void play(long seed, int maxTicks) {
+        Direction[] inputs = inputs(seed, maxTicks);
+        GameController game = new GameController(seed, LevelPack.CLASSIC, 8);
+        game.startGame();
+        for (int t = 0; t < maxTicks && game.state != GameController.State.GAME_OVER; t++) {
+            if (inputs[t] != Direction.NONE) game.setDirection(inputs[t]);
+            game.update();
+        }
+    }
+
+    /** A random turn about once per tile, like {@link Policy#randomTurns(long)}. */
+    private static Direction[] inputs(long seed, int ticks) {
+        Rng rng = new Rng(seed);
+        Direction[] inputs = new Direction[ticks];
+        for (int t = 0; t < ticks; t++) {
+            inputs[t] = t % Constants.PACMAN_FRAMES_PER_TILE == 0 ? Direction.MOVES[rng.nextInt(4)] : Direction.NONE;
+        }
+        return inputs;
+    }
+}
@@ -0,0 +1,166 @@
+package pacman.game;
+
+import org.junit.jupiter.api.Test;
+import pacman.entities.PacMan;
+import pacman.utils.Direction;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class GameSnapshotCodecTest {
+
+    private static final int GHOSTS = 4;
+
+    /** Frames of one seeded game played with random turns, one per tick. */
+    private static GameSnapshot[] play(long seed, int ticks) {
+        Simulation sim = new Simulation(seed);
+        Policy policy = Policy.randomTurns(seed);
+        sim.start();
+        GameSnapshot[] frames = new GameSnapshot[ticks];
+        for (int t = 0; t < ticks; t++) {
+            if (sim.isGameOver()) sim.start();
+            Direction d = policy.decide(sim.getController());
+            if (d != Direction.NONE) sim.setDirection(d);
+            sim.step();
+            frames[t] = new GameSnapshot(GHOSTS);
+            frames[t].capture(sim.getController());
+        }
+        return frames;
+    }
+
+    private static ByteBuffer encode(GameSnapshot frame, GameSnapshot base) {
+        ByteBuffer out = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+        frame.writeDelta(base, out);
+        return out.flip();
+    }
+
+    @Test
+    void keyframesRoundTrip() {
+        GameController mirror = new GameController(0);
+        for (GameSnapshot frame : play(1, 3_000)) {
+            GameSnapshot decoded = new GameSnapshot(GHOSTS);
+            ByteBuffer bytes = encode(frame, null);
+            decoded.readDelta(null, Maze.CLASSIC, bytes);
+            assertEquals(0, bytes.remaining());
+            assertEquals(frame.contentHash(), decoded.contentHash());
+
+            // What a client renders is what the server had
+            decoded.restore(mirror);
+            GameSnapshot again = new GameSnapshot(GHOSTS);
+            again.capture(mirror);
+            assertEquals(frame.contentHash(), again.contentHash());
+        }
+    }
+
+    /** A chain of deltas, each against the previously decoded frame, decoded in place as spectators do. */
+    @Test
+    void deltaChainsRoundTripInPlace() {
+        GameSnapshot[] frames = play(2, 5_000);
+        GameSnapshot held = new GameSnapshot(GHOSTS);
+        held.readDelta(null, Maze.CLASSIC, encode(frames[0], null));
+        long deltaBytes = 0, keyframeBytes = 0;
+        for (int t = 1; t < frames.length; t++) {
+            ByteBuffer delta = encode(frames[t], frames[t - 1]);
+            deltaBytes += delta.remaining();
+            keyframeBytes += encode(frames[t], null).remaining();
+            held.readDelta(held, Maze.CLASSIC, delta);
+            assertEquals(frames[t].contentHash(), held.contentHash(), "tick " + t);
+        }
+        assertTrue(deltaBytes * 4 < keyframeBytes, deltaBytes + " delta bytes vs " + keyframeBytes + " keyframe bytes");
+    }
+
+    /** Clients decode against whichever older frame the server last heard they hold. */
+    @Test
+    void deltasAgainstOlderBases() {
+        GameSnapshot[] frames = play(3, 1_000);
+        for (int gap : new int[] { 1, 5, 63 }) {
+            for (int t = gap; t < frames.length; t += 7) {
+                GameSnapshot decoded = new GameSnapshot(GHOSTS);
+                decoded.readDelta(frames[t - gap], Maze.CLASSIC, encode(frames[t], frames[t - gap]));
+                assertEquals(frames[t].contentHash(), decoded.contentHash());
+            }
+        }
+    }
+
+    @Test
+    void rejectsAnotherShape() {
+        ByteBuffer bytes = encode(play(4, 1)[0], null);
+        assertThrows(IllegalArgumentException.class, () -> new GameSnapshot(GHOSTS + 1).readDelta(null, Maze.CLASSIC, bytes));
+        Maze larger = new MazeGenerator(35, 33).generate(1);
+        assertThrows(IllegalArgumentException.class, () -> new GameSnapshot(GHOSTS).readDelta(null, larger, bytes.rewind()));
+    }
+
+    @Test
+    void rejectsTruncatedPackets() {
+        GameSnapshot[] frames = play(5, 10);
+        ByteBuffer full = encode(frames[9], frames[8]);
+        for (int n = 0; n < full.limit(); n++) {
+            ByteBuffer prefix = full.duplicate().order(ByteOrder.LITTLE_ENDIAN).limit(n).position(0);
+            GameSnapshot decoded = new GameSnapshot(GHOSTS);
+            decoded.copyFrom(frames[8]);
+            try {
+                decoded.readDelta(frames[8], Maze.CLASSIC, prefix);
+                fail("decoded " + n + " of " + full.limit() + " bytes");
+            } catch (BufferUnderflowException | IllegalArgumentException expected) {
+                // Past the size header the snapshot has been written to, and refuses to restore
+                if (n >= 4) assertThrows(IllegalStateException.class, () -> decoded.restore(new GameController(0)));
+            }
+        }
+    }
+
+    /** Values that would index past an enum or sprite table are refused even when the hash would match. */
+    @Test
+    void rejectsOutOfRangeFields() {
+        GameSnapshot frame = play(6, 200)[199];
+        int pacman = GameSnapshot.HEADER_INTS;
+        int ghost = pacman + PacMan.STATE_INTS;
+        int[][] corruptions = {
+            { 0, GameController.State.values().length }, { 0, -1 },
+            { pacman + 4, Direction.values().length }, { pacman + 5, -1 }, { pacman + 6, 3 },
+            { ghost + 4, 7 }, { ghost + 9, -1 },
+        };
+        for (int[] c : corruptions) {
+            GameSnapshot bad = new GameSnapshot(GHOSTS);
+            bad.copyFrom(frame);
+            bad.ints()[c[0]] = c[1];
+            ByteBuffer bytes = encode(bad, frame);
+            GameSnapshot decoded = new GameSnapshot(GHOSTS);
+            assertThrows(IllegalArgumentException.class, () -> decoded.readDelta(frame, Maze.CLASSIC, bytes),
+                    "int " + c[0] + " = " + c[1]);
+            assertThrows(IllegalStateException.class, () -> decoded.restore(new GameController(0)));
+        }
+    }
+
+    /**
+     * Any single flipped bit either fails to decode with the exceptions the
+     * network code handles, or decodes to something that restores cleanly
+     * (the sender's hash then decides whether it is kept).
+     */
+    @Test
+    void survivesBitFlips() {
+        GameSnapshot[] frames = play(7, 400);
+        ByteBuffer clean = encode(frames[399], frames[398]);
+        byte[] bytes = new byte[clean.remaining()];
+        clean.get(bytes);
+        GameController mirror = new GameController(0);
+        for (int i = 0; i < bytes.length; i++) {
+            for (int bit = 0; bit < 8; bit++) {
+                byte[] corrupt = bytes.clone();
+                corrupt[i] ^= 1 << bit;
+                GameSnapshot decoded = new GameSnapshot(GHOSTS);
+                try {
+                    decoded.readDelta(frames[398], Maze.CLASSIC, ByteBuffer.wrap(corrupt).order(ByteOrder.LITTLE_ENDIAN));
+                } catch (BufferUnderflowException | IllegalArgumentException rejected) {
+                    continue;
+                }
+                decoded.restore(mirror);
+            }
+        }
+    }
+}
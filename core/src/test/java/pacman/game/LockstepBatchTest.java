@@ -0,0 +1,189 @@
+package pacman.game;
+
+import org.junit.jupiter.api.Test;
+import pacman.entities.Ghost;
+import pacman.utils.Direction;
+import pacman.utils.Motion;
+import pacman.utils.Rng;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class LockstepBatchTest {
+
+    private static final int GHOSTS = 4, GAMES = 16, TICKS = 6_000;
+
+    /**
+     * Every other game starts with most of its pellets already eaten and is
+     * steered at the nearest one left: some keep only the few pellets by
+     * PacMan's start, so levels get cleared, the others keep the power
+     * pellets, so ghosts get frightened and eaten. The rest turn at random
+     * and mostly die.
+     */
+    @Test
+    void matchesControllersFrameByFrame() {
+        long[] seeds = new long[GAMES];
+        for (int i = 0; i < GAMES; i++) seeds[i] = 1_000 + 17L * i;
+        LockstepBatch batch = new LockstepBatch(Maze.CLASSIC, seeds, GHOSTS);
+        GameController[] games = new GameController[GAMES];
+        GameSnapshot expected = new GameSnapshot(GHOSTS), actual = new GameSnapshot(GHOSTS);
+        for (int i = 0; i < GAMES; i++) {
+            games[i] = new GameController(seeds[i], LevelPack.CLASSIC, GHOSTS);
+            start(games[i], batch, i, expected);
+        }
+
+        Rng input = new Rng(5);
+        int deaths = 0, clears = 0, frightenedFrames = 0, restarts = 0;
+        for (int t = 0; t < TICKS; t++) {
+            for (int i = 0; i < GAMES; i++) {
+                GameController c = games[i];
+                if (c.state == GameController.State.GAME_OVER) {
+                    assertTrue(batch.isGameOver(i));
+                    start(c, batch, i, expected);
+                    restarts++;
+                }
+                Direction d = i % 2 == 1 && input.nextInt(8) != 0 ? towardsPellet(c) : randomTurn(input);
+                if (d != Direction.NONE) {
+                    c.setDirection(d);
+                    batch.setDirection(i, d);
+                }
+            }
+            batch.update();
+            for (int i = 0; i < GAMES; i++) {
+                GameController c = games[i];
+                GameController.State before = c.state;
+                c.update();
+                if (c.state != before && c.state == GameController.State.DYING) deaths++;
+                if (c.state != before && c.state == GameController.State.LEVEL_CLEAR) clears++;
+                for (Ghost g : c.ghosts) if (g.frightened) frightenedFrames++;
+
+                expected.capture(c);
+                batch.capture(i, actual);
+                if (expected.contentHash() != actual.contentHash()) {
+                    fail("game " + i + " tick " + t + " differs:\n  controller " + Arrays.toString(expected.ints())
+                            + "\n  batch      " + Arrays.toString(actual.ints())
+                            + "\n  cleared equal " + Arrays.equals(expected.cleared(), actual.cleared()));
+                }
+                assertEquals(c.state, batch.getState(i));
+                assertEquals(c.score, batch.getScore(i));
+                assertEquals(c.getRngState(), batch.getRngState(i));
+            }
+        }
+        assertTrue(deaths > GAMES, "deaths " + deaths);
+        assertTrue(clears >= GAMES / 4, "level clears " + clears);
+        assertTrue(frightenedFrames > 1_000, "frightened ghost frames " + frightenedFrames);
+        assertTrue(restarts > 0, "restarts " + restarts);
+    }
+
+    @Test
+    void snapshotsMoveBetweenBatchAndController() {
+        long[] seeds = {3, 4};
+        LockstepBatch batch = new LockstepBatch(Maze.CLASSIC, seeds, GHOSTS);
+        batch.start(0);
+        batch.start(1);
+        Rng input = new Rng(9);
+        for (int t = 0; t < 500; t++) {
+            Direction d = randomTurn(input);
+            if (d != Direction.NONE) batch.setDirection(0, d);
+            batch.update();
+        }
+        GameSnapshot snapshot = new GameSnapshot(GHOSTS), back = new GameSnapshot(GHOSTS);
+        batch.capture(0, snapshot);
+        GameController c = new GameController(0, LevelPack.CLASSIC, GHOSTS);
+        snapshot.restore(c);
+        back.capture(c);
+        assertEquals(snapshot.contentHash(), back.contentHash());
+
+        // Game 1 takes over game 0's position and both carry on alike
+        batch.restore(1, snapshot);
+        for (int t = 0; t < 500; t++) {
+            batch.update();
+            c.update();
+            batch.capture(1, back);
+            snapshot.capture(c);
+            assertEquals(snapshot.contentHash(), back.contentHash(), "tick " + t);
+        }
+    }
+
+    @Test
+    void rejectsSnapshotsOfAnotherShape() {
+        LockstepBatch batch = new LockstepBatch(Maze.CLASSIC, new long[] {1}, GHOSTS);
+        GameController other = new GameController(1, LevelPack.CLASSIC, GHOSTS + 1);
+        GameSnapshot wrongGhosts = new GameSnapshot(GHOSTS + 1);
+        wrongGhosts.capture(other);
+        assertThrows(IllegalArgumentException.class, () -> batch.restore(0, wrongGhosts));
+
+        Maze generated = new MazeGenerator(35, 33).generate(2);
+        GameController elsewhere = new GameController(1, level -> generated, GHOSTS);
+        elsewhere.startGame();
+        GameSnapshot wrongMaze = new GameSnapshot(GHOSTS);
+        wrongMaze.capture(elsewhere);
+        assertThrows(IllegalArgumentException.class, () -> batch.restore(0, wrongMaze));
+    }
+
+    /** Starts game {@code i} on both sides; odd games go to the batch through a snapshot, thinned. */
+    private static void start(GameController c, LockstepBatch batch, int i, GameSnapshot scratch) {
+        c.startGame();
+        batch.start(i);
+        if (i % 2 == 1) {
+            thin(c, i % 4 == 1);
+            scratch.capture(c);
+            batch.restore(i, scratch);
+        }
+    }
+
+    /**
+     * Eats every pellet more than a few tiles from PacMan's start or, with
+     * {@code keepPower}, every pellet but each tenth and the power pellets.
+     */
+    private static void thin(GameController game, boolean keepPower) {
+        GameMap map = game.map;
+        MazeDistances distances = map.getDistances();
+        int row = Motion.tileOf(game.pacman.y), col = Motion.tileOf(game.pacman.x);
+        int n = 0;
+        for (int r = 0; r < map.getRows(); r++) {
+            for (int c = 0; c < map.getCols(); c++) {
+                int t = map.getTile(r, c);
+                boolean eat = keepPower ? t == GameMap.PELLET && n++ % 10 != 0
+                        : (t == GameMap.PELLET || t == GameMap.POWER_PELLET) && distances.distance(row, col, r, c) > 4;
+                if (eat) map.setTile(r, c, GameMap.EMPTY);
+            }
+        }
+    }
+
+    private static Direction randomTurn(Rng input) {
+        return input.nextInt(12) == 0 ? Direction.MOVES[input.nextInt(4)] : Direction.NONE;
+    }
+
+    /**
+     * The open move from PacMan's tile whose neighbour is closest to a pellet;
+     * NONE between tiles, where turning back would undo the last choice.
+     */
+    private static Direction towardsPellet(GameController c) {
+        if (!Motion.aligned(c.pacman.x) || !Motion.aligned(c.pacman.y)) return Direction.NONE;
+        GameMap map = c.map;
+        int row = Motion.tileOf(c.pacman.y), col = map.wrapColumn(Motion.tileOf(c.pacman.x));
+        int exits = map.getExits(row, col);
+        MazeDistances distances = map.getDistances();
+        PelletIndex pellets = map.getPellets();
+        Direction best = Direction.NONE;
+        int bestDist = Integer.MAX_VALUE;
+        for (Direction d : Direction.MOVES) {
+            if ((exits & d.bit) == 0) continue;
+            int nr = row + d.dy, nc = map.wrapColumn(col + d.dx);
+            for (int i = pellets.remaining() - 1; i >= 0; i--) {
+                int p = pellets.get(i);
+                int dist = distances.distance(nr, nc, p / map.getCols(), p % map.getCols());
+                if (dist < bestDist) {
+                    bestDist = dist;
+                    best = d;
+                }
+            }
+        }
+        return best;
+    }
+}
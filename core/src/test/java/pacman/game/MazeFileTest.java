@@ -0,0 +1,213 @@
+package pacman.game;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pacman.utils.Direction;
+import pacman.utils.Rng;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static pacman.game.MazeGeneratorTest.assertSameMaze;
+
+class MazeFileTest {
+
+    /** Header fields: magic, version, then six shorts from rows to exitCol, then the spawn count. */
+    private static final int ROWS = 6, PACMAN_COL = 12, DOOR_ROW = 14, EXIT_COL = 16, SPAWNS = 18;
+
+    @TempDir
+    Path dir;
+
+    private static List<Maze> mazes() {
+        List<Maze> mazes = new ArrayList<>(List.of(Maze.CLASSIC));
+        MazeGenerator generator = new MazeGenerator(35, 33);
+        for (long seed = 0; seed < 10; seed++) mazes.add(generator.generate(seed));
+        return mazes;
+    }
+
+    private static byte[] bytes(Maze maze) {
+        ByteBuffer buf = MazeFile.encode(maze);
+        byte[] out = new byte[buf.remaining()];
+        buf.get(out);
+        return out;
+    }
+
+    /** Recomputes the trailing checksum, so damage gets past it to the field checks. */
+    private static ByteBuffer seal(byte[] bytes) {
+        ByteBuffer buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        buf.putInt(bytes.length - 4, (int) crc.getValue());
+        return buf;
+    }
+
+    @Test
+    void compiledMazesRoundTrip() throws IOException {
+        for (Maze maze : mazes()) {
+            Maze back = MazeFile.decode(MazeFile.encode(maze));
+            assertSameMaze(maze, back);
+            assertEquals(maze.name, back.name);
+
+            Path file = dir.resolve(maze.name + MazeFile.EXTENSION);
+            MazeFile.write(maze, file);
+            assertSameMaze(maze, MazeFile.read(file));
+        }
+    }
+
+    /** Spawn markers replace the tile under them, so only mazes with spawns on empty tiles survive text. */
+    @Test
+    void textMazesRoundTrip() throws IOException {
+        for (Maze maze : mazes().subList(1, 11)) {
+            List<String> text = MazeLoader.format(maze);
+            assertSameMaze(maze, MazeLoader.parse(maze.name, text));
+
+            Path source = dir.resolve(maze.name + ".txt");
+            Files.write(source, text, StandardCharsets.UTF_8);
+            Path compiled = MazeFile.compiledPath(source);
+            assertSameMaze(maze, MazeFile.compile(source, compiled));
+            assertSameMaze(maze, MazeFile.read(compiled));
+            assertSameMaze(maze, MazeCache.load(source));
+        }
+    }
+
+    @Test
+    void rejectsEveryTruncation() {
+        byte[] bytes = bytes(Maze.CLASSIC);
+        for (int n = 0; n < bytes.length; n++) {
+            ByteBuffer cut = ByteBuffer.wrap(bytes, 0, n);
+            assertThrows(IllegalArgumentException.class, () -> MazeFile.decode(cut), "cut at " + n);
+            if (n < 10) continue;
+            // Resealed, the cut gets past the checksum to the field decoding
+            byte[] copy = Arrays.copyOf(bytes, n);
+            assertThrows(IllegalArgumentException.class, () -> MazeFile.decode(seal(copy)), "sealed cut at " + n);
+        }
+    }
+
+    @Test
+    void rejectsBitFlips() {
+        byte[] bytes = bytes(Maze.CLASSIC);
+        for (int i = 0; i < bytes.length; i++) {
+            for (int bit = 0; bit < 8; bit++) {
+                byte[] copy = bytes.clone();
+                copy[i] ^= 1 << bit;
+                assertThrows(IllegalArgumentException.class, () -> MazeFile.decode(ByteBuffer.wrap(copy)),
+                        "byte " + i + " bit " + bit);
+            }
+        }
+    }
+
+    /** Damage with a valid checksum, as a buggy writer would produce: an exception, never a bad maze. */
+    @Test
+    void rejectsOutOfRangeFieldsBehindAGoodChecksum() {
+        byte[] bytes = bytes(Maze.CLASSIC);
+        int[][] fields = {
+                {ROWS, 0}, {ROWS, -1}, {ROWS, 300},
+                {PACMAN_COL, -1}, {PACMAN_COL, Maze.CLASSIC.cols},
+                {DOOR_ROW, 0}, {DOOR_ROW, -5}, {DOOR_ROW, Maze.CLASSIC.rows + 1},
+                {EXIT_COL, -1}, {EXIT_COL, Maze.CLASSIC.cols},
+                {SPAWNS, 0}, {SPAWNS, -1}, {SPAWNS, Short.MAX_VALUE},
+                {SPAWNS + 2, -1}, {SPAWNS + 2, Maze.MAX_TILES},
+        };
+        for (int[] f : fields) {
+            byte[] copy = bytes.clone();
+            ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN).putShort(f[0], (short) f[1]);
+            ByteBuffer sealed = seal(copy);
+            try {
+                Maze maze = MazeFile.decode(sealed);
+                fail("field at " + f[0] + " = " + f[1] + " decoded to " + maze);
+            } catch (IllegalArgumentException expected) {
+                // the only failure decode may report
+            }
+        }
+    }
+
+    /** Exit masks that lead off the grid or into a wall, stored under a good checksum. */
+    @Test
+    void rejectsExitsThatDisagreeWithTheTiles() throws IOException {
+        Maze maze = Maze.CLASSIC;
+        int n = maze.rows * maze.cols;
+        byte[] bytes = bytes(maze);
+        int adjacency = bytes.length - 4 - n;
+        int corner = 0;                                    // a wall in the top row
+        int corridor = maze.getPellet(0);                  // a corridor tile with a wall somewhere round it
+        int[][] damage = {
+                {corner, Direction.UP.bit},                      // off the top of the grid
+                {corner, Direction.LEFT.bit << 4},               // a ghost exit off the left edge
+                {corridor, ~maze.exits[corridor] & 0xF},         // into the walls next to it
+                {n - 1, Direction.DOWN.bit},                     // off the bottom
+        };
+        for (int[] d : damage) {
+            byte[] copy = bytes.clone();
+            copy[adjacency + d[0]] ^= (byte) d[1];
+            assertThrows(IllegalArgumentException.class, () -> MazeFile.decode(seal(copy)),
+                    "tile " + d[0] + " mask " + d[1]);
+            Path file = dir.resolve("exits" + MazeFile.EXTENSION);
+            Files.write(file, copy);
+            assertThrows(IOException.class, () -> MazeFile.read(file));
+        }
+    }
+
+    /** The distance table is quadratic in tiles, so layouts past its limit are refused on load. */
+    @Test
+    void rejectsLayoutsTooLargeForTheDistanceTable() {
+        List<String> text = new ArrayList<>(MazeLoader.format(Maze.CLASSIC));
+        while (text.size() * text.get(0).length() <= Maze.MAX_TILES) text.add(text.get(text.size() - 1));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> MazeLoader.parse("tall", text));
+        assertTrue(e.getMessage().contains("at most " + Maze.MAX_TILES + " tiles"), e.getMessage());
+    }
+
+    @Test
+    void readReportsCorruptFilesAsIOExceptions() throws IOException {
+        Path file = dir.resolve("bad" + MazeFile.EXTENSION);
+        byte[] bytes = bytes(Maze.CLASSIC);
+        bytes[bytes.length / 2] ^= 0x10;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> MazeFile.read(file));
+        Files.write(file, new byte[0]);
+        assertThrows(IOException.class, () -> MazeFile.read(file));
+    }
+
+    /** Randomly edited text either parses to a maze the generator's loader rules accept or fails with a message. */
+    @Test
+    void damagedTextFailsCleanly() {
+        List<String> text = MazeLoader.format(new MazeGenerator().generate(5));
+        String alphabet = "#.o-P123456789 x";
+        Rng rng = new Rng(1);
+        for (int trial = 0; trial < 2_000; trial++) {
+            List<String> lines = new ArrayList<>(text);
+            for (int edits = 1 + rng.nextInt(4); edits > 0; edits--) {
+                int row = rng.nextInt(lines.size());
+                StringBuilder line = new StringBuilder(lines.get(row));
+                switch (rng.nextInt(4)) {
+                    case 0 -> line.setCharAt(rng.nextInt(line.length()), alphabet.charAt(rng.nextInt(alphabet.length())));
+                    case 1 -> line.setLength(rng.nextInt(line.length()));
+                    case 2 -> line.append(alphabet.charAt(rng.nextInt(alphabet.length())));
+                    default -> {
+                        lines.remove(row);
+                        continue;
+                    }
+                }
+                lines.set(row, line.toString());
+            }
+            try {
+                Maze maze = MazeLoader.parse("damaged", lines);
+                MazeLoader.validate(maze);
+                assertSameMaze(maze, MazeFile.decode(MazeFile.encode(maze)));
+            } catch (IllegalArgumentException expected) {
+                // rejected with a message
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package pacman.game;
+
+import org.junit.jupiter.api.Test;
+import pacman.utils.Direction;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MazeGeneratorTest {
+
+    static void assertSameMaze(Maze expected, Maze actual) {
+        assertEquals(expected.rows, actual.rows);
+        assertEquals(expected.cols, actual.cols);
+        assertEquals(expected.pacmanRow, actual.pacmanRow);
+        assertEquals(expected.pacmanCol, actual.pacmanCol);
+        assertEquals(expected.doorRow, actual.doorRow);
+        assertEquals(expected.exitCol, actual.exitCol);
+        assertEquals(expected.getGhostSpawnCount(), actual.getGhostSpawnCount());
+        for (int g = 0; g < expected.getGhostSpawnCount(); g++) {
+            assertEquals(expected.getGhostSpawnRow(g), actual.getGhostSpawnRow(g));
+            assertEquals(expected.getGhostSpawnCol(g), actual.getGhostSpawnCol(g));
+        }
+        assertArrayEquals(expected.tiles, actual.tiles);
+        assertArrayEquals(expected.exits, actual.exits);
+        assertArrayEquals(expected.ghostExits, actual.ghostExits);
+        assertArrayEquals(expected.pellets, actual.pellets);
+    }
+
+    @Test
+    void seedsAreReproducible() {
+        MazeGenerator a = new MazeGenerator(), b = new MazeGenerator();
+        for (long seed = 0; seed < 50; seed++) assertSameMaze(a.generate(seed), b.generate(seed));
+        assertNotEquals(Arrays.toString(a.generate(1).tiles), Arrays.toString(a.generate(2).tiles));
+    }
+
+    @Test
+    void parallelGenerationMatchesSequential() {
+        MazeGenerator generator = new MazeGenerator(27, 29);
+        long[] seeds = new long[200];
+        for (int i = 0; i < seeds.length; i++) seeds[i] = 7_919L * i - 100;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Maze[] mazes = generator.generate(seeds, pool);
+            for (int i = 0; i < seeds.length; i++) assertSameMaze(new MazeGenerator(27, 29).generate(seeds[i]), mazes[i]);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(seeds.length, generator.getGenerated());
+        assertTrue(generator.getAttempts() >= generator.getGenerated());
+    }
+
+    @Test
+    void mazesKeepTheirPromises() {
+        for (int[] size : new int[][] {{19, 17}, {31, 29}, {35, 33}, {Maze.CLASSIC.rows, Maze.CLASSIC.cols}}) {
+            MazeGenerator generator = new MazeGenerator(size[0], size[1]);
+            for (long seed = 0; seed < 40; seed++) {
+                Maze maze = generator.generate(seed);
+                generator.validate(maze);
+                assertEquals(size[0], maze.rows);
+                assertEquals(size[1], maze.cols);
+                int pellets = maze.getPelletCount();
+                assertTrue(pellets >= generator.minPellets && pellets <= generator.maxPellets, "pellets " + pellets);
+                assertTrue(maze.isTunnelRow(maze.rows / 2), "no tunnel through the house row");
+                // Playable end to end: every pellet is a finite distance from PacMan
+                MazeDistances distances = maze.getDistances();
+                for (int i = 0; i < pellets; i++) {
+                    int p = maze.getPellet(i);
+                    assertTrue(distances.distance(maze.pacmanRow, maze.pacmanCol, p / maze.cols, p % maze.cols)
+                            < MazeDistances.UNREACHABLE, "pellet " + p);
+                }
+            }
+        }
+    }
+
+    /** The largest layout the distance table allows comes with its table already built. */
+    @Test
+    void largestSupportedMazeHasDistances() {
+        Maze maze = new MazeGenerator(67, 61).generate(9);
+        assertTrue(maze.rows * maze.cols <= Maze.MAX_TILES);
+        MazeDistances distances = maze.getDistances();
+        int far = maze.getPellet(maze.getPelletCount() - 1);
+        assertTrue(distances.distance(maze.pacmanRow, maze.pacmanCol, far / maze.cols, far % maze.cols) > 0);
+        assertTrue(distances.distance(maze.pacmanRow, maze.pacmanCol, far / maze.cols, far % maze.cols)
+                < MazeDistances.UNREACHABLE);
+    }
+
+    @Test
+    void generatedMazesPlay() {
+        Maze maze = new MazeGenerator().generate(42);
+        GameController game = new GameController(42, level -> maze, 4);
+        game.startGame();
+        for (int t = 0; t < 3_000 && game.state != GameController.State.GAME_OVER; t++) {
+            if (t % 30 == 0) game.setDirection(Direction.MOVES[(t / 30) % 4]);
+            game.update();
+        }
+        assertTrue(game.score > 0);
+    }
+
+    @Test
+    void rejectsUnsupportedSizesAndBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new MazeGenerator(15, 17));
+        assertThrows(IllegalArgumentException.class, () -> new MazeGenerator(20, 17));
+        assertThrows(IllegalArgumentException.class, () -> new MazeGenerator(19, 18));
+        assertThrows(IllegalArgumentException.class, () -> new MazeGenerator(199, 197));
+        assertThrows(IllegalArgumentException.class, () -> new MazeGenerator(71, 61));   // past Maze.MAX_TILES
+        assertThrows(IllegalArgumentException.class, () -> new MazeGenerator(19, 17, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new MazeGenerator(19, 17, 10, 9));
+        // Bounds no layout can meet
+        assertThrows(IllegalStateException.class, () -> new MazeGenerator(19, 17, 1, 2).generate(1));
+    }
+
+    @Test
+    void validationCatchesBrokenLayouts() {
+        MazeGenerator generator = new MazeGenerator();
+        Maze maze = generator.generate(3);
+        int rows = maze.rows, cols = maze.cols;
+
+        // A wall on one side only
+        byte[] lopsided = maze.tiles.clone();
+        int corridor = firstCorridorTile(maze);
+        lopsided[corridor] = GameMap.WALL;
+        assertThrows(IllegalArgumentException.class, () -> generator.validate(rebuild(maze, lopsided)));
+
+        // Walls either side of a corridor tile, mirrored, leave a dead end or an unreachable tile
+        byte[] blocked = maze.tiles.clone();
+        int r = corridor / cols, c = corridor % cols;
+        for (int cc : new int[] {c, cols - 1 - c}) blocked[r * cols + cc] = GameMap.WALL;
+        assertThrows(IllegalArgumentException.class, () -> generator.validate(rebuild(maze, blocked)));
+
+        // Too few pellets for the bounds
+        MazeGenerator strict = new MazeGenerator(rows, cols, maze.getPelletCount() + 1, rows * cols);
+        assertThrows(IllegalArgumentException.class, () -> strict.validate(maze));
+    }
+
+    /** A pellet tile left of the middle column whose mirror is also a pellet. */
+    private static int firstCorridorTile(Maze maze) {
+        for (int i = 0; i < maze.getPelletCount(); i++) {
+            int p = maze.getPellet(i);
+            int r = p / maze.cols, c = p % maze.cols;
+            if (c < maze.cols / 2 && r != maze.rows / 2 && maze.getTile(r, maze.cols - 1 - c) == GameMap.PELLET) return p;
+        }
+        throw new AssertionError("no pellet");
+    }
+
+    private static Maze rebuild(Maze maze, byte[] tiles) {
+        short[] spawns = new short[maze.getGhostSpawnCount()];
+        for (int g = 0; g < spawns.length; g++) {
+            spawns[g] = (short) (maze.getGhostSpawnRow(g) * maze.cols + maze.getGhostSpawnCol(g));
+        }
+        return new Maze(maze.name, maze.rows, maze.cols, tiles, maze.pacmanRow, maze.pacmanCol, spawns,
+                maze.doorRow, maze.exitCol);
+    }
+}
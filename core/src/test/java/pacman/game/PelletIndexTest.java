@@ -0,0 +1,167 @@
+package pacman.game;
+
+import org.junit.jupiter.api.Test;
+import pacman.utils.Rng;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class PelletIndexTest {
+
+    /** The classic layout and generated ones whose sides are not whole buckets. */
+    private static List<Maze> mazes() {
+        return List.of(Maze.CLASSIC, new MazeGenerator(19, 17).generate(1), new MazeGenerator(35, 33).generate(2));
+    }
+
+    /** Manhattan distance from a tile to the closest pellet in {@code model}, or -1 if there is none. */
+    private static int bruteForce(Maze maze, boolean[] model, int row, int col) {
+        int best = -1;
+        for (int tile = 0; tile < model.length; tile++) {
+            if (!model[tile]) continue;
+            int d = Math.abs(tile / maze.cols - row) + Math.abs(tile % maze.cols - col);
+            if (best < 0 || d < best) best = d;
+        }
+        return best;
+    }
+
+    /** The index holds exactly the pellets in {@code model}, and its slot table agrees with its list. */
+    private static void assertHolds(PelletIndex index, boolean[] model) {
+        int expected = 0;
+        for (int tile = 0; tile < model.length; tile++) {
+            if (model[tile]) expected++;
+            if (index.contains(tile) != model[tile]) fail("tile " + tile + " contained " + index.contains(tile));
+        }
+        assertEquals(expected, index.remaining());
+        boolean[] listed = new boolean[model.length];
+        for (int i = 0; i < index.remaining(); i++) {
+            int tile = index.get(i);
+            if (!model[tile] || listed[tile]) fail("slot " + i + " holds tile " + tile);
+            listed[tile] = true;
+        }
+    }
+
+    private static boolean[] layout(Maze maze) {
+        boolean[] model = new boolean[maze.rows * maze.cols];
+        for (int i = 0; i < maze.getPelletCount(); i++) model[maze.getPellet(i)] = true;
+        return model;
+    }
+
+    /**
+     * Queries from every density, full board to empty, and from beyond the
+     * edges, as tunnel positions clamp to them: the answer is always a
+     * remaining pellet at the brute-force minimum distance. Ties may pick
+     * either pellet, so distances are compared rather than tiles.
+     */
+    @Test
+    void nearestMatchesBruteForce() {
+        Rng rng = new Rng(13);
+        int queries = 0;
+        for (Maze maze : mazes()) {
+            PelletIndex index = new PelletIndex(maze);
+            for (int round = 0; round < 4; round++) {
+                index.reset();
+                boolean[] model = layout(maze);
+                int left = maze.getPelletCount();
+                while (true) {
+                    for (int q = 0; q < 50; q++, queries++) {
+                        int row = rng.nextInt(maze.rows + 6) - 3, col = rng.nextInt(maze.cols + 6) - 3;
+                        int expected = bruteForce(maze, model, row, col);
+                        int tile = index.nearest(row, col);
+                        if (expected < 0) {
+                            assertEquals(-1, tile);
+                            continue;
+                        }
+                        assertTrue(tile >= 0 && model[tile], "returned tile " + tile + " has no pellet");
+                        int d = Math.abs(tile / maze.cols - row) + Math.abs(tile % maze.cols - col);
+                        if (d != expected) fail(maze.name + " at " + row + "," + col + " with " + left
+                                + " left: distance " + d + ", expected " + expected);
+                    }
+                    if (left == 0) break;
+                    // Eat a few pellets at random, and now and then put one back
+                    for (int k = 1 + rng.nextInt(4); k > 0 && left > 0; k--) {
+                        int tile = index.get(rng.nextInt(index.remaining()));
+                        assertTrue(index.remove(tile));
+                        model[tile] = false;
+                        left--;
+                    }
+                    if (rng.nextInt(5) == 0) {
+                        int tile = maze.getPellet(rng.nextInt(maze.getPelletCount()));
+                        assertEquals(!model[tile], index.add(tile));
+                        if (!model[tile]) left++;
+                        model[tile] = true;
+                    }
+                }
+            }
+        }
+        assertTrue(queries > 40_000, "queries " + queries);
+    }
+
+    /** A lone pellet far from the query, so the ring scan must run to the edge of the grid. */
+    @Test
+    void findsALonePelletAcrossTheMaze() {
+        Maze maze = Maze.CLASSIC;
+        PelletIndex index = new PelletIndex(maze);
+        for (int last = 0; last < maze.getPelletCount(); last += 7) {
+            index.reset();
+            int keep = maze.getPellet(last);
+            for (int i = 0; i < maze.getPelletCount(); i++) if (i != last) index.remove(maze.getPellet(i));
+            assertEquals(1, index.remaining());
+            for (int[] corner : new int[][] {{0, 0}, {0, maze.cols - 1}, {maze.rows - 1, 0}, {maze.rows - 1, maze.cols - 1}}) {
+                assertEquals(keep, index.nearest(corner[0], corner[1]));
+            }
+        }
+    }
+
+    @Test
+    void removeAddAndResetKeepTheListAndSlotsInStep() {
+        Rng rng = new Rng(21);
+        for (Maze maze : mazes()) {
+            PelletIndex index = new PelletIndex(maze);
+            boolean[] model = layout(maze);
+            assertHolds(index, model);
+            for (int op = 0; op < 3_000; op++) {
+                int tile = rng.nextInt(model.length);
+                switch (rng.nextInt(8)) {
+                    case 0, 1, 2 -> {
+                        // Any tile: only a remaining pellet is removed
+                        assertEquals(model[tile], index.remove(tile));
+                        model[tile] = false;
+                    }
+                    case 3, 4, 5 -> {
+                        // Remove a listed pellet, often not the last one, so the swap has work to do
+                        if (index.remaining() == 0) continue;
+                        int listed = index.get(rng.nextInt(index.remaining()));
+                        assertTrue(index.remove(listed));
+                        assertFalse(index.remove(listed));
+                        model[listed] = false;
+                    }
+                    case 6 -> {
+                        // Only layout pellets that are gone can come back
+                        boolean layoutPellet = layout(maze)[tile];
+                        assertEquals(layoutPellet && !model[tile], index.add(tile));
+                        if (layoutPellet) model[tile] = true;
+                    }
+                    default -> {
+                        if (rng.nextInt(20) != 0) continue;
+                        index.reset();
+                        model = layout(maze);
+                    }
+                }
+                assertHolds(index, model);
+            }
+
+            // Emptied and refilled out of order, then reset
+            for (int i = index.remaining() - 1; i >= 0; i--) assertTrue(index.remove(index.get(rng.nextInt(i + 1))));
+            assertEquals(0, index.remaining());
+            assertEquals(-1, index.nearest(maze.rows / 2, maze.cols / 2));
+            for (int i = maze.getPelletCount() - 1; i >= 0; i--) assertTrue(index.add(maze.getPellet(i)));
+            assertHolds(index, layout(maze));
+            index.reset();
+            assertHolds(index, layout(maze));
+        }
+    }
+}
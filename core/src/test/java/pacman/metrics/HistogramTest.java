@@ -0,0 +1,139 @@
+package pacman.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramTest {
+
+    /** Sub-buckets per power of two above the linear range; the documented error bound is one part in this. */
+    private static final int SUB = 32;
+    private static final int LAST_BUCKET = (64 - 5) * SUB - 1;
+
+    @Test
+    void smallValuesGetABucketEach() {
+        for (int v = 0; v < 2 * SUB; v++) {
+            assertEquals(v, Histogram.bucketOf(v));
+            assertEquals(v, Histogram.highestIn(v));
+        }
+        // 64 starts the first log-linear range, two values a bucket
+        assertEquals(64, Histogram.bucketOf(64));
+        assertEquals(64, Histogram.bucketOf(65));
+        assertEquals(65, Histogram.bucketOf(66));
+        assertEquals(65, Histogram.highestIn(64));
+        assertEquals(95, Histogram.bucketOf(127));
+        assertEquals(96, Histogram.bucketOf(128));
+        assertEquals(127, Histogram.highestIn(95));
+    }
+
+    @Test
+    void longMaxValueLandsInTheLastBucket() {
+        assertEquals(LAST_BUCKET, Histogram.bucketOf(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, Histogram.highestIn(LAST_BUCKET));
+        assertEquals(LAST_BUCKET, Histogram.bucketOf(Long.MAX_VALUE - Long.MAX_VALUE / SUB / 2));
+
+        Histogram h = new Histogram("max");
+        h.record(Long.MAX_VALUE);
+        h.record(1);
+        assertEquals(Long.MAX_VALUE, h.max());
+        assertEquals(Long.MAX_VALUE, h.percentile(100));
+        assertEquals(1, h.percentile(50));
+    }
+
+    /** Buckets tile the range: each starts one past where the previous ended, with no gaps or overlaps. */
+    @Test
+    void bucketsAreContiguous() {
+        for (int i = 1; i <= LAST_BUCKET; i++) {
+            long low = Histogram.highestIn(i - 1) + 1, high = Histogram.highestIn(i);
+            assertTrue(high >= low, "bucket " + i + " is empty");
+            assertEquals(i, Histogram.bucketOf(low), "lowest value of bucket " + i);
+            assertEquals(i, Histogram.bucketOf(high), "highest value of bucket " + i);
+        }
+        for (int s = 6; s < 63; s++) {
+            long p = 1L << s;
+            assertEquals(Histogram.bucketOf(p - 1) + 1, Histogram.bucketOf(p), "at 2^" + s);
+        }
+    }
+
+    /** Every value's bucket reaches at least up to it, and is no wider than the documented error. */
+    @Test
+    void bucketsBoundTheirValues() {
+        Random rng = new Random(15);
+        for (int k = 0; k < 200_000; k++) {
+            long v = rng.nextLong() >>> 1 + rng.nextInt(63);   // every magnitude up to Long.MAX_VALUE
+            int i = Histogram.bucketOf(v);
+            long high = Histogram.highestIn(i);
+            assertTrue(high >= v, v + " above its bucket's top " + high);
+            assertTrue(i == 0 || Histogram.highestIn(i - 1) < v, v + " belongs in an earlier bucket");
+            assertTrue(high - v <= v / SUB, v + " reported as " + high);
+        }
+    }
+
+    /** Reported percentiles are never below the exact ones, and at most 1/32 (about 3%) above. */
+    @Test
+    void percentilesAreWithinTheDocumentedError() {
+        Random rng = new Random(16);
+        for (int trial = 0; trial < 5; trial++) {
+            Histogram h = new Histogram("trial");
+            long[] values = new long[50_000];
+            for (int k = 0; k < values.length; k++) {
+                // Log-uniform over a span of magnitudes, like latencies in nanoseconds
+                values[k] = (long) Math.exp(rng.nextDouble() * (trial + 1) * 8);
+                h.record(values[k]);
+            }
+            long[] sorted = values.clone();
+            Arrays.sort(sorted);
+            assertEquals(values.length, h.count());
+            assertEquals(sorted[sorted.length - 1], h.max());
+            for (double p : new double[] {0.1, 1, 10, 25, 50, 75, 90, 99, 99.9, 99.99, 100}) {
+                long exact = sorted[(int) Math.ceil(p / 100 * sorted.length) - 1];
+                long reported = h.percentile(p);
+                assertTrue(reported >= exact && reported - exact <= exact / SUB,
+                        "p" + p + ": exact " + exact + ", reported " + reported);
+            }
+        }
+    }
+
+    @Test
+    void countsMeanNegativesAndReset() {
+        Histogram h = new Histogram("basics");
+        assertEquals(0, h.percentile(50));
+        assertEquals(0, h.mean());
+        h.record(-5);
+        h.record(10);
+        h.record(20);
+        assertEquals(3, h.count());
+        assertEquals(10, h.mean(), 1e-9);
+        assertEquals(0, h.percentile(1));
+        assertEquals(20, h.percentile(100));
+        Histogram.Summary s = h.summary();
+        assertEquals(3, s.getCount());
+        assertEquals(10, s.getP50());
+        assertEquals(20, s.getMax());
+        h.reset();
+        assertEquals(0, h.count());
+        assertEquals(0, h.max());
+        assertEquals(0, h.percentile(99));
+    }
+
+    @Test
+    void concurrentRecordingLosesNothing() throws InterruptedException {
+        Histogram h = new Histogram("threads");
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long base = t;
+            threads[t] = new Thread(() -> {
+                for (long k = 0; k < 250_000; k++) h.record(k % 1_000 + base);
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        assertEquals(1_000_000, h.count());
+        assertEquals(1_002, h.max());
+        assertEquals(499.5 + 1.5, h.mean(), 1e-9);   // mean of k % 1000, plus the mean base
+    }
+}
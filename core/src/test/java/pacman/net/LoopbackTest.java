@@ -0,0 +1,141 @@
+package pacman.net;
+
+import org.junit.jupiter.api.Test;
+import pacman.game.GameSnapshot;
+import pacman.game.Policy;
+import pacman.game.Simulation;
+import pacman.utils.Direction;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoopbackTest {
+
+    private static final PrintStream QUIET = new PrintStream(OutputStream.nullOutputStream());
+
+    @Test
+    void clientsKeepExactCopiesThroughLatencyAndLoss() throws Exception {
+        Loopback.Totals t = Loopback.run(6, new NetworkConditions(20, 4, 0.05, 7), 2, QUIET);
+        assertTrue(t.sent > 6 * 60, "server sent " + t.sent);
+        assertTrue(t.received > t.sent / 2, "received " + t.received + " of " + t.sent);
+        assertEquals(0, t.desyncs);
+        assertEquals(0, t.malformed);
+    }
+
+    @Test
+    void perfectLinkDeliversNearlyEverything() throws Exception {
+        Loopback.Totals t = Loopback.run(2, NetworkConditions.NONE, 1, QUIET);
+        assertTrue(t.received > t.sent * 9 / 10, "received " + t.received + " of " + t.sent);
+        assertTrue(t.keyframes < t.received / 10, "keyframes " + t.keyframes + " of " + t.received);
+        assertEquals(0, t.desyncs);
+    }
+
+    @Test
+    void junkDatagramsAreCountedAndIgnored() throws Exception {
+        try (MatchServer server = new MatchServer(new InetSocketAddress("127.0.0.1", 0), 1, NetworkConditions.NONE);
+             DatagramSocket junk = new DatagramSocket()) {
+            server.start();
+            InetSocketAddress address = server.getAddress();
+            // Each is cut off before the fields its type needs
+            byte[][] packets = {{}, {Protocol.JOIN, 1}, {Protocol.INPUT, 0, 0}, {(byte) 0x7f, 1, 2, 3}};
+            for (byte[] p : packets) junk.send(new DatagramPacket(p, p.length, address));
+            long deadline = System.nanoTime() + 2_000_000_000L;
+            while (server.getMalformedPackets() < packets.length && System.nanoTime() < deadline) Thread.sleep(5);
+            assertEquals(packets.length, server.getMalformedPackets());
+
+            try (MatchClient client = new MatchClient(address, NetworkConditions.NONE)) {
+                client.join(5_000);
+                deadline = System.nanoTime() + 2_000_000_000L;
+                while (client.getStatesReceived() < 10 && System.nanoTime() < deadline) {
+                    client.poll();
+                    Thread.sleep(5);
+                }
+                assertTrue(client.getStatesReceived() >= 10);
+                assertEquals(0, client.getDesyncs());
+            }
+        }
+    }
+
+    @Test
+    void spectatorsFollowTheFeedExactly() {
+        Simulation sim = new Simulation(11);
+        Policy policy = Policy.randomTurns(11);
+        sim.start();
+        SpectatorFeed feed = new SpectatorFeed(1, Protocol.GHOSTS, 64, 30);
+        SpectatorFeed.Cursor cursor = feed.subscribe();
+        Spectator viewer = new Spectator(Protocol.GHOSTS, sim.getController().map.getMaze());
+        GameSnapshot expected = new GameSnapshot(Protocol.GHOSTS);
+        GameSnapshot mirrored = new GameSnapshot(Protocol.GHOSTS);
+
+        for (int tick = 0; tick < 3_000; tick++) {
+            if (sim.isGameOver()) sim.start();
+            Direction d = policy.decide(sim.getController());
+            if (d != Direction.NONE) sim.setDirection(d);
+            sim.step();
+            feed.publish(sim.getController(), tick);
+
+            ByteBuffer frame = cursor.poll();
+            assertNotNull(frame, "frame " + tick);
+            assertTrue(viewer.apply(frame), "frame " + tick);
+            assertEquals(tick, viewer.getTick());
+            expected.capture(sim.getController());
+            mirrored.capture(viewer.getController());
+            assertEquals(expected.contentHash(), mirrored.contentHash(), "frame " + tick);
+        }
+        assertEquals(0, viewer.getGaps());
+        assertEquals(0, viewer.getDesyncs());
+        assertEquals(0, cursor.getSkips());
+    }
+
+    @Test
+    void corruptFramesAreDroppedUntilTheNextKeyframe() {
+        Simulation sim = new Simulation(12);
+        sim.start();
+        SpectatorFeed feed = new SpectatorFeed(1, Protocol.GHOSTS, 64, 30);
+        SpectatorFeed.Cursor cursor = feed.subscribe();
+        Spectator viewer = new Spectator(Protocol.GHOSTS, sim.getController().map.getMaze());
+        GameSnapshot expected = new GameSnapshot(Protocol.GHOSTS);
+        GameSnapshot mirrored = new GameSnapshot(Protocol.GHOSTS);
+
+        int corrupted = 45, rejoined = -1;
+        for (int tick = 0; tick < 120; tick++) {
+            sim.step();
+            feed.publish(sim.getController(), tick);
+            ByteBuffer frame = cursor.poll();
+            if (tick == corrupted) {
+                // Header is type, match, tick, base and hash; scramble the body after it
+                ByteBuffer copy = ByteBuffer.allocate(frame.remaining()).order(ByteOrder.LITTLE_ENDIAN);
+                copy.put(frame).flip();
+                for (int i = 17; i < copy.limit(); i++) copy.put(i, (byte) ~copy.get(i));
+                frame = copy;
+            }
+            boolean applied = viewer.apply(frame);
+            if (tick == corrupted) {
+                assertFalse(applied);
+                assertEquals(1, viewer.getDesyncs());
+            } else if (tick > corrupted && rejoined < 0) {
+                // Deltas cannot follow a dropped frame; the next keyframe is taken
+                if (applied) rejoined = tick;
+                else assertEquals(-1, viewer.getTick());
+            }
+            if (applied) {
+                expected.capture(sim.getController());
+                mirrored.capture(viewer.getController());
+                assertEquals(expected.contentHash(), mirrored.contentHash(), "frame " + tick);
+            }
+        }
+        assertEquals(60, rejoined);
+        assertEquals(1, viewer.getDesyncs());
+        assertTrue(viewer.getGaps() > 0);
+    }
+}
@@ -0,0 +1,145 @@
+package pacman.replay;
+
+import org.junit.jupiter.api.Test;
+import pacman.game.Policy;
+import pacman.game.Simulation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayTest {
+
+    /** Plays a seeded game with random turns to the end and returns its recording. */
+    static Replay record(long seed) {
+        List<Replay> out = new ArrayList<>();
+        Simulation sim = new Simulation(seed);
+        new ReplayRecorder(sim, out::add).attach();
+        sim.start();
+        sim.run(Policy.randomTurns(seed), 1_000_000);
+        assertEquals(1, out.size(), "game " + seed + " did not finish");
+        return out.get(0);
+    }
+
+    @Test
+    void roundTripsAndReproducesTheGame() throws IOException {
+        for (long seed = 0; seed < 20; seed++) {
+            Replay replay = record(seed);
+            Replay decoded = Replay.fromBytes(replay.toBytes());
+            assertEquals(replay, decoded);
+            assertTrue(ReplayPlayer.verify(decoded), "seed " + seed + " did not reproduce");
+        }
+    }
+
+    @Test
+    void verifiesInParallel() {
+        Replay[] replays = new Replay[16];
+        for (int i = 0; i < replays.length; i++) replays[i] = record(100 + i);
+        assertEquals(0, ReplayPlayer.verifyAll(replays, 4).length);
+    }
+
+    @Test
+    void detectsATamperedScore() {
+        Replay replay = record(3);
+        Replay forged = new Replay(replay.seed, ticks(replay), inputs(replay), replay.length,
+                replay.finalScore + 10, replay.finalLevel);
+        assertFalse(ReplayPlayer.verify(forged));
+    }
+
+    @Test
+    void rejectsEveryTruncation() {
+        byte[] bytes = record(5).toBytes();
+        for (int n = 0; n < bytes.length; n++) {
+            byte[] prefix = Arrays.copyOf(bytes, n);
+            assertThrows(IOException.class, () -> Replay.fromBytes(prefix), "prefix of " + n + " bytes");
+        }
+    }
+
+    @Test
+    void rejectsBadHeader() {
+        byte[] bytes = record(5).toBytes();
+        byte[] magic = bytes.clone();
+        magic[0] ^= 1;
+        assertThrows(IOException.class, () -> Replay.fromBytes(magic));
+        byte[] version = bytes.clone();
+        version[4]++;
+        assertThrows(IOException.class, () -> Replay.fromBytes(version));
+    }
+
+    /** A hostile count must fail on the missing events, not allocate for them up front. */
+    @Test
+    void rejectsACountLargerThanTheFile() throws IOException {
+        byte[] huge = header(Integer.MAX_VALUE);
+        assertThrows(IOException.class, () -> Replay.fromBytes(huge));
+        byte[] negative = header(-1);
+        assertThrows(IOException.class, () -> Replay.fromBytes(negative));
+    }
+
+    @Test
+    void rejectsUnknownInputs() throws IOException {
+        for (int input = Simulation.INPUT_PAUSE + 1; input < 8; input++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(header(1));
+            out.write((1 << 3) | input);
+            out.write(new byte[] { 10, 0, 1 });   // length, score, level
+            assertThrows(IOException.class, () -> Replay.fromBytes(out.toByteArray()), "input " + input);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new Replay(0, new int[] { 0 }, new byte[] { 6 }, 1, 0, 1));
+    }
+
+    /** Any single flipped bit either decodes to some replay or fails with an IOException. */
+    @Test
+    void survivesBitFlips() {
+        byte[] bytes = record(7).toBytes();
+        for (int i = 0; i < bytes.length; i++) {
+            for (int bit = 0; bit < 8; bit++) {
+                byte[] corrupt = bytes.clone();
+                corrupt[i] ^= 1 << bit;
+                try {
+                    Replay r = Replay.fromBytes(corrupt);
+                    for (int e = 0; e < r.eventCount(); e++) {
+                        assertTrue(r.inputAt(e) >= 0 && r.inputAt(e) <= Simulation.INPUT_PAUSE);
+                    }
+                } catch (IOException expected) {
+                    // rejected cleanly
+                }
+            }
+        }
+    }
+
+    /** Magic, version and seed followed by the varint {@code count} (-1 encodes as ten bytes). */
+    private static byte[] header(long count) throws IOException {
+        byte[] valid = new Replay(0, new int[0], new byte[0], 0, 0, 1).toBytes();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(valid, 0, 13);
+        DataOutputStream data = new DataOutputStream(out);
+        long v = count;
+        while ((v & ~0x7FL) != 0) {
+            data.writeByte((int) (v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        data.writeByte((int) v);
+        return out.toByteArray();
+    }
+
+    private static int[] ticks(Replay r) {
+        int[] ticks = new int[r.eventCount()];
+        for (int i = 0; i < ticks.length; i++) ticks[i] = r.tickAt(i);
+        return ticks;
+    }
+
+    private static byte[] inputs(Replay r) {
+        byte[] inputs = new byte[r.eventCount()];
+        for (int i = 0; i < inputs.length; i++) inputs[i] = (byte) r.inputAt(i);
+        return inputs;
+    }
+}
@@ -0,0 +1,256 @@
+package pacman.rl;
+
+import org.junit.jupiter.api.Test;
+import pacman.entities.Ghost;
+import pacman.game.GameController;
+import pacman.game.GameMap;
+import pacman.utils.Constants;
+import pacman.utils.Rng;
+
+import java.lang.management.ManagementFactory;
+import java.nio.FloatBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class VecEnvTest {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /** {@code steps} rows of random actions for {@code envs} games. */
+    private static int[][] actions(long seed, int steps, int envs) {
+        Rng rng = new Rng(seed);
+        int[][] out = new int[steps][envs];
+        for (int[] row : out) for (int e = 0; e < envs; e++) row[e] = rng.nextInt(VecEnv.ACTIONS);
+        return out;
+    }
+
+    /** Game {@code e}'s observation must describe its game as it stands. */
+    private static void assertObserves(VecEnv env, int e) {
+        GameController game = env.getGame(e);
+        GameMap map = game.map;
+        FloatBuffer obs = env.getObservations();
+        int rows = env.getRows(), cols = env.getCols(), plane = rows * cols;
+        int base = e * env.getObservationSize();
+        byte[] planeTiles = {GameMap.WALL, GameMap.PELLET, GameMap.POWER_PELLET, GameMap.DOOR};
+        for (int i = 0; i < plane; i++) {
+            int tile = map.getTile(i / cols, i % cols);
+            for (int k = 0; k < VecEnv.PLANES; k++) {
+                if (obs.get(base + k * plane + i) != (tile == planeTiles[k] ? 1f : 0f)) {
+                    fail("game " + e + " plane " + k + " tile " + i + " is " + obs.get(base + k * plane + i)
+                            + " for tile type " + tile);
+                }
+            }
+        }
+        float width = cols * Constants.TILE_UNITS, height = rows * Constants.TILE_UNITS;
+        int o = base + VecEnv.PLANES * plane;
+        assertEquals(game.pacman.x / width, obs.get(o), "game " + e);
+        assertEquals(game.pacman.y / height, obs.get(o + 1), "game " + e);
+        o += VecEnv.PACMAN_FEATURES;
+        for (Ghost g : game.ghosts) {
+            assertEquals(g.x / width, obs.get(o), "game " + e);
+            assertEquals(g.eaten ? 1f : 0f, obs.get(o + 6), "game " + e);
+            o += VecEnv.GHOST_FEATURES;
+        }
+        assertEquals(game.pacman.lives / 3f, obs.get(o), "game " + e);
+        assertEquals((float) map.getRemainingPellets() / map.getTotalPellets(), obs.get(o + 1), "game " + e);
+        assertEquals(game.level, obs.get(o + 2), "game " + e);
+    }
+
+    @Test
+    void threadCountDoesNotChangeResults() {
+        int envs = 7, steps = 3_000;
+        int[][] actions = actions(3, steps, envs);
+        int terminated = 0, truncated = 0;
+        try (VecEnv one = new VecEnv(envs, 4, 2, 100, 1, 400);
+             VecEnv three = new VecEnv(envs, 4, 2, 100, 3, 400)) {
+            assertEquals(one.getObservations(), three.getObservations());
+            for (int t = 0; t < steps; t++) {
+                one.step(actions[t]);
+                three.step(actions[t]);
+                assertEquals(one.getObservations(), three.getObservations(), "observations at step " + t);
+                assertEquals(one.getRewards(), three.getRewards(), "rewards at step " + t);
+                assertEquals(one.getDones(), three.getDones(), "dones at step " + t);
+                for (int e = 0; e < envs; e++) {
+                    if (one.getDones().get(e) == VecEnv.TERMINATED) terminated++;
+                    if (one.getDones().get(e) == VecEnv.TRUNCATED) truncated++;
+                }
+            }
+            assertEquals(one.getEpisodes(), three.getEpisodes());
+            assertEquals(one.getMeanReturn(), three.getMeanReturn());
+            assertEquals(terminated + truncated, one.getEpisodes());
+        }
+        assertTrue(terminated > 0, "games over " + terminated);
+        assertTrue(truncated > 0, "truncations " + truncated);
+    }
+
+    /**
+     * After every step each observation matches its game, done flags agree
+     * with the episode lengths and game overs, a finished game has been
+     * restarted, and rewards add up from score, deaths and levels.
+     */
+    @Test
+    void observationsDonesAndRewardsFollowTheGames() {
+        int envs = 5, steps = 2_000, cap = 250;
+        int[][] actions = actions(4, steps, envs);
+        int[] length = new int[envs], score = new int[envs], lives = new int[envs], level = new int[envs];
+        long episodes = 0;
+        try (VecEnv env = new VecEnv(envs, 4, 3, 7, 3, cap)) {
+            for (int e = 0; e < envs; e++) {
+                assertObserves(env, e);
+                assertEquals(VecEnv.RUNNING, env.getDones().get(e));
+                lives[e] = 3;
+                level[e] = 1;
+            }
+            for (int t = 0; t < steps; t++) {
+                env.step(actions[t]);
+                for (int e = 0; e < envs; e++) {
+                    GameController game = env.getGame(e);
+                    byte done = env.getDones().get(e);
+                    length[e]++;
+                    if (done == VecEnv.RUNNING) {
+                        assertTrue(length[e] < cap);
+                        float reward = game.score - score[e];
+                        if (game.pacman.lives < lives[e]) reward += VecEnv.DEATH_REWARD;
+                        if (game.level > level[e]) reward += VecEnv.LEVEL_REWARD;
+                        assertEquals(reward, env.getRewards().get(e), "game " + e + " step " + t);
+                    } else {
+                        // A game over on the capped step still counts as one
+                        if (done == VecEnv.TRUNCATED) assertEquals(cap, length[e], "game " + e + " step " + t);
+                        length[e] = 0;
+                        episodes++;
+                        assertEquals(0, game.score);
+                        assertEquals(1, game.level);
+                        assertEquals(3, game.pacman.lives);
+                    }
+                    assertEquals(GameController.State.PLAYING, game.state);
+                    assertObserves(env, e);
+                    score[e] = game.score;
+                    lives[e] = game.pacman.lives;
+                    level[e] = game.level;
+                }
+            }
+            assertEquals(episodes, env.getEpisodes());
+            assertTrue(episodes > envs, "episodes " + episodes);
+        }
+    }
+
+    @Test
+    void stepDoesNotAllocate() {
+        assertTrue(THREADS.isThreadAllocatedMemorySupported(), "allocation counter unavailable");
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+        int envs = 6, steps = 5_000;
+        int[][] warmup = actions(5, 4 * steps, envs), measured = actions(6, steps, envs);
+        try (VecEnv env = new VecEnv(envs, 4, 4, 11, 3, 300)) {
+            for (int[] a : warmup) env.step(a);
+
+            // The caller steps one slice and each worker another; count all three
+            long[] ids = new long[3];
+            int n = 0;
+            ids[n++] = Thread.currentThread().getId();
+            for (Thread t : Thread.getAllStackTraces().keySet()) {
+                if (t.getName().startsWith("pacman-rl-") && t.isAlive()) ids[n++] = t.getId();
+            }
+            assertEquals(3, n);
+            long start = allocated(ids);
+            long overhead = allocated(ids) - start;
+            long before = allocated(ids);
+            long episodes = env.getEpisodes();
+            for (int[] a : measured) env.step(a);
+            long bytes = allocated(ids) - before - overhead;
+            assertTrue(env.getEpisodes() > episodes, "no episode ended while measured");
+            assertEquals(0, bytes, "bytes allocated over " + steps + " steps");
+        }
+    }
+
+    private static long allocated(long[] ids) {
+        long sum = 0;
+        for (long id : ids) sum += THREADS.getThreadAllocatedBytes(id);
+        return sum;
+    }
+
+    /** A step issued before a fresh worker first ran once left step() waiting for it forever. */
+    @Test
+    void stepRightAfterConstructionDoesNotHang() {
+        assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+            for (int i = 0; i < 300; i++) {
+                try (VecEnv env = new VecEnv(4, 4, 1, i, 4)) {
+                    env.step(new int[4]);
+                    env.step(new int[] {1, 2, 3, 4});
+                }
+            }
+        });
+    }
+
+    /** A worker's failure is raised by the step it happened in, and not by the steps after it. */
+    @Test
+    void workerFailureIsReportedOnce() {
+        try (VecEnv env = new VecEnv(6, 4, 1, 21, 3)) {
+            int[] none = new int[6];
+            List<Ghost> ghosts = breakGame(env, 5);   // the last worker's slice
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> env.step(none));
+            assertInstanceOf(IndexOutOfBoundsException.class, e.getCause());
+            env.getGame(5).ghosts.addAll(ghosts);
+            for (int t = 0; t < 50; t++) env.step(none);
+            for (int g = 0; g < 6; g++) assertObserves(env, g);
+        }
+    }
+
+    /**
+     * When the caller's own slice throws, step() must still wait for the
+     * workers. The caller's first game fails at once while each worker has
+     * hundreds to step; once step() has thrown, every one of them must have
+     * been stepped and observed.
+     */
+    @Test
+    void callerFailureWaitsForTheWorkers() {
+        int envs = 1_200, slice = envs / 3;
+        try (VecEnv env = new VecEnv(envs, 4, 1, 22, 3)) {
+            int[] none = new int[envs];
+            for (int i = 0; i < 10; i++) {
+                for (int e = 0; e < envs; e++) env.getRewards().put(e, Float.NaN);
+                List<Ghost> ghosts = breakGame(env, 0);
+                assertThrows(IndexOutOfBoundsException.class, () -> env.step(none));
+                for (int e = slice; e < envs; e++) {
+                    assertFalse(Float.isNaN(env.getRewards().get(e)), "game " + e + " not stepped");
+                    assertObserves(env, e);
+                }
+                env.getGame(0).ghosts.addAll(ghosts);
+                env.step(none);
+                for (int e = 0; e < envs; e++) assertObserves(env, e);
+            }
+        }
+    }
+
+    /** Takes game {@code e}'s ghosts away, so stepping it throws; returns them for putting back. */
+    private static List<Ghost> breakGame(VecEnv env, int e) {
+        List<Ghost> ghosts = env.getGame(e).ghosts;
+        List<Ghost> taken = new ArrayList<>(ghosts);
+        ghosts.clear();
+        return taken;
+    }
+
+    @Test
+    void rejectsBadArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new VecEnv(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new VecEnv(2, 4, 0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new VecEnv(2, 4, 1, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new VecEnv(2, 4, 1, 1, 1, 0));
+        try (VecEnv env = new VecEnv(2, 1)) {
+            assertThrows(IllegalArgumentException.class, () -> env.step(new int[3]));
+            assertThrows(IllegalArgumentException.class, () -> env.step(new int[] {0, VecEnv.ACTIONS}));
+            assertThrows(IllegalArgumentException.class, () -> env.step(new int[] {-1, 0}));
+            env.close();
+            assertThrows(IllegalStateException.class, () -> env.step(new int[2]));
+        }
+    }
+}
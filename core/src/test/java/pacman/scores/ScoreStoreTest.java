@@ -0,0 +1,229 @@
+package pacman.scores;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScoreStoreTest {
+
+    /** Log header, then per entry: length, CRC and the fixed fields before the name. */
+    private static final int HEADER = 16, ENTRY = 8 + 8 + 8 + 4 + 2 + 1;
+
+    @TempDir
+    Path dir;
+
+    /** {@code count} games by {@code players} players, names all three bytes long. */
+    private static List<ScoreRecord> games(long seed, int count, int players) {
+        Random rng = new Random(seed);
+        List<ScoreRecord> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String player = String.format("p%02d", rng.nextInt(players));
+            out.add(new ScoreRecord(player, rng.nextInt(50) * 10, 1 + rng.nextInt(5), rng.nextLong(), 1_000L + i));
+        }
+        return out;
+    }
+
+    private static List<ScoreRecord> expectedTop(List<ScoreRecord> games, int n) {
+        List<ScoreRecord> sorted = new ArrayList<>(games);
+        sorted.sort(ScoreRecord.BEST_FIRST);
+        return sorted.subList(0, Math.min(n, sorted.size()));
+    }
+
+    private static List<ScoreRecord> expectedPlayers(List<ScoreRecord> games) {
+        Map<String, ScoreRecord> bests = new HashMap<>();
+        for (ScoreRecord r : games) bests.merge(r.player, r, (a, b) -> ScoreRecord.BEST_FIRST.compare(a, b) <= 0 ? a : b);
+        List<ScoreRecord> sorted = new ArrayList<>(bests.values());
+        sorted.sort(ScoreRecord.BEST_FIRST);
+        return sorted;
+    }
+
+    private static void assertBoards(List<ScoreRecord> games, int topSize, ScoreStore store) {
+        assertEquals(expectedTop(games, topSize), store.top(topSize));
+        List<ScoreRecord> players = expectedPlayers(games);
+        assertEquals(players, store.topPlayers(Integer.MAX_VALUE));
+        for (int i = 0; i < players.size(); i++) {
+            assertEquals(players.get(i), store.best(players.get(i).player));
+            assertEquals(i + 1, store.rankOf(players.get(i).player));
+        }
+        assertEquals(0, store.rankOf("nobody"));
+    }
+
+    /** Entries the store replays from {@code file}, oldest first. */
+    private static List<ScoreRecord> replay(Path file) throws IOException {
+        List<ScoreRecord> out = new ArrayList<>();
+        ScoreLog.open(file, out::add).close();
+        return out;
+    }
+
+    private static void write(Path file, long position, byte[] bytes) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(bytes), position);
+        }
+    }
+
+    @Test
+    void recordsSurviveReopening() throws IOException {
+        Path file = dir.resolve("scores.log");
+        List<ScoreRecord> games = games(1, 2_000, 40);
+        try (ScoreStore store = ScoreStore.open(file, 25)) {
+            for (ScoreRecord r : games) store.record(r);
+            assertBoards(games, 25, store);
+        }
+        assertEquals(games, replay(file));
+        try (ScoreStore store = ScoreStore.open(file, 25)) {
+            assertBoards(games, 25, store);
+            assertEquals(games.size(), store.getGameCount());
+            assertEquals(games.size(), store.getLogEntries());
+            assertEquals(0, store.getRecoveredBytes());
+        }
+    }
+
+    @Test
+    void namesRoundTripAsUtf8() throws IOException {
+        Path file = dir.resolve("scores.log");
+        String longest = "é".repeat(ScoreRecord.MAX_NAME_BYTES / 2);
+        List<ScoreRecord> games = List.of(new ScoreRecord("a", 0, 1, 0, 0),
+                new ScoreRecord("パック", 9_990, Short.MAX_VALUE, -1, Long.MAX_VALUE),
+                new ScoreRecord(longest, Integer.MAX_VALUE, 7, Long.MIN_VALUE, -5));
+        try (ScoreStore store = ScoreStore.open(file)) {
+            for (ScoreRecord r : games) store.record(r);
+        }
+        List<ScoreRecord> back = replay(file);
+        assertEquals(games, back);
+        for (int i = 0; i < games.size(); i++) assertEquals(games.get(i).player, back.get(i).player);
+    }
+
+    @Test
+    void tornAppendIsDiscardedAndOverwritten() throws IOException {
+        Path file = dir.resolve("scores.log");
+        List<ScoreRecord> games = games(2, 50, 10);
+        long end;
+        try (ScoreStore store = ScoreStore.open(file)) {
+            for (ScoreRecord r : games) store.record(r);
+            end = store.getLogBytes();
+        }
+        // Killed after the payload of one more entry but before its length
+        byte[] payload = new byte[ENTRY - 8 + 40];
+        new Random(3).nextBytes(payload);
+        write(file, end + 8, payload);
+
+        List<ScoreRecord> more = games(4, 20, 10);
+        try (ScoreStore store = ScoreStore.open(file)) {
+            assertTrue(store.getRecoveredBytes() > 0);
+            assertEquals(games.size(), store.getLogEntries());
+            for (ScoreRecord r : more) store.record(r);
+        }
+        List<ScoreRecord> all = new ArrayList<>(games);
+        all.addAll(more);
+        try (ScoreStore store = ScoreStore.open(file)) {
+            assertEquals(0, store.getRecoveredBytes());
+            assertBoards(all, ScoreStore.DEFAULT_TOP, store);
+        }
+        assertEquals(all, replay(file));
+    }
+
+    @Test
+    void damagedEntryEndsTheLog() throws IOException {
+        Path file = dir.resolve("scores.log");
+        List<ScoreRecord> games = games(5, 30, 10);
+        try (ScoreStore store = ScoreStore.open(file)) {
+            for (ScoreRecord r : games) store.record(r);
+        }
+        // Every entry is the same size; damage one byte of entry 12's score
+        int entry = ENTRY + 3;
+        write(file, HEADER + 12L * entry + 8 + 16, new byte[] {(byte) 0xA5});
+
+        try (ScoreStore store = ScoreStore.open(file)) {
+            assertTrue(store.getRecoveredBytes() > 0);
+            assertBoards(games.subList(0, 12), ScoreStore.DEFAULT_TOP, store);
+            store.record(games.get(29));
+        }
+        List<ScoreRecord> kept = new ArrayList<>(games.subList(0, 12));
+        kept.add(games.get(29));
+        assertEquals(kept, replay(file));
+    }
+
+    @Test
+    void everyTruncationKeepsTheWholeEntriesBeforeIt() throws IOException {
+        Path file = dir.resolve("scores.log");
+        List<ScoreRecord> games = games(6, 8, 4);
+        try (ScoreStore store = ScoreStore.open(file)) {
+            for (ScoreRecord r : games) store.record(r);
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        int entry = ENTRY + 3;
+        Path cut = dir.resolve("cut.log");
+        for (int n = HEADER; n <= HEADER + games.size() * entry; n++) {
+            Files.write(cut, Arrays.copyOf(bytes, n));
+            int whole = (n - HEADER) / entry;
+            assertEquals(games.subList(0, whole), replay(cut), "cut at " + n);
+        }
+        for (int n = 1; n < HEADER; n++) {
+            Files.write(cut, Arrays.copyOf(bytes, n));
+            assertThrows(IOException.class, () -> replay(cut), "cut at " + n);
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotScoreLogs() throws IOException {
+        Path file = dir.resolve("other.log");
+        byte[] junk = new byte[4096];
+        new Random(7).nextBytes(junk);
+        Files.write(file, junk);
+        assertThrows(IOException.class, () -> ScoreStore.open(file));
+        // Not overwritten by the failed open
+        assertEquals(junk.length, Files.size(file));
+        assertTrue(Arrays.equals(junk, Files.readAllBytes(file)));
+    }
+
+    @Test
+    void compactionKeepsTheBoardsAndTheGameCount() throws IOException {
+        Path file = dir.resolve("scores.log");
+        List<ScoreRecord> games = games(8, 30_000, 60);
+        try (ScoreStore store = ScoreStore.open(file, 20)) {
+            for (ScoreRecord r : games) store.record(r);
+            assertTrue(store.getCompactions() > 0);
+            assertTrue(store.getLogEntries() < 10_000, "entries " + store.getLogEntries());
+            assertEquals(games.size(), store.getGameCount());
+            assertBoards(games, 20, store);
+        }
+        assertTrue(Files.notExists(dir.resolve("scores.log.tmp")));
+        try (ScoreStore store = ScoreStore.open(file, 20)) {
+            assertEquals(games.size(), store.getGameCount());
+            assertEquals(0, store.getRecoveredBytes());
+            assertBoards(games, 20, store);
+        }
+    }
+
+    @Test
+    void compactionReplacesALeftoverTempFile() throws IOException {
+        Path file = dir.resolve("scores.log");
+        Files.write(dir.resolve("scores.log.tmp"), new byte[] {1, 2, 3});
+        List<ScoreRecord> games = games(9, 500, 30);
+        try (ScoreStore store = ScoreStore.open(file, 10)) {
+            for (ScoreRecord r : games) store.record(r);
+            store.compact();
+            assertBoards(games, 10, store);
+            assertEquals(games.size(), store.getGameCount());
+        }
+        try (ScoreStore store = ScoreStore.open(file, 10)) {
+            assertBoards(games, 10, store);
+        }
+    }
+}
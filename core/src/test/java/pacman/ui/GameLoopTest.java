@@ -0,0 +1,131 @@
+package pacman.ui;
+
+import org.junit.jupiter.api.Test;
+import pacman.game.Simulation;
+import pacman.utils.Rng;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Driven pass by pass on a hand-wound clock, so timing is exact rather than measured. */
+class GameLoopTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    /** A loop over a started simulation that reads {@link #now} and records what it renders. */
+    private static final class Harness {
+        final Simulation sim = new Simulation(1);
+        final GameLoop loop;
+        long now = 5 * SECOND;   // arbitrary origin; only differences count
+        int beforeTicks, frames;
+        float alpha = -1;
+
+        Harness(int tickRate, int frameRate) {
+            sim.start();
+            loop = new GameLoop(sim, () -> beforeTicks++, a -> {
+                frames++;
+                alpha = a;
+            }, tickRate, frameRate, () -> now);
+            loop.begin();
+        }
+    }
+
+    @Test
+    void rejectsBadRates() {
+        Simulation sim = new Simulation(1);
+        assertThrows(IllegalArgumentException.class, () -> new GameLoop(sim, () -> {}, alpha -> {}, 0, 60));
+        assertThrows(IllegalArgumentException.class, () -> new GameLoop(sim, () -> {}, alpha -> {}, -60, 60));
+        assertThrows(IllegalArgumentException.class, () -> new GameLoop(sim, () -> {}, alpha -> {}, 60, -1));
+    }
+
+    /** Ten ticks per displayed frame must not fall behind wall time, however late each wake-up is. */
+    @Test
+    void keepsRealTimeWhenTicksOutnumberFrames() {
+        Harness h = new Harness(600, 60);
+        long tickNanos = SECOND / 600, start = h.now;
+        Rng rng = new Rng(7);
+        for (int f = 0; f < 600; f++) {
+            long at = h.now;
+            long due = h.loop.pass();
+            assertEquals((at - start) / tickNanos, h.sim.getTick(), "frame " + f);
+            assertEquals(h.sim.getTick(), h.beforeTicks);
+            assertEquals(f + 1, h.frames);
+            assertTrue(h.alpha >= 0 && h.alpha < 1, "alpha " + h.alpha);
+            assertTrue(due > at, "next frame due in the future");
+            // Woken at the deadline or up to 3 ms past it, as a real sleep would be
+            h.now = due + rng.nextInt(3_000_000);
+        }
+        // Frames are at least 1/60 s apart, so the last pass, 599 frames in, is owed 10 ticks for each
+        assertTrue(h.sim.getTick() >= 599 * 10, "ticks " + h.sim.getTick());
+    }
+
+    /** Leftover time carries into the next pass and shows as the interpolation factor. */
+    @Test
+    void leftoverTimeIsCarriedAndInterpolated() {
+        Harness h = new Harness(100, 0);   // 10 ms ticks, uncapped frames
+        h.now += 25_000_000L;
+        assertEquals(h.now, h.loop.pass(), "uncapped frames are due at once");
+        assertEquals(2, h.sim.getTick());
+        assertEquals(0.5f, h.alpha, 1e-6f);
+        h.now += 4_000_000L;
+        h.loop.pass();
+        assertEquals(2, h.sim.getTick());
+        assertEquals(0.9f, h.alpha, 1e-6f);
+        h.now += 1_000_000L;
+        h.loop.pass();
+        assertEquals(3, h.sim.getTick());
+        assertEquals(0f, h.alpha, 1e-6f);
+    }
+
+    /** A stall longer than the backlog cap drops the excess rather than replaying it in a burst. */
+    @Test
+    void stallsAreCappedAtTheBacklogLimit() {
+        Harness h = new Harness(600, 60);
+        long tickNanos = SECOND / 600;
+        h.now = h.loop.pass();
+        long before = h.sim.getTick();
+        h.now += 3 * SECOND;
+        long due = h.loop.pass();
+        assertEquals(250_000_000L / tickNanos, h.sim.getTick() - before);
+        // Pacing restarts from the stall instead of owing the missed frames
+        assertEquals(h.now + SECOND / 60, due);
+
+        // Just under the cap is all caught up
+        h.now = due;
+        h.loop.pass();
+        before = h.sim.getTick();
+        h.now += 240_000_000L;
+        h.loop.pass();
+        long ticks = h.sim.getTick() - before;
+        assertTrue(ticks >= 240_000_000L / tickNanos - 1, "ticks " + ticks);
+    }
+
+    /** At rates slower than the cap, a stall still yields a tick, not a stalled game. */
+    @Test
+    void slowRatesStillTickAfterAStall() {
+        Harness h = new Harness(2, 1);   // a tick every 500 ms, a frame every second
+        h.now += 10 * SECOND;
+        h.loop.pass();
+        assertEquals(2, h.sim.getTick(), "capped at the one-second frame");
+        h.now += 499_000_000L;
+        h.loop.pass();
+        assertEquals(2, h.sim.getTick());
+        h.now += 1_000_000L;
+        h.loop.pass();
+        assertEquals(3, h.sim.getTick());
+    }
+
+    /** On the real clock and its own thread: starts ticking, and stops. */
+    @Test
+    void runsOnItsOwnThreadUntilStopped() throws InterruptedException {
+        Simulation sim = new Simulation(1);
+        sim.start();
+        GameLoop loop = new GameLoop(sim, () -> {}, alpha -> {}, 600, 60);
+        loop.start();
+        long deadline = System.nanoTime() + 10 * SECOND;
+        while (sim.getTick() < 10 && System.nanoTime() < deadline) Thread.sleep(5);
+        loop.stop();
+        assertTrue(sim.getTick() >= 10, "ticks " + sim.getTick());
+    }
+}
@@ -1,12 +1,71 @@
 package pacman;
 
+import pacman.ai.AiCommands;
+import pacman.game.GameCommands;
+import pacman.net.NetCommands;
+import pacman.replay.ReplayCommands;
+import pacman.rl.RlCommands;
+import pacman.scores.ScoreCommands;
 import pacman.ui.GameWindow;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opens the game window, or with a {@code --command} as the first argument
+ * runs that command-line mode instead. The modes live next to the code they
+ * drive, e.g. {@link GameCommands}; this class only dispatches.
+ */
 public class Main {
+
+    /** A command-line mode; {@code args} are the arguments after its name. */
+    @FunctionalInterface
+    interface Command {
+        void run(String[] args) throws IOException, InterruptedException;
+    }
+
+    private static final Map<String, Command> COMMANDS = new LinkedHashMap<>();
+
+    static {
+        COMMANDS.put("--headless", GameCommands::headless);
+        COMMANDS.put("--batch", GameCommands::batch);
+        COMMANDS.put("--events", GameCommands::events);
+        COMMANDS.put("--compile-mazes", GameCommands::compileMazes);
+        COMMANDS.put("--generate-mazes", GameCommands::generateMazes);
+        COMMANDS.put("--replay", ReplayCommands::verify);
+        COMMANDS.put("--autopilot", AiCommands::autopilot);
+        COMMANDS.put("--rl", RlCommands::randomActions);
+        COMMANDS.put("--scores", ScoreCommands::print);
+        COMMANDS.put("--serve", NetCommands::serve);
+        COMMANDS.put("--loopback", NetCommands::loopback);
+        COMMANDS.put("--spectate", NetCommands::spectate);
+    }
+
     public static void main(String[] args) {
-        javax.swing.SwingUtilities.invokeLater(() -> {
-            GameWindow window = new GameWindow();
-            window.setVisible(true);
-        });
+        if (args.length == 0) {
+            javax.swing.SwingUtilities.invokeLater(() -> {
+                GameWindow window = new GameWindow();
+                window.setVisible(true);
+            });
+            return;
+        }
+        Command command = COMMANDS.get(args[0]);
+        if (command == null) {
+            System.err.println("unknown command " + args[0] + "; expected one of " + COMMANDS.keySet());
+            System.exit(2);
+        }
+        try {
+            command.run(Arrays.copyOfRange(args, 1, args.length));
+        } catch (IllegalArgumentException e) {
+            System.err.println(args[0] + ": " + e.getMessage());
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
@@ -0,0 +1,36 @@
+package pacman.ai;
+
+import pacman.game.GameController;
+import pacman.game.Simulation;
+import pacman.utils.Direction;
+
+/** Command-line modes for the autopilot, dispatched from {@link pacman.Main}. */
+public final class AiCommands {
+
+    private AiCommands() {}
+
+    /** {@code --autopilot [workers]}: plays one headless game with the MCTS autopilot at a 2 ms budget per decision. */
+    public static void autopilot(String[] args) {
+        int workers = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        try (Autopilot pilot = new Autopilot(workers, 2_000_000L, 1)) {
+            Simulation sim = new Simulation(1);
+            sim.start();
+            long decisions = 0, rollouts = 0, searchNanos = 0;
+            while (!sim.isGameOver() && sim.getTick() < 200_000) {
+                long t0 = System.nanoTime();
+                Direction d = pilot.decide(sim.getController());
+                if (d != Direction.NONE) {
+                    searchNanos += System.nanoTime() - t0;
+                    sim.setDirection(d);
+                    decisions++;
+                    rollouts += pilot.getLastIterations();
+                }
+                sim.step();
+            }
+            GameController c = sim.getController();
+            System.out.printf("ticks=%d score=%d level=%d decisions=%d rollouts/decision=%d (%.0f rollouts/s on %d workers)%n",
+                    sim.getTick(), c.score, c.level, decisions, decisions == 0 ? 0 : rollouts / decisions,
+                    rollouts / Math.max(1e-9, searchNanos / 1e9), workers);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package pacman.ai;
+
+import pacman.entities.PacMan;
+import pacman.game.GameController;
+import pacman.game.GameSnapshot;
+import pacman.game.LevelPack;
+import pacman.game.Policy;
+import pacman.utils.Constants;
+import pacman.utils.Direction;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Monte Carlo tree search driver for PacMan.
+ *
+ * Whenever PacMan enters a new tile (or is stuck) the live game is
+ * snapshotted and each worker runs UCT on its own private copy until the time
+ * budget runs out: descend the tree by UCB1, expand one node, play a random
+ * rollout, back up the reward. Each tree action holds one direction for the
+ * time it takes to cross a tile. Root statistics from all workers are summed
+ * and the most visited direction wins (root parallelisation, so workers never
+ * share a tree or lock).
+ *
+ * Playouts run on a {@link TileModel} of the copy rather than on the game
+ * itself: a rollout of the real game is about 150 ticks, which left room for
+ * only a few dozen per decision. The model trades exact forecasts for
+ * thousands of playouts within the default 2 ms budget.
+ */
+public class Autopilot implements Policy, AutoCloseable {
+
+    /** Ticks one action is held for: one tile at PacMan's speed. */
+    static final int ACTION_TICKS = Constants.PACMAN_FRAMES_PER_TILE;
+
+    private final ForkJoinPool pool;
+    private final SearchWorker[] workers;
+    private final long budgetNanos;
+    private GameSnapshot root;
+    private final long[] visits = new long[4];
+    private final double[] value = new double[4];
+    private long lastIterations;
+    private int lastTile = -1;
+
+    /**
+     * @param workers     parallel searchers, usually one per spare core
+     * @param budgetNanos wall-clock time allowed per decision
+     * @param seed        seed for rollout randomness
+     */
+    public Autopilot(int workers, long budgetNanos, long seed) {
+        this.pool = new ForkJoinPool(workers);
+        this.workers = new SearchWorker[workers];
+        for (int i = 0; i < workers; i++) this.workers[i] = new SearchWorker(seed + i);
+        this.budgetNanos = budgetNanos;
+    }
+
+    /** Number of MCTS iterations (rollouts) across all workers for the last decision. */
+    public long getLastIterations() { return lastIterations; }
+
+    @Override
+    public Direction decide(GameController game) {
+        if (game.state != GameController.State.PLAYING || !atDecisionPoint(game)) return Direction.NONE;
+        return search(game);
+    }
+
+    /** Entered a new tile since the last decision, or unable to move (so a new direction is needed). */
+    private boolean atDecisionPoint(GameController game) {
+        PacMan p = game.pacman;
+        int tile = p.getRow() * game.map.getCols() + p.getCol();
+        boolean stuck = p.x == p.prevX && p.y == p.prevY;
+        if (tile == lastTile && !stuck) return false;
+        lastTile = tile;
+        return true;
+    }
+
+    /** Runs one search from the current state of {@code game} and returns the best direction. */
+    public Direction search(GameController game) {
+        if (root == null || root.getGhostCount() != game.ghosts.size()) root = new GameSnapshot(game.ghosts.size());
+        root.capture(game);
+        LevelPack levels = game.getLevels();
+        long deadline = System.nanoTime() + budgetNanos;
+
+        Future<?>[] running = new Future<?>[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            SearchWorker w = workers[i];
+            running[i] = pool.submit(() -> w.search(root, levels, deadline));
+        }
+        Arrays.fill(visits, 0);
+        Arrays.fill(value, 0);
+        long iterations = 0;
+        for (int i = 0; i < workers.length; i++) {
+            try {
+                running[i].get();
+            } catch (Exception e) {
+                throw new IllegalStateException("search worker failed", e);
+            }
+            workers[i].addRootStats(visits, value);
+            iterations += workers[i].iterations();
+        }
+        lastIterations = iterations;
+
+        int best = 0;
+        for (int a = 1; a < 4; a++) {
+            if (visits[a] > visits[best] || (visits[a] == visits[best] && value[a] > value[best])) best = a;
+        }
+        return Direction.MOVES[best];
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
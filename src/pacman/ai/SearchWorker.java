@@ -0,0 +1,150 @@
+package pacman.ai;
+
+import pacman.game.GameController;
+import pacman.game.GameSnapshot;
+import pacman.game.LevelPack;
+import pacman.utils.Constants;
+import pacman.utils.Direction;
+import pacman.utils.Rng;
+
+/**
+ * One UCT searcher with its own game copy and a preallocated node pool.
+ *
+ * The copy is restored from the root snapshot once per search and loaded into
+ * a {@link TileModel}; every iteration then plays out on the model, so an
+ * iteration costs a couple of microseconds instead of the ~150 full ticks a
+ * rollout of the real game takes.
+ *
+ * Nodes are stored struct-of-arrays: node {@code n}'s four children occupy
+ * {@code firstChild[n] .. firstChild[n] + 3}, one per {@link Direction#MOVES}
+ * entry. Nothing is allocated per iteration.
+ */
+final class SearchWorker {
+
+    private static final int MAX_NODES = 1 << 16;
+    private static final int ROLLOUT_ACTIONS = 12;
+    private static final double EXPLORATION = 0.7;
+    private static final double PELLET_PULL = 0.1;   // weight of the nearest-pellet term in the reward
+
+    private GameController game;   // private copy, rebuilt if the ghost count or level pack changes
+    private TileModel model;
+    private final Rng rng;
+
+    private final int[] firstChild = new int[MAX_NODES];
+    private final int[] visits = new int[MAX_NODES];
+    private final double[] totalReward = new double[MAX_NODES];
+    private int nodeCount;
+
+    private final int[] path = new int[64];
+    private long iterations;
+
+    SearchWorker(long seed) {
+        rng = new Rng(seed);
+    }
+
+    long iterations() { return iterations; }
+
+    void search(GameSnapshot root, LevelPack levels, long deadline) {
+        if (game == null || game.ghosts.size() != root.getGhostCount() || game.getLevels() != levels) {
+            game = new GameController(0, levels, root.getGhostCount());
+            model = new TileModel(root.getGhostCount(), rng);
+        }
+        root.restore(game);
+        model.load(game);
+        nodeCount = 1;
+        firstChild[0] = -1;
+        visits[0] = 0;
+        totalReward[0] = 0;
+        iterations = 0;
+        do {
+            iterate();
+            iterations++;
+        } while (System.nanoTime() < deadline);
+    }
+
+    void addRootStats(long[] visitSum, double[] rewardSum) {
+        int base = firstChild[0];
+        if (base < 0) return;
+        for (int a = 0; a < 4; a++) {
+            visitSum[a] += visits[base + a];
+            rewardSum[a] += totalReward[base + a];
+        }
+    }
+
+    private void iterate() {
+        model.reset();
+        int depth = 0;
+        int node = 0;
+        path[depth++] = node;
+
+        // Selection: follow UCB1 through expanded nodes
+        while (firstChild[node] >= 0 && model.alive() && depth < path.length) {
+            int parent = node;
+            node = select(parent);
+            path[depth++] = node;
+            model.step(node - firstChild[parent]);
+        }
+
+        // Expansion: give the leaf its four children and take one at random
+        if (model.alive() && nodeCount + 4 <= MAX_NODES && depth < path.length) {
+            int base = nodeCount;
+            nodeCount += 4;
+            for (int i = 0; i < 4; i++) {
+                firstChild[base + i] = -1;
+                visits[base + i] = 0;
+                totalReward[base + i] = 0;
+            }
+            firstChild[node] = base;
+            int a = rng.nextInt(4);
+            node = base + a;
+            path[depth++] = node;
+            model.step(a);
+        }
+
+        // Rollout: random moves, avoiding immediate reversals
+        int actions = depth - 1;
+        for (int i = 0; i < ROLLOUT_ACTIONS && model.alive(); i++) {
+            int a = rng.nextInt(4);
+            if (model.pacDir() != Direction.NONE.ordinal() && a == Direction.MOVES[model.pacDir()].opposite().ordinal()) {
+                a = rng.nextInt(4);
+            }
+            model.step(a);
+            actions++;
+        }
+
+        double reward = reward(actions);
+        for (int i = 0; i < depth; i++) {
+            visits[path[i]]++;
+            totalReward[path[i]] += reward;
+        }
+    }
+
+    private int select(int node) {
+        int base = firstChild[node];
+        double logN = Math.log(visits[node] + 1);
+        int best = base;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < 4; i++) {
+            int child = base + i;
+            if (visits[child] == 0) return child;
+            double score = totalReward[child] / visits[child] + EXPLORATION * Math.sqrt(logN / visits[child]);
+            if (score > bestScore) {
+                bestScore = score;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Pellet progress per action in [0, 1], plus a small pull towards the
+     * nearest remaining pellet so rollouts that eat nothing still prefer ending
+     * up close to food; clearing the level scores the maximum and losing a life -3.
+     */
+    private double reward(int actions) {
+        if (model.status == TileModel.DIED) return -3;
+        if (model.status == TileModel.CLEARED) return 1 + PELLET_PULL;
+        double gained = model.score / (double) (Constants.PELLET_SCORE * Math.max(1, actions));
+        return Math.min(1, gained) + PELLET_PULL / (1 + model.nearestPelletDistance());
+    }
+}
@@ -0,0 +1,261 @@
+package pacman.ai;
+
+import pacman.entities.Ghost;
+import pacman.game.GameController;
+import pacman.game.GameMap;
+import pacman.game.Maze;
+import pacman.game.MazeDistances;
+import pacman.game.PelletIndex;
+import pacman.utils.Constants;
+import pacman.utils.Direction;
+import pacman.utils.Motion;
+import pacman.utils.Rng;
+
+import java.util.Arrays;
+
+/**
+ * Tile-granular forward model of a game, used by {@link SearchWorker} for
+ * tree descent and rollouts instead of {@link GameController#update()}.
+ *
+ * One {@link #step} is one autopilot action: PacMan moves one tile, and each
+ * ghost moves as many tiles as its speed covers in the same number of ticks,
+ * turning by the same rules as {@link Ghost} (chase by maze distance, random
+ * when frightened, home when eaten, never reversing). Pellets eaten during a
+ * playout are stamped rather than removed from the map, so starting the next
+ * playout copies a few ints per ghost. A step costs a few dozen nanoseconds
+ * where the ticks it stands for cost tens of microseconds.
+ *
+ * It is an approximation: collisions are judged per tile, ghosts in the house
+ * appear at the exit once their release delay and walk out are over, and
+ * PacMan's turn buffering is reduced to "turn if open, else keep going".
+ */
+final class TileModel {
+
+    static final int PLAYING = 0, DIED = 1, CLEARED = 2;
+
+    private static final int TICKS = Autopilot.ACTION_TICKS;
+    private static final int NONE = Direction.NONE.ordinal();
+    private static final int CHASE = 0, FRIGHTENED = 1, EATEN = 2;
+
+    private final int ghostCount;
+    private final Rng rng;
+    private final int[] saved = new int[Ghost.STATE_INTS];
+
+    private GameMap map;
+    private MazeDistances distances;
+    private int cols, exitTile;
+    private int[] eatenStamp = new int[0];
+    private int stamp;
+
+    // Starting state, loaded from a game once per search
+    private int rootPac, rootPacDir, rootRemaining;
+    private final int[] rootTile, rootDir, rootMode, rootFright, rootWait;
+
+    // Playout state, reset from the starting state every iteration
+    private int pac, pacDir, remaining;
+    private final int[] tile, dir, mode, fright, wait, credit;
+    int score, status;
+
+    TileModel(int ghostCount, Rng rng) {
+        this.ghostCount = ghostCount;
+        this.rng = rng;
+        rootTile = new int[ghostCount];
+        rootDir = new int[ghostCount];
+        rootMode = new int[ghostCount];
+        rootFright = new int[ghostCount];
+        rootWait = new int[ghostCount];
+        tile = new int[ghostCount];
+        dir = new int[ghostCount];
+        mode = new int[ghostCount];
+        fright = new int[ghostCount];
+        wait = new int[ghostCount];
+        credit = new int[ghostCount];
+    }
+
+    /**
+     * Takes the starting state from {@code game}, which must not change
+     * while this model is used: its map is read, not copied.
+     */
+    void load(GameController game) {
+        map = game.map;
+        Maze maze = map.getMaze();
+        distances = map.getDistances();
+        cols = map.getCols();
+        exitTile = maze.exitRow * cols + maze.exitCol;
+        if (eatenStamp.length < maze.rows * cols) eatenStamp = new int[maze.rows * cols];
+
+        rootPac = tileOf(game.pacman.x, game.pacman.y);
+        rootPacDir = game.pacman.dir.ordinal();
+        rootRemaining = map.getRemainingPellets();
+        for (int i = 0; i < ghostCount; i++) {
+            game.ghosts.get(i).saveState(saved, 0);
+            int x = saved[0], y = saved[1], flags = saved[5];
+            rootMode[i] = (flags & 2) != 0 ? EATEN : (flags & 1) != 0 ? FRIGHTENED : CHASE;
+            rootFright[i] = saved[6];
+            if ((flags & 4) != 0) {
+                rootTile[i] = tileOf(x, y);
+                rootDir[i] = saved[4];
+                rootWait[i] = 0;
+            } else {
+                // Still in the house: waits out its delay, then walks to the exit
+                int walk = Math.abs(x - maze.exitCol * Constants.TILE_UNITS) + Math.abs(y - maze.exitRow * Constants.TILE_UNITS);
+                rootTile[i] = exitTile;
+                rootDir[i] = Direction.LEFT.ordinal();
+                rootWait[i] = saved[7] + walk / Motion.GHOST.average() + 1;
+            }
+        }
+    }
+
+    /** Returns to the loaded state for a new playout. */
+    void reset() {
+        pac = rootPac;
+        pacDir = rootPacDir;
+        remaining = rootRemaining;
+        System.arraycopy(rootTile, 0, tile, 0, ghostCount);
+        System.arraycopy(rootDir, 0, dir, 0, ghostCount);
+        System.arraycopy(rootMode, 0, mode, 0, ghostCount);
+        System.arraycopy(rootFright, 0, fright, 0, ghostCount);
+        System.arraycopy(rootWait, 0, wait, 0, ghostCount);
+        Arrays.fill(credit, 0, ghostCount, 0);
+        score = 0;
+        status = PLAYING;
+        if (++stamp == 0) {
+            Arrays.fill(eatenStamp, 0);
+            stamp = 1;
+        }
+    }
+
+    boolean alive() { return status == PLAYING; }
+
+    /** PacMan's direction ordinal, {@link Direction#NONE} if standing still. */
+    int pacDir() { return pacDir; }
+
+    /** Row-major index of PacMan's tile. */
+    int pacTile() { return pac; }
+
+    /** Advances one action: PacMan tries {@code move} (a {@link Direction#MOVES} index) for one tile. */
+    void step(int move) {
+        int from = pac;
+        int exits = map.getExits(pac / cols, pac % cols);
+        if ((exits & Direction.MOVES[move].bit) != 0) pacDir = move;
+        if (pacDir != NONE && (exits & Direction.MOVES[pacDir].bit) != 0) pac = neighbour(pac, pacDir);
+
+        int t = map.getTile(pac / cols, pac % cols);
+        if ((t == GameMap.PELLET || t == GameMap.POWER_PELLET) && eatenStamp[pac] != stamp) {
+            eatenStamp[pac] = stamp;
+            remaining--;
+            if (t == GameMap.PELLET) {
+                score += Constants.PELLET_SCORE;
+            } else {
+                score += Constants.POWER_PELLET_SCORE;
+                for (int i = 0; i < ghostCount; i++) {
+                    if (mode[i] != EATEN) mode[i] = FRIGHTENED;
+                    fright[i] = Constants.POWER_PELLET_DURATION;
+                }
+            }
+            if (remaining == 0) {
+                status = CLEARED;
+                return;
+            }
+        }
+
+        for (int i = 0; i < ghostCount; i++) {
+            if (wait[i] > 0) {
+                wait[i] -= TICKS;
+                continue;
+            }
+            if (fright[i] > 0) {
+                fright[i] -= TICKS;
+                if (fright[i] <= 0) mode[i] = CHASE;
+            }
+            int before = tile[i];
+            credit[i] += TICKS;
+            int framesPerTile = mode[i] == EATEN ? Constants.EATEN_FRAMES_PER_TILE
+                    : mode[i] == FRIGHTENED ? Constants.FRIGHTENED_FRAMES_PER_TILE : Constants.GHOST_FRAMES_PER_TILE;
+            while (credit[i] >= framesPerTile) {
+                credit[i] -= framesPerTile;
+                moveGhost(i);
+            }
+            // Same tile, or passed through each other
+            if (tile[i] == pac || (tile[i] == from && before == pac)) {
+                if (mode[i] == FRIGHTENED) {
+                    mode[i] = EATEN;
+                    score += Constants.GHOST_SCORE;
+                } else if (mode[i] == CHASE) {
+                    status = DIED;
+                    return;
+                }
+            }
+        }
+    }
+
+    private void moveGhost(int i) {
+        int t = tile[i];
+        int row = t / cols, col = t % cols;
+        int opposite = Direction.of(dir[i]).opposite().bit;
+        int options = map.getGhostExits(row, col) & ~opposite;
+        int d;
+        if (options == 0) {
+            d = Direction.of(dir[i]).opposite().ordinal();
+        } else if (mode[i] == FRIGHTENED) {
+            d = nthOption(options, rng.nextInt(Integer.bitCount(options)));
+        } else {
+            int target = mode[i] == EATEN ? exitTile : pac;
+            d = closest(options, row, col, target / cols, target % cols);
+        }
+        dir[i] = d;
+        tile[i] = neighbour(t, d);
+    }
+
+    /** Like {@code Ghost.getBestDirection}: maze distance, or straight-line off the ghost graph. */
+    private int closest(int options, int row, int col, int targetRow, int targetCol) {
+        boolean useMaze = distances.isWalkable(targetRow, targetCol);
+        int best = NONE, bestDist = Integer.MAX_VALUE;
+        for (int k = 0; k < 4; k++) {
+            Direction d = Direction.MOVES[k];
+            if ((options & d.bit) == 0) continue;
+            int nr = row + d.dy, nc = map.wrapColumn(col + d.dx);
+            int dist;
+            if (useMaze) {
+                dist = distances.distance(nr, nc, targetRow, targetCol);
+            } else {
+                int dr = nr - targetRow, dc = nc - targetCol;
+                dist = dr * dr + dc * dc;
+            }
+            if (dist < bestDist) {
+                bestDist = dist;
+                best = k;
+            }
+        }
+        return best;
+    }
+
+    private static int nthOption(int options, int n) {
+        for (int k = 0; k < 4; k++) {
+            if ((options & Direction.MOVES[k].bit) != 0 && n-- == 0) return k;
+        }
+        return NONE;
+    }
+
+    /** Maze distance from PacMan to the closest pellet not yet eaten in this playout. */
+    int nearestPelletDistance() {
+        int row = pac / cols, col = pac % cols;
+        PelletIndex pellets = map.getPellets();
+        int best = MazeDistances.UNREACHABLE;
+        for (int i = pellets.remaining() - 1; i >= 0; i--) {
+            int p = pellets.get(i);
+            if (eatenStamp[p] == stamp) continue;
+            best = Math.min(best, distances.distance(row, col, p / cols, p % cols));
+        }
+        return best == MazeDistances.UNREACHABLE ? map.getRows() + cols : best;
+    }
+
+    private int neighbour(int t, int d) {
+        Direction m = Direction.MOVES[d];
+        return (t / cols + m.dy) * cols + map.wrapColumn(t % cols + m.dx);
+    }
+
+    private int tileOf(int x, int y) {
+        return Motion.tileOf(y) * cols + map.wrapColumn(Motion.tileOf(x));
+    }
+}
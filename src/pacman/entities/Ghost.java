@@ -1,16 +1,22 @@
 package pacman.entities;
 
 import pacman.game.GameMap;
+import pacman.game.Maze;
+import pacman.game.MazeDistances;
+import pacman.metrics.FlightEvents;
+import pacman.metrics.GhostDirectionEvent;
+import pacman.metrics.GhostUpdateEvent;
 import pacman.utils.Constants;
 import pacman.utils.Direction;
+import pacman.utils.Motion;
+import pacman.utils.Rng;
 
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
 
 public class Ghost {
-    public float x, y;
+    /** Position of the top-left corner in {@link Constants#TILE_UNITS} per tile. */
+    public int x, y;
+    public int prevX, prevY;   // position at the start of the last update, for interpolation
     public Direction dir;
     public Color color;
     public boolean frightened;
@@ -21,33 +27,32 @@ public class Ghost {
     // Ghost house exit logic
     private boolean exitingHouse;
     private int releaseDelay;   // frames to wait before starting to exit
-    private float exitTargetX;  // X to align to before going up
-    private static final int DOOR_ROW = 9;  // row of ghost house door
-    private static final int EXIT_ROW = 8;  // row just outside the house (open corridor)
-    private static final int HOUSE_EXIT_COL = 10; // centre column of the exit
+    private final int initialReleaseDelay;
 
-    private float startX, startY;
-    private static final float SPEED = Constants.GHOST_SPEED;
-    private static final int TILE = Constants.TILE_SIZE;
-    private static final Random rand = new Random();
+    private final Rng rand;
+    private int startX, startY;
+    private static final int TILE = Constants.TILE_UNITS;
 
     private int animTick, animFrame;
 
     /**
      * @param releaseDelay frames before this ghost starts leaving the house (0 = immediate)
+     * @param rand         the owning game's random stream, used for frightened movement
      */
-    public Ghost(float x, float y, Color color, String name, int releaseDelay) {
+    public Ghost(int x, int y, Color color, String name, int releaseDelay, Rng rand) {
+        this.rand = rand;
         this.startX = x;
         this.startY = y;
         this.color = color;
         this.name = name;
         this.releaseDelay = releaseDelay;
+        this.initialReleaseDelay = releaseDelay;
         reset();
     }
 
     public void reset() {
-        x = startX;
-        y = startY;
+        x = prevX = startX;
+        y = prevY = startY;
         dir = Direction.LEFT;
         frightened = false;
         eaten = false;
@@ -55,14 +60,42 @@ public class Ghost {
         animFrame = 0;
         animTick = 0;
         exitingHouse = false;
-        exitTargetX = HOUSE_EXIT_COL * TILE;
     }
 
-    public void update(GameMap map, PacMan pacman) {
+    /** Moves the spawn point, e.g. for a new maze; takes effect on the next reset. */
+    public void setSpawn(int x, int y) {
+        startX = x;
+        startY = y;
+    }
+
+    /** Like a freshly constructed ghost: back in the house and waiting out its release delay. */
+    public void respawn() {
+        reset();
+        releaseDelay = initialReleaseDelay;
+    }
+
+    /** Advances one frame; returns true if the ghost chose a new direction at a tile boundary. */
+    public boolean update(GameMap map, PacMan pacman) {
+        if (!FlightEvents.isActive()) return move(map, pacman);
+        GhostUpdateEvent event = new GhostUpdateEvent();
+        event.begin();
+        boolean decided = move(map, pacman);
+        if (event.shouldCommit()) {
+            event.ghost = name;
+            event.decided = decided;
+            event.commit();
+        }
+        return decided;
+    }
+
+    private boolean move(GameMap map, PacMan pacman) {
+        prevX = x;
+        prevY = y;
+
         // Count down release timer
         if (releaseDelay > 0) {
             releaseDelay--;
-            return; // stay still while waiting
+            return false; // stay still while waiting
         }
 
         if (frightenTimer > 0) {
@@ -73,29 +106,27 @@ public class Ghost {
             }
         }
 
-        float speed = eaten ? SPEED * 2 : (frightened ? SPEED * 0.7f : SPEED);
+        Motion motion = eaten ? Motion.EATEN : (frightened ? Motion.FRIGHTENED : Motion.GHOST);
 
         // --- PHASE 1: exit the ghost house ---
         if (!exitingHouse) {
-            exitHouse(speed);
-            return;
+            exitHouse(map.getMaze(), motion.average());
+            return false;
         }
 
         // --- PHASE 2: normal movement ---
-        // Snap to nearest tile grid before moving to avoid drift
-        x = snapToGrid(x, speed);
-        y = snapToGrid(y, speed);
+        // Steps land exactly on tile boundaries, so there is no drift to snap away
+        x = motion.advance(x, dir.dx);
+        y = motion.advance(y, dir.dy);
 
-        // Move one step
-        x += dir.dx * speed;
-        y += dir.dy * speed;
-
-        // Tunnel wrap (row 10 corridor)
-        if (x < -TILE) x = Constants.SCREEN_WIDTH;
-        if (x > Constants.SCREEN_WIDTH) x = -TILE;
+        // Tunnel wrap; keeping x in [0, width) keeps the grid maths valid
+        int width = map.getCols() * TILE;
+        if (x < 0) x += width;
+        if (x >= width) x -= width;
 
         // At tile boundary → choose next direction
-        if (isAlignedToGrid(speed)) {
+        boolean decided = Motion.aligned(x) && Motion.aligned(y);
+        if (decided) {
             chooseDirection(map, pacman);
         }
 
@@ -104,16 +135,17 @@ public class Ghost {
             animTick = 0;
             animFrame = (animFrame + 1) % 2;
         }
+        return decided;
     }
 
     /**
      * Simple two-step house exit:
-     *  1. Slide horizontally to the exit column centre.
-     *  2. Move upward until reaching the open corridor (EXIT_ROW).
+     *  1. Slide horizontally to the maze's exit column.
+     *  2. Move upward until reaching the open corridor above the door.
      */
-    private void exitHouse(float speed) {
-        float targetX = exitTargetX;
-        float targetY = EXIT_ROW * TILE;
+    private void exitHouse(Maze maze, int speed) {
+        int targetX = maze.exitCol * TILE;
+        int targetY = maze.exitRow * TILE;
 
         if (Math.abs(x - targetX) > speed) {
             // Step 1 – align column
@@ -134,71 +166,82 @@ public class Ghost {
         }
     }
 
-    // ── Grid helpers ──────────────────────────────────────────────────────────
-
-    /** True when position is within `speed` pixels of a tile boundary. */
-    private boolean isAlignedToGrid(float speed) {
-        float cx = x % TILE;
-        float cy = y % TILE;
-        return cx < speed && cy < speed;
-    }
-
-    /** Pull coordinate onto the nearest tile boundary if very close. */
-    private float snapToGrid(float v, float speed) {
-        float r = v % TILE;
-        if (r < speed) return v - r;
-        if (r > TILE - speed) return v - r + TILE;
-        return v;
-    }
-
     // ── Direction choosing ────────────────────────────────────────────────────
 
-    private void chooseDirection(GameMap map, PacMan pacman) {
-        // Snap cleanly to grid first
-        x = ((int)(x / TILE)) * TILE;
-        y = ((int)(y / TILE)) * TILE;
+    /** Picks the next direction at a tile boundary; called from {@link #update}. */
+    public void chooseDirection(GameMap map, PacMan pacman) {
+        if (!FlightEvents.isActive()) {
+            pickDirection(map, pacman);
+            return;
+        }
+        GhostDirectionEvent event = new GhostDirectionEvent();
+        event.begin();
+        pickDirection(map, pacman);
+        if (event.shouldCommit()) {
+            event.ghost = name;
+            event.row = getRow();
+            event.col = getCol();
+            event.mode = frightened ? "frightened" : (eaten ? "eaten" : "chase");
+            event.direction = dir.name();
+            event.commit();
+        }
+    }
 
+    private void pickDirection(GameMap map, PacMan pacman) {
         int row = getRow();
         int col = getCol();
-        List<Direction> options = new ArrayList<>();
-        Direction opposite = getOpposite(dir);
-
-        for (Direction d : new Direction[]{Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT}) {
-            if (d == opposite) continue;
-            int nr = row + d.dy;
-            int nc = col + d.dx;
-            // Normal ghosts cannot re-enter the ghost house through the door
-            if (!map.isWall(nr, nc) && map.getTile(nr, nc) != 4) {
-                options.add(d);
-            }
-        }
+        Direction opposite = dir.opposite();
 
-        if (options.isEmpty()) {
+        // Normal ghosts cannot re-enter the ghost house through the door
+        int options = map.getGhostExits(row, col) & ~opposite.bit;
+
+        if (options == 0) {
             dir = opposite;
             return;
         }
 
         if (frightened) {
-            dir = options.get(rand.nextInt(options.size()));
+            dir = nthOption(options, rand.nextInt(Integer.bitCount(options)));
         } else if (eaten) {
             // Head back to house entrance
-            int tr = EXIT_ROW;
-            int tc = HOUSE_EXIT_COL;
-            dir = getBestDirection(options, row, col, tr, tc);
+            Maze maze = map.getMaze();
+            dir = getBestDirection(map, options, row, col, maze.exitRow, maze.exitCol);
         } else {
             // Chase pacman
-            dir = getBestDirection(options, row, col, pacman.getRow(), pacman.getCol());
+            dir = getBestDirection(map, options, row, col, pacman.getRow(), pacman.getCol());
+        }
+    }
+
+    /** The n-th set direction of an exit mask, in {@link Direction#MOVES} order. */
+    private static Direction nthOption(int options, int n) {
+        for (Direction d : Direction.MOVES) {
+            if ((options & d.bit) != 0 && n-- == 0) return d;
         }
+        return Direction.NONE;
     }
 
-    private Direction getBestDirection(List<Direction> options, int fromR, int fromC,
-                                       int targetR, int targetC) {
-        Direction best = options.get(0);
-        double bestDist = Double.MAX_VALUE;
-        for (Direction d : options) {
+    /**
+     * Option whose neighbour tile is closest to the target by maze distance.
+     * Targets off the ghost graph (e.g. PacMan inside the tunnel mouth) fall
+     * back to squared straight-line distance.
+     */
+    private static Direction getBestDirection(GameMap map, int options, int fromR, int fromC,
+                                              int targetR, int targetC) {
+        MazeDistances distances = map.getDistances();
+        boolean useMaze = distances.isWalkable(targetR, targetC);
+        Direction best = Direction.NONE;
+        int bestDist = Integer.MAX_VALUE;
+        for (Direction d : Direction.MOVES) {
+            if ((options & d.bit) == 0) continue;
             int nr = fromR + d.dy;
-            int nc = fromC + d.dx;
-            double dist = Math.hypot(nr - targetR, nc - targetC);
+            int nc = map.wrapColumn(fromC + d.dx);
+            int dist;
+            if (useMaze) {
+                dist = distances.distance(nr, nc, targetR, targetC);
+            } else {
+                int dr = nr - targetR, dc = nc - targetC;
+                dist = dr * dr + dc * dc;
+            }
             if (dist < bestDist) {
                 bestDist = dist;
                 best = d;
@@ -207,23 +250,28 @@ public class Ghost {
         return best;
     }
 
-    private Direction getOpposite(Direction d) {
-        return switch (d) {
-            case UP    -> Direction.DOWN;
-            case DOWN  -> Direction.UP;
-            case LEFT  -> Direction.RIGHT;
-            case RIGHT -> Direction.LEFT;
-            default    -> Direction.NONE;
-        };
-    }
-
     // ── Public helpers ────────────────────────────────────────────────────────
 
-    public int getCol() { return (int)(x + TILE / 2) / TILE; }
-    public int getRow() { return (int)(y + TILE / 2) / TILE; }
+    public int getCol() { return Motion.tileOf(x); }
+    public int getRow() { return Motion.tileOf(y); }
 
+    /** Hitbox in screen pixels. */
     public Rectangle getBounds() {
-        return new Rectangle((int)x + 2, (int)y + 2, TILE - 4, TILE - 4);
+        return new Rectangle((int) Motion.toPixels(x) + 2, (int) Motion.toPixels(y) + 2,
+                Constants.TILE_SIZE - 4, Constants.TILE_SIZE - 4);
+    }
+
+    /** Side of the collision box shared by ghosts and PacMan, in position units; {@link #getBounds()} in pixels. */
+    public static final int HIT_SIZE = TILE * (Constants.TILE_SIZE - 4) / Constants.TILE_SIZE;
+
+    /** Whether this ghost's box overlaps PacMan's, both {@link #HIT_SIZE} square. */
+    public boolean overlaps(PacMan pacman) {
+        return Math.abs(x - pacman.x) < HIT_SIZE && Math.abs(y - pacman.y) < HIT_SIZE;
+    }
+
+    /** True on the frames where a frightened ghost about to recover is shown white. */
+    public boolean isFlashing() {
+        return frightened && frightenTimer < 80 && animFrame == 1;
     }
 
     public void setFrightened() {
@@ -231,47 +279,53 @@ public class Ghost {
         frightenTimer = Constants.POWER_PELLET_DURATION;
     }
 
-    // ── Drawing ───────────────────────────────────────────────────────────────
-
-    public void draw(Graphics2D g) {
-        int px = (int)x, py = (int)y;
-        int w = TILE - 2, h = TILE - 2;
-        int ox = px + 1, oy = py + 1;
+    // ── Snapshot support ──────────────────────────────────────────────────────
+
+    /** Number of ints written by {@link #saveState}. */
+    public static final int STATE_INTS = 10;
+
+    public void saveState(int[] dst, int off) {
+        dst[off]      = x;
+        dst[off + 1]  = y;
+        dst[off + 2]  = prevX;
+        dst[off + 3]  = prevY;
+        dst[off + 4]  = dir.ordinal();
+        dst[off + 5]  = (frightened ? 1 : 0) | (eaten ? 2 : 0) | (exitingHouse ? 4 : 0);
+        dst[off + 6]  = frightenTimer;
+        dst[off + 7]  = releaseDelay;
+        dst[off + 8]  = animTick;
+        dst[off + 9]  = animFrame;
+    }
 
-        Color bodyColor;
-        if (frightened) {
-            bodyColor = (frightenTimer < 80 && animFrame == 1) ? Color.WHITE : new Color(0, 0, 180);
-        } else if (eaten) {
-            drawEyes(g, ox, oy, w, h, true);
-            return;
-        } else {
-            bodyColor = color;
-        }
+    /** Like {@link PacMan#isValidState}: the direction is a valid ordinal and the animation frame in range. */
+    public static boolean isValidState(int[] src, int off) {
+        return PacMan.isDirection(src[off + 4]) && src[off + 9] >= 0 && src[off + 9] < 2;
+    }
 
-        g.setColor(bodyColor);
-        g.fillArc(ox, oy, w, h, 0, 180);          // dome top
-        g.fillRect(ox, oy + h / 2, w, h / 2);     // body
+    public void loadState(int[] src, int off) {
+        x = src[off];
+        y = src[off + 1];
+        prevX = src[off + 2];
+        prevY = src[off + 3];
+        dir = Direction.of(src[off + 4]);
+        int flags = src[off + 5];
+        frightened = (flags & 1) != 0;
+        eaten = (flags & 2) != 0;
+        exitingHouse = (flags & 4) != 0;
+        frightenTimer = src[off + 6];
+        releaseDelay = src[off + 7];
+        animTick = src[off + 8];
+        animFrame = src[off + 9];
+    }
 
-        // Wavy bottom
-        int waveW = w / 3;
-        for (int i = 0; i < 3; i++) {
-            g.setColor(Color.BLACK);
-            g.fillArc(ox + i * waveW, oy + h - waveW / 2, waveW, waveW, 0, -180);
-            g.setColor(bodyColor);
-        }
+    // ── Drawing ───────────────────────────────────────────────────────────────
 
-        drawEyes(g, ox, oy, w, h, false);
+    /** Position in pixels blended between the last two ticks; jumps such as the tunnel wrap are not blended. */
+    public float renderX(float alpha) {
+        return Motion.toPixels(Math.abs(x - prevX) > TILE ? x : prevX + (x - prevX) * alpha);
     }
 
-    private void drawEyes(Graphics2D g, int ox, int oy, int w, int h, boolean onlyPupils) {
-        if (!onlyPupils) {
-            g.setColor(Color.WHITE);
-            g.fillOval(ox + w / 5,       oy + h / 5, w / 4, h / 3);
-            g.fillOval(ox + w / 2,       oy + h / 5, w / 4, h / 3);
-        }
-        g.setColor(new Color(0, 0, 200));
-        int pdx = dir.dx * 2, pdy = dir.dy * 2;
-        g.fillOval(ox + w / 5 + 2 + pdx, oy + h / 5 + 2 + pdy, w / 7, h / 5);
-        g.fillOval(ox + w / 2 + 2 + pdx, oy + h / 5 + 2 + pdy, w / 7, h / 5);
+    public float renderY(float alpha) {
+        return Motion.toPixels(Math.abs(y - prevY) > TILE ? y : prevY + (y - prevY) * alpha);
     }
 }
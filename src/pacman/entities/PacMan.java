@@ -3,27 +3,34 @@ package pacman.entities;
 import pacman.game.GameMap;
 import pacman.utils.Constants;
 import pacman.utils.Direction;
+import pacman.utils.Motion;
 
 import java.awt.*;
 
 public class PacMan {
-    public float x, y;
+    /** Position of the top-left corner in {@link Constants#TILE_UNITS} per tile. */
+    public int x, y;
+    public int prevX, prevY;   // position at the start of the last update, for interpolation
     public Direction dir, nextDir;
     public int animFrame;
     public int animTick;
     public boolean alive;
     public int lives;
 
-    private static final float SPEED = Constants.PACMAN_SPEED;
-    private static final int TILE = Constants.TILE_SIZE;
+    private static final Motion MOTION = Motion.PACMAN;
+    private static final int TILE = Constants.TILE_UNITS;
+    /** Slack on each side of the hitbox when checking walls, about 4 px; lets PacMan turn slightly early. */
+    private static final int MARGIN = TILE / 6;
+
+    private int startX = 10 * TILE, startY = 16 * TILE;
 
     public PacMan() {
         reset();
     }
 
     public void reset() {
-        x = 10 * TILE;
-        y = 16 * TILE;
+        x = prevX = startX;
+        y = prevY = startY;
         dir = Direction.NONE;
         nextDir = Direction.NONE;
         animFrame = 0;
@@ -32,7 +39,16 @@ public class PacMan {
         if (lives == 0) lives = 3;
     }
 
+    /** Moves the spawn point, e.g. for a new maze; takes effect on the next reset. */
+    public void setSpawn(int x, int y) {
+        startX = x;
+        startY = y;
+    }
+
     public void update(GameMap map) {
+        prevX = x;
+        prevY = y;
+
         // Try queued direction
         if (nextDir != Direction.NONE && canMove(nextDir, map)) {
             dir = nextDir;
@@ -40,13 +56,14 @@ public class PacMan {
         }
 
         if (dir != Direction.NONE && canMove(dir, map)) {
-            x += dir.dx * SPEED;
-            y += dir.dy * SPEED;
+            x = MOTION.advance(x, dir.dx);
+            y = MOTION.advance(y, dir.dy);
         }
 
-        // Tunnel wrap (row 10)
-        if (x < -TILE) x = Constants.SCREEN_WIDTH;
-        if (x > Constants.SCREEN_WIDTH) x = -TILE;
+        // Tunnel wrap
+        int width = map.getCols() * TILE;
+        if (x < -TILE) x = width;
+        if (x > width) x = -TILE;
 
         // Animation
         animTick++;
@@ -56,50 +73,85 @@ public class PacMan {
         }
     }
 
-    private boolean canMove(Direction d, GameMap map) {
-        // Align to grid for smoother turning
-        float nx = x + d.dx * SPEED;
-        float ny = y + d.dy * SPEED;
-        int margin = 4;
-        int col1 = (int)(nx + margin) / TILE;
-        int col2 = (int)(nx + TILE - margin - 1) / TILE;
-        int row1 = (int)(ny + margin) / TILE;
-        int row2 = (int)(ny + TILE - margin - 1) / TILE;
-        return !map.isWall(row1, col1) && !map.isWall(row1, col2)
-            && !map.isWall(row2, col1) && !map.isWall(row2, col2);
+    /** True if one step in {@code d} keeps the hitbox clear of walls. */
+    public boolean canMove(Direction d, GameMap map) {
+        int nx = MOTION.advance(x, d.dx);
+        int ny = MOTION.advance(y, d.dy);
+        // Columns wrap so the tunnel mouths read the tiles on the far side
+        int col1 = map.wrapColumn((nx + MARGIN) >> Constants.TILE_BITS);
+        int col2 = map.wrapColumn((nx + TILE - MARGIN - 1) >> Constants.TILE_BITS);
+        int row1 = (ny + MARGIN) >> Constants.TILE_BITS;
+        int row2 = (ny + TILE - MARGIN - 1) >> Constants.TILE_BITS;
+        // The hitbox usually spans a single row or column, so skip duplicate corners
+        if (map.isWall(row1, col1)) return false;
+        if (col2 != col1 && map.isWall(row1, col2)) return false;
+        if (row2 != row1) {
+            if (map.isWall(row2, col1)) return false;
+            if (col2 != col1 && map.isWall(row2, col2)) return false;
+        }
+        return true;
+    }
+
+    // ── Snapshot support ──────────────────────────────────────────────────────
+
+    /** Number of ints written by {@link #saveState}. */
+    public static final int STATE_INTS = 10;
+
+    public void saveState(int[] dst, int off) {
+        dst[off]     = x;
+        dst[off + 1] = y;
+        dst[off + 2] = prevX;
+        dst[off + 3] = prevY;
+        dst[off + 4] = dir.ordinal();
+        dst[off + 5] = nextDir.ordinal();
+        dst[off + 6] = animFrame;
+        dst[off + 7] = animTick;
+        dst[off + 8] = alive ? 1 : 0;
+        dst[off + 9] = lives;
     }
 
-    public int getCol() { return (int)(x + TILE/2) / TILE; }
-    public int getRow() { return (int)(y + TILE/2) / TILE; }
+    /**
+     * True if the ints at {@code off} could have come from {@link #saveState}
+     * as far as {@link #loadState} and drawing care: directions are valid
+     * ordinals and the animation frame is in range.
+     */
+    public static boolean isValidState(int[] src, int off) {
+        return isDirection(src[off + 4]) && isDirection(src[off + 5])
+                && src[off + 6] >= 0 && src[off + 6] < 3;
+    }
 
-    public Rectangle getBounds() {
-        return new Rectangle((int)x + 2, (int)y + 2, TILE - 4, TILE - 4);
+    static boolean isDirection(int ordinal) {
+        return ordinal >= 0 && ordinal <= Direction.NONE.ordinal();
     }
 
-    public void draw(Graphics2D g) {
-        int px = (int)x, py = (int)y;
-        g.setColor(Color.YELLOW);
+    public void loadState(int[] src, int off) {
+        x = src[off];
+        y = src[off + 1];
+        prevX = src[off + 2];
+        prevY = src[off + 3];
+        dir = Direction.of(src[off + 4]);
+        nextDir = Direction.of(src[off + 5]);
+        animFrame = src[off + 6];
+        animTick = src[off + 7];
+        alive = src[off + 8] != 0;
+        lives = src[off + 9];
+    }
 
-        double mouthOpen = (animFrame == 1) ? 20 : (animFrame == 0 ? 5 : 35);
-        double startAngle = getStartAngle() + mouthOpen / 2;
-        double arcAngle = 360 - mouthOpen;
+    public int getCol() { return Motion.tileOf(x); }
+    public int getRow() { return Motion.tileOf(y); }
 
-        g.fillArc(px + 1, py + 1, TILE - 2, TILE - 2, (int)startAngle, (int)arcAngle);
+    /** Hitbox in screen pixels. */
+    public Rectangle getBounds() {
+        return new Rectangle((int) Motion.toPixels(x) + 2, (int) Motion.toPixels(y) + 2,
+                Constants.TILE_SIZE - 4, Constants.TILE_SIZE - 4);
+    }
 
-        // Eye
-        g.setColor(Color.BLACK);
-        int ex = px + TILE/2 + (int)(dir.dx * 3) + (dir.dy != 0 ? 4 : 0);
-        int ey = py + 4 + (int)(dir.dy * 3);
-        g.fillOval(ex, ey, 3, 3);
+    /** Position in pixels blended between the last two ticks; jumps such as the tunnel wrap are not blended. */
+    public float renderX(float alpha) {
+        return Motion.toPixels(Math.abs(x - prevX) > TILE ? x : prevX + (x - prevX) * alpha);
     }
 
-    private int getStartAngle() {
-        return switch (dir) {
-            case RIGHT -> 0;
-            case LEFT -> 180;
-            case UP -> 90;
-            case DOWN -> 270;
-            default -> 0;
-        };
+    public float renderY(float alpha) {
+        return Motion.toPixels(Math.abs(y - prevY) > TILE ? y : prevY + (y - prevY) * alpha);
     }
 }
@@ -0,0 +1,216 @@
+package pacman.events;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-producer ring of {@link GameEvent}s with any number of independent,
+ * batching consumers.
+ *
+ * Events are stored as eight ints each in one preallocated array, so
+ * publishing is a handful of array stores and an ordered write of the cursor:
+ * no allocation, no lock, and no look at the consumers. The game thread
+ * therefore never waits for an observer. A consumer that falls more than a
+ * ring behind loses the overwritten events instead. The producer claims a
+ * slot before writing it, and a consumer checks the claim after reading one
+ * (as a sequence lock would), so it skips exactly the events that were
+ * overwritten and counts them in {@link Consumer#getDropped()}, next to its lag.
+ *
+ * Consumers either {@link Consumer#poll() poll} from a thread they already
+ * have, such as a frame loop, or {@link Consumer#start start} their own.
+ */
+public final class EventBus {
+
+    public static final int DEFAULT_CAPACITY = 1 << 12;
+
+    private static final int FIELDS = 8;   // type, row, col, score, level, remaining, ghost, lives
+
+    private final int capacity;
+    private final int mask;
+    private final int[] ring;
+    private final AtomicLong cursor = new AtomicLong();   // sequence of the next event to publish
+    private final AtomicLong claimed = new AtomicLong();  // one past the slot being written, ahead of cursor while writing
+    private long next;   // producer only
+
+    public EventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /** @param capacity events kept for slow consumers, a power of two */
+    public EventBus(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("capacity must be a power of two");
+        this.capacity = capacity;
+        mask = capacity - 1;
+        ring = new int[capacity * FIELDS];
+    }
+
+    public int getCapacity() { return capacity; }
+
+    /** Events published so far. */
+    public long getPublished() { return cursor.get(); }
+
+    // ── Publishing ────────────────────────────────────────────────────────────
+    // One thread only, normally the one stepping the game.
+
+    public void pelletEaten(int row, int col, int score, int level, int remaining) {
+        publish(GameEvent.Type.PELLET_EATEN, row, col, score, level, remaining, -1, -1);
+    }
+
+    public void powerPelletEaten(int row, int col, int score, int level, int remaining) {
+        publish(GameEvent.Type.POWER_PELLET_EATEN, row, col, score, level, remaining, -1, -1);
+    }
+
+    public void ghostEaten(int ghost, int row, int col, int score, int level) {
+        publish(GameEvent.Type.GHOST_EATEN, row, col, score, level, -1, ghost, -1);
+    }
+
+    public void pacManDied(int row, int col, int lives, int score, int level) {
+        publish(GameEvent.Type.PACMAN_DIED, row, col, score, level, -1, -1, lives);
+    }
+
+    public void levelCleared(int level, int score) {
+        publish(GameEvent.Type.LEVEL_CLEARED, -1, -1, score, level, -1, -1, -1);
+    }
+
+    private void publish(GameEvent.Type type, int row, int col, int score, int level,
+                         int remaining, int ghost, int lives) {
+        long seq = next++;
+        claimed.setOpaque(seq + 1);
+        VarHandle.storeStoreFence();   // the claim is visible before any of the slot's stores
+        int at = (int) (seq & mask) * FIELDS;
+        ring[at] = type.ordinal();
+        ring[at + 1] = row;
+        ring[at + 2] = col;
+        ring[at + 3] = score;
+        ring[at + 4] = level;
+        ring[at + 5] = remaining;
+        ring[at + 6] = ghost;
+        ring[at + 7] = lives;
+        cursor.lazySet(seq + 1);   // release: the slot's stores become visible first
+    }
+
+    // ── Consuming ─────────────────────────────────────────────────────────────
+
+    /** A new consumer that will see every event published from now on. */
+    public Consumer subscribe(EventHandler handler) {
+        return new Consumer(handler);
+    }
+
+    /** One reader's position in the ring. Poll it from one thread at a time. */
+    public final class Consumer implements AutoCloseable {
+        private static final int SPINS_BEFORE_PARKING = 100;
+        private static final long PARK_NANOS = 100_000L;
+
+        private final EventHandler handler;
+        private final GameEvent event = new GameEvent();
+        private final AtomicLong sequence;   // next event to read
+        private volatile long dropped, maxLag, consumed;
+        private volatile boolean running;
+        private Thread thread;
+
+        private Consumer(EventHandler handler) {
+            this.handler = handler;
+            sequence = new AtomicLong(cursor.get());
+        }
+
+        /**
+         * Hands every available event to the handler, in order, flagging the
+         * last as the end of the batch. If the producer laps this consumer
+         * during the poll, the events it overwrote are dropped, and when that
+         * includes the last one no event of the batch carries the flag.
+         * @return number of events handled
+         */
+        public int poll() {
+            long available = cursor.get();
+            long seq = sequence.get();
+            if (seq == available) return 0;
+            long lag = available - seq;
+            if (lag > maxLag) maxLag = lag;
+            if (lag > capacity) {
+                dropped += lag - capacity;
+                seq = available - capacity;
+            }
+            int handled = 0;
+            for (; seq < available; seq++) {
+                int at = (int) (seq & mask) * FIELDS;
+                event.type = GameEvent.Type.VALUES[ring[at]];
+                event.row = ring[at + 1];
+                event.col = ring[at + 2];
+                event.score = ring[at + 3];
+                event.level = ring[at + 4];
+                event.remaining = ring[at + 5];
+                event.ghost = ring[at + 6];
+                event.lives = ring[at + 7];
+                // The producer may have lapped us while we read; if so, what we read is torn.
+                // Slots from the claim back one capacity are being or have been rewritten
+                VarHandle.acquireFence();
+                long oldestIntact = claimed.get() - capacity;
+                if (seq < oldestIntact) {
+                    dropped += Math.min(oldestIntact, available) - seq;
+                    seq = Math.min(oldestIntact, available) - 1;
+                    continue;
+                }
+                event.sequence = seq;
+                handler.onEvent(event, seq == available - 1);
+                handled++;
+            }
+            sequence.lazySet(seq);
+            if (handled > 0) consumed += handled;
+            return handled;
+        }
+
+        /** Polls on a new daemon thread until {@link #close()}, parking briefly when idle. */
+        public synchronized Consumer start(String name) {
+            if (thread != null) throw new IllegalStateException("already started");
+            running = true;
+            thread = new Thread(this::run, name);
+            thread.setDaemon(true);
+            thread.start();
+            return this;
+        }
+
+        private void run() {
+            int idle = 0;
+            while (running) {
+                if (poll() > 0) {
+                    idle = 0;
+                } else if (++idle < SPINS_BEFORE_PARKING) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+        }
+
+        /** Events published but not yet handled. */
+        public long getLag() {
+            return Math.max(0, cursor.get() - sequence.get());
+        }
+
+        /** Largest backlog seen at the start of a poll. */
+        public long getMaxLag() { return maxLag; }
+
+        /** Events overwritten before this consumer got to them. */
+        public long getDropped() { return dropped; }
+
+        public long getConsumed() { return consumed; }
+
+        /** Stops the consumer's thread, if it has one, after its current batch. */
+        @Override
+        public void close() {
+            Thread t;
+            synchronized (this) {
+                running = false;
+                t = thread;
+            }
+            if (t == null) return;
+            LockSupport.unpark(t);
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package pacman.events;
+
+/** Receives game events on a consumer's thread. */
+@FunctionalInterface
+public interface EventHandler {
+
+    /**
+     * @param event valid only during the call; see {@link GameEvent}
+     * @param endOfBatch whether this is the last event currently available,
+     *                   e.g. the moment to flush buffered work
+     */
+    void onEvent(GameEvent event, boolean endOfBatch);
+}
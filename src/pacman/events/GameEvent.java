@@ -0,0 +1,45 @@
+package pacman.events;
+
+/**
+ * One thing that happened in a game, as seen by an {@link EventHandler}.
+ *
+ * Handlers are given the same instance for every event a consumer reads,
+ * refilled from the ring each time, so nothing is allocated per event; copy
+ * out whatever must outlive the call. Fields that do not apply to an event's
+ * type are -1.
+ */
+public final class GameEvent {
+
+    public enum Type {
+        /** A regular pellet; {@code row, col} is its tile. */
+        PELLET_EATEN,
+        /** A power pellet; every ghost has just been frightened. */
+        POWER_PELLET_EATEN,
+        /** A frightened ghost was caught; {@code ghost} is its index, {@code row, col} PacMan's tile. */
+        GHOST_EATEN,
+        /** A ghost caught PacMan at {@code row, col}; {@code lives} are those left afterwards. */
+        PACMAN_DIED,
+        /** The last pellet was eaten; {@code level} is the level just cleared. */
+        LEVEL_CLEARED;
+
+        static final Type[] VALUES = values();
+    }
+
+    public Type type;
+    /** Position in the bus's stream, counting from 0; consecutive unless events were dropped. */
+    public long sequence;
+    public int row, col;
+    /** Score and level right after the event. */
+    public int score, level;
+    /** Pellets left on the level, for pellet events. */
+    public int remaining;
+    public int ghost;
+    public int lives;
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + type + " at " + row + "," + col + " score=" + score + " level=" + level
+                + (remaining >= 0 ? " remaining=" + remaining : "") + (ghost >= 0 ? " ghost=" + ghost : "")
+                + (lives >= 0 ? " lives=" + lives : "");
+    }
+}
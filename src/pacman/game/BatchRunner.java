@@ -0,0 +1,161 @@
+package pacman.game;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+
+/**
+ * Runs many independent headless games in parallel and aggregates the results.
+ *
+ * Every game gets its own {@link GameController} seeded from the input list, so
+ * results depend only on the seeds and the policy, never on thread scheduling.
+ * Work is split over a {@link ForkJoinPool} down to small seed ranges, and each
+ * range keeps its own {@link Stats} that are merged on the way back up, so the
+ * workers share nothing while running.
+ */
+public class BatchRunner {
+
+    /** Outcome of a single game. */
+    public static final class GameResult {
+        public final long seed;
+        public final int score, level, ticks, ghostsEaten;
+
+        GameResult(long seed, int score, int level, int ticks, int ghostsEaten) {
+            this.seed = seed;
+            this.score = score;
+            this.level = level;
+            this.ticks = ticks;
+            this.ghostsEaten = ghostsEaten;
+        }
+    }
+
+    /** Aggregate over a set of games. */
+    public static final class Stats {
+        public int games;
+        public long totalScore, totalTicks, totalGhostsEaten;
+        public int minScore = Integer.MAX_VALUE, maxScore = Integer.MIN_VALUE;
+        public int maxLevel;
+        /** levelCounts[n] = games that ended on level n. */
+        public int[] levelCounts = new int[16];
+
+        void add(GameResult r) {
+            games++;
+            totalScore += r.score;
+            totalTicks += r.ticks;
+            totalGhostsEaten += r.ghostsEaten;
+            minScore = Math.min(minScore, r.score);
+            maxScore = Math.max(maxScore, r.score);
+            maxLevel = Math.max(maxLevel, r.level);
+            if (r.level >= levelCounts.length) levelCounts = Arrays.copyOf(levelCounts, r.level * 2);
+            levelCounts[r.level]++;
+        }
+
+        Stats merge(Stats o) {
+            games += o.games;
+            totalScore += o.totalScore;
+            totalTicks += o.totalTicks;
+            totalGhostsEaten += o.totalGhostsEaten;
+            minScore = Math.min(minScore, o.minScore);
+            maxScore = Math.max(maxScore, o.maxScore);
+            maxLevel = Math.max(maxLevel, o.maxLevel);
+            if (o.levelCounts.length > levelCounts.length) levelCounts = Arrays.copyOf(levelCounts, o.levelCounts.length);
+            for (int i = 0; i < o.levelCounts.length; i++) levelCounts[i] += o.levelCounts[i];
+            return this;
+        }
+
+        public double meanScore() { return games == 0 ? 0 : (double) totalScore / games; }
+        public double meanTicks() { return games == 0 ? 0 : (double) totalTicks / games; }
+
+        @Override
+        public String toString() {
+            return String.format("games=%d score[mean=%.1f min=%d max=%d] ticks[mean=%.1f] ghostsEaten=%d maxLevel=%d",
+                    games, meanScore(), games == 0 ? 0 : minScore, games == 0 ? 0 : maxScore,
+                    meanTicks(), totalGhostsEaten, maxLevel);
+        }
+    }
+
+    /** Per-game results (in seed order) plus their aggregate. */
+    public static final class Result {
+        public final GameResult[] games;
+        public final Stats stats;
+
+        Result(GameResult[] games, Stats stats) {
+            this.games = games;
+            this.stats = stats;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int maxTicksPerGame;
+
+    /**
+     * @param parallelism     worker threads; usually the number of cores
+     * @param maxTicksPerGame cut-off for games the policy never loses
+     */
+    public BatchRunner(int parallelism, int maxTicksPerGame) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.maxTicksPerGame = maxTicksPerGame;
+    }
+
+    /**
+     * Plays one game per seed.
+     * @param policies creates the player for a game from that game's seed
+     */
+    public Result run(long[] seeds, LongFunction<Policy> policies) {
+        GameResult[] results = new GameResult[seeds.length];
+        // Aim for several leaves per worker so uneven game lengths still balance
+        int leafSize = Math.max(1, seeds.length / (pool.getParallelism() * 8));
+        Stats stats = pool.invoke(new Slice(seeds, policies, results, 0, seeds.length, leafSize));
+        return new Result(results, stats);
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /** Plays a single seeded game to completion (or the tick cap). */
+    public static GameResult play(long seed, Policy policy, int maxTicks) {
+        Simulation sim = new Simulation(seed);
+        sim.start();
+        int ticks = sim.run(policy, maxTicks);
+        GameController c = sim.getController();
+        return new GameResult(seed, c.score, c.level, ticks, c.ghostsEaten);
+    }
+
+    private final class Slice extends RecursiveTask<Stats> {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] seeds;
+        private final LongFunction<Policy> policies;
+        private final GameResult[] results;
+        private final int from, to, leafSize;
+
+        Slice(long[] seeds, LongFunction<Policy> policies, GameResult[] results, int from, int to, int leafSize) {
+            this.seeds = seeds;
+            this.policies = policies;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (to - from <= leafSize) {
+                Stats stats = new Stats();
+                for (int i = from; i < to; i++) {
+                    long seed = seeds[i];
+                    results[i] = play(seed, policies.apply(seed), maxTicksPerGame);
+                    stats.add(results[i]);
+                }
+                return stats;
+            }
+            int mid = (from + to) >>> 1;
+            Slice left = new Slice(seeds, policies, results, from, mid, leafSize);
+            left.fork();
+            Stats right = new Slice(seeds, policies, results, mid, to, leafSize).compute();
+            return left.join().merge(right);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package pacman.game;
+
+import pacman.utils.Constants;
+
+import java.util.Arrays;
+
+/**
+ * Uniform-grid broadphase with one cell per maze tile.
+ *
+ * Entities are small integer ids whose data lives in parallel arrays:
+ * position (in {@link Constants#TILE_UNITS} per tile), current cell, and
+ * intrusive previous/next links threading the entities of each cell into a
+ * list. {@link #move} relinks an entity only when it crosses into another
+ * cell, and {@link #query} visits just the 3x3 cells around a point, so a
+ * collision check costs the same whether the maze holds four ghosts or four
+ * hundred.
+ *
+ * Positions outside the maze (the tunnel mouths) are filed under the nearest
+ * edge cell. Clamping never moves two positions further apart by cell, so any
+ * pair closer than a tile still lands in neighbouring cells.
+ */
+public final class CollisionGrid {
+
+    private static final int TILE = Constants.TILE_UNITS;
+
+    private final int rows, cols;
+    private final int[] head;       // per cell: first entity id, or -1
+
+    // Per entity, struct-of-arrays
+    private final int[] xs, ys;
+    private final int[] cell;
+    private final int[] next, prev;
+    private int size;
+    private int lastChecks;
+
+    public CollisionGrid(int rows, int cols, int capacity) {
+        this.rows = rows;
+        this.cols = cols;
+        head = new int[rows * cols];
+        Arrays.fill(head, -1);
+        xs = new int[capacity];
+        ys = new int[capacity];
+        cell = new int[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+    }
+
+    public int size() { return size; }
+
+    /** Entities the last {@link #query} compared against its point, i.e. the narrowphase work done. */
+    public int getLastChecks() { return lastChecks; }
+
+    /** Adds an entity at a position and returns its id (ids are assigned 0, 1, 2...). */
+    public int add(int x, int y) {
+        if (size == xs.length) throw new IllegalStateException("grid is full");
+        int id = size++;
+        xs[id] = x;
+        ys[id] = y;
+        link(id, cellOf(x, y));
+        return id;
+    }
+
+    /** Updates an entity's position, relinking it only if it changed cell. */
+    public void move(int id, int x, int y) {
+        xs[id] = x;
+        ys[id] = y;
+        int c = cellOf(x, y);
+        if (c != cell[id]) {
+            unlink(id);
+            link(id, c);
+        }
+    }
+
+    /**
+     * Collects the ids of entities whose position is within {@code extent}
+     * units of {@code (x, y)} on both axes, i.e. whose same-sized boxes overlap.
+     * @param extent at most one tile, so only neighbouring cells can match
+     * @param out    receives matching ids in ascending order; needs room for {@link #size()} ids
+     * @return the number of ids written
+     */
+    public int query(int x, int y, int extent, int[] out) {
+        if (extent > TILE) throw new IllegalArgumentException("extent larger than a cell");
+        int cr = clamp((y >> Constants.TILE_BITS), rows), cc = clamp((x >> Constants.TILE_BITS), cols);
+        int n = 0, checks = 0;
+        for (int r = Math.max(0, cr - 1); r <= Math.min(rows - 1, cr + 1); r++) {
+            for (int c = Math.max(0, cc - 1); c <= Math.min(cols - 1, cc + 1); c++) {
+                for (int id = head[r * cols + c]; id >= 0; id = next[id]) {
+                    checks++;
+                    if (Math.abs(xs[id] - x) < extent && Math.abs(ys[id] - y) < extent) {
+                        // Insertion sort: callers rely on id order, and hits are few
+                        int i = n++;
+                        while (i > 0 && out[i - 1] > id) {
+                            out[i] = out[i - 1];
+                            i--;
+                        }
+                        out[i] = id;
+                    }
+                }
+            }
+        }
+        lastChecks = checks;
+        return n;
+    }
+
+    private int cellOf(int x, int y) {
+        return clamp((y >> Constants.TILE_BITS), rows) * cols + clamp((x >> Constants.TILE_BITS), cols);
+    }
+
+    private static int clamp(int v, int n) {
+        return v < 0 ? 0 : (v >= n ? n - 1 : v);
+    }
+
+    private void link(int id, int c) {
+        cell[id] = c;
+        prev[id] = -1;
+        next[id] = head[c];
+        if (head[c] >= 0) prev[head[c]] = id;
+        head[c] = id;
+    }
+
+    private void unlink(int id) {
+        int p = prev[id], n = next[id];
+        if (p >= 0) next[p] = n;
+        else head[cell[id]] = n;
+        if (n >= 0) prev[n] = p;
+    }
+}
@@ -0,0 +1,151 @@
+package pacman.game;
+
+import pacman.events.EventBus;
+import pacman.events.GameEvent;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command-line modes for headless play and maze tools, dispatched from
+ * {@link pacman.Main}. Each takes the arguments after its command name.
+ */
+public final class GameCommands {
+
+    private GameCommands() {}
+
+    /** {@code --headless [maxTicks] [ghosts]}: runs a single game without a display and prints the outcome. */
+    public static void headless(String[] args) {
+        int maxTicks = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int ghosts = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        Simulation sim = new Simulation(new GameController(System.nanoTime(), LevelPack.CLASSIC, ghosts));
+        sim.start();
+        long t0 = System.nanoTime();
+        int ticks = sim.run(maxTicks);
+        long elapsed = System.nanoTime() - t0;
+
+        GameController c = sim.getController();
+        System.out.printf("ticks=%d state=%s score=%d level=%d ghosts=%d (%.2f ms, %.0f ns/tick)%n",
+                ticks, c.state, c.score, c.level, ghosts, elapsed / 1e6, elapsed / (double) Math.max(1, ticks));
+    }
+
+    /** {@code --batch [games] [threads]}: plays seeds 0..games-1 with the random-turn policy. */
+    public static void batch(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        long[] seeds = new long[games];
+        for (int i = 0; i < games; i++) seeds[i] = i;
+
+        BatchRunner runner = new BatchRunner(threads, 1_000_000);
+        long t0 = System.nanoTime();
+        BatchRunner.Result result = runner.run(seeds, Policy::randomTurns);
+        long elapsed = System.nanoTime() - t0;
+        runner.shutdown();
+
+        System.out.println(result.stats);
+        System.out.printf("%d games on %d threads in %.1f ms (%.0f ticks/s)%n", games, threads,
+                elapsed / 1e6, result.stats.totalTicks / (elapsed / 1e9));
+    }
+
+    /** {@code --compile-mazes file...}: validates text mazes and writes each compiled form alongside it. */
+    public static void compileMazes(String[] args) {
+        if (args.length == 0) throw new IllegalArgumentException("expected maze files");
+        for (String arg : args) {
+            Path text = Paths.get(arg);
+            Path out = MazeFile.compiledPath(text);
+            try {
+                Maze maze = MazeFile.compile(text, out);
+                System.out.printf("%s -> %s: %s%n", text, out.getFileName(), maze);
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * {@code --generate-mazes [count] [firstSeed] [threads] [dir]}: generates
+     * mazes for seeds {@code first..first+count-1}, prints the first and the
+     * throughput, and saves them as text mazes if a directory is given.
+     */
+    public static void generateMazes(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        long first = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        Path dir = args.length > 3 ? Paths.get(args[3]) : null;
+
+        long[] seeds = new long[count];
+        for (int i = 0; i < count; i++) seeds[i] = first + i;
+        MazeGenerator generator = new MazeGenerator();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long t0 = System.nanoTime();
+        Maze[] mazes = generator.generate(seeds, pool);
+        long elapsed = System.nanoTime() - t0;
+        pool.shutdown();
+
+        MazeLoader.format(mazes[0]).forEach(System.out::println);
+        int min = Integer.MAX_VALUE, max = 0;
+        long total = 0;
+        for (Maze m : mazes) {
+            min = Math.min(min, m.getPelletCount());
+            max = Math.max(max, m.getPelletCount());
+            total += m.getPelletCount();
+        }
+        System.out.printf("%d mazes on %d threads in %.1f ms (%.0f mazes/s), %d attempts, pellets[mean=%.1f min=%d max=%d]%n",
+                count, threads, elapsed / 1e6, count / (elapsed / 1e9), generator.getAttempts(),
+                (double) total / count, min, max);
+        if (dir == null) return;
+        Files.createDirectories(dir);
+        for (Maze m : mazes) Files.write(dir.resolve(m.name + ".txt"), MazeLoader.format(m), StandardCharsets.UTF_8);
+        System.out.println("wrote " + count + " mazes to " + dir);
+    }
+
+    /**
+     * {@code --events [games]}: plays seeded games flat out, first alone and
+     * then publishing to an event bus with a counting consumer and a
+     * deliberately slow one, and prints the tick rate both ways plus what
+     * each consumer saw.
+     */
+    public static void events(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        System.out.printf("without bus: %.0f ticks/s%n", playSeeded(games, null));
+
+        EventBus bus = new EventBus();
+        long[] counts = new long[GameEvent.Type.values().length];
+        EventBus.Consumer counter = bus.subscribe((e, endOfBatch) -> counts[e.type.ordinal()]++)
+                .start("pacman-events-count");
+        EventBus.Consumer slow = bus.subscribe((e, endOfBatch) -> {
+            long until = System.nanoTime() + 20_000;   // 20 us per event, e.g. a blocking audio call
+            while (System.nanoTime() < until) Thread.onSpinWait();
+        }).start("pacman-events-slow");
+        double rate = playSeeded(games, bus);
+        while (counter.getLag() > 0) Thread.onSpinWait();
+        counter.close();
+        slow.close();
+
+        System.out.printf("with bus:    %.0f ticks/s, %d events%n", rate, bus.getPublished());
+        for (GameEvent.Type t : GameEvent.Type.values()) System.out.printf("  %-18s %d%n", t, counts[t.ordinal()]);
+        for (EventBus.Consumer c : new EventBus.Consumer[] { counter, slow }) {
+            System.out.printf("  consumer %s: consumed=%d dropped=%d maxLag=%d%n",
+                    c == counter ? "count" : "slow ", c.getConsumed(), c.getDropped(), c.getMaxLag());
+        }
+    }
+
+    private static double playSeeded(int games, EventBus bus) {
+        long ticks = 0;
+        long t0 = System.nanoTime();
+        for (int seed = 0; seed < games; seed++) {
+            Simulation sim = new Simulation(seed);
+            sim.getController().setEvents(bus);
+            Policy policy = Policy.randomTurns(seed);
+            sim.start();
+            ticks += sim.run(policy, 1_000_000);
+        }
+        return ticks / ((System.nanoTime() - t0) / 1e9);
+    }
+}
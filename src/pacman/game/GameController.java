@@ -2,8 +2,14 @@ package pacman.game;
 
 import pacman.entities.Ghost;
 import pacman.entities.PacMan;
+import pacman.events.EventBus;
+import pacman.metrics.FlightEvents;
+import pacman.metrics.PelletEvent;
+import pacman.metrics.StateChangeEvent;
+import pacman.metrics.TickEvent;
 import pacman.utils.Constants;
 import pacman.utils.Direction;
+import pacman.utils.Rng;
 
 import java.awt.*;
 import java.util.ArrayList;
@@ -17,38 +23,178 @@ public class GameController {
     public List<Ghost> ghosts;
     public State state;
     public int score, level, pelletsEaten;
+    public int ghostsEaten;
     public int stateTimer;
+    /** Work done by the last {@link #update()}: ghost direction choices and collision candidates. */
+    public int tickDecisions, tickCollisionChecks;
 
-    private static final int TILE = Constants.TILE_SIZE;
+    final Rng rng;   // package-private for GameSnapshot
+    private final LevelPack levels;
+
+    // Broadphase over ghost positions, kept current as ghosts move
+    private CollisionGrid grid;
+    private int[] hits;
+
+    // Optional observers; publishing never blocks or allocates
+    private EventBus events;
+
+    private static final int TILE = Constants.TILE_UNITS;
 
     public GameController() {
-        map = new GameMap();
+        this(System.nanoTime());
+    }
+
+    /**
+     * Creates a game whose ghost randomness is fully determined by {@code seed}.
+     * A game started with {@link #startGame()} is determined by the random state
+     * at that moment plus PacMan's input, which is what replays record.
+     */
+    public GameController(long seed) {
+        this(seed, LevelPack.CLASSIC);
+    }
+
+    /** Like {@link #GameController(long)}, with each level's maze chosen by {@code levels}. */
+    public GameController(long seed, LevelPack levels) {
+        this(seed, levels, 4);
+    }
+
+    /**
+     * Like {@link #GameController(long, LevelPack)} with any number of ghosts,
+     * for stress variants. Ghosts beyond the first four repeat their colours
+     * and spawn tiles, and leave the house in waves.
+     */
+    public GameController(long seed, LevelPack levels, int ghostCount) {
+        if (ghostCount < 1) throw new IllegalArgumentException("need at least one ghost");
+        rng = new Rng(seed);
+        this.levels = levels;
+        map = new GameMap(levels.mazeFor(1));
         pacman = new PacMan();
-        ghosts = new ArrayList<>();
-        initGhosts();
+        ghosts = new ArrayList<>(ghostCount);
+        hits = new int[ghostCount];
+        initGhosts(ghostCount);
+        placeSpawns();
         state = State.MENU;
         score = 0; level = 1;
     }
 
-    private void initGhosts() {
+    private static final String[] NAMES = { "Blinky", "Pinky", "Inky", "Clyde" };
+    private static final Color[] COLORS = {
+        Color.RED, new Color(255, 180, 255), new Color(0, 255, 255), new Color(255, 180, 0)
+    };
+    private static final int[] RELEASE_DELAYS = { 30, 90, 180, 270 };
+
+    private void initGhosts(int count) {
         ghosts.clear();
-        // releaseDelay staggers exit so they leave the house one at a time
-        ghosts.add(new Ghost(10 * TILE, 10 * TILE, Color.RED,                "Blinky",  30));
-        ghosts.add(new Ghost(9  * TILE, 10 * TILE, new Color(255, 180, 255), "Pinky",   90));
-        ghosts.add(new Ghost(11 * TILE, 10 * TILE, new Color(0, 255, 255),   "Inky",    180));
-        ghosts.add(new Ghost(10 * TILE, 11 * TILE, new Color(255, 180, 0),   "Clyde",   270));
+        // releaseDelay staggers exit so they leave the house one at a time;
+        // spawn tiles come from the maze, see placeSpawns()
+        for (int i = 0; i < count; i++) {
+            int p = i % 4, wave = i / 4;
+            String name = wave == 0 ? NAMES[p] : NAMES[p] + " " + (wave + 1);
+            ghosts.add(new Ghost(0, 0, COLORS[p], name, releaseDelay(i), rng));
+        }
+    }
+
+    /** Frames ghost {@code i} waits in the house at the start of a life. */
+    static int releaseDelay(int i) {
+        return RELEASE_DELAYS[i % 4] + i / 4 * 60;
     }
 
+    /**
+     * Moves PacMan and the ghosts to the current maze's spawn tiles and resets
+     * them there. Ghosts share spawns round-robin if the maze has fewer than ghosts.
+     */
+    private void placeSpawns() {
+        Maze maze = map.getMaze();
+        pacman.setSpawn(maze.pacmanCol * TILE, maze.pacmanRow * TILE);
+        pacman.reset();
+        int spawns = maze.getGhostSpawnCount();
+        for (int i = 0; i < ghosts.size(); i++) {
+            Ghost g = ghosts.get(i);
+            g.setSpawn(maze.getGhostSpawnCol(i % spawns) * TILE, maze.getGhostSpawnRow(i % spawns) * TILE);
+            g.reset();
+        }
+        grid = new CollisionGrid(maze.rows, maze.cols, ghosts.size());
+        for (int i = 0; i < ghosts.size(); i++) grid.add(ghosts.get(i).x, ghosts.get(i).y);
+    }
+
+    /**
+     * Refiles every ghost in the collision grid. Needed only after ghost
+     * positions are changed outside {@link #update()}, e.g. by a reset.
+     */
+    public void syncGrid() {
+        for (int i = 0; i < ghosts.size(); i++) grid.move(i, ghosts.get(i).x, ghosts.get(i).y);
+    }
+
+    /** Switches to {@code maze} if it is not already loaded, moving spawns with it. */
+    void useMaze(Maze maze) {
+        if (map.getMaze() == maze) return;
+        map.load(maze);
+        placeSpawns();
+    }
+
+    public LevelPack getLevels() { return levels; }
+
+    /**
+     * Publishes pellets, ghosts eaten, deaths and cleared levels to
+     * {@code events} (null to stop). Call from the thread that updates the game.
+     */
+    public void setEvents(EventBus events) {
+        this.events = events;
+    }
+
+    /** Current state of this game's random stream; see {@link pacman.utils.Rng#getState()}. */
+    public long getRngState() { return rng.getState(); }
+
     public void startGame() {
+        useMaze(levels.mazeFor(1));
         map.reset();
-        pacman = new PacMan();
+        pacman.reset();
         pacman.lives = 3;
-        initGhosts();
+        respawnGhosts();
         score = 0; level = 1; pelletsEaten = 0;
+        ghostsEaten = 0;
         state = State.PLAYING;
     }
 
+    /**
+     * Advances the game by one frame. While a flight recorder is running, also
+     * emits a {@link TickEvent} around the frame and a {@link StateChangeEvent}
+     * if the state changed.
+     */
     public void update() {
+        if (FlightEvents.isActive()) updateRecorded();
+        else advance();
+    }
+
+    private void updateRecorded() {
+        TickEvent event = new TickEvent();
+        event.begin();
+        State before = state;
+        advance();
+        if (event.shouldCommit()) {
+            event.state = state.name();
+            event.level = level;
+            event.ghosts = ghosts.size();
+            event.decisions = tickDecisions;
+            event.collisionChecks = tickCollisionChecks;
+            event.commit();
+        }
+        if (state != before) {
+            StateChangeEvent change = new StateChangeEvent();
+            if (change.shouldCommit()) {
+                change.from = before.name();
+                change.to = state.name();
+                change.level = level;
+                change.score = score;
+                change.lives = pacman.lives;
+                change.commit();
+            }
+        }
+    }
+
+    private void advance() {
+        tickDecisions = 0;
+        tickCollisionChecks = 0;
         if (state != State.PLAYING) {
             if (state == State.DYING) {
                 stateTimer--;
@@ -61,12 +207,20 @@ public class GameController {
                         state = State.PLAYING;
                     }
                 }
+            } else if (state == State.LEVEL_CLEAR) {
+                stateTimer--;
+                if (stateTimer <= 0) startNextLevel();
             }
             return;
         }
 
+        // Indexed loops: the tick path must not allocate iterators
         pacman.update(map);
-        for (Ghost g : ghosts) g.update(map, pacman);
+        for (int i = 0; i < ghosts.size(); i++) {
+            Ghost g = ghosts.get(i);
+            if (g.update(map, pacman)) tickDecisions++;
+            grid.move(i, g.x, g.y);
+        }
 
         // Collect pellets
         int r = pacman.getRow(), c = pacman.getCol();
@@ -79,43 +233,85 @@ public class GameController {
             map.setTile(r, c, 0);
             score += Constants.POWER_PELLET_SCORE;
             pelletsEaten++;
-            for (Ghost g : ghosts) g.setFrightened();
+            for (int i = 0; i < ghosts.size(); i++) ghosts.get(i).setFrightened();
+        }
+        if (tile == 2 || tile == 3) {
+            if (FlightEvents.isActive()) recordPellet(r, c, tile == 3);
+            if (events != null) {
+                if (tile == 2) events.pelletEaten(r, c, score, level, map.getRemainingPellets());
+                else events.powerPelletEaten(r, c, score, level, map.getRemainingPellets());
+            }
         }
 
         // Check level clear
-        if (pelletsEaten >= map.getTotalPellets()) {
+        if (map.getRemainingPellets() == 0) {
             level++;
             state = State.LEVEL_CLEAR;
             stateTimer = 120;
+            if (events != null) events.levelCleared(level - 1, score);
             return;
         }
 
-        // Collisions
-        for (Ghost g : ghosts) {
-            if (g.getBounds().intersects(pacman.getBounds())) {
-                if (g.frightened) {
-                    g.eaten = true; g.frightened = false;
-                    score += Constants.GHOST_SCORE;
-                } else if (!g.eaten) {
-                    state = State.DYING;
-                    stateTimer = 90;
-                    break;
-                }
+        // Collisions: only ghosts in the cells around PacMan, in index order
+        int n = grid.query(pacman.x, pacman.y, Ghost.HIT_SIZE, hits);
+        tickCollisionChecks = grid.getLastChecks();
+        for (int k = 0; k < n; k++) {
+            Ghost g = ghosts.get(hits[k]);
+            if (g.frightened) {
+                g.eaten = true; g.frightened = false;
+                score += Constants.GHOST_SCORE;
+                ghostsEaten++;
+                if (events != null) events.ghostEaten(hits[k], r, c, score, level);
+            } else if (!g.eaten) {
+                state = State.DYING;
+                stateTimer = 90;
+                if (events != null) events.pacManDied(r, c, pacman.lives - 1, score, level);
+                break;
             }
         }
     }
 
+    private void recordPellet(int row, int col, boolean power) {
+        PelletEvent event = new PelletEvent();
+        if (event.shouldCommit()) {
+            event.row = row;
+            event.col = col;
+            event.power = power;
+            event.remaining = map.getRemainingPellets();
+            event.commit();
+        }
+    }
+
+    /** Loads the next level's maze and resets entity positions, keeping score and lives. */
+    private void startNextLevel() {
+        useMaze(levels.mazeFor(level));
+        map.reset();
+        int lives = pacman.lives;
+        pacman.reset();
+        pacman.lives = lives;
+        pelletsEaten = 0;
+        for (int i = 0; i < ghosts.size(); i++) ghosts.get(i).reset();
+        syncGrid();
+        state = State.PLAYING;
+    }
+
+    // Entities are reset in place rather than rebuilt, so snapshots taken
+    // against these objects stay valid and a death does not allocate.
     private void resetPositions(int remainingLives) {
-        pacman = new PacMan();
+        pacman.reset();
         pacman.lives = remainingLives;
-        initGhosts();
+        respawnGhosts();
     }
 
     // Fix: store lives before reset
     public void resetAfterDeath(int lives) {
-        pacman = new PacMan();
-        pacman.lives = lives;
-        initGhosts();
+        resetPositions(lives);
+    }
+
+    /** Returns every ghost to the house with its original release delay. */
+    private void respawnGhosts() {
+        for (int i = 0; i < ghosts.size(); i++) ghosts.get(i).respawn();
+        syncGrid();
     }
 
     public void setDirection(Direction d) {
@@ -1,9 +1,10 @@
 package pacman.game;
 
-import pacman.utils.Constants;
+import pacman.utils.Direction;
 
 public class GameMap {
 
+    // The built-in layout behind Maze.CLASSIC.
     // 0=empty, 1=wall, 2=pellet, 3=power pellet, 4=ghost house door
     public static final int[][] MAP = {
         {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1},
@@ -31,41 +32,146 @@ public class GameMap {
         {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1},
     };
 
-    private int[][] tiles;
-    private int totalPellets;
+    public static final byte EMPTY = 0, WALL = 1, PELLET = 2, POWER_PELLET = 3, DOOR = 4;
+
+    private Maze maze;
+    private int rows, cols;
+    private byte[] tiles;
+    private PelletIndex pellets;
+
+    // Log of tile indices changed since the last reset, so renderers can patch
+    // their cached copy instead of rescanning the whole maze.
+    private int[] changes;
+    private int changeCount;
+    private int generation;
 
     public GameMap() {
+        this(Maze.CLASSIC);
+    }
+
+    public GameMap(Maze maze) {
+        load(maze);
+    }
+
+    /** Switches to another layout and resets to its starting tiles. */
+    public void load(Maze maze) {
+        if (tiles == null || tiles.length != maze.tiles.length) {
+            tiles = new byte[maze.tiles.length];
+            changes = new int[maze.tiles.length];
+        }
+        this.maze = maze;
+        rows = maze.rows;
+        cols = maze.cols;
+        pellets = new PelletIndex(maze);
         reset();
     }
 
     public void reset() {
-        tiles = new int[ROWS][COLS];
-        totalPellets = 0;
-        for (int r = 0; r < ROWS; r++) {
-            for (int c = 0; c < COLS; c++) {
-                tiles[r][c] = MAP[r][c];
-                if (tiles[r][c] == 2 || tiles[r][c] == 3) totalPellets++;
-            }
-        }
+        System.arraycopy(maze.tiles, 0, tiles, 0, tiles.length);
+        pellets.reset();
+        changeCount = 0;
+        generation++;
     }
 
+    public Maze getMaze() { return maze; }
+
+    public int getRows() { return rows; }
+
+    public int getCols() { return cols; }
+
     public int getTile(int row, int col) {
-        if (row < 0 || row >= ROWS || col < 0 || col >= COLS) return 1;
-        return tiles[row][col];
+        // Unsigned compares fold the four bounds checks into two
+        if (Integer.compareUnsigned(row, rows) >= 0 || Integer.compareUnsigned(col, cols) >= 0) return WALL;
+        return tiles[row * cols + col];
     }
 
     public void setTile(int row, int col, int val) {
-        if (row >= 0 && row < ROWS && col >= 0 && col < COLS)
-            tiles[row][col] = val;
+        if (Integer.compareUnsigned(row, rows) < 0 && Integer.compareUnsigned(col, cols) < 0) {
+            int i = row * cols + col;
+            if (tiles[i] == val) return;
+            tiles[i] = (byte) val;
+            if (val == PELLET || val == POWER_PELLET) pellets.add(i);
+            else pellets.remove(i);
+            if (changeCount < changes.length) {
+                changes[changeCount++] = i;
+            } else {
+                changeCount = 0;     // log overflow: treat as a wholesale change
+                generation++;
+            }
+        }
+    }
+
+    // ── Snapshot support ──────────────────────────────────────────────────────
+
+    /** Longs needed for the bitset used by {@link #saveCleared}. */
+    public int getClearedWords() { return (tiles.length + 63) >>> 6; }
+
+    /** Writes one bit per tile that differs from the layout, usually eaten pellets. */
+    public void saveCleared(long[] dst) {
+        byte[] template = maze.tiles;
+        for (int w = getClearedWords() - 1; w >= 0; w--) dst[w] = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            if (tiles[i] != template[i]) dst[i >>> 6] |= 1L << i;
+        }
     }
 
+    /** Rebuilds the tiles from the layout and a bitset written by {@link #saveCleared}. */
+    public void loadCleared(long[] src) {
+        System.arraycopy(maze.tiles, 0, tiles, 0, tiles.length);
+        pellets.reset();
+        for (int w = getClearedWords() - 1; w >= 0; w--) {
+            for (long bits = src[w]; bits != 0; bits &= bits - 1) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+                tiles[i] = EMPTY;
+                pellets.remove(i);
+            }
+        }
+        changeCount = 0;
+        generation++;
+    }
+
+    /** Bumped whenever the whole map may have changed (reset or change-log overflow). */
+    public int getGeneration() { return generation; }
+
+    /** Number of entries in the change log for the current generation. */
+    public int getChangeCount() { return changeCount; }
+
+    /** Row-major tile index of the i-th logged change. */
+    public int getChange(int i) { return changes[i]; }
+
     public boolean isWall(int row, int col) {
-        int t = getTile(row, col);
-        return t == 1;
+        return getTile(row, col) == WALL;
     }
 
-    public int getTotalPellets() { return totalPellets; }
+    /** Bitmask of {@link Direction#bit}s leading to a non-wall neighbour. */
+    public int getExits(int row, int col) {
+        if (Integer.compareUnsigned(row, rows) >= 0 || Integer.compareUnsigned(col, cols) >= 0) return 0;
+        return maze.exits[row * cols + col];
+    }
+
+    /**
+     * Like {@link #getExits} but also excludes the ghost house door. Exits through
+     * the side tunnel are included; use {@link #wrapColumn} to find that neighbour.
+     */
+    public int getGhostExits(int row, int col) {
+        if (Integer.compareUnsigned(row, rows) >= 0 || Integer.compareUnsigned(col, cols) >= 0) return 0;
+        return maze.ghostExits[row * cols + col];
+    }
+
+    /** Column index wrapped into range, for neighbours reached through the side tunnel. */
+    public int wrapColumn(int col) {
+        return col < 0 ? col + cols : (col >= cols ? col - cols : col);
+    }
+
+    /** Shortest ghost-walkable path lengths for this layout. */
+    public MazeDistances getDistances() { return maze.getDistances(); }
+
+    /** Pellets in the layout at the start of the level. */
+    public int getTotalPellets() { return maze.getPelletCount(); }
+
+    /** Pellets still on the board; O(1). */
+    public int getRemainingPellets() { return pellets.remaining(); }
 
-    private static final int ROWS = Constants.ROWS;
-    private static final int COLS = Constants.COLS;
+    /** The remaining pellets, for iteration and nearest-pellet queries. Read-only; eat through {@link #setTile}. */
+    public PelletIndex getPellets() { return pellets; }
 }
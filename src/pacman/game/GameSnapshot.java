@@ -0,0 +1,248 @@
+package pacman.game;
+
+import pacman.entities.Ghost;
+import pacman.entities.PacMan;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compact copy of everything that evolves during a game.
+ *
+ * Controller, PacMan and ghost state is packed into one {@code int[]}, the
+ * maze into a bitset of tiles that differ from the layout, and the random
+ * stream into a single long. Capture and restore copy primitives into and out
+ * of preallocated arrays, so a snapshot can be reused every tick without
+ * allocating (the bitset only grows if a later maze is larger). The maze
+ * itself is immutable and kept by reference. Restoring writes into the
+ * controller's existing entity objects; the ghost count must match the one
+ * the snapshot was sized for.
+ *
+ * {@link #writeDelta} encodes a snapshot against an older one for the wire:
+ * a bitmask of the ints and bitset words that changed, then each changed int
+ * as a zigzag varint of its difference and each changed word XORed with the
+ * old one. Positions, timers and freshly eaten pellets usually come to a few
+ * dozen bytes per tick; against no base at all the same format is a full
+ * keyframe.
+ */
+public final class GameSnapshot {
+
+    static final int HEADER_INTS = 6;   // state, score, level, pelletsEaten, ghostsEaten, stateTimer
+
+    private final int ghostCount;
+    private final int[] data;
+    private Maze maze;
+    private long[] cleared = new long[0];
+    private int clearedWords;
+    private long rngState;
+    long tick;   // simulation frame count, set by SnapshotRing
+
+    public GameSnapshot(int ghostCount) {
+        this.ghostCount = ghostCount;
+        data = new int[HEADER_INTS + PacMan.STATE_INTS + ghostCount * Ghost.STATE_INTS];
+    }
+
+    public int getGhostCount() { return ghostCount; }
+
+    public void capture(GameController c) {
+        checkGhosts(c);
+        data[0] = c.state.ordinal();
+        data[1] = c.score;
+        data[2] = c.level;
+        data[3] = c.pelletsEaten;
+        data[4] = c.ghostsEaten;
+        data[5] = c.stateTimer;
+        c.pacman.saveState(data, HEADER_INTS);
+        int off = HEADER_INTS + PacMan.STATE_INTS;
+        for (int i = 0; i < ghostCount; i++, off += Ghost.STATE_INTS) c.ghosts.get(i).saveState(data, off);
+        maze = c.map.getMaze();
+        int words = c.map.getClearedWords();
+        if (cleared.length < words) cleared = new long[words];
+        c.map.saveCleared(cleared);
+        clearedWords = words;
+        rngState = c.rng.getState();
+    }
+
+    public void restore(GameController c) {
+        checkGhosts(c);
+        if (maze == null) throw new IllegalStateException("nothing captured");
+        c.useMaze(maze);
+        c.state = STATES[data[0]];
+        c.score = data[1];
+        c.level = data[2];
+        c.pelletsEaten = data[3];
+        c.ghostsEaten = data[4];
+        c.stateTimer = data[5];
+        c.pacman.loadState(data, HEADER_INTS);
+        int off = HEADER_INTS + PacMan.STATE_INTS;
+        for (int i = 0; i < ghostCount; i++, off += Ghost.STATE_INTS) c.ghosts.get(i).loadState(data, off);
+        c.map.loadCleared(cleared);
+        c.rng.setState(rngState);
+        c.syncGrid();
+    }
+
+    // ── Filled directly by LockstepBatch, which has no controller to capture ──
+
+    int[] ints() { return data; }
+
+    /** The cleared-tile bitset, sized and tagged for {@code maze}; the caller fills every word. */
+    long[] clearedFor(Maze maze) {
+        int words = (maze.tiles.length + 63) >>> 6;
+        if (cleared.length < words) cleared = new long[words];
+        this.maze = maze;
+        clearedWords = words;
+        return cleared;
+    }
+
+    void setRngState(long state) { rngState = state; }
+
+    Maze maze() { return maze; }
+
+    long[] cleared() { return cleared; }
+
+    long rngState() { return rngState; }
+
+    /** Copies another snapshot's contents into this one. */
+    public void copyFrom(GameSnapshot other) {
+        if (other.ghostCount != ghostCount) throw new IllegalArgumentException("ghost count mismatch");
+        System.arraycopy(other.data, 0, data, 0, data.length);
+        if (cleared.length < other.cleared.length) cleared = new long[other.cleared.length];
+        System.arraycopy(other.cleared, 0, cleared, 0, other.cleared.length);
+        clearedWords = other.clearedWords;
+        maze = other.maze;
+        rngState = other.rngState;
+        tick = other.tick;
+    }
+
+    // ── Delta encoding ────────────────────────────────────────────────────────
+
+    /**
+     * Hash of everything {@link #writeDelta} encodes, so the receiving end can
+     * check that its decoded copy matches the sender's.
+     */
+    public int contentHash() {
+        int h = 1;
+        for (int v : data) h = 31 * h + v;
+        for (int w = 0; w < clearedWords; w++) h = 31 * h + Long.hashCode(cleared[w]);
+        return h;
+    }
+
+    /**
+     * Writes this snapshot relative to {@code base}, which the reader must
+     * still hold; a null base encodes everything (a keyframe). The random
+     * state is not included, since a remote copy only displays the game.
+     * @throws java.nio.BufferOverflowException if {@code out} is too small
+     */
+    public void writeDelta(GameSnapshot base, ByteBuffer out) {
+        if (maze == null) throw new IllegalStateException("nothing captured");
+        if (base != null && base.ghostCount != ghostCount) throw new IllegalArgumentException("ghost count mismatch");
+        int ints = data.length, words = clearedWords;
+        out.putShort((short) ints).putShort((short) words);
+
+        int maskAt = out.position();
+        int maskBytes = (ints + words + 7) >>> 3;
+        for (int i = 0; i < maskBytes; i++) out.put((byte) 0);
+        for (int i = 0; i < ints; i++) {
+            int diff = data[i] - (base == null ? 0 : base.data[i]);
+            if (diff != 0) {
+                setBit(out, maskAt, i);
+                putVarint(out, (diff << 1) ^ (diff >> 31));
+            }
+        }
+        for (int w = 0; w < words; w++) {
+            long diff = cleared[w] ^ (base == null || w >= base.clearedWords ? 0 : base.cleared[w]);
+            if (diff != 0) {
+                setBit(out, maskAt, ints + w);
+                out.putLong(diff);
+            }
+        }
+    }
+
+    /**
+     * Reads what {@link #writeDelta} wrote against the same {@code base}
+     * (null for a keyframe), which may be this snapshot itself. The maze is
+     * not on the wire; both ends must agree on it.
+     *
+     * Decoding overwrites this snapshot as it goes, so after a failed read its
+     * contents are undefined: it cannot be restored or used as a base until a
+     * later read or {@link #capture} succeeds.
+     * @throws IllegalArgumentException if the data does not fit this snapshot or the maze,
+     *         or decodes to a state, direction or animation frame out of range
+     * @throws java.nio.BufferUnderflowException if the data is truncated
+     */
+    public void readDelta(GameSnapshot base, Maze maze, ByteBuffer in) {
+        int ints = in.getShort() & 0xFFFF, words = in.getShort() & 0xFFFF;
+        int mazeWords = (maze.rows * maze.cols + 63) >>> 6;
+        if (ints != data.length || words != mazeWords) {
+            throw new IllegalArgumentException("delta for " + ints + " ints and " + words
+                    + " words, expected " + data.length + " and " + mazeWords);
+        }
+        if (base != null && base.ghostCount != ghostCount) throw new IllegalArgumentException("ghost count mismatch");
+        if (base != null && base.maze == null) throw new IllegalArgumentException("base holds no frame");
+        // Unusable until fully decoded and checked; restore() refuses a snapshot with no maze
+        this.maze = null;
+        int maskAt = in.position();
+        in.position(maskAt + ((ints + words + 7) >>> 3));
+        for (int i = 0; i < ints; i++) {
+            int value = base == null ? 0 : base.data[i];
+            if (getBit(in, maskAt, i)) {
+                int zigzag = getVarint(in);
+                value += (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+            data[i] = value;
+        }
+        if (cleared.length < words) cleared = new long[words];
+        for (int w = 0; w < words; w++) {
+            long value = base == null || w >= base.clearedWords ? 0 : base.cleared[w];
+            if (getBit(in, maskAt, ints + w)) value ^= in.getLong();
+            cleared[w] = value;
+        }
+        checkFields();
+        clearedWords = words;
+        this.maze = maze;
+    }
+
+    /** Rejects decoded values that restore() would index arrays with. */
+    private void checkFields() {
+        if (data[0] < 0 || data[0] >= STATES.length) throw new IllegalArgumentException("bad state " + data[0]);
+        if (!PacMan.isValidState(data, HEADER_INTS)) throw new IllegalArgumentException("bad PacMan state");
+        int off = HEADER_INTS + PacMan.STATE_INTS;
+        for (int i = 0; i < ghostCount; i++, off += Ghost.STATE_INTS) {
+            if (!Ghost.isValidState(data, off)) throw new IllegalArgumentException("bad state for ghost " + i);
+        }
+    }
+
+    private static void setBit(ByteBuffer buf, int at, int bit) {
+        int i = at + (bit >>> 3);
+        buf.put(i, (byte) (buf.get(i) | (1 << (bit & 7))));
+    }
+
+    private static boolean getBit(ByteBuffer buf, int at, int bit) {
+        return (buf.get(at + (bit >>> 3)) & (1 << (bit & 7))) != 0;
+    }
+
+    private static void putVarint(ByteBuffer out, int v) {
+        while ((v & ~0x7F) != 0) {
+            out.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.put((byte) v);
+    }
+
+    private static int getVarint(ByteBuffer in) {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            v |= (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    private void checkGhosts(GameController c) {
+        if (c.ghosts.size() != ghostCount) {
+            throw new IllegalStateException("snapshot sized for " + ghostCount + " ghosts, game has " + c.ghosts.size());
+        }
+    }
+
+    private static final GameController.State[] STATES = GameController.State.values();
+}
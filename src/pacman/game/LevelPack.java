@@ -0,0 +1,60 @@
+package pacman.game;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/** Chooses the maze for each level of a game. */
+@FunctionalInterface
+public interface LevelPack {
+
+    /** Maze for a 1-based level number. */
+    Maze mazeFor(int level);
+
+    /** The original single layout on every level. */
+    LevelPack CLASSIC = level -> Maze.CLASSIC;
+
+    /** Cycles through the given mazes, starting again after the last one. */
+    static LevelPack rotating(List<Maze> mazes) {
+        if (mazes.isEmpty()) throw new IllegalArgumentException("no mazes");
+        Maze[] array = mazes.toArray(new Maze[0]);
+        return level -> array[Math.floorMod(level - 1, array.length)];
+    }
+
+    /**
+     * Cycles through the maze files in {@code dir} in name order. Only the file
+     * list is read up front; each maze is loaded through {@code cache} when its
+     * level starts, so startup cost does not grow with the size of the pack.
+     * A compiled file next to its text source is skipped in favour of the text,
+     * which the cache reads through the compiled copy while it is up to date.
+     */
+    static LevelPack directory(Path dir, MazeCache cache) throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(dir)) {
+            files = listing.filter(MazeCache::isMazeFile)
+                    .filter(f -> !MazeFile.isCompiled(f) || !Files.exists(textSource(f)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        if (files.isEmpty()) throw new IOException("no mazes in " + dir);
+        // Load the first level now so a broken pack fails at startup rather than mid-game
+        cache.get(files.get(0));
+        Path[] array = files.toArray(new Path[0]);
+        return level -> {
+            try {
+                return cache.get(array[Math.floorMod(level - 1, array.length)]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static Path textSource(Path compiled) {
+        String name = compiled.getFileName().toString();
+        return compiled.resolveSibling(name.substring(0, name.length() - MazeFile.EXTENSION.length()) + ".txt");
+    }
+}
@@ -0,0 +1,641 @@
+package pacman.game;
+
+import pacman.entities.Ghost;
+import pacman.entities.PacMan;
+import pacman.utils.Constants;
+import pacman.utils.Direction;
+import pacman.utils.Motion;
+
+/**
+ * Many games on one maze, advanced together one frame per {@link #update()},
+ * with all of their state in flat primitive arrays.
+ *
+ * Each game plays exactly as a {@link GameController} with the same seed,
+ * ghost count and a level pack that always returns this maze: same integer
+ * steps in the same order, same random draws, same collision order.
+ * {@link #capture} fills a {@link GameSnapshot} that can be restored into
+ * such a controller, which is also how the two are compared. Animation frames
+ * are kept so snapshots match, but flight recorder and event bus hooks are not.
+ *
+ * A frame runs in phases across all games rather than game by game: pauses,
+ * then timers, PacMen, ghosts, the collision broadphase and finally pellets
+ * and collisions. Within a game the phases keep the controller's order, and
+ * games never touch each other's state, so results are unchanged. Per game
+ * and per ghost fields are parallel arrays indexed by game and by
+ * {@code game * ghosts + ghost}. The ghost timers and the overlap test are
+ * branch-free loops over int arrays, a shape C2's auto-vectorizer can turn
+ * into SIMD; movement and direction choice branch on the maze and stay scalar.
+ */
+public final class LockstepBatch {
+
+    private static final int TILE = Constants.TILE_UNITS, BITS = Constants.TILE_BITS;
+    private static final int MARGIN = TILE / 6;   // as PacMan's
+
+    private static final int PLAYING = GameController.State.PLAYING.ordinal();
+    private static final int DYING = GameController.State.DYING.ordinal();
+    private static final int LEVEL_CLEAR = GameController.State.LEVEL_CLEAR.ordinal();
+    private static final int GAME_OVER = GameController.State.GAME_OVER.ordinal();
+    private static final GameController.State[] STATES = GameController.State.values();
+
+    // Directions by ordinal, NONE last
+    private static final int UP = Direction.UP.ordinal(), LEFT = Direction.LEFT.ordinal();
+    private static final int RIGHT = Direction.RIGHT.ordinal(), NONE = Direction.NONE.ordinal();
+    private static final int[] DX = new int[5], DY = new int[5], BIT = new int[5], OPPOSITE = new int[5];
+
+    static {
+        for (Direction d : Direction.values()) {
+            DX[d.ordinal()] = d.dx;
+            DY[d.ordinal()] = d.dy;
+            BIT[d.ordinal()] = d.bit;
+            OPPOSITE[d.ordinal()] = d.opposite().ordinal();
+        }
+    }
+
+    private final Maze maze;
+    private final MazeDistances distances;
+    private final int games, ghosts, slots, tileCount, width;
+    private final int pacmanStartX, pacmanStartY;
+    private final int[] ghostStartX, ghostStartY;   // per ghost index
+    private final int[] ghostReleaseDelay;            // per ghost index
+
+    // Per game
+    private final int[] state, stateTimer, score, level, pelletsEaten, ghostsEaten, remaining;
+    private final long[] rng;
+    private final byte[] tiles;                       // games x tileCount
+    private final int[] pacX, pacY, pacPrevX, pacPrevY;
+    private final int[] pacDir, pacNextDir, pacAnimFrame, pacAnimTick, lives;
+
+    // Per ghost slot
+    private final int[] ghostX, ghostY, ghostPrevX, ghostPrevY;
+    private final int[] ghostDir, frightened, eaten, exiting, frightenTimer, releaseDelay;
+    private final int[] ghostAnimTick, ghostAnimFrame;
+
+    // Scratch, rewritten every frame
+    private final int[] playing;                      // per game: 1 if it was in play at the start of the frame
+    private final int[] slotPlaying, moving;          // per slot: its game is in play / it moves this frame
+    private final int[] slotPacX, slotPacY, near;     // per slot: PacMan's pixel, and whether the boxes overlap
+
+    /**
+     * @param seeds one per game, as passed to {@link GameController#GameController(long)}
+     * @param ghosts ghosts per game
+     */
+    public LockstepBatch(Maze maze, long[] seeds, int ghosts) {
+        if (ghosts < 1) throw new IllegalArgumentException("need at least one ghost");
+        this.maze = maze;
+        distances = maze.getDistances();
+        games = seeds.length;
+        this.ghosts = ghosts;
+        slots = games * ghosts;
+        tileCount = maze.tiles.length;
+        width = maze.cols * TILE;
+
+        pacmanStartX = maze.pacmanCol * TILE;
+        pacmanStartY = maze.pacmanRow * TILE;
+        ghostStartX = new int[ghosts];
+        ghostStartY = new int[ghosts];
+        ghostReleaseDelay = new int[ghosts];
+        int spawns = maze.getGhostSpawnCount();
+        for (int k = 0; k < ghosts; k++) {
+            ghostStartX[k] = maze.getGhostSpawnCol(k % spawns) * TILE;
+            ghostStartY[k] = maze.getGhostSpawnRow(k % spawns) * TILE;
+            ghostReleaseDelay[k] = GameController.releaseDelay(k);
+        }
+
+        state = new int[games];
+        stateTimer = new int[games];
+        score = new int[games];
+        level = new int[games];
+        pelletsEaten = new int[games];
+        ghostsEaten = new int[games];
+        remaining = new int[games];
+        rng = seeds.clone();
+        tiles = new byte[games * tileCount];
+        pacX = new int[games];
+        pacY = new int[games];
+        pacPrevX = new int[games];
+        pacPrevY = new int[games];
+        pacDir = new int[games];
+        pacNextDir = new int[games];
+        pacAnimFrame = new int[games];
+        pacAnimTick = new int[games];
+        lives = new int[games];
+
+        ghostX = new int[slots];
+        ghostY = new int[slots];
+        ghostPrevX = new int[slots];
+        ghostPrevY = new int[slots];
+        ghostDir = new int[slots];
+        frightened = new int[slots];
+        eaten = new int[slots];
+        exiting = new int[slots];
+        frightenTimer = new int[slots];
+        releaseDelay = new int[slots];
+        ghostAnimTick = new int[slots];
+        ghostAnimFrame = new int[slots];
+
+        playing = new int[games];
+        slotPlaying = new int[slots];
+        moving = new int[slots];
+        slotPacX = new int[slots];
+        slotPacY = new int[slots];
+        near = new int[slots];
+
+        // As a freshly constructed controller: on the menu, everyone at their spawn
+        for (int g = 0; g < games; g++) {
+            state[g] = GameController.State.MENU.ordinal();
+            level[g] = 1;
+            lives[g] = 3;
+            resetTiles(g);
+            resetPacMan(g);
+            respawnGhosts(g);
+        }
+    }
+
+    public int size() { return games; }
+
+    public int getGhostCount() { return ghosts; }
+
+    public Maze getMaze() { return maze; }
+
+    public GameController.State getState(int game) { return STATES[state[game]]; }
+
+    public int getScore(int game) { return score[game]; }
+
+    public int getLevel(int game) { return level[game]; }
+
+    public int getLives(int game) { return lives[game]; }
+
+    public boolean isGameOver(int game) { return state[game] == GAME_OVER; }
+
+    /** As {@link GameController#getRngState()}. */
+    public long getRngState(int game) { return rng[game]; }
+
+    // ── Input ─────────────────────────────────────────────────────────────────
+
+    /** As {@link GameController#startGame()}. */
+    public void start(int game) {
+        resetTiles(game);
+        resetPacMan(game);
+        lives[game] = 3;
+        respawnGhosts(game);
+        score[game] = 0;
+        level[game] = 1;
+        pelletsEaten[game] = 0;
+        ghostsEaten[game] = 0;
+        state[game] = PLAYING;
+    }
+
+    /** As {@link GameController#setDirection}. */
+    public void setDirection(int game, Direction d) {
+        if (state[game] == PLAYING) pacNextDir[game] = d.ordinal();
+    }
+
+    // ── Stepping ──────────────────────────────────────────────────────────────
+
+    /** Advances every game by one frame, as {@link GameController#update()} does for one. */
+    public void update() {
+        for (int g = 0; g < games; g++) {
+            int p = state[g] == PLAYING ? 1 : 0;
+            playing[g] = p;
+            if (p == 0) pause(g);
+        }
+        for (int g = 0, s = 0; g < games; g++) {
+            for (int k = 0; k < ghosts; k++, s++) slotPlaying[s] = playing[g];
+        }
+        updateTimers();
+
+        for (int g = 0; g < games; g++) {
+            if (playing[g] != 0) movePacMan(g);
+        }
+        for (int g = 0, s = 0; g < games; g++, s += ghosts) {
+            if (playing[g] == 0) continue;
+            for (int k = 0; k < ghosts; k++) {
+                ghostPrevX[s + k] = ghostX[s + k];
+                ghostPrevY[s + k] = ghostY[s + k];
+                if (moving[s + k] != 0) moveGhost(g, s + k);
+            }
+        }
+
+        for (int g = 0, s = 0; g < games; g++) {
+            int x = pacX[g], y = pacY[g];
+            for (int k = 0; k < ghosts; k++, s++) {
+                slotPacX[s] = x;
+                slotPacY[s] = y;
+            }
+        }
+        findOverlaps();
+        for (int g = 0; g < games; g++) {
+            if (playing[g] != 0) resolve(g);
+        }
+    }
+
+    /**
+     * Release and frightened countdowns for every ghost, written without
+     * branches. A waiting ghost only counts down; the others count down
+     * their frightened time, lose both frightened and eaten when it runs
+     * out, and are marked to move.
+     */
+    private void updateTimers() {
+        for (int s = 0; s < slots; s++) {
+            int run = slotPlaying[s];
+            int delay = releaseDelay[s];
+            int waiting = -delay >>> 31;                // delay > 0
+            releaseDelay[s] = delay - (waiting & run);
+            int live = run & ~waiting & 1;
+            moving[s] = live;
+            int timer = frightenTimer[s];
+            int ticking = live & (-timer >>> 31);       // timer > 0
+            timer -= ticking;
+            frightenTimer[s] = timer;
+            int keep = ~(ticking & ((timer - 1) >>> 31)) & 1;   // 0 when it just reached zero
+            frightened[s] &= keep;
+            eaten[s] &= keep;
+        }
+    }
+
+    /** Same test as {@link Ghost#overlaps}, for every slot at once. */
+    private void findOverlaps() {
+        for (int s = 0; s < slots; s++) {
+            int dx = Math.abs(ghostX[s] - slotPacX[s]);
+            int dy = Math.abs(ghostY[s] - slotPacY[s]);
+            near[s] = ((dx - Ghost.HIT_SIZE) & (dy - Ghost.HIT_SIZE)) >>> 31;
+        }
+    }
+
+    /** Death and level-clear pauses, as in the controller's non-playing branch. */
+    private void pause(int g) {
+        if (state[g] == DYING) {
+            if (--stateTimer[g] <= 0) {
+                int remainingLives = lives[g] - 1;
+                if (remainingLives <= 0) {
+                    state[g] = GAME_OVER;
+                } else {
+                    resetPacMan(g);
+                    lives[g] = remainingLives;
+                    respawnGhosts(g);
+                    state[g] = PLAYING;
+                }
+            }
+        } else if (state[g] == LEVEL_CLEAR) {
+            if (--stateTimer[g] <= 0) {
+                resetTiles(g);
+                resetPacMan(g);
+                pelletsEaten[g] = 0;
+                for (int k = 0, s = g * ghosts; k < ghosts; k++, s++) resetGhost(s, k);
+                state[g] = PLAYING;
+            }
+        }
+    }
+
+    /** Pellets, level clear and collisions, in the controller's order. */
+    private void resolve(int g) {
+        int r = Motion.tileOf(pacY[g]), c = Motion.tileOf(pacX[g]);
+        int tile = tileAt(g, r, c);
+        if (tile == GameMap.PELLET || tile == GameMap.POWER_PELLET) {
+            tiles[g * tileCount + r * maze.cols + c] = GameMap.EMPTY;
+            remaining[g]--;
+            pelletsEaten[g]++;
+            if (tile == GameMap.PELLET) {
+                score[g] += Constants.PELLET_SCORE;
+            } else {
+                score[g] += Constants.POWER_PELLET_SCORE;
+                for (int s = g * ghosts, end = s + ghosts; s < end; s++) {
+                    frightened[s] = 1;
+                    frightenTimer[s] = Constants.POWER_PELLET_DURATION;
+                }
+            }
+        }
+
+        if (remaining[g] == 0) {
+            level[g]++;
+            state[g] = LEVEL_CLEAR;
+            stateTimer[g] = 120;
+            return;
+        }
+
+        for (int s = g * ghosts, end = s + ghosts; s < end; s++) {
+            if (near[s] == 0) continue;
+            if (frightened[s] != 0) {
+                eaten[s] = 1;
+                frightened[s] = 0;
+                score[g] += Constants.GHOST_SCORE;
+                ghostsEaten[g]++;
+            } else if (eaten[s] == 0) {
+                state[g] = DYING;
+                stateTimer[g] = 90;
+                break;
+            }
+        }
+    }
+
+    // ── PacMan ────────────────────────────────────────────────────────────────
+
+    private void movePacMan(int g) {
+        int x = pacX[g], y = pacY[g];
+        pacPrevX[g] = x;
+        pacPrevY[g] = y;
+
+        int next = pacNextDir[g];
+        if (next != NONE && canMove(x, y, next)) {
+            pacDir[g] = next;
+            pacNextDir[g] = NONE;
+        }
+        int d = pacDir[g];
+        if (d != NONE && canMove(x, y, d)) {
+            x = Motion.PACMAN.advance(x, DX[d]);
+            y = Motion.PACMAN.advance(y, DY[d]);
+        }
+
+        if (x < -TILE) x = width;
+        if (x > width) x = -TILE;
+        pacX[g] = x;
+        pacY[g] = y;
+
+        if (++pacAnimTick[g] >= 5) {
+            pacAnimTick[g] = 0;
+            pacAnimFrame[g] = (pacAnimFrame[g] + 1) % 3;
+        }
+    }
+
+    /** {@link PacMan#canMove}: one step keeps the hitbox clear of walls. */
+    private boolean canMove(int x, int y, int d) {
+        int nx = Motion.PACMAN.advance(x, DX[d]);
+        int ny = Motion.PACMAN.advance(y, DY[d]);
+        int col1 = wrapColumn((nx + MARGIN) >> BITS);
+        int col2 = wrapColumn((nx + TILE - MARGIN - 1) >> BITS);
+        int row1 = (ny + MARGIN) >> BITS;
+        int row2 = (ny + TILE - MARGIN - 1) >> BITS;
+        if (isWall(row1, col1)) return false;
+        if (col2 != col1 && isWall(row1, col2)) return false;
+        if (row2 != row1) {
+            if (isWall(row2, col1)) return false;
+            if (col2 != col1 && isWall(row2, col2)) return false;
+        }
+        return true;
+    }
+
+    // ── Ghosts ────────────────────────────────────────────────────────────────
+
+    /** {@link Ghost#update} after its timers, for a ghost that has been released. */
+    private void moveGhost(int g, int s) {
+        Motion motion = eaten[s] != 0 ? Motion.EATEN : (frightened[s] != 0 ? Motion.FRIGHTENED : Motion.GHOST);
+        if (exiting[s] == 0) {
+            exitHouse(s, motion.average());
+            return;
+        }
+
+        int d = ghostDir[s];
+        int x = motion.advance(ghostX[s], DX[d]);
+        int y = motion.advance(ghostY[s], DY[d]);
+        if (x < 0) x += width;
+        if (x >= width) x -= width;
+        ghostX[s] = x;
+        ghostY[s] = y;
+
+        if (((x | y) & Constants.TILE_MASK) == 0) pickDirection(g, s);
+
+        if (++ghostAnimTick[s] >= 8) {
+            ghostAnimTick[s] = 0;
+            ghostAnimFrame[s] = (ghostAnimFrame[s] + 1) % 2;
+        }
+    }
+
+    private void exitHouse(int s, int speed) {
+        int x = ghostX[s], y = ghostY[s];
+        int targetX = maze.exitCol * TILE;
+        int targetY = maze.exitRow * TILE;
+        if (Math.abs(x - targetX) > speed) {
+            x += (x < targetX) ? speed : -speed;
+            ghostDir[s] = (x < targetX) ? RIGHT : LEFT;
+        } else {
+            x = targetX;
+            if (y > targetY) {
+                y -= speed;
+                ghostDir[s] = UP;
+            } else {
+                y = targetY;
+                exiting[s] = 1;
+                ghostDir[s] = LEFT;
+            }
+        }
+        ghostX[s] = x;
+        ghostY[s] = y;
+    }
+
+    private void pickDirection(int g, int s) {
+        int row = ghostY[s] >> BITS;
+        int col = ghostX[s] >> BITS;
+        int opposite = OPPOSITE[ghostDir[s]];
+        int options = ghostExits(row, col) & ~BIT[opposite];
+        if (options == 0) {
+            ghostDir[s] = opposite;
+            return;
+        }
+
+        if (frightened[s] != 0) {
+            ghostDir[s] = nthOption(options, nextInt(g, Integer.bitCount(options)));
+        } else if (eaten[s] != 0) {
+            ghostDir[s] = bestDirection(options, row, col, maze.exitRow, maze.exitCol);
+        } else {
+            int pacRow = Motion.tileOf(pacY[g]), pacCol = Motion.tileOf(pacX[g]);
+            ghostDir[s] = bestDirection(options, row, col, pacRow, pacCol);
+        }
+    }
+
+    private static int nthOption(int options, int n) {
+        for (int d = 0; d < 4; d++) {
+            if ((options & BIT[d]) != 0 && n-- == 0) return d;
+        }
+        return NONE;
+    }
+
+    /** Ghost's getBestDirection: maze distance, or straight-line off the ghost graph. */
+    private int bestDirection(int options, int fromR, int fromC, int targetR, int targetC) {
+        boolean useMaze = distances.isWalkable(targetR, targetC);
+        int best = NONE;
+        int bestDist = Integer.MAX_VALUE;
+        for (int d = 0; d < 4; d++) {
+            if ((options & BIT[d]) == 0) continue;
+            int nr = fromR + DY[d];
+            int nc = fromC + DX[d];
+            nc = wrapColumn(nc);
+            int dist;
+            if (useMaze) {
+                dist = distances.distance(nr, nc, targetR, targetC);
+            } else {
+                int dr = nr - targetR, dc = nc - targetC;
+                dist = dr * dr + dc * dc;
+            }
+            if (dist < bestDist) {
+                bestDist = dist;
+                best = d;
+            }
+        }
+        return best;
+    }
+
+    // ── Resets ────────────────────────────────────────────────────────────────
+
+    private void resetTiles(int g) {
+        System.arraycopy(maze.tiles, 0, tiles, g * tileCount, tileCount);
+        remaining[g] = maze.getPelletCount();
+    }
+
+    private void resetPacMan(int g) {
+        pacX[g] = pacPrevX[g] = pacmanStartX;
+        pacY[g] = pacPrevY[g] = pacmanStartY;
+        pacDir[g] = NONE;
+        pacNextDir[g] = NONE;
+        pacAnimFrame[g] = 0;
+        pacAnimTick[g] = 0;
+    }
+
+    private void resetGhost(int s, int k) {
+        ghostX[s] = ghostPrevX[s] = ghostStartX[k];
+        ghostY[s] = ghostPrevY[s] = ghostStartY[k];
+        ghostDir[s] = LEFT;
+        frightened[s] = 0;
+        eaten[s] = 0;
+        frightenTimer[s] = 0;
+        ghostAnimFrame[s] = 0;
+        ghostAnimTick[s] = 0;
+        exiting[s] = 0;
+    }
+
+    private void respawnGhosts(int g) {
+        for (int k = 0, s = g * ghosts; k < ghosts; k++, s++) {
+            resetGhost(s, k);
+            releaseDelay[s] = ghostReleaseDelay[k];
+        }
+    }
+
+    // ── Helpers ───────────────────────────────────────────────────────────────
+
+    /** Walls never change during a game, so this reads the shared layout. */
+    private boolean isWall(int row, int col) {
+        if (Integer.compareUnsigned(row, maze.rows) >= 0 || Integer.compareUnsigned(col, maze.cols) >= 0) return true;
+        return maze.tiles[row * maze.cols + col] == GameMap.WALL;
+    }
+
+    private int wrapColumn(int col) {
+        return col < 0 ? col + maze.cols : (col >= maze.cols ? col - maze.cols : col);
+    }
+
+    private int tileAt(int g, int row, int col) {
+        if (Integer.compareUnsigned(row, maze.rows) >= 0 || Integer.compareUnsigned(col, maze.cols) >= 0) return GameMap.WALL;
+        return tiles[g * tileCount + row * maze.cols + col];
+    }
+
+    private int ghostExits(int row, int col) {
+        if (Integer.compareUnsigned(row, maze.rows) >= 0 || Integer.compareUnsigned(col, maze.cols) >= 0) return 0;
+        return maze.ghostExits[row * maze.cols + col];
+    }
+
+    /** {@link pacman.utils.Rng#nextInt} on game {@code g}'s stream. */
+    private int nextInt(int g, int bound) {
+        long z = (rng[g] += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (int) (((z >>> 32) * bound) >>> 32);
+    }
+
+    // ── Snapshots ─────────────────────────────────────────────────────────────
+
+    /** Writes game {@code game} into {@code into}, in the layout {@link GameSnapshot#capture} uses. */
+    public void capture(int game, GameSnapshot into) {
+        if (into.getGhostCount() != ghosts) throw new IllegalArgumentException("snapshot sized for " + into.getGhostCount() + " ghosts");
+        int[] data = into.ints();
+        data[0] = state[game];
+        data[1] = score[game];
+        data[2] = level[game];
+        data[3] = pelletsEaten[game];
+        data[4] = ghostsEaten[game];
+        data[5] = stateTimer[game];
+
+        int off = GameSnapshot.HEADER_INTS;
+        data[off]     = pacX[game];
+        data[off + 1] = pacY[game];
+        data[off + 2] = pacPrevX[game];
+        data[off + 3] = pacPrevY[game];
+        data[off + 4] = pacDir[game];
+        data[off + 5] = pacNextDir[game];
+        data[off + 6] = pacAnimFrame[game];
+        data[off + 7] = pacAnimTick[game];
+        data[off + 8] = 1;   // alive
+        data[off + 9] = lives[game];
+
+        off += PacMan.STATE_INTS;
+        for (int s = game * ghosts, end = s + ghosts; s < end; s++, off += Ghost.STATE_INTS) {
+            data[off]     = ghostX[s];
+            data[off + 1] = ghostY[s];
+            data[off + 2] = ghostPrevX[s];
+            data[off + 3] = ghostPrevY[s];
+            data[off + 4] = ghostDir[s];
+            data[off + 5] = frightened[s] | eaten[s] << 1 | exiting[s] << 2;
+            data[off + 6] = frightenTimer[s];
+            data[off + 7] = releaseDelay[s];
+            data[off + 8] = ghostAnimTick[s];
+            data[off + 9] = ghostAnimFrame[s];
+        }
+
+        long[] cleared = into.clearedFor(maze);
+        int base = game * tileCount;
+        for (int w = (tileCount + 63) >>> 6; --w >= 0; ) cleared[w] = 0;
+        for (int i = 0; i < tileCount; i++) {
+            if (tiles[base + i] != maze.tiles[i]) cleared[i >>> 6] |= 1L << i;
+        }
+        into.setRngState(rng[game]);
+    }
+
+    /** Loads game {@code game} from a snapshot of a game on this maze, as {@link GameSnapshot#restore} would. */
+    public void restore(int game, GameSnapshot from) {
+        if (from.getGhostCount() != ghosts) throw new IllegalArgumentException("snapshot sized for " + from.getGhostCount() + " ghosts");
+        if (from.maze() != maze) throw new IllegalArgumentException("snapshot is of another maze");
+        int[] data = from.ints();
+        state[game] = data[0];
+        score[game] = data[1];
+        level[game] = data[2];
+        pelletsEaten[game] = data[3];
+        ghostsEaten[game] = data[4];
+        stateTimer[game] = data[5];
+
+        int off = GameSnapshot.HEADER_INTS;
+        pacX[game] = data[off];
+        pacY[game] = data[off + 1];
+        pacPrevX[game] = data[off + 2];
+        pacPrevY[game] = data[off + 3];
+        pacDir[game] = data[off + 4];
+        pacNextDir[game] = data[off + 5];
+        pacAnimFrame[game] = data[off + 6];
+        pacAnimTick[game] = data[off + 7];
+        lives[game] = data[off + 9];
+
+        off += PacMan.STATE_INTS;
+        for (int s = game * ghosts, end = s + ghosts; s < end; s++, off += Ghost.STATE_INTS) {
+            ghostX[s] = data[off];
+            ghostY[s] = data[off + 1];
+            ghostPrevX[s] = data[off + 2];
+            ghostPrevY[s] = data[off + 3];
+            ghostDir[s] = data[off + 4];
+            frightened[s] = data[off + 5] & 1;
+            eaten[s] = data[off + 5] >> 1 & 1;
+            exiting[s] = data[off + 5] >> 2 & 1;
+            frightenTimer[s] = data[off + 6];
+            releaseDelay[s] = data[off + 7];
+            ghostAnimTick[s] = data[off + 8];
+            ghostAnimFrame[s] = data[off + 9];
+        }
+
+        long[] cleared = from.cleared();
+        int base = game * tileCount;
+        int left = 0;
+        for (int i = 0; i < tileCount; i++) {
+            byte tile = (cleared[i >>> 6] & 1L << i) != 0 ? GameMap.EMPTY : maze.tiles[i];
+            tiles[base + i] = tile;
+            if (tile == GameMap.PELLET || tile == GameMap.POWER_PELLET) left++;
+        }
+        remaining[game] = left;
+        rng[game] = from.rngState();
+    }
+}
@@ -0,0 +1,144 @@
+package pacman.game;
+
+import pacman.utils.Direction;
+
+/**
+ * An immutable, validated maze layout plus everything derived from it.
+ *
+ * Holds the starting tiles, per-tile exit masks for PacMan and for ghosts, the
+ * pellet list, and the spawn and ghost house metadata that entities used to
+ * hard-code. A {@link GameMap} plays on one maze at a time and only keeps its
+ * own copy of the tiles, so any number of games can share one instance.
+ *
+ * Mazes come from {@link MazeLoader} (text), {@link MazeFile} (compiled
+ * binary) or {@link #CLASSIC}, the original built-in layout.
+ */
+public final class Maze {
+
+    /**
+     * Largest supported tile count. Bounded by the distance table, which is
+     * quadratic in walkable tiles: at this size it stays under 32 MB.
+     */
+    public static final int MAX_TILES = 1 << 12;
+
+    public final String name;
+    public final int rows, cols;
+
+    /** PacMan's starting tile. */
+    public final int pacmanRow, pacmanCol;
+
+    /** Ghost house: the row holding the door, and the corridor tile ghosts exit to. */
+    public final int doorRow, exitRow, exitCol;
+
+    final byte[] tiles;         // row-major starting layout
+    final byte[] exits;         // Direction bits leading to a non-wall neighbour
+    final byte[] ghostExits;    // as above, also excluding the door
+    final short[] pellets;      // tile indices of pellets and power pellets, ascending
+    private final short[] ghostSpawns;  // tile indices, in release order
+
+    private final MazeDistances distances;
+
+    /** Builds a maze from raw tiles, deriving exit masks, the pellet list and the distance table. */
+    Maze(String name, int rows, int cols, byte[] tiles, int pacmanRow, int pacmanCol,
+         short[] ghostSpawns, int doorRow, int exitCol) {
+        if (rows <= 0 || cols <= 0 || rows * cols > MAX_TILES) {
+            throw new IllegalArgumentException("unsupported maze size " + rows + "x" + cols
+                    + ", at most " + MAX_TILES + " tiles");
+        }
+        if (tiles.length != rows * cols) throw new IllegalArgumentException("tile count mismatch");
+        if (ghostSpawns.length == 0) throw new IllegalArgumentException("no ghost spawns");
+        this.name = name;
+        this.rows = rows;
+        this.cols = cols;
+        this.tiles = tiles;
+        this.pacmanRow = pacmanRow;
+        this.pacmanCol = pacmanCol;
+        this.ghostSpawns = ghostSpawns;
+        this.doorRow = doorRow;
+        this.exitRow = doorRow - 1;
+        this.exitCol = exitCol;
+
+        int count = 0;
+        for (byte t : tiles) if (t == GameMap.PELLET || t == GameMap.POWER_PELLET) count++;
+        pellets = new short[count];
+        for (int i = 0, n = 0; i < tiles.length; i++) {
+            if (tiles[i] == GameMap.PELLET || tiles[i] == GameMap.POWER_PELLET) pellets[n++] = (short) i;
+        }
+
+        exits = new byte[tiles.length];
+        ghostExits = new byte[tiles.length];
+        computeExits(exits, ghostExits);
+        distances = new MazeDistances(ghostExits, tiles, rows, cols);
+    }
+
+    private void computeExits(byte[] exits, byte[] ghostExits) {
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int e = 0, ge = 0;
+                for (Direction d : Direction.MOVES) {
+                    int t = getTile(r + d.dy, wrapCol(r, c + d.dx));
+                    if (t != GameMap.WALL) e |= d.bit;
+                    if (t != GameMap.WALL && t != GameMap.DOOR) ge |= d.bit;
+                }
+                exits[r * cols + c] = (byte) e;
+                ghostExits[r * cols + c] = (byte) ge;
+            }
+        }
+    }
+
+    /** Wraps a column across the side tunnel when {@code row} is open at both edges. */
+    private int wrapCol(int row, int col) {
+        if (col >= 0 && col < cols) return col;
+        if (!isTunnelRow(row)) return col;
+        return col < 0 ? col + cols : col - cols;
+    }
+
+    /** True if the row is open at both edges, so entities wrap around through it. */
+    public boolean isTunnelRow(int row) {
+        return getTile(row, 0) != GameMap.WALL && getTile(row, cols - 1) != GameMap.WALL;
+    }
+
+    /** Starting tile at a position; out of range reads as wall. */
+    public int getTile(int row, int col) {
+        if (Integer.compareUnsigned(row, rows) >= 0 || Integer.compareUnsigned(col, cols) >= 0) return GameMap.WALL;
+        return tiles[row * cols + col];
+    }
+
+    /** Pellets plus power pellets in the starting layout. */
+    public int getPelletCount() { return pellets.length; }
+
+    /** Row-major tile index of the i-th pellet, in ascending order. */
+    public int getPellet(int i) { return pellets[i]; }
+
+    public int getGhostSpawnCount() { return ghostSpawns.length; }
+
+    public int getGhostSpawnRow(int i) { return ghostSpawns[i] / cols; }
+
+    public int getGhostSpawnCol(int i) { return ghostSpawns[i] % cols; }
+
+    /** Shortest ghost-walkable path lengths, computed with the maze rather than on a game's tick. */
+    public MazeDistances getDistances() { return distances; }
+
+    @Override
+    public String toString() {
+        return "Maze[" + name + " " + rows + "x" + cols + ", " + pellets.length + " pellets]";
+    }
+
+    // ── Built-in layout ───────────────────────────────────────────────────────
+
+    /** The original layout from {@link GameMap#MAP}. */
+    public static final Maze CLASSIC = classic();
+
+    private static Maze classic() {
+        int rows = GameMap.MAP.length, cols = GameMap.MAP[0].length;
+        byte[] tiles = new byte[rows * cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) tiles[r * cols + c] = (byte) GameMap.MAP[r][c];
+        }
+        // Blinky, Pinky, Inky, Clyde
+        short[] spawns = {
+            (short) (10 * cols + 10), (short) (10 * cols + 9), (short) (10 * cols + 11), (short) (11 * cols + 10)
+        };
+        return new Maze("classic", rows, cols, tiles, 16, 10, spawns, 9, 10);
+    }
+}
@@ -0,0 +1,74 @@
+package pacman.game;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least-recently-used cache of loaded mazes, keyed by file.
+ *
+ * A compiled {@code .pmz} file is mapped directly. For a text maze the cache
+ * prefers its compiled sibling (same name, {@code .pmz} extension) when that is
+ * at least as new as the text, and otherwise parses and validates the text.
+ * A level pack with hundreds of layouts therefore only ever holds the few
+ * mazes in play in memory, along with their lazily built distance tables.
+ *
+ * Thread-safe; concurrent misses on the same file may both load it.
+ */
+public class MazeCache {
+
+    private final Map<Path, Maze> entries;
+    private long hits, misses;
+
+    public MazeCache(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        // Access-ordered: iteration starts at the least recently used entry
+        entries = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Maze> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public Maze get(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        synchronized (this) {
+            Maze maze = entries.get(key);
+            if (maze != null) {
+                hits++;
+                return maze;
+            }
+            misses++;
+        }
+        Maze maze = load(key);
+        synchronized (this) {
+            entries.put(key, maze);
+        }
+        return maze;
+    }
+
+    /** Loads a maze without caching it, choosing the compiled form when it is current. */
+    public static Maze load(Path file) throws IOException {
+        if (MazeFile.isCompiled(file)) return MazeFile.read(file);
+        Path compiled = MazeFile.compiledPath(file);
+        if (MazeFile.isUpToDate(compiled, file)) return MazeFile.read(compiled);
+        return MazeLoader.load(file);
+    }
+
+    public synchronized int size() { return entries.size(); }
+
+    public synchronized long getHits() { return hits; }
+
+    public synchronized long getMisses() { return misses; }
+
+    public synchronized void clear() { entries.clear(); }
+
+    /** True for files the cache can load: compiled mazes and {@code .txt} layouts. */
+    public static boolean isMazeFile(Path file) {
+        String name = file.getFileName().toString();
+        return Files.isRegularFile(file) && (name.endsWith(MazeFile.EXTENSION) || name.endsWith(".txt"));
+    }
+}
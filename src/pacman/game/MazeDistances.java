@@ -0,0 +1,81 @@
+package pacman.game;
+
+import pacman.utils.Direction;
+
+import java.util.Arrays;
+
+/**
+ * All-pairs shortest path lengths between ghost-walkable tiles.
+ *
+ * Built once per layout, when its {@link Maze} is, by running a BFS from
+ * every walkable tile over the ghost exit masks, so tunnel wrap-around and the
+ * closed door are honoured. Only walkable tiles get a node id, which keeps the
+ * {@code short} matrix at roughly a quarter of a full tile-by-tile table;
+ * {@link Maze#MAX_TILES} bounds it at 32 MB.
+ */
+public final class MazeDistances {
+
+    /** Returned when either tile is not ghost-walkable or no path exists. */
+    public static final int UNREACHABLE = Short.MAX_VALUE;
+
+    private final int rows, cols;
+    private final int[] nodeOf;     // tile index -> node id, or -1
+    private final int nodes;
+    private final short[] dist;     // nodes x nodes, row-major
+
+    MazeDistances(byte[] ghostExits, byte[] tiles, int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        nodeOf = new int[rows * cols];
+        int[] tileOf = new int[rows * cols];
+        int n = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            boolean walkable = tiles[i] != GameMap.WALL && tiles[i] != GameMap.DOOR;
+            nodeOf[i] = walkable ? n : -1;
+            if (walkable) tileOf[n++] = i;
+        }
+        nodes = n;
+        dist = new short[n * n];
+        Arrays.fill(dist, (short) UNREACHABLE);
+
+        int[] queue = new int[n];
+        for (int src = 0; src < n; src++) {
+            int base = src * n;
+            int head = 0, tail = 0;
+            queue[tail++] = src;
+            dist[base + src] = 0;
+            while (head < tail) {
+                int node = queue[head++];
+                int tile = tileOf[node];
+                int r = tile / cols, c = tile % cols;
+                int exits = ghostExits[tile];
+                for (Direction d : Direction.MOVES) {
+                    if ((exits & d.bit) == 0) continue;
+                    int nc = c + d.dx;
+                    nc = nc < 0 ? nc + cols : (nc >= cols ? nc - cols : nc);
+                    int next = nodeOf[(r + d.dy) * cols + nc];
+                    if (next < 0 || dist[base + next] != UNREACHABLE) continue;
+                    dist[base + next] = (short) (dist[base + node] + 1);
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /** True if the tile can be a BFS endpoint, i.e. ghosts may stand on it. */
+    public boolean isWalkable(int row, int col) {
+        return node(row, col) >= 0;
+    }
+
+    /** Maze distance in tiles between two tiles, or {@link #UNREACHABLE}. */
+    public int distance(int fromRow, int fromCol, int toRow, int toCol) {
+        int a = node(fromRow, fromCol), b = node(toRow, toCol);
+        if (a < 0 || b < 0) return UNREACHABLE;
+        return dist[a * nodes + b];
+    }
+
+    private int node(int row, int col) {
+        if (Integer.compareUnsigned(row, rows) >= 0 || Integer.compareUnsigned(col, cols) >= 0) return -1;
+        return nodeOf[row * cols + col];
+    }
+}
@@ -0,0 +1,212 @@
+package pacman.game;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Compiled, memory-mappable maze format ({@code .pmz}).
+ *
+ * Layout, all little-endian:
+ * <pre>
+ *   int    magic "PMZC", short version
+ *   short  rows, cols, pacmanRow, pacmanCol, doorRow, exitCol
+ *   short  ghost spawn count, then one tile index per spawn
+ *   short  name length, then UTF-8 name bytes
+ *   long[] wall bitset, door bitset          ((rows * cols + 63) / 64 words each)
+ *   short  pellet count, then tile indices   (ascending)
+ *   short  power pellet count, then tile indices
+ *   byte[] adjacency, one per tile: PacMan exits in the low nibble, ghost exits in the high
+ *   int    CRC32 of everything above
+ * </pre>
+ *
+ * Text mazes are validated once when compiled, so reading only checks the
+ * header, checksum and that every position lies inside the maze. Exit masks
+ * are derived from the tiles again on reading, one pass over a few hundred
+ * bytes, and the stored masks must match them, so a file written with a
+ * checksum over bad masks is rejected rather than indexing off the grid. A typical maze is well under 1 KB.
+ */
+public final class MazeFile {
+
+    public static final String EXTENSION = ".pmz";
+
+    private static final int MAGIC = 0x504D5A43;   // "PMZC"
+    private static final short VERSION = 1;
+
+    private MazeFile() {}
+
+    /** Compiles a text maze (see {@link MazeLoader}) to a {@code .pmz} file. */
+    public static Maze compile(Path text, Path out) throws IOException {
+        Maze maze = MazeLoader.load(text);
+        write(maze, out);
+        return maze;
+    }
+
+    public static void write(Maze maze, Path out) throws IOException {
+        ByteBuffer buf = encode(maze);
+        try (FileChannel ch = FileChannel.open(out, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) ch.write(buf);
+        }
+    }
+
+    /** Maps a compiled maze into memory and decodes it. */
+    public static Maze read(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            return decode(buf);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + ": corrupt maze file", e);
+        }
+    }
+
+    public static ByteBuffer encode(Maze maze) {
+        int n = maze.rows * maze.cols;
+        int words = (n + 63) / 64;
+        byte[] name = maze.name.getBytes(StandardCharsets.UTF_8);
+        int spawns = maze.getGhostSpawnCount();
+        int size = 4 + 2 + 6 * 2 + 2 + spawns * 2 + 2 + name.length
+                + words * 16 + 2 + 2 + maze.getPelletCount() * 2 + n + 4;
+        ByteBuffer buf = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+
+        buf.putInt(MAGIC).putShort(VERSION);
+        buf.putShort((short) maze.rows).putShort((short) maze.cols);
+        buf.putShort((short) maze.pacmanRow).putShort((short) maze.pacmanCol);
+        buf.putShort((short) maze.doorRow).putShort((short) maze.exitCol);
+        buf.putShort((short) spawns);
+        for (int i = 0; i < spawns; i++) {
+            buf.putShort((short) (maze.getGhostSpawnRow(i) * maze.cols + maze.getGhostSpawnCol(i)));
+        }
+        buf.putShort((short) name.length).put(name);
+
+        long[] walls = new long[words], doors = new long[words];
+        int power = 0;
+        for (int i = 0; i < n; i++) {
+            byte t = maze.tiles[i];
+            if (t == GameMap.WALL) walls[i >>> 6] |= 1L << i;
+            else if (t == GameMap.DOOR) doors[i >>> 6] |= 1L << i;
+            else if (t == GameMap.POWER_PELLET) power++;
+        }
+        for (long w : walls) buf.putLong(w);
+        for (long w : doors) buf.putLong(w);
+        buf.putShort((short) (maze.getPelletCount() - power));
+        for (short p : maze.pellets) if (maze.tiles[p] == GameMap.PELLET) buf.putShort(p);
+        buf.putShort((short) power);
+        for (short p : maze.pellets) if (maze.tiles[p] == GameMap.POWER_PELLET) buf.putShort(p);
+        for (int i = 0; i < n; i++) buf.put((byte) ((maze.exits[i] & 0xF) | (maze.ghostExits[i] << 4)));
+
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), 0, buf.position());
+        buf.putInt((int) crc.getValue());
+        return buf.flip();
+    }
+
+    /**
+     * Decodes a compiled maze occupying {@code buf} from its position to its limit.
+     * @throws IllegalArgumentException if the data is not a valid compiled maze
+     */
+    public static Maze decode(ByteBuffer buf) {
+        try {
+            return decodeChecked(buf.slice().order(ByteOrder.LITTLE_ENDIAN));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("truncated maze file", e);
+        }
+    }
+
+    private static Maze decodeChecked(ByteBuffer buf) {
+        if (buf.remaining() < 4 + 2 + 4 || buf.getInt() != MAGIC) throw new IllegalArgumentException("not a maze file");
+        int end = buf.limit() - 4;
+        CRC32 crc = new CRC32();
+        crc.update(buf.duplicate().position(0).limit(end));
+        if ((int) crc.getValue() != buf.getInt(end)) throw new IllegalArgumentException("checksum mismatch");
+
+        short version = buf.getShort();
+        if (version != VERSION) throw new IllegalArgumentException("unsupported maze version " + version);
+
+        int rows = buf.getShort(), cols = buf.getShort();
+        if (rows <= 0 || cols <= 0 || rows * cols > Maze.MAX_TILES) {
+            throw new IllegalArgumentException("bad maze size " + rows + "x" + cols + ", at most " + Maze.MAX_TILES + " tiles");
+        }
+        int pacmanRow = buf.getShort(), pacmanCol = buf.getShort();
+        int doorRow = buf.getShort(), exitCol = buf.getShort();
+        // Counts are unsigned; a damaged one runs off the end of the buffer rather than going negative
+        short[] spawns = new short[Short.toUnsignedInt(buf.getShort())];
+        for (int i = 0; i < spawns.length; i++) spawns[i] = buf.getShort();
+        byte[] name = new byte[Short.toUnsignedInt(buf.getShort())];
+        buf.get(name);
+
+        int n = rows * cols;
+        int words = (n + 63) / 64;
+        byte[] tiles = new byte[n];
+        for (int w = 0; w < words; w++) {
+            for (long bits = buf.getLong(); bits != 0; bits &= bits - 1) {
+                tiles[tileIndex(w, bits, n)] = GameMap.WALL;
+            }
+        }
+        for (int w = 0; w < words; w++) {
+            for (long bits = buf.getLong(); bits != 0; bits &= bits - 1) {
+                tiles[tileIndex(w, bits, n)] = GameMap.DOOR;
+            }
+        }
+        for (int k = buf.getShort(); k > 0; k--) tiles[checkTile(buf.getShort(), n)] = GameMap.PELLET;
+        for (int k = buf.getShort(); k > 0; k--) tiles[checkTile(buf.getShort(), n)] = GameMap.POWER_PELLET;
+
+        byte[] adjacency = new byte[n];
+        buf.get(adjacency);
+        if (buf.position() != end) throw new IllegalArgumentException("unexpected trailing data");
+
+        for (short s : spawns) checkTile(s, n);
+        checkTile(pacmanRow, pacmanCol, rows, cols);
+        checkTile(doorRow - 1, exitCol, rows, cols);   // the exit, above the door
+        // Masks come from the tiles, so a stored exit can never lead off the grid or into a wall;
+        // the stored copy only has to agree
+        Maze maze = new Maze(new String(name, StandardCharsets.UTF_8), rows, cols, tiles,
+                pacmanRow, pacmanCol, spawns, doorRow, exitCol);
+        for (int i = 0; i < n; i++) {
+            if (adjacency[i] != (byte) (maze.exits[i] | maze.ghostExits[i] << 4)) {
+                throw new IllegalArgumentException("exits of tile " + i + " do not match its neighbours");
+            }
+        }
+        return maze;
+    }
+
+    private static int tileIndex(int word, long bits, int n) {
+        return checkTile((word << 6) + Long.numberOfTrailingZeros(bits), n);
+    }
+
+    private static int checkTile(int index, int n) {
+        if (index < 0 || index >= n) throw new IllegalArgumentException("tile index out of range: " + index);
+        return index;
+    }
+
+    private static void checkTile(int row, int col, int rows, int cols) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            throw new IllegalArgumentException("tile out of range: row " + row + ", column " + col);
+        }
+    }
+
+    /** True if {@code file} looks like a compiled maze by name. */
+    public static boolean isCompiled(Path file) {
+        return file.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    /** The {@code .pmz} path a text maze compiles to by default. */
+    public static Path compiledPath(Path text) {
+        String name = text.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return text.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + EXTENSION);
+    }
+
+    /** True if {@code compiled} exists and is at least as new as {@code text}. */
+    static boolean isUpToDate(Path compiled, Path text) throws IOException {
+        return Files.exists(compiled)
+                && Files.getLastModifiedTime(compiled).compareTo(Files.getLastModifiedTime(text)) >= 0;
+    }
+}
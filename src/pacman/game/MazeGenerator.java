@@ -0,0 +1,305 @@
+package pacman.game;
+
+import pacman.utils.Direction;
+import pacman.utils.Rng;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Procedurally generated mazes, reproducible from a seed.
+ *
+ * A layout starts as a full lattice: corridor nodes on every odd row and
+ * column, joined to all their neighbours, with single wall pillars between
+ * them. That lattice is already connected, symmetric and free of dead ends,
+ * and has no open 2x2 areas. Edges are then closed in random mirrored pairs,
+ * which merges pillars into longer walls, but only while both ends keep at
+ * least two other exits and every corridor is still reachable. The ghost
+ * house, the ring corridor around it, PacMan's spawn and the side tunnel
+ * through the house's middle row are fixed, so {@link pacman.entities.Ghost}'s
+ * exit path (across to the middle column, up through the door, then left)
+ * always works.
+ *
+ * Every result is checked by {@link #validate} before it is returned; an
+ * attempt that fails is redrawn from the same seed's generator, so a seed
+ * always yields the same maze. Mazes for many seeds can be generated in
+ * parallel on a {@link ForkJoinPool}; each one depends only on its seed.
+ */
+public final class MazeGenerator {
+
+    /** Share of closable edges to close, as a percentage range. */
+    private static final int MIN_CLOSED = 45, CLOSED_SPREAD = 25;
+    private static final int MAX_ATTEMPTS = 100;
+
+    public final int rows, cols;
+    /** Inclusive bounds on pellets plus power pellets. */
+    public final int minPellets, maxPellets;
+
+    private final int center;      // middle column; the door and house exit
+    private final int houseRow;    // middle row of the ghost house, and the tunnel row
+    private final int spawnRow;    // PacMan's row, in the middle column
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder generated = new LongAdder();
+
+    /** Mazes the size of {@link Maze#CLASSIC}. */
+    public MazeGenerator() {
+        this(Maze.CLASSIC.rows, Maze.CLASSIC.cols);
+    }
+
+    /** Pellet bounds default to between a quarter and a half of the tiles. */
+    public MazeGenerator(int rows, int cols) {
+        this(rows, cols, rows * cols / 4, rows * cols / 2);
+    }
+
+    /**
+     * @param rows 19 or more, and 3 more than a multiple of 4, so the house's
+     *             middle row falls on a corridor row
+     * @param cols 17 or more, and 1 more than a multiple of 4, so the middle
+     *             column falls between two corridor columns
+     */
+    public MazeGenerator(int rows, int cols, int minPellets, int maxPellets) {
+        if (rows < 19 || rows % 4 != 3 || cols < 17 || cols % 4 != 1 || rows * cols > Maze.MAX_TILES) {
+            throw new IllegalArgumentException("unsupported maze size " + rows + "x" + cols);
+        }
+        if (minPellets < 1 || maxPellets < minPellets) throw new IllegalArgumentException("bad pellet bounds");
+        this.rows = rows;
+        this.cols = cols;
+        this.minPellets = minPellets;
+        this.maxPellets = maxPellets;
+        center = cols / 2;
+        houseRow = rows / 2;
+        spawnRow = houseRow + 6;
+    }
+
+    /** Attempts made so far, including those that failed validation. */
+    public long getAttempts() { return attempts.sum(); }
+
+    /** Mazes returned so far. */
+    public long getGenerated() { return generated.sum(); }
+
+    // ── Generating ────────────────────────────────────────────────────────────
+
+    /**
+     * The maze for a seed.
+     * @throws IllegalStateException if no valid layout turned up, which would
+     *         mean the pellet bounds cannot be met at this size
+     */
+    public Maze generate(long seed) {
+        Rng rng = new Rng(seed);
+        IllegalArgumentException last = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            attempts.increment();
+            Maze maze = build("generated-" + seed, rng);
+            try {
+                validate(maze);
+                generated.increment();
+                return maze;
+            } catch (IllegalArgumentException e) {
+                last = e;
+            }
+        }
+        throw new IllegalStateException("no valid maze for seed " + seed + " (" + last.getMessage() + ")");
+    }
+
+    /** One maze per seed, in seed order, generated across {@code pool}'s workers. */
+    public Maze[] generate(long[] seeds, ForkJoinPool pool) {
+        Maze[] mazes = new Maze[seeds.length];
+        int leafSize = Math.max(1, seeds.length / (pool.getParallelism() * 8));
+        pool.invoke(new Slice(seeds, mazes, 0, seeds.length, leafSize));
+        return mazes;
+    }
+
+    private Maze build(String name, Rng rng) {
+        byte[] tiles = new byte[rows * cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                boolean inside = r > 0 && r < rows - 1 && c > 0 && c < cols - 1;
+                // Nodes sit where row and column are both odd, pillars where both are even
+                tiles[r * cols + c] = inside && ((r | c) & 1) == 1 ? GameMap.PELLET : GameMap.WALL;
+            }
+        }
+        tiles[houseRow * cols] = GameMap.PELLET;
+        tiles[houseRow * cols + cols - 1] = GameMap.PELLET;
+        for (int r = houseRow - 1; r <= houseRow + 1; r++) {
+            for (int c = center - 4; c <= center + 4; c++) tiles[r * cols + c] = GameMap.WALL;
+        }
+        for (int c = center - 3; c <= center + 3; c++) tiles[houseRow * cols + c] = GameMap.EMPTY;
+        for (int c = center - 1; c <= center + 1; c++) tiles[(houseRow - 1) * cols + c] = GameMap.DOOR;
+
+        int[] queue = new int[rows * cols];
+        boolean[] seen = new boolean[rows * cols];
+        int open = flood(tiles, queue, seen);
+
+        // Closable edges in the left half and the middle column; the right half mirrors them
+        int[] edges = new int[rows * cols];
+        int count = 0;
+        for (int r = 1; r < rows - 1; r++) {
+            for (int c = 1; c <= center; c++) {
+                if (((r ^ c) & 1) == 1 && tiles[r * cols + c] != GameMap.WALL && !isFixed(r, c)) {
+                    edges[count++] = r * cols + c;
+                }
+            }
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            int t = edges[i];
+            edges[i] = edges[j];
+            edges[j] = t;
+        }
+
+        int target = count * (MIN_CLOSED + rng.nextInt(CLOSED_SPREAD)) / 100;
+        for (int i = 0, closed = 0; i < count && closed < target; i++) {
+            int edge = edges[i];
+            int r = edge / cols, c = edge % cols;
+            int mirror = r * cols + cols - 1 - c;
+            // An edge joins the nodes on either side of it, across its odd coordinate
+            int a = (r & 1) == 1 ? edge - 1 : edge - cols;
+            int b = (r & 1) == 1 ? edge + 1 : edge + cols;
+            if (degree(tiles, a) < 3 || degree(tiles, b) < 3) continue;
+            tiles[edge] = tiles[mirror] = GameMap.WALL;
+            int lost = edge == mirror ? 1 : 2;
+            if (flood(tiles, queue, seen) == open - lost) {
+                open -= lost;
+                closed++;
+            } else {
+                tiles[edge] = tiles[mirror] = GameMap.PELLET;
+            }
+        }
+
+        // The ring round the house, the tunnel mouths and PacMan's spawn are bare, as in the classic layout
+        for (int r = houseRow - 2; r <= houseRow + 2; r++) {
+            for (int c = center - 5; c <= center + 5; c++) {
+                if (tiles[r * cols + c] == GameMap.PELLET) tiles[r * cols + c] = GameMap.EMPTY;
+            }
+        }
+        tiles[houseRow * cols] = tiles[houseRow * cols + cols - 1] = GameMap.EMPTY;
+        tiles[spawnRow * cols + center] = GameMap.EMPTY;
+        for (int r : new int[] { 3, rows - 6 }) {
+            tiles[r * cols + 1] = tiles[r * cols + cols - 2] = GameMap.POWER_PELLET;
+        }
+
+        // Blinky, Pinky, Inky, Clyde
+        int house = houseRow * cols + center;
+        short[] spawns = { (short) house, (short) (house - 1), (short) (house + 1), (short) (house + 2) };
+        return new Maze(name, rows, cols, tiles, spawnRow, center, spawns, houseRow - 1, center);
+    }
+
+    /** Edges that are never closed: the ring corridor round the house, and PacMan's spawn. */
+    private boolean isFixed(int r, int c) {
+        int dr = Math.abs(r - houseRow), dc = Math.abs(c - center);
+        if (dr == 2 && dc <= 5 || dc == 5 && dr <= 2) return true;
+        return r == spawnRow && c == center;
+    }
+
+    /** Ghost-walkable neighbours of a node. Nodes never sit in the outer columns, so no wrapping is needed. */
+    private int degree(byte[] tiles, int node) {
+        return walkable(tiles[node - cols]) + walkable(tiles[node + cols]) + walkable(tiles[node - 1]) + walkable(tiles[node + 1]);
+    }
+
+    private static int walkable(byte tile) {
+        return tile != GameMap.WALL && tile != GameMap.DOOR ? 1 : 0;
+    }
+
+    /** Counts the ghost-walkable tiles reachable from PacMan's spawn. */
+    private int flood(byte[] tiles, int[] queue, boolean[] seen) {
+        Arrays.fill(seen, false);
+        int start = spawnRow * cols + center;
+        int head = 0, tail = 0;
+        seen[start] = true;
+        queue[tail++] = start;
+        while (head < tail) {
+            int tile = queue[head++];
+            int c = tile % cols;
+            for (Direction d : Direction.MOVES) {
+                int nc = c + d.dx;
+                nc = nc < 0 ? nc + cols : (nc >= cols ? nc - cols : nc);
+                int next = tile + d.dy * cols + nc - c;
+                if (next < 0 || next >= tiles.length || seen[next] || walkable(tiles[next]) == 0) continue;
+                seen[next] = true;
+                queue[tail++] = next;
+            }
+        }
+        return tail;
+    }
+
+    // ── Validation ────────────────────────────────────────────────────────────
+
+    /**
+     * Checks a maze, generated or not, against everything the generator
+     * promises: the {@link MazeLoader} rules, left-right symmetry, ghost
+     * spawns below the door and a house exit ghosts can leave heading left,
+     * every open tile reachable, no dead ends in the corridors ghosts walk,
+     * and a pellet count within this generator's bounds.
+     * @throws IllegalArgumentException describing the first problem found
+     */
+    public void validate(Maze maze) {
+        MazeLoader.validate(maze);
+        int rows = maze.rows, cols = maze.cols;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols / 2; c++) {
+                if (maze.getTile(r, c) != maze.getTile(r, cols - 1 - c)) {
+                    throw new IllegalArgumentException("not symmetric at row " + (r + 1) + ", column " + (c + 1));
+                }
+            }
+        }
+        for (int g = 0; g < maze.getGhostSpawnCount(); g++) {
+            if (maze.getGhostSpawnRow(g) <= maze.doorRow) {
+                throw new IllegalArgumentException("ghost spawn " + (g + 1) + " is not below the door");
+            }
+        }
+        int exit = maze.exitRow * cols + maze.exitCol;
+        if ((maze.ghostExits[exit] & Direction.LEFT.bit) == 0) {
+            throw new IllegalArgumentException("ghosts leave the house heading left, but the exit is walled on that side");
+        }
+
+        // PacMan's moves reach the house through the door; the ghosts' graph leaves it out
+        boolean[] reachable = MazeLoader.reachable(maze, maze.exits);
+        boolean[] corridors = MazeLoader.reachable(maze, maze.ghostExits);
+        if (!corridors[exit]) throw new IllegalArgumentException("the house exit is cut off from PacMan");
+        for (int i = 0; i < rows * cols; i++) {
+            if (maze.tiles[i] == GameMap.WALL) continue;
+            if (!reachable[i]) throw tileError(i, cols, "is unreachable");
+            if (corridors[i] && Integer.bitCount(maze.ghostExits[i]) < 2) throw tileError(i, cols, "is a dead end");
+            if ((maze.tiles[i] == GameMap.PELLET || maze.tiles[i] == GameMap.POWER_PELLET) && !corridors[i]) {
+                throw tileError(i, cols, "holds a pellet off the corridors");
+            }
+        }
+        int pellets = maze.getPelletCount();
+        if (pellets < minPellets || pellets > maxPellets) {
+            throw new IllegalArgumentException(pellets + " pellets, outside " + minPellets + ".." + maxPellets);
+        }
+    }
+
+    private static IllegalArgumentException tileError(int tile, int cols, String problem) {
+        return new IllegalArgumentException("tile at row " + (tile / cols + 1) + ", column " + (tile % cols + 1) + " " + problem);
+    }
+
+    private final class Slice extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] seeds;
+        private final Maze[] mazes;
+        private final int from, to, leafSize;
+
+        Slice(long[] seeds, Maze[] mazes, int from, int to, int leafSize) {
+            this.seeds = seeds;
+            this.mazes = mazes;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                for (int i = from; i < to; i++) mazes[i] = generate(seeds[i]);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Slice(seeds, mazes, from, mid, leafSize), new Slice(seeds, mazes, mid, to, leafSize));
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package pacman.game;
+
+import pacman.utils.Direction;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads mazes from plain text, one character per tile:
+ *
+ * <pre>
+ *   #   wall             .   pellet          o   power pellet
+ *   -   ghost house door P   PacMan spawn    1-9 ghost spawns, in release order
+ *   (space) empty
+ * </pre>
+ *
+ * Lines starting with {@code ;} are comments. Short lines are padded with
+ * empty tiles, since editors tend to strip trailing spaces. The door tiles must
+ * share one row; ghosts leave the house through the corridor tile above the
+ * middle of the door.
+ *
+ * Layouts are validated before use: a single PacMan spawn, consecutive ghost
+ * spawns inside the house, a reachable house exit, side tunnels open at both
+ * ends, no openings in the top or bottom row, and every pellet reachable from
+ * PacMan's spawn (otherwise the level could never be cleared).
+ */
+public final class MazeLoader {
+
+    private MazeLoader() {}
+
+    /** Reads and validates a text maze, named after the file. */
+    public static Maze load(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) name = name.substring(0, dot);
+        try {
+            return parse(name, Files.readAllLines(file, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parses and validates a text maze.
+     * @throws IllegalArgumentException describing the first problem found
+     */
+    public static Maze parse(String name, List<String> lines) {
+        List<String> grid = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+        int cols = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.startsWith(";")) continue;
+            grid.add(line);
+            lineNumbers.add(i + 1);
+            cols = Math.max(cols, line.length());
+        }
+        // Trailing blank lines are formatting, not a row of empty tiles
+        while (!grid.isEmpty() && grid.get(grid.size() - 1).isBlank()) {
+            grid.remove(grid.size() - 1);
+        }
+        int rows = grid.size();
+        if (rows == 0 || cols == 0) throw new IllegalArgumentException("empty maze");
+        if (rows * cols > Maze.MAX_TILES) {
+            throw new IllegalArgumentException("maze too large: " + rows + "x" + cols + ", at most " + Maze.MAX_TILES + " tiles");
+        }
+
+        byte[] tiles = new byte[rows * cols];
+        int pacman = -1;
+        int[] ghosts = new int[9];
+        Arrays.fill(ghosts, -1);
+        int doorRow = -1, doorMin = Integer.MAX_VALUE, doorMax = -1;
+
+        for (int r = 0; r < rows; r++) {
+            String line = grid.get(r);
+            for (int c = 0; c < line.length(); c++) {
+                char ch = line.charAt(c);
+                int i = r * cols + c;
+                switch (ch) {
+                    case '#' -> tiles[i] = GameMap.WALL;
+                    case '.' -> tiles[i] = GameMap.PELLET;
+                    case 'o' -> tiles[i] = GameMap.POWER_PELLET;
+                    case ' ' -> tiles[i] = GameMap.EMPTY;
+                    case '-' -> {
+                        tiles[i] = GameMap.DOOR;
+                        if (doorRow >= 0 && doorRow != r) {
+                            throw error(lineNumbers.get(r), c, "door tiles must share one row");
+                        }
+                        doorRow = r;
+                        doorMin = Math.min(doorMin, c);
+                        doorMax = Math.max(doorMax, c);
+                    }
+                    case 'P' -> {
+                        if (pacman >= 0) throw error(lineNumbers.get(r), c, "more than one PacMan spawn");
+                        pacman = i;
+                    }
+                    default -> {
+                        if (ch < '1' || ch > '9') throw error(lineNumbers.get(r), c, "unknown tile '" + ch + "'");
+                        if (ghosts[ch - '1'] >= 0) throw error(lineNumbers.get(r), c, "duplicate ghost spawn " + ch);
+                        ghosts[ch - '1'] = i;
+                    }
+                }
+            }
+        }
+
+        if (pacman < 0) throw new IllegalArgumentException("no PacMan spawn 'P'");
+        if (doorRow < 0) throw new IllegalArgumentException("no ghost house door '-'");
+        if (doorRow == 0) throw new IllegalArgumentException("ghost house door has no exit row above it");
+        int ghostCount = 0;
+        while (ghostCount < ghosts.length && ghosts[ghostCount] >= 0) ghostCount++;
+        if (ghostCount == 0) throw new IllegalArgumentException("no ghost spawns '1'-'9'");
+        short[] spawns = new short[ghostCount];
+        for (int g = 0; g < ghosts.length; g++) {
+            if (g >= ghostCount && ghosts[g] >= 0) {
+                throw new IllegalArgumentException("ghost spawns must be numbered from 1 without gaps");
+            }
+            if (g < ghostCount) {
+                if (ghosts[g] / cols <= doorRow) {
+                    throw new IllegalArgumentException("ghost spawn " + (g + 1) + " is not below the door");
+                }
+                spawns[g] = (short) ghosts[g];
+            }
+        }
+
+        Maze maze = new Maze(name, rows, cols, tiles, pacman / cols, pacman % cols,
+                spawns, doorRow, (doorMin + doorMax) / 2);
+        validate(maze);
+        return maze;
+    }
+
+    /** Checks a built maze against the rules above, apart from the spawn markers. */
+    static void validate(Maze maze) {
+        int rows = maze.rows, cols = maze.cols;
+        for (int c = 0; c < cols; c++) {
+            if (maze.getTile(0, c) != GameMap.WALL || maze.getTile(rows - 1, c) != GameMap.WALL) {
+                throw new IllegalArgumentException("top and bottom rows must be solid wall (column " + (c + 1) + ")");
+            }
+        }
+        for (int r = 0; r < rows; r++) {
+            boolean left = maze.getTile(r, 0) == GameMap.WALL, right = maze.getTile(r, cols - 1) == GameMap.WALL;
+            if (left != right) throw new IllegalArgumentException("row " + (r + 1) + " is a tunnel open at one end only");
+        }
+        int exit = maze.getTile(maze.exitRow, maze.exitCol);
+        if (exit == GameMap.WALL || exit == GameMap.DOOR) {
+            throw new IllegalArgumentException("ghost house exit (row " + (maze.exitRow + 1)
+                    + ", column " + (maze.exitCol + 1) + ") is blocked");
+        }
+
+        boolean[] seen = reachable(maze, maze.exits);
+        if (maze.getPelletCount() == 0) throw new IllegalArgumentException("maze has no pellets");
+        for (int p = 0; p < maze.getPelletCount(); p++) {
+            int tile = maze.getPellet(p);
+            if (!seen[tile]) {
+                throw new IllegalArgumentException("pellet at row " + (tile / cols + 1)
+                        + ", column " + (tile % cols + 1) + " is unreachable");
+            }
+        }
+    }
+
+    /** Tiles reachable from PacMan's spawn over the given exit masks, wrapping through the side tunnel. */
+    static boolean[] reachable(Maze maze, byte[] exits) {
+        int rows = maze.rows, cols = maze.cols;
+        boolean[] seen = new boolean[rows * cols];
+        int[] queue = new int[rows * cols];
+        int head = 0, tail = 0;
+        int start = maze.pacmanRow * cols + maze.pacmanCol;
+        seen[start] = true;
+        queue[tail++] = start;
+        while (head < tail) {
+            int tile = queue[head++];
+            int r = tile / cols, c = tile % cols;
+            int mask = exits[tile];
+            for (Direction d : Direction.MOVES) {
+                if ((mask & d.bit) == 0) continue;
+                int nc = c + d.dx;
+                nc = nc < 0 ? nc + cols : (nc >= cols ? nc - cols : nc);
+                int next = (r + d.dy) * cols + nc;
+                if (seen[next]) continue;
+                seen[next] = true;
+                queue[tail++] = next;
+            }
+        }
+        return seen;
+    }
+
+    /**
+     * Writes a maze back out in the text format, e.g. to save a generated one.
+     * Spawn markers replace the tile under them, so spawns must sit on distinct tiles.
+     */
+    public static List<String> format(Maze maze) {
+        char[][] grid = new char[maze.rows][maze.cols];
+        for (int r = 0; r < maze.rows; r++) {
+            for (int c = 0; c < maze.cols; c++) {
+                grid[r][c] = switch (maze.getTile(r, c)) {
+                    case GameMap.WALL -> '#';
+                    case GameMap.PELLET -> '.';
+                    case GameMap.POWER_PELLET -> 'o';
+                    case GameMap.DOOR -> '-';
+                    default -> ' ';
+                };
+            }
+        }
+        grid[maze.pacmanRow][maze.pacmanCol] = 'P';
+        for (int g = 0; g < maze.getGhostSpawnCount(); g++) {
+            grid[maze.getGhostSpawnRow(g)][maze.getGhostSpawnCol(g)] = (char) ('1' + g);
+        }
+        List<String> lines = new ArrayList<>(maze.rows);
+        for (char[] row : grid) lines.add(new String(row));
+        return lines;
+    }
+
+    private static IllegalArgumentException error(int line, int col, String message) {
+        return new IllegalArgumentException("line " + line + ", column " + (col + 1) + ": " + message);
+    }
+}
@@ -0,0 +1,157 @@
+package pacman.game;
+
+import java.util.Arrays;
+
+/**
+ * The pellets (and power pellets) still on the board, indexed two ways.
+ *
+ * A dense list of tile indices with a tile-to-slot table gives O(1) removal
+ * by swapping the last entry into the hole, O(1) counts and cheap iteration
+ * over what is left. A grid of 4x4-tile buckets, each a 16-bit occupancy
+ * mask, answers nearest-pellet queries by scanning rings of buckets outwards
+ * and skipping empty ones with a single compare. Resetting copies the three
+ * arrays back from templates built once per maze.
+ */
+public final class PelletIndex {
+
+    private static final int BUCKET_SHIFT = 2;          // 4x4 tiles per bucket
+    private static final int BUCKET = 1 << BUCKET_SHIFT;
+    private static final int BUCKET_MASK = BUCKET - 1;
+
+    private final int rows, cols;
+    private final int bucketRows, bucketCols;
+
+    private final int[] templateDense, templateSlot, templateMasks;
+    private final int[] dense;     // remaining pellet tile indices, in no particular order
+    private final int[] slot;      // tile index -> position in dense, or -1
+    private final int[] masks;     // per bucket, bit ((r & 3) << 2 | (c & 3)) set while a pellet remains
+    private int count;
+
+    PelletIndex(Maze maze) {
+        rows = maze.rows;
+        cols = maze.cols;
+        bucketRows = (rows + BUCKET_MASK) >> BUCKET_SHIFT;
+        bucketCols = (cols + BUCKET_MASK) >> BUCKET_SHIFT;
+
+        int pellets = maze.getPelletCount();
+        templateDense = new int[pellets];
+        templateSlot = new int[rows * cols];
+        templateMasks = new int[bucketRows * bucketCols];
+        Arrays.fill(templateSlot, -1);
+        for (int i = 0; i < pellets; i++) {
+            int tile = maze.getPellet(i);
+            templateDense[i] = tile;
+            templateSlot[tile] = i;
+            templateMasks[bucketOf(tile / cols, tile % cols)] |= bitOf(tile / cols, tile % cols);
+        }
+        dense = new int[pellets];
+        slot = new int[rows * cols];
+        masks = new int[templateMasks.length];
+        reset();
+    }
+
+    /** Restores every pellet of the layout. */
+    public void reset() {
+        System.arraycopy(templateDense, 0, dense, 0, dense.length);
+        System.arraycopy(templateSlot, 0, slot, 0, slot.length);
+        System.arraycopy(templateMasks, 0, masks, 0, masks.length);
+        count = dense.length;
+    }
+
+    /** Pellets left, including power pellets. */
+    public int remaining() { return count; }
+
+    /** Row-major tile index of the i-th remaining pellet, {@code 0 <= i < remaining()}. */
+    public int get(int i) { return dense[i]; }
+
+    public boolean contains(int tile) {
+        return slot[tile] >= 0;
+    }
+
+    /** Removes the pellet on {@code tile}; returns false if there was none. */
+    boolean remove(int tile) {
+        int s = slot[tile];
+        if (s < 0) return false;
+        int last = dense[--count];
+        dense[s] = last;
+        slot[last] = s;
+        slot[tile] = -1;
+        int r = tile / cols, c = tile % cols;
+        masks[bucketOf(r, c)] &= ~bitOf(r, c);
+        return true;
+    }
+
+    /** Puts a pellet back on a tile of the layout that originally had one. */
+    boolean add(int tile) {
+        if (slot[tile] >= 0 || templateSlot[tile] < 0) return false;
+        dense[count] = tile;
+        slot[tile] = count++;
+        int r = tile / cols, c = tile % cols;
+        masks[bucketOf(r, c)] |= bitOf(r, c);
+        return true;
+    }
+
+    /**
+     * Tile index of the remaining pellet closest to a tile by Manhattan
+     * distance (ignoring walls and the side tunnel), or -1 if none are left.
+     */
+    public int nearest(int row, int col) {
+        if (count == 0) return -1;
+        row = Math.max(0, Math.min(rows - 1, row));
+        col = Math.max(0, Math.min(cols - 1, col));
+        int br = row >> BUCKET_SHIFT, bc = col >> BUCKET_SHIFT;
+        int maxRing = Math.max(Math.max(br, bucketRows - 1 - br), Math.max(bc, bucketCols - 1 - bc));
+        int best = -1, bestDist = Integer.MAX_VALUE;
+
+        for (int k = 0; k <= maxRing; k++) {
+            for (int i = br - k; i <= br + k; i++) {
+                if (i < 0 || i >= bucketRows) continue;
+                // Full rows of buckets at the ring's top and bottom, only the two ends in between
+                int step = (i == br - k || i == br + k) ? 1 : Math.max(1, 2 * k);
+                for (int j = bc - k; j <= bc + k; j += step) {
+                    if (j < 0 || j >= bucketCols) continue;
+                    int mask = masks[i * bucketCols + j];
+                    for (; mask != 0; mask &= mask - 1) {
+                        int bit = Integer.numberOfTrailingZeros(mask);
+                        int r = (i << BUCKET_SHIFT) + (bit >> BUCKET_SHIFT);
+                        int c = (j << BUCKET_SHIFT) + (bit & BUCKET_MASK);
+                        int d = Math.abs(r - row) + Math.abs(c - col);
+                        if (d < bestDist) {
+                            bestDist = d;
+                            best = r * cols + c;
+                        }
+                    }
+                }
+            }
+            // Any tile in ring k + 1 is at least 4k + 1 away along one axis
+            if (bestDist <= (k << BUCKET_SHIFT) + 1) break;
+        }
+        return best;
+    }
+
+    /**
+     * Tile index of the remaining pellet with the shortest ghost-walkable path
+     * from a tile, or -1 if none is reachable. Scans the dense list, so the cost
+     * falls as the level empties.
+     */
+    public int nearestByPath(int row, int col, MazeDistances distances) {
+        int best = -1, bestDist = MazeDistances.UNREACHABLE;
+        for (int i = 0; i < count; i++) {
+            int tile = dense[i];
+            int d = distances.distance(row, col, tile / cols, tile % cols);
+            if (d < bestDist) {
+                bestDist = d;
+                best = tile;
+            }
+        }
+        return best;
+    }
+
+    private int bucketOf(int row, int col) {
+        return (row >> BUCKET_SHIFT) * bucketCols + (col >> BUCKET_SHIFT);
+    }
+
+    private static int bitOf(int row, int col) {
+        return 1 << (((row & BUCKET_MASK) << BUCKET_SHIFT) | (col & BUCKET_MASK));
+    }
+}
@@ -0,0 +1,21 @@
+package pacman.game;
+
+import pacman.utils.Constants;
+import pacman.utils.Direction;
+import pacman.utils.Rng;
+
+/** Chooses PacMan's input for headless runs; called once per frame before the update. */
+@FunctionalInterface
+public interface Policy {
+
+    /** @return the direction to queue, or {@link Direction#NONE} to leave input unchanged */
+    Direction decide(GameController game);
+
+    /** Baseline player that picks a random direction about once per tile. */
+    static Policy randomTurns(long seed) {
+        Rng rng = new Rng(seed);
+        int period = Constants.PACMAN_FRAMES_PER_TILE;
+        int[] tick = new int[1];
+        return game -> tick[0]++ % period == 0 ? Direction.MOVES[rng.nextInt(4)] : Direction.NONE;
+    }
+}
@@ -0,0 +1,120 @@
+package pacman.game;
+
+import pacman.metrics.GameMetrics;
+import pacman.utils.Direction;
+
+/**
+ * Headless fixed-step driver for a {@link GameController}.
+ *
+ * One call to {@link #step()} advances the game by exactly one frame, with no
+ * dependency on Swing or wall-clock time. The UI is just one consumer that calls
+ * {@code step()} from its timer; bots and regression runs can call it from a
+ * plain loop as fast as the CPU allows.
+ */
+public class Simulation {
+
+    /** Input codes reported to a {@link Listener}; directions use their ordinal (0-3). */
+    public static final int INPUT_START = 4, INPUT_PAUSE = 5;
+
+    /** Observes input and frames, e.g. to record a replay. Called on the stepping thread. */
+    public interface Listener {
+        /** Called before the input is applied, at the tick it applies to. */
+        void onInput(long tick, int input);
+
+        /** Called after each frame; {@code tick} is the new frame count. */
+        default void onStep(long tick) {}
+    }
+
+    private final GameController controller;
+    private long tick;
+    private Listener listener;
+    private GameMetrics metrics;
+
+    public Simulation() {
+        this(new GameController());
+    }
+
+    public Simulation(long seed) {
+        this(new GameController(seed));
+    }
+
+    public Simulation(GameController controller) {
+        this.controller = controller;
+    }
+
+    public GameController getController() { return controller; }
+
+    /** Number of frames stepped since this simulation was created. */
+    public long getTick() { return tick; }
+
+    /** Used when rolling back to a snapshot. */
+    void setTick(long tick) { this.tick = tick; }
+
+    public boolean isGameOver() { return controller.state == GameController.State.GAME_OVER; }
+
+    public void setListener(Listener listener) { this.listener = listener; }
+
+    // ── Input ─────────────────────────────────────────────────────────────────
+
+    public void start() {
+        if (listener != null) listener.onInput(tick, INPUT_START);
+        controller.startGame();
+    }
+
+    public void setDirection(Direction d) {
+        if (listener != null && d != Direction.NONE) listener.onInput(tick, d.ordinal());
+        controller.setDirection(d);
+    }
+
+    public void togglePause() {
+        if (listener != null) listener.onInput(tick, INPUT_PAUSE);
+        controller.togglePause();
+    }
+
+    // ── Stepping ──────────────────────────────────────────────────────────────
+
+    /** Times every step into {@code metrics} from now on; null turns timing off. */
+    public void setMetrics(GameMetrics metrics) { this.metrics = metrics; }
+
+    /** Advances the game by one frame. */
+    public void step() {
+        GameMetrics m = metrics;
+        if (m == null) {
+            controller.update();
+        } else {
+            long t0 = System.nanoTime();
+            controller.update();
+            m.recordTick(System.nanoTime() - t0, controller.tickDecisions, controller.tickCollisionChecks);
+        }
+        tick++;
+        if (listener != null) listener.onStep(tick);
+    }
+
+    /**
+     * Like {@link #run(int)}, but asks {@code policy} for PacMan's direction before every frame.
+     * @return the number of frames actually stepped
+     */
+    public int run(Policy policy, int maxTicks) {
+        int n = 0;
+        while (n < maxTicks && !isGameOver()) {
+            Direction d = policy.decide(controller);
+            if (d != Direction.NONE) setDirection(d);
+            step();
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Steps until the game is over or {@code maxTicks} frames have run.
+     * @return the number of frames actually stepped
+     */
+    public int run(int maxTicks) {
+        int n = 0;
+        while (n < maxTicks && !isGameOver()) {
+            step();
+            n++;
+        }
+        return n;
+    }
+}
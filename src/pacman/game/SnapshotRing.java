@@ -0,0 +1,55 @@
+package pacman.game;
+
+/**
+ * Fixed-size history of the last N frames of a {@link Simulation}.
+ *
+ * All snapshots are allocated up front; {@link #record()} overwrites the
+ * oldest one. Typical use is to record after every step and rewind for
+ * rollback, lookahead or debugging.
+ */
+public class SnapshotRing {
+
+    private final Simulation simulation;
+    private final GameSnapshot[] slots;
+    private int head;    // index of the next slot to write
+    private int size;
+
+    public SnapshotRing(Simulation simulation, int capacity) {
+        this.simulation = simulation;
+        int ghosts = simulation.getController().ghosts.size();
+        slots = new GameSnapshot[capacity];
+        for (int i = 0; i < capacity; i++) slots[i] = new GameSnapshot(ghosts);
+    }
+
+    public int size() { return size; }
+    public int capacity() { return slots.length; }
+
+    /** Captures the current frame, replacing the oldest entry when full. */
+    public void record() {
+        GameSnapshot slot = slots[head];
+        slot.capture(simulation.getController());
+        slot.tick = simulation.getTick();
+        head = (head + 1) % slots.length;
+        if (size < slots.length) size++;
+    }
+
+    /**
+     * Restores the frame recorded {@code back} records ago (0 = the latest) and
+     * drops everything newer, so recording can continue from there.
+     */
+    public void rewind(int back) {
+        if (back < 0 || back >= size) throw new IndexOutOfBoundsException("only " + size + " frames recorded");
+        int index = Math.floorMod(head - 1 - back, slots.length);
+        GameSnapshot slot = slots[index];
+        slot.restore(simulation.getController());
+        simulation.setTick(slot.tick);
+        head = (index + 1) % slots.length;
+        size -= back;
+    }
+
+    /** Frame number of the snapshot {@code back} records ago. */
+    public long tickAt(int back) {
+        if (back < 0 || back >= size) throw new IndexOutOfBoundsException("only " + size + " frames recorded");
+        return slots[Math.floorMod(head - 1 - back, slots.length)].tick;
+    }
+}
@@ -0,0 +1,36 @@
+package pacman.metrics;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+
+/**
+ * Gate for the game's JFR events.
+ *
+ * Loading the first {@link jdk.jfr.Event} subclass brings up a good part of
+ * the JFR machinery, about 200 ms even when nothing is being recorded, so
+ * the event sites check {@link #isActive()} before touching their event
+ * class. The flag turns on as soon as a recorder exists: at startup with
+ * {@code -XX:StartFlightRecording}, or later when one is started through
+ * {@code jcmd <pid> JFR.start} or JMC. From then on the events' own
+ * enablement and thresholds decide what is written.
+ */
+public final class FlightEvents {
+
+    private static volatile boolean active;
+
+    static {
+        if (FlightRecorder.isAvailable()) {
+            FlightRecorder.addListener(new FlightRecorderListener() {
+                @Override
+                public void recorderInitialized(FlightRecorder recorder) {
+                    active = true;
+                }
+            });
+        }
+    }
+
+    private FlightEvents() {}
+
+    /** True once a flight recorder has been initialized in this JVM. */
+    public static boolean isActive() { return active; }
+}
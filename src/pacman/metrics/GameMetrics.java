@@ -0,0 +1,137 @@
+package pacman.metrics;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.JMException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-tick and per-frame measurements of a running game.
+ *
+ * The simulation records how long each update took along with how many ghost
+ * direction decisions and collision candidates it processed; the renderer
+ * records paint time and the interval between frames, whose tail (p99) is
+ * what a player perceives as stutter. GC pauses arrive from the JVM's
+ * collection notifications. Recording never allocates, so it can stay on in
+ * production; {@link #register()} publishes everything over JMX.
+ */
+public final class GameMetrics implements GameMetricsMXBean {
+
+    public static final String OBJECT_NAME = "pacman:type=GameMetrics";
+
+    public final Histogram updateNanos = new Histogram("update");
+    public final Histogram paintNanos = new Histogram("paint");
+    public final Histogram frameIntervalNanos = new Histogram("frame");
+    public final Histogram ghostDecisions = new Histogram("decisions/tick");
+    public final Histogram collisionChecks = new Histogram("collisions/tick");
+    public final Histogram gcPauseNanos = new Histogram("gc pause");
+
+    private final List<Runnable> unsubscribe = new ArrayList<>();
+    private ObjectName registeredAs;
+
+    // ── Recording ─────────────────────────────────────────────────────────────
+
+    public void recordTick(long nanos, int decisions, int checks) {
+        updateNanos.record(nanos);
+        ghostDecisions.record(decisions);
+        collisionChecks.record(checks);
+    }
+
+    /**
+     * @param nanos    time spent painting this frame
+     * @param interval time since the previous frame started, or 0 for the first frame
+     */
+    public void recordFrame(long nanos, long interval) {
+        paintNanos.record(nanos);
+        if (interval > 0) frameIntervalNanos.record(interval);
+    }
+
+    // ── JMX ───────────────────────────────────────────────────────────────────
+
+    /**
+     * Registers this instance with the platform MBean server and starts
+     * listening for GC pauses. Replaces any instance registered earlier.
+     * @return this, for chaining
+     */
+    public synchronized GameMetrics register() {
+        if (registeredAs != null) return this;
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            var server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(this, name);
+            registeredAs = name;
+        } catch (JMException e) {
+            throw new IllegalStateException("could not register " + OBJECT_NAME, e);
+        }
+        listenForGc();
+        return this;
+    }
+
+    /** Undoes {@link #register()}. */
+    public synchronized void unregister() {
+        for (Runnable r : unsubscribe) r.run();
+        unsubscribe.clear();
+        if (registeredAs == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredAs);
+        } catch (JMException e) {
+            // already gone
+        }
+        registeredAs = null;
+    }
+
+    /**
+     * Records the duration of every stop-the-world collection. Collectors that
+     * report concurrent cycles as separate beans (G1's "Concurrent GC", ZGC's
+     * "Cycles") are skipped, since those durations are not pauses. The JVM
+     * reports durations in whole milliseconds.
+     */
+    private void listenForGc() {
+        NotificationListener listener = (Notification n, Object handback) -> {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(n.getType())) return;
+            GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) n.getUserData());
+            gcPauseNanos.record(info.getGcInfo().getDuration() * 1_000_000L);
+        };
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            String name = gc.getName();
+            if (name.contains("Concurrent") || name.contains("Cycles")) continue;
+            if (gc instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(listener, null, null);
+                unsubscribe.add(() -> {
+                    try {
+                        emitter.removeNotificationListener(listener);
+                    } catch (JMException e) {
+                        // never added
+                    }
+                });
+            }
+        }
+    }
+
+    @Override public Histogram.Summary getUpdateNanos() { return updateNanos.summary(); }
+    @Override public Histogram.Summary getPaintNanos() { return paintNanos.summary(); }
+    @Override public Histogram.Summary getFrameIntervalNanos() { return frameIntervalNanos.summary(); }
+    @Override public Histogram.Summary getGhostDecisionsPerTick() { return ghostDecisions.summary(); }
+    @Override public Histogram.Summary getCollisionChecksPerTick() { return collisionChecks.summary(); }
+    @Override public Histogram.Summary getGcPauseNanos() { return gcPauseNanos.summary(); }
+
+    @Override
+    public void reset() {
+        updateNanos.reset();
+        paintNanos.reset();
+        frameIntervalNanos.reset();
+        ghostDecisions.reset();
+        collisionChecks.reset();
+        gcPauseNanos.reset();
+    }
+}
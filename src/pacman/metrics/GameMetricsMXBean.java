@@ -0,0 +1,24 @@
+package pacman.metrics;
+
+/**
+ * JMX view of {@link GameMetrics}, registered as {@value GameMetrics#OBJECT_NAME}.
+ * Times are in nanoseconds; each histogram attribute is a composite of count,
+ * mean, p50, p90, p99, p99.9 and max.
+ */
+public interface GameMetricsMXBean {
+
+    Histogram.Summary getUpdateNanos();
+
+    Histogram.Summary getPaintNanos();
+
+    Histogram.Summary getFrameIntervalNanos();
+
+    Histogram.Summary getGhostDecisionsPerTick();
+
+    Histogram.Summary getCollisionChecksPerTick();
+
+    Histogram.Summary getGcPauseNanos();
+
+    /** Clears every histogram, e.g. before measuring a particular scene. */
+    void reset();
+}
@@ -0,0 +1,35 @@
+package pacman.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/** One {@code Ghost.chooseDirection()}, the path-finding part of a ghost update. */
+@Name("pacman.GhostDirection")
+@Label("Ghost Direction")
+@Category({"PacMan", "Game Loop"})
+@Description("A ghost choosing its next direction at a tile boundary")
+@Threshold("100 us")
+@StackTrace(false)
+public final class GhostDirectionEvent extends Event {
+
+    @Label("Ghost")
+    public String ghost;
+
+    @Label("Row")
+    public int row;
+
+    @Label("Column")
+    public int col;
+
+    @Label("Mode")
+    @Description("chase, frightened or eaten")
+    public String mode;
+
+    @Label("Direction")
+    public String direction;
+}
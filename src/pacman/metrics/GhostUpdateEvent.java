@@ -0,0 +1,25 @@
+package pacman.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/** One {@code Ghost.update()}, which runs for every ghost on every tick. */
+@Name("pacman.GhostUpdate")
+@Label("Ghost Update")
+@Category({"PacMan", "Game Loop"})
+@Description("Movement and AI of a single ghost for one tick")
+@Threshold("100 us")
+@StackTrace(false)
+public final class GhostUpdateEvent extends Event {
+
+    @Label("Ghost")
+    public String ghost;
+
+    @Label("Chose Direction")
+    public boolean decided;
+}
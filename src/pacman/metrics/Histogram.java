@@ -0,0 +1,125 @@
+package pacman.metrics;
+
+import javax.management.ConstructorParameters;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size log-linear histogram of non-negative longs, in the style of HdrHistogram.
+ *
+ * Values below 64 get a bucket each; above that every power of two is split
+ * into 32 equal sub-buckets, so a reported value is within about 3% of what
+ * was recorded across the whole long range, in under 2k counters. Recording
+ * is a couple of shifts and three uncontended atomic adds: no allocation, no
+ * locks, safe from any thread. Readers see a slightly fuzzy view while
+ * recording continues, which is fine for monitoring.
+ */
+public final class Histogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public Histogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() { return name; }
+
+    /** Records one value; negative values count as 0. */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(bucketOf(value));
+        total.incrementAndGet();
+        sum.addAndGet(value);
+        long m;
+        while (value > (m = max.get()) && !max.compareAndSet(m, value)) {
+            // lost a race with a larger value; retry
+        }
+    }
+
+    public long count() { return total.get(); }
+
+    public long max() { return max.get(); }
+
+    public double mean() {
+        long n = total.get();
+        return n == 0 ? 0 : sum.get() / (double) n;
+    }
+
+    /**
+     * Smallest recorded value (to bucket precision) that at least
+     * {@code percentile} percent of recordings are less than or equal to.
+     * @param percentile in (0, 100]
+     */
+    public long percentile(double percentile) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) return Math.min(highestIn(i), max.get());
+        }
+        return max.get();
+    }
+
+    /** Clears all recordings. A value recorded concurrently may be partly kept. */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        total.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    public Summary summary() {
+        return new Summary(count(), mean(), percentile(50), percentile(90),
+                percentile(99), percentile(99.9), max());
+    }
+
+    static int bucketOf(long value) {
+        if (value < 2 * SUB) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return shift * SUB + (int) (value >>> shift);
+    }
+
+    /** Largest value that lands in bucket {@code i}. */
+    static long highestIn(int i) {
+        if (i < 2 * SUB) return i;
+        int shift = i / SUB - 1;
+        long sub = i - (long) shift * SUB;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /** Point-in-time view of a histogram; exposed over JMX as composite data. */
+    public static final class Summary {
+        private final long count;
+        private final double mean;
+        private final long p50, p90, p99, p999, max;
+
+        @ConstructorParameters({"count", "mean", "p50", "p90", "p99", "p999", "max"})
+        public Summary(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        public long getCount() { return count; }
+        public double getMean() { return mean; }
+        public long getP50() { return p50; }
+        public long getP90() { return p90; }
+        public long getP99() { return p99; }
+        public long getP999() { return p999; }
+        public long getMax() { return max; }
+    }
+}
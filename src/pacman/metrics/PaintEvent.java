@@ -0,0 +1,28 @@
+package pacman.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/** Drawing one frame, from either front end; only slow frames are recorded by default. */
+@Name("pacman.Paint")
+@Label("Paint Frame")
+@Category({"PacMan", "Rendering"})
+@Description("Rendering of one frame, or of the dirty region repainted by the Swing panel")
+@Threshold("5 ms")
+@StackTrace(false)
+public final class PaintEvent extends Event {
+
+    @Label("State")
+    public String state;
+
+    @Label("Clip Width")
+    public int clipWidth;
+
+    @Label("Clip Height")
+    public int clipHeight;
+}
@@ -0,0 +1,29 @@
+package pacman.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** PacMan eating a pellet; an instant event, at most one per tick. */
+@Name("pacman.PelletEaten")
+@Label("Pellet Eaten")
+@Category({"PacMan", "Gameplay"})
+@Description("PacMan collected a pellet or power pellet")
+@StackTrace(false)
+public final class PelletEvent extends Event {
+
+    @Label("Row")
+    public int row;
+
+    @Label("Column")
+    public int col;
+
+    @Label("Power Pellet")
+    public boolean power;
+
+    @Label("Remaining")
+    public int remaining;
+}
@@ -0,0 +1,32 @@
+package pacman.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A game state transition during a tick, e.g. PLAYING to DYING or LEVEL_CLEAR. */
+@Name("pacman.StateChange")
+@Label("Game State Change")
+@Category({"PacMan", "Gameplay"})
+@Description("The game moved between states such as PLAYING, DYING, LEVEL_CLEAR and GAME_OVER")
+@StackTrace(false)
+public final class StateChangeEvent extends Event {
+
+    @Label("From")
+    public String from;
+
+    @Label("To")
+    public String to;
+
+    @Label("Level")
+    public int level;
+
+    @Label("Score")
+    public int score;
+
+    @Label("Lives")
+    public int lives;
+}
@@ -0,0 +1,34 @@
+package pacman.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/** One {@code GameController.update()}; only slow ticks are recorded by default. */
+@Name("pacman.Tick")
+@Label("Game Tick")
+@Category({"PacMan", "Game Loop"})
+@Description("One simulation step of the game controller")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class TickEvent extends Event {
+
+    @Label("State")
+    public String state;
+
+    @Label("Level")
+    public int level;
+
+    @Label("Ghosts")
+    public int ghosts;
+
+    @Label("Ghost Decisions")
+    public int decisions;
+
+    @Label("Collision Checks")
+    public int collisionChecks;
+}
@@ -0,0 +1,101 @@
+package pacman.net;
+
+import pacman.utils.Rng;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sending half of a datagram channel, safe to call from several threads.
+ *
+ * With perfect conditions a packet goes straight out. Otherwise it may be
+ * dropped, and survivors are copied and handed to a single process-wide
+ * delivery thread that sends each once its latency (plus jitter, which can
+ * reorder them) has passed. The copy allocates, which only matters in test
+ * setups.
+ */
+final class Link {
+
+    private static final DelayQueue<Pending> QUEUE = new DelayQueue<>();
+    private static Thread delivery;
+
+    private final DatagramChannel channel;
+    private final NetworkConditions conditions;
+    private final Rng rng;
+
+    Link(DatagramChannel channel, NetworkConditions conditions) {
+        this.channel = channel;
+        this.conditions = conditions;
+        rng = new Rng(conditions.seed);
+        if (!conditions.isPerfect()) startDelivery();
+    }
+
+    private static synchronized void startDelivery() {
+        if (delivery != null) return;
+        delivery = new Thread(Link::deliver, "pacman-net-delay");
+        delivery.setDaemon(true);
+        delivery.start();
+    }
+
+    /** Sends the packet's remaining bytes; a full socket buffer drops it, as UDP would. */
+    void send(ByteBuffer packet, SocketAddress to) throws IOException {
+        if (conditions.isPerfect()) {
+            channel.send(packet, to);
+            return;
+        }
+        long delayNanos;
+        synchronized (rng) {
+            if (conditions.loss > 0 && rng.nextInt(1_000_000) < conditions.loss * 1_000_000) {
+                packet.position(packet.limit());
+                return;
+            }
+            int jitter = conditions.jitterMillis == 0 ? 0 : rng.nextInt(conditions.jitterMillis + 1);
+            delayNanos = TimeUnit.MILLISECONDS.toNanos(conditions.latencyMillis + jitter);
+        }
+        ByteBuffer copy = ByteBuffer.allocate(packet.remaining());
+        copy.put(packet).flip();
+        QUEUE.add(new Pending(channel, copy, to, System.nanoTime() + delayNanos));
+    }
+
+    private static void deliver() {
+        while (true) {
+            try {
+                Pending p = QUEUE.take();
+                p.channel.send(p.data, p.to);
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                // the sender closed its channel while packets were in flight
+            }
+        }
+    }
+
+    private static final class Pending implements Delayed {
+        final DatagramChannel channel;
+        final ByteBuffer data;
+        final SocketAddress to;
+        final long due;
+
+        Pending(DatagramChannel channel, ByteBuffer data, SocketAddress to, long due) {
+            this.channel = channel;
+            this.data = data;
+            this.to = to;
+            this.due = due;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(due - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return Long.compare(due, ((Pending) o).due);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package pacman.net;
+
+import pacman.game.GameController;
+import pacman.metrics.Histogram;
+import pacman.utils.Constants;
+import pacman.utils.Direction;
+import pacman.utils.Rng;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A server and many bot clients in one process, talking over loopback through
+ * simulated network conditions; prints what went over the wire and whether
+ * every client kept an exact copy of its game.
+ *
+ * Bots turn at random, like the batch runner's policy, and restart when their game
+ * ends. Clients are split across a few driver threads that each poll their
+ * share at the frame rate, as a room full of players would.
+ */
+public final class Loopback {
+
+    private static final long FRAME_NANOS = 1_000_000_000L / Constants.FPS;
+
+    private Loopback() {}
+
+    /**
+     * Plays {@code matches} bot matches for {@code seconds} after a second of
+     * warm-up, prints a report to {@code out} and returns the same figures.
+     */
+    public static Totals run(int matches, NetworkConditions conditions, int seconds, PrintStream out)
+            throws IOException, InterruptedException {
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        try (MatchServer server = new MatchServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                workers, conditions)) {
+            server.start();
+            List<MatchClient> clients = new ArrayList<>(matches);
+            try {
+                for (int i = 0; i < matches; i++) {
+                    NetworkConditions own = new NetworkConditions(conditions.latencyMillis,
+                            conditions.jitterMillis, conditions.loss, conditions.seed + i + 1);
+                    clients.add(new MatchClient(server.getAddress(), own));
+                }
+                joinAll(clients);
+                out.printf("%d matches on %s with %d shard(s), %s%n", matches, server.getAddress(), workers, conditions);
+
+                // Matches were sent keyframes until their client's first acknowledgement
+                // got back; let every client settle before measuring
+                drive(clients, 1);
+                Totals before = new Totals(server, clients);
+                server.getShardTickNanos().reset();
+                Histogram lag = drive(clients, seconds);
+                Totals totals = new Totals(server, clients).minus(before);
+                totals.report(lag, seconds, out);
+                Histogram.Summary tick = server.getShardTickNanos().summary();
+                out.printf("shard   tick p50=%dus p99=%dus max=%dus%n",
+                        tick.getP50() / 1_000, tick.getP99() / 1_000, tick.getMax() / 1_000);
+                return totals;
+            } finally {
+                for (MatchClient c : clients) c.close();
+            }
+        }
+    }
+
+    /**
+     * One bot-played match with {@code viewers} in-process spectators of it.
+     * Every tenth viewer only decodes a frame every other tick, so it keeps
+     * falling half a ring behind and skipping to a keyframe.
+     */
+    public static void spectate(int viewers, int seconds, PrintStream out) throws IOException, InterruptedException {
+        try (MatchServer server = new MatchServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                1, NetworkConditions.NONE);
+             MatchClient player = new MatchClient(server.getAddress(), NetworkConditions.NONE)) {
+            server.start();
+            player.join(5_000);
+            SpectatorFeed.Cursor[] cursors = new SpectatorFeed.Cursor[viewers];
+            Spectator[] spectators = new Spectator[viewers];
+            for (int i = 0; i < viewers; i++) {
+                cursors[i] = server.watch(player.getMatchId());
+                spectators[i] = new Spectator(Protocol.GHOSTS, player.getController().map.getMaze());
+            }
+            SpectatorFeed feed = cursors[0].getFeed();
+            out.printf("%d viewers of match %d%n", viewers, player.getMatchId());
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            Thread playing = new Thread(() -> drive(List.of(player), new Rng(0), deadline, new Histogram("player")),
+                    "pacman-loopback-player");
+            playing.start();
+            int drivers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+            Histogram pass = new Histogram("viewer pass");
+            Thread[] threads = new Thread[drivers];
+            for (int d = 0; d < drivers; d++) {
+                int first = d;
+                threads[d] = new Thread(() -> watch(cursors, spectators, first, drivers, deadline, pass),
+                        "pacman-loopback-viewers-" + d);
+                threads[d].start();
+            }
+            playing.join();
+            for (Thread t : threads) t.join();
+
+            long delivered = 0, applied = 0, gaps = 0, desyncs = 0, fastSkips = 0, slowSkips = 0;
+            for (int i = 0; i < viewers; i++) {
+                delivered += cursors[i].getDelivered();
+                applied += spectators[i].getApplied();
+                gaps += spectators[i].getGaps();
+                desyncs += spectators[i].getDesyncs();
+                if (isSlow(i)) slowSkips += cursors[i].getSkips();
+                else fastSkips += cursors[i].getSkips();
+            }
+            long frames = feed.getFramesPublished();
+            out.printf("feed    frames=%d encodes=%d avg=%.1f B keyframe every %d%n",
+                    frames, frames, feed.getBytesPublished() / (double) Math.max(1, frames), Constants.FPS);
+            out.printf("viewers delivered=%d (%.0f/s) applied=%d gaps=%d desyncs=%d skips fast=%d slow=%d%n",
+                    delivered, delivered / (double) seconds, applied, gaps, desyncs, fastSkips, slowSkips);
+            out.printf("        pass over all viewers p50=%dus p99=%dus max=%dus%n",
+                    pass.percentile(50) / 1_000, pass.percentile(99) / 1_000, pass.max() / 1_000);
+        }
+    }
+
+    private static boolean isSlow(int viewer) {
+        return viewer % 10 == 9;
+    }
+
+    private static void watch(SpectatorFeed.Cursor[] cursors, Spectator[] spectators, int first, int stride,
+                              long deadline, Histogram pass) {
+        long next = System.nanoTime();
+        for (long frame = 0; next < deadline; frame++) {
+            long start = System.nanoTime();
+            for (int i = first; i < cursors.length; i += stride) {
+                int budget = isSlow(i) ? (int) (frame & 1) : Integer.MAX_VALUE;
+                ByteBuffer bytes;
+                while (budget-- > 0 && (bytes = cursors[i].poll()) != null) spectators[i].apply(bytes);
+            }
+            pass.record(System.nanoTime() - start);
+            next += FRAME_NANOS;
+            LockSupport.parkNanos(next - System.nanoTime());
+        }
+    }
+
+    /** Joins in parallel: one at a time, early matches would idle out before the last client got in. */
+    private static void joinAll(List<MatchClient> clients) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(clients.size(), 32));
+        try {
+            List<Future<?>> joins = new ArrayList<>();
+            for (MatchClient c : clients) {
+                joins.add(pool.submit(() -> {
+                    c.join(5_000);
+                    return null;
+                }));
+            }
+            for (Future<?> f : joins) f.get();
+        } catch (ExecutionException e) {
+            throw new IOException("join failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** Polls every client at the frame rate for {@code seconds}; returns how far each poll moved the game. */
+    private static Histogram drive(List<MatchClient> clients, int seconds) throws InterruptedException {
+        int drivers = Math.min(clients.size(), Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        Histogram lag = new Histogram("ticks per frame");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        Thread[] threads = new Thread[drivers];
+        for (int d = 0; d < drivers; d++) {
+            List<MatchClient> share = new ArrayList<>();
+            for (int i = d; i < clients.size(); i += drivers) share.add(clients.get(i));
+            Rng rng = new Rng(d);
+            threads[d] = new Thread(() -> drive(share, rng, deadline, lag), "pacman-loopback-" + d);
+            threads[d].start();
+        }
+        for (Thread t : threads) t.join();
+        return lag;
+    }
+
+    private static void drive(List<MatchClient> clients, Rng rng, long deadline, Histogram lag) {
+        int[] previousTick = new int[clients.size()];
+        for (int i = 0; i < clients.size(); i++) previousTick[i] = clients.get(i).getTick();
+        long next = System.nanoTime();
+        while (next < deadline) {
+            for (int i = 0; i < clients.size(); i++) {
+                MatchClient c = clients.get(i);
+                try {
+                    c.poll();
+                } catch (IOException e) {
+                    continue;
+                }
+                if (c.getTick() < 0) continue;
+                GameController g = c.getController();
+                if (g.state == GameController.State.MENU || g.state == GameController.State.GAME_OVER) {
+                    c.requestStart();
+                }
+                if (rng.nextInt(12) == 0) c.setDirection(Direction.MOVES[rng.nextInt(4)]);
+                // Server ticks since the last frame: 1 is smooth, 0 or 2+ is visible stutter
+                if (previousTick[i] >= 0) lag.record(c.getTick() - previousTick[i]);
+                previousTick[i] = c.getTick();
+            }
+            next += FRAME_NANOS;
+            LockSupport.parkNanos(next - System.nanoTime());
+        }
+    }
+
+    /** Server and summed client counters at one moment, or the difference between two. */
+    public static final class Totals {
+        public final long sent, sentKeyframes, sentBytes, malformed;
+        public final long received, keyframes, bytes, missing, desyncs;
+
+        Totals(MatchServer server, List<MatchClient> clients) {
+            sent = server.getStatesSent();
+            sentKeyframes = server.getKeyframesSent();
+            sentBytes = server.getBytesSent();
+            malformed = server.getMalformedPackets();
+            long received = 0, keyframes = 0, bytes = 0, missing = 0, desyncs = 0;
+            for (MatchClient c : clients) {
+                received += c.getStatesReceived();
+                keyframes += c.getKeyframesReceived();
+                bytes += c.getBytesReceived();
+                missing += c.getMissingBase();
+                desyncs += c.getDesyncs();
+            }
+            this.received = received;
+            this.keyframes = keyframes;
+            this.bytes = bytes;
+            this.missing = missing;
+            this.desyncs = desyncs;
+        }
+
+        private Totals(Totals a, Totals b) {
+            sent = a.sent - b.sent;
+            sentKeyframes = a.sentKeyframes - b.sentKeyframes;
+            sentBytes = a.sentBytes - b.sentBytes;
+            malformed = a.malformed - b.malformed;
+            received = a.received - b.received;
+            keyframes = a.keyframes - b.keyframes;
+            bytes = a.bytes - b.bytes;
+            missing = a.missing - b.missing;
+            desyncs = a.desyncs - b.desyncs;
+        }
+
+        /** Counts accumulated since {@code before}, so a run can be reported net of warm-up. */
+        Totals minus(Totals before) {
+            return new Totals(this, before);
+        }
+
+        void report(Histogram lag, int seconds, PrintStream out) {
+            out.printf("server  states=%d (%.0f/s) avg=%.1f B keyframes=%.2f%% malformed=%d%n",
+                    sent, sent / (double) seconds, sentBytes / (double) Math.max(1, sent),
+                    100.0 * sentKeyframes / Math.max(1, sent), malformed);
+            out.printf("clients received=%d (%.1f%%) avg=%.1f B keyframes=%d missingBase=%d desyncs=%d%n",
+                    received, 100.0 * received / Math.max(1, sent), bytes / (double) Math.max(1, received),
+                    keyframes, missing, desyncs);
+            out.printf("        ticks per frame p50=%d p99=%d max=%d%n",
+                    lag.percentile(50), lag.percentile(99), lag.max());
+        }
+    }
+}
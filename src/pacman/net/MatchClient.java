@@ -0,0 +1,205 @@
+package pacman.net;
+
+import pacman.game.GameController;
+import pacman.game.GameSnapshot;
+import pacman.game.LevelPack;
+import pacman.game.Maze;
+import pacman.utils.Direction;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Player end of a {@link MatchServer} match.
+ *
+ * The client never simulates: {@link #poll()} decodes whatever states have
+ * arrived into a ring of recent frames, copies the newest into a mirror
+ * {@link GameController} for rendering, and answers with the player's current
+ * input and the newest tick it holds, which the server uses as the base of
+ * its next delta. A state whose base is gone, or whose decoded contents fail
+ * the server's hash, is dropped; a hash failure also empties the ring, which
+ * makes the server fall back to a keyframe. Not thread-safe: drive it from
+ * one thread.
+ */
+public final class MatchClient implements AutoCloseable {
+
+    private static final long JOIN_RETRY_NANOS = 100_000_000L;
+
+    private final DatagramChannel channel;
+    private final Link link;
+    private final InetSocketAddress server;
+    private final ByteBuffer in = Protocol.allocate();
+    private final ByteBuffer out = Protocol.allocate();
+    private final Maze maze = LevelPack.CLASSIC.mazeFor(1);
+
+    private int matchId;
+    private GameController mirror;
+    private GameSnapshot[] frames;
+    private final int[] frameTick = new int[Protocol.HISTORY];
+    private int latestTick = Protocol.NO_TICK;
+    private int seq;
+
+    private Direction direction = Direction.NONE;
+    private boolean startRequested;
+
+    private long statesReceived, keyframes, bytesReceived, missingBase, desyncs;
+
+    public MatchClient(InetSocketAddress server, NetworkConditions conditions) throws IOException {
+        this.server = server;
+        channel = DatagramChannel.open();
+        channel.connect(server);
+        channel.configureBlocking(false);
+        link = new Link(channel, conditions);
+        Arrays.fill(frameTick, Protocol.NO_TICK);
+    }
+
+    /**
+     * Asks the server for a match, resending until it answers.
+     * @throws IOException if there is no answer within {@code timeoutMillis}
+     */
+    public void join(long timeoutMillis) throws IOException {
+        int token = ThreadLocalRandom.current().nextInt();
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        long nextSend = 0;
+        while (System.nanoTime() < deadline) {
+            if (System.nanoTime() >= nextSend) {
+                out.clear();
+                out.put(Protocol.JOIN).putInt(token);
+                link.send(out.flip(), server);
+                nextSend = System.nanoTime() + JOIN_RETRY_NANOS;
+            }
+            if (channel.read(in.clear()) > 0) {
+                in.flip();
+                if (in.remaining() >= 10 && in.get() == Protocol.WELCOME && in.getInt() == token) {
+                    matchId = in.getInt();
+                    int ghosts = in.get();
+                    mirror = new GameController(0, LevelPack.CLASSIC, ghosts);
+                    frames = new GameSnapshot[Protocol.HISTORY];
+                    for (int i = 0; i < frames.length; i++) frames[i] = new GameSnapshot(ghosts);
+                    return;
+                }
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        throw new IOException("no answer from " + server);
+    }
+
+    public int getMatchId() { return matchId; }
+
+    /** The server's game as of {@link #getTick()}; only meaningful after a successful {@link #poll()}. */
+    public GameController getController() { return mirror; }
+
+    /** Newest server tick decoded, or -1 before the first state. */
+    public int getTick() { return latestTick; }
+
+    public long getStatesReceived() { return statesReceived; }
+    public long getKeyframesReceived() { return keyframes; }
+    public long getBytesReceived() { return bytesReceived; }
+    /** States dropped because their delta base had already left the ring. */
+    public long getMissingBase() { return missingBase; }
+    /** States whose decoded contents did not match the server's hash. */
+    public long getDesyncs() { return desyncs; }
+
+    // ── Input ─────────────────────────────────────────────────────────────────
+
+    /** Direction sent with every input until changed; NONE keeps PacMan's current heading. */
+    public void setDirection(Direction d) {
+        direction = d;
+    }
+
+    /** Starts (or restarts) the game; repeated until the server reports it playing. */
+    public void requestStart() {
+        startRequested = true;
+    }
+
+    // ── Polling ───────────────────────────────────────────────────────────────
+
+    /**
+     * Decodes every state that has arrived, updates the mirror, and sends the
+     * current input. Call once per displayed frame.
+     * @return number of new states applied
+     */
+    public int poll() throws IOException {
+        if (frames == null) throw new IllegalStateException("not joined");
+        int applied = 0;
+        int n;
+        while ((n = channel.read(in.clear())) > 0) {
+            in.flip();
+            bytesReceived += n;
+            try {
+                if (receive(in)) applied++;
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                desyncs++;
+                forgetFrames();
+            }
+        }
+        if (applied > 0 && latestTick >= 0) frames[latestTick % Protocol.HISTORY].restore(mirror);
+
+        GameController.State state = mirror.state;
+        if (startRequested && state != GameController.State.MENU && state != GameController.State.GAME_OVER) {
+            startRequested = false;
+        }
+        out.clear();
+        out.put(Protocol.INPUT).putInt(matchId).putInt(seq++).putInt(latestTick)
+                .put((byte) direction.ordinal()).put((byte) (startRequested ? Protocol.FLAG_START : 0));
+        link.send(out.flip(), server);
+        return applied;
+    }
+
+    private boolean receive(ByteBuffer packet) {
+        if (packet.get() != Protocol.STATE || packet.getInt() != matchId) return false;
+        int tick = packet.getInt(), base = packet.getInt(), hash = packet.getInt();
+        if (tick <= latestTick) return false;   // late or duplicated
+        statesReceived++;
+
+        GameSnapshot baseFrame = null;
+        if (base == Protocol.NO_TICK) {
+            keyframes++;
+        } else {
+            int slot = base % Protocol.HISTORY;
+            if (base < 0 || frameTick[slot] != base) {
+                missingBase++;
+                return false;
+            }
+            baseFrame = frames[slot];
+        }
+        int slot = tick % Protocol.HISTORY;
+        GameSnapshot frame = frames[slot];
+        frameTick[slot] = Protocol.NO_TICK;   // invalid until fully decoded
+        frame.readDelta(baseFrame, maze, packet);
+        if (frame.contentHash() != hash) {
+            desyncs++;
+            forgetFrames();
+            return false;
+        }
+        frameTick[slot] = tick;
+        latestTick = tick;
+        return true;
+    }
+
+    /** Drops every held frame, so the next acknowledgement asks for a keyframe. */
+    private void forgetFrames() {
+        Arrays.fill(frameTick, Protocol.NO_TICK);
+        latestTick = Protocol.NO_TICK;
+    }
+
+    /** Tells the server to end the match, then closes the socket. */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (frames != null) {
+                out.clear();
+                out.put(Protocol.LEAVE).putInt(matchId);
+                channel.write(out.flip());
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
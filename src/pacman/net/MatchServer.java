@@ -0,0 +1,310 @@
+package pacman.net;
+
+import pacman.game.GameController;
+import pacman.game.GameSnapshot;
+import pacman.game.LevelPack;
+import pacman.game.Simulation;
+import pacman.metrics.Histogram;
+import pacman.utils.Constants;
+import pacman.utils.Direction;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Authoritative host for many single-player matches over one UDP port.
+ *
+ * One I/O thread waits on a {@link Selector}, decodes datagrams and files
+ * each client's latest input with its match. Matches are spread over a few
+ * shards, each ticked at the game's frame rate by a small scheduled pool:
+ * a shard steps every match it owns, captures the new frame into the match's
+ * history and sends it as a delta against the newest frame the client has
+ * acknowledged. Matches belong to one shard for life, so a game is only ever
+ * touched by one thread at a time and nothing on the tick path locks.
+ *
+ * Any number of in-process viewers can {@link #watch} a match; its frames
+ * are then also published, once per tick, to a {@link SpectatorFeed}.
+ *
+ * Every match plays the classic layout with {@value Protocol#GHOSTS} ghosts,
+ * which the clients assume when decoding.
+ */
+public final class MatchServer implements AutoCloseable {
+
+    private static final long TICK_NANOS = 1_000_000_000L / Constants.FPS;
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int FEED_CAPACITY = 256;
+
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final Link link;
+    private final Shard[] shards;
+    private final ScheduledExecutorService pool;
+    private final Map<Integer, Match> matches = new ConcurrentHashMap<>();
+    private final Map<SocketAddress, Match> byClient = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final Thread io;
+    private volatile boolean running;
+
+    private final LongAdder statesSent = new LongAdder();
+    private final LongAdder keyframesSent = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder malformed = new LongAdder();
+    private final Histogram shardTickNanos = new Histogram("shard tick");
+
+    /**
+     * Binds the port; call {@link #start()} to begin serving.
+     * @param workers threads ticking matches; there is one shard, and one fixed-rate task, per worker
+     */
+    public MatchServer(InetSocketAddress bind, int workers, NetworkConditions conditions) throws IOException {
+        channel = DatagramChannel.open();
+        channel.bind(bind);
+        channel.configureBlocking(false);
+        selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+        link = new Link(channel, conditions);
+
+        shards = new Shard[workers];
+        for (int i = 0; i < workers; i++) shards[i] = new Shard();
+        AtomicInteger threads = new AtomicInteger();
+        pool = Executors.newScheduledThreadPool(workers, r -> {
+            Thread t = new Thread(r, "pacman-server-tick-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        io = new Thread(this::receiveLoop, "pacman-server-io");
+        io.setDaemon(true);
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        io.start();
+        for (Shard shard : shards) pool.scheduleAtFixedRate(shard, 0, TICK_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    public int getMatchCount() { return matches.size(); }
+    public long getStatesSent() { return statesSent.sum(); }
+    public long getKeyframesSent() { return keyframesSent.sum(); }
+    public long getBytesSent() { return bytesSent.sum(); }
+    public long getMalformedPackets() { return malformed.sum(); }
+
+    /**
+     * A new viewer of a match, starting at its newest keyframe, or null if
+     * there is no such match. The match's feed is created on first use.
+     */
+    public SpectatorFeed.Cursor watch(int matchId) {
+        Match m = matches.get(matchId);
+        if (m == null) return null;
+        synchronized (m) {
+            if (m.feed == null) m.feed = new SpectatorFeed(m.id, Protocol.GHOSTS, FEED_CAPACITY, Constants.FPS);
+            return m.feed.subscribe();
+        }
+    }
+
+    /** Time each shard takes to step and send all of its matches once. */
+    public Histogram getShardTickNanos() { return shardTickNanos; }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        pool.shutdownNow();
+        selector.wakeup();
+        try {
+            io.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        selector.close();
+        channel.close();
+    }
+
+    // ── Receiving ─────────────────────────────────────────────────────────────
+
+    private void receiveLoop() {
+        ByteBuffer in = Protocol.allocate();
+        ByteBuffer out = Protocol.allocate();
+        while (running) {
+            try {
+                selector.select(100);
+                selector.selectedKeys().clear();
+                SocketAddress from;
+                while ((from = channel.receive(in.clear())) != null) {
+                    in.flip();
+                    try {
+                        handle(in, from, out);
+                    } catch (BufferUnderflowException | IllegalArgumentException e) {
+                        malformed.increment();
+                    }
+                }
+            } catch (IOException e) {
+                if (!channel.isOpen()) return;
+            }
+        }
+    }
+
+    private void handle(ByteBuffer in, SocketAddress from, ByteBuffer out) throws IOException {
+        byte type = in.get();
+        if (type == Protocol.JOIN) {
+            int token = in.getInt();
+            Match m = byClient.computeIfAbsent(from, this::open);
+            out.clear();
+            out.put(Protocol.WELCOME).putInt(token).putInt(m.id).put((byte) Protocol.GHOSTS);
+            link.send(out.flip(), from);
+            return;
+        }
+        Match m = matches.get(in.getInt());
+        if (m == null || !m.client.equals(from)) return;
+        if (type == Protocol.INPUT) {
+            int seq = in.getInt(), ack = in.getInt();
+            int dir = in.get(), flags = in.get();
+            if (dir < 0 || dir > Direction.NONE.ordinal()) throw new IllegalArgumentException("bad direction");
+            m.onInput(seq, ack, dir, flags);
+        } else if (type == Protocol.LEAVE) {
+            m.closed = true;
+            forget(m);
+        } else {
+            throw new IllegalArgumentException("unknown packet type " + type);
+        }
+    }
+
+    private Match open(SocketAddress client) {
+        Match m = new Match(nextId.getAndIncrement(), client);
+        matches.put(m.id, m);
+        shards[m.id % shards.length].joining.add(m);
+        return m;
+    }
+
+    private void forget(Match m) {
+        matches.remove(m.id);
+        byClient.remove(m.client, m);
+    }
+
+    // ── Ticking ───────────────────────────────────────────────────────────────
+
+    /** The matches one pool thread steps each tick; only that thread touches them. */
+    private final class Shard implements Runnable {
+        final ConcurrentLinkedQueue<Match> joining = new ConcurrentLinkedQueue<>();
+        final List<Match> active = new ArrayList<>();
+        final ByteBuffer out = Protocol.allocate();
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            Match joined;
+            while ((joined = joining.poll()) != null) active.add(joined);
+            for (int i = active.size() - 1; i >= 0; i--) {
+                Match m = active.get(i);
+                if (m.closed || start - m.lastHeard > TIMEOUT_NANOS) {
+                    forget(m);
+                    active.set(i, active.get(active.size() - 1));
+                    active.remove(active.size() - 1);
+                    continue;
+                }
+                try {
+                    tick(m);
+                } catch (IOException | RuntimeException e) {
+                    // One broken match must not stop the shard's schedule
+                    m.closed = true;
+                }
+            }
+            shardTickNanos.record(System.nanoTime() - start);
+        }
+
+        private void tick(Match m) throws IOException {
+            m.applyInput();
+            m.sim.step();
+            int tick = (int) m.sim.getTick();
+            int slot = tick % Protocol.HISTORY;
+            GameSnapshot frame = m.history[slot];
+            frame.capture(m.sim.getController());
+            m.historyTick[slot] = tick;
+
+            int ack = m.ackTick;
+            GameSnapshot base = m.frameAt(ack, tick);
+            out.clear();
+            out.put(Protocol.STATE).putInt(m.id).putInt(tick)
+                    .putInt(base == null ? Protocol.NO_TICK : ack).putInt(frame.contentHash());
+            frame.writeDelta(base, out);
+            out.flip();
+            bytesSent.add(out.remaining());
+            statesSent.increment();
+            if (base == null) keyframesSent.increment();
+            link.send(out, m.client);
+
+            SpectatorFeed feed = m.feed;
+            if (feed != null) feed.publish(m.sim.getController(), tick);
+        }
+    }
+
+    /** One client's game plus the recent frames its deltas may be based on. */
+    private static final class Match {
+        final int id;
+        final SocketAddress client;
+        final Simulation sim;
+        final GameSnapshot[] history = new GameSnapshot[Protocol.HISTORY];
+        final int[] historyTick = new int[Protocol.HISTORY];
+
+        // Written by the I/O thread, read by the shard
+        volatile int ackTick = Protocol.NO_TICK;
+        volatile int direction = Direction.NONE.ordinal();
+        volatile boolean startRequested;
+        volatile long lastHeard = System.nanoTime();
+        volatile boolean closed;
+        volatile SpectatorFeed feed;
+        private int lastSeq = -1;   // I/O thread only
+
+        Match(int id, SocketAddress client) {
+            this.id = id;
+            this.client = client;
+            sim = new Simulation(new GameController(System.nanoTime() ^ id, LevelPack.CLASSIC, Protocol.GHOSTS));
+            for (int i = 0; i < history.length; i++) history[i] = new GameSnapshot(Protocol.GHOSTS);
+            Arrays.fill(historyTick, Protocol.NO_TICK);
+        }
+
+        void onInput(int seq, int ack, int dir, int flags) {
+            lastHeard = System.nanoTime();
+            if (seq <= lastSeq) return;   // reordered behind a newer input
+            lastSeq = seq;
+            ackTick = ack;   // may go back to NO_TICK after a client-side reset
+            direction = dir;
+            startRequested = (flags & Protocol.FLAG_START) != 0;
+        }
+
+        void applyInput() {
+            GameController.State state = sim.getController().state;
+            if (startRequested && (state == GameController.State.MENU || state == GameController.State.GAME_OVER)) {
+                sim.start();
+            }
+            Direction d = Direction.of(direction);
+            if (d != Direction.NONE) sim.setDirection(d);
+        }
+
+        /** The frame for {@code tick}, if still in the history and older than {@code now}. */
+        GameSnapshot frameAt(int tick, int now) {
+            if (tick < 0 || tick >= now || now - tick >= Protocol.HISTORY) return null;
+            int slot = tick % Protocol.HISTORY;
+            return historyTick[slot] == tick ? history[slot] : null;
+        }
+    }
+}
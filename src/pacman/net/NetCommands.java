@@ -0,0 +1,48 @@
+package pacman.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/** Command-line modes for network play, dispatched from {@link pacman.Main}. */
+public final class NetCommands {
+
+    private NetCommands() {}
+
+    /**
+     * {@code --serve [port] [workers]}: hosts matches on a UDP port until the
+     * process is killed, printing a line of stats every 10 s.
+     */
+    public static void serve(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        try (MatchServer server = new MatchServer(new InetSocketAddress(port), workers, NetworkConditions.NONE)) {
+            server.start();
+            System.out.printf("serving on %s with %d shard(s)%n", server.getAddress(), workers);
+            while (true) {
+                Thread.sleep(10_000);
+                System.out.printf("matches=%d states=%d keyframes=%d bytes=%d shardTick p99=%dus%n",
+                        server.getMatchCount(), server.getStatesSent(), server.getKeyframesSent(),
+                        server.getBytesSent(), server.getShardTickNanos().percentile(99) / 1_000);
+            }
+        }
+    }
+
+    /**
+     * {@code --loopback [matches] [latencyMs] [loss%] [seconds]}: runs a server
+     * and bot clients over loopback and prints traffic and consistency figures.
+     */
+    public static void loopback(String[] args) throws IOException, InterruptedException {
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int latency = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        double loss = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        Loopback.run(matches, new NetworkConditions(latency, latency / 5, loss, 1), seconds, System.out);
+    }
+
+    /** {@code --spectate [viewers] [seconds]}: plays one match over loopback and fans its frames out to in-process spectators. */
+    public static void spectate(String[] args) throws IOException, InterruptedException {
+        int viewers = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        Loopback.spectate(viewers, seconds, System.out);
+    }
+}
@@ -0,0 +1,36 @@
+package pacman.net;
+
+/**
+ * Simulated one-way latency, jitter and packet loss applied by the sending
+ * side of a {@link MatchServer} or {@link MatchClient}, for testing over
+ * loopback. Give both ends the same conditions for a symmetric link.
+ */
+public final class NetworkConditions {
+
+    public static final NetworkConditions NONE = new NetworkConditions(0, 0, 0, 0);
+
+    public final int latencyMillis;
+    public final int jitterMillis;
+    /** Fraction of datagrams dropped, 0 to 1. */
+    public final double loss;
+    public final long seed;
+
+    public NetworkConditions(int latencyMillis, int jitterMillis, double loss, long seed) {
+        if (latencyMillis < 0 || jitterMillis < 0 || loss < 0 || loss > 1) {
+            throw new IllegalArgumentException("bad conditions");
+        }
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.loss = loss;
+        this.seed = seed;
+    }
+
+    public boolean isPerfect() {
+        return latencyMillis == 0 && jitterMillis == 0 && loss == 0;
+    }
+
+    @Override
+    public String toString() {
+        return latencyMillis + "±" + jitterMillis + " ms, " + Math.round(loss * 1000) / 10.0 + "% loss";
+    }
+}
@@ -0,0 +1,52 @@
+package pacman.net;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Datagram layouts shared by {@link MatchServer}, {@link MatchClient} and
+ * {@link SpectatorFeed}.
+ *
+ * Every packet starts with a type byte; integers are little-endian.
+ * <pre>
+ * client to server
+ *   JOIN     u32 token                                   ask for a match (resent until welcomed)
+ *   INPUT    u32 match, u32 seq, i32 ack, u8 dir, u8 flags   sent every client frame
+ *   LEAVE    u32 match
+ * server to client
+ *   WELCOME  u32 token, u32 match, u8 ghosts
+ *   STATE    u32 match, i32 tick, i32 base, i32 hash, delta   one per server tick
+ * spectator feed
+ *   FRAME    same fields as STATE; base is the previous frame or NO_TICK
+ * </pre>
+ * {@code ack} is the newest tick the client has decoded; the server encodes
+ * the next state as a {@link pacman.game.GameSnapshot#writeDelta delta}
+ * against it, or as a keyframe ({@code base = NO_TICK}) when it no longer
+ * remembers that tick. Input is the client's whole intent, not an event, so a
+ * lost INPUT is simply superseded by the next one; {@code seq} discards
+ * reordered stragglers.
+ */
+final class Protocol {
+
+    static final byte JOIN = 1, INPUT = 2, LEAVE = 3;
+    static final byte WELCOME = 10, STATE = 11, FRAME = 12;
+
+    static final int NO_TICK = -1;
+    static final int FLAG_START = 1;
+
+    /** Stays under common path MTUs, so states never fragment. */
+    static final int MAX_PACKET = 1200;
+    static final int STATE_HEADER = 1 + 4 + 4 + 4 + 4;
+
+    /** Ticks of history kept on both ends for delta bases (about a second at 60 Hz). */
+    static final int HISTORY = 64;
+
+    /** Ghosts per networked match; a keyframe with the classic maze stays well under MAX_PACKET. */
+    static final int GHOSTS = 4;
+
+    private Protocol() {}
+
+    static ByteBuffer allocate() {
+        return ByteBuffer.allocateDirect(MAX_PACKET).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
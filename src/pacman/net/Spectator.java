@@ -0,0 +1,85 @@
+package pacman.net;
+
+import pacman.game.GameController;
+import pacman.game.GameSnapshot;
+import pacman.game.LevelPack;
+import pacman.game.Maze;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Viewer end of a {@link SpectatorFeed}: decodes frames, in feed order, into
+ * a mirror {@link GameController}.
+ *
+ * A delta only applies on top of the frame just before it, so after a gap
+ * (or a hash failure) the viewer ignores deltas until the next keyframe,
+ * which a skipping cursor delivers first anyway. The mirror is only
+ * refreshed when {@link #getController()} is asked for it, so a viewer that
+ * draws less often than the feed ticks decodes every frame but restores
+ * once per draw. Not thread-safe.
+ */
+public final class Spectator {
+
+    private final Maze maze;
+    private final GameSnapshot frame;
+    private final GameController mirror;
+    private int tick = Protocol.NO_TICK;
+    private boolean stale;
+
+    private long applied, gaps, desyncs;
+
+    /** @param maze the layout the match plays, which frames do not carry */
+    public Spectator(int ghostCount, Maze maze) {
+        this.maze = maze;
+        frame = new GameSnapshot(ghostCount);
+        mirror = new GameController(0, LevelPack.CLASSIC, ghostCount);
+    }
+
+    /**
+     * Decodes one {@link Protocol#FRAME} packet from position to limit.
+     * @return whether it was applied; false for a delta that does not follow the held frame
+     */
+    public boolean apply(ByteBuffer packet) {
+        try {
+            if (packet.get() != Protocol.FRAME) throw new IllegalArgumentException("not a frame");
+            packet.getInt();   // match id
+            int t = packet.getInt(), base = packet.getInt(), hash = packet.getInt();
+            if (base != Protocol.NO_TICK && (tick == Protocol.NO_TICK || base != tick)) {
+                gaps++;
+                return false;
+            }
+            // A delta reads its base field by field just before overwriting it, so decode in place
+            frame.readDelta(base == Protocol.NO_TICK ? null : frame, maze, packet);
+            if (frame.contentHash() != hash) throw new IllegalArgumentException("hash mismatch");
+            tick = t;
+            stale = true;
+            applied++;
+            return true;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // The frame is undefined now; the mirror keeps the last good one until a keyframe
+            desyncs++;
+            tick = Protocol.NO_TICK;
+            stale = false;
+            return false;
+        }
+    }
+
+    /** Tick of the held frame, or -1 while waiting for a keyframe. */
+    public int getTick() { return tick; }
+
+    /** The match as of {@link #getTick()}; only meaningful once a frame has been applied. */
+    public GameController getController() {
+        if (stale) {
+            frame.restore(mirror);
+            stale = false;
+        }
+        return mirror;
+    }
+
+    public long getApplied() { return applied; }
+    /** Deltas ignored because they did not follow the held frame. */
+    public long getGaps() { return gaps; }
+    /** Frames that failed to decode or did not match the publisher's hash. */
+    public long getDesyncs() { return desyncs; }
+}
@@ -0,0 +1,163 @@
+package pacman.net;
+
+import pacman.game.GameController;
+import pacman.game.GameSnapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * One match's state, encoded once per tick and shared by any number of viewers.
+ *
+ * The game's thread {@link #publish publishes} each tick as a {@link Protocol#FRAME}
+ * packet into a ring of fixed slots carved out of one direct buffer: a
+ * keyframe every {@code keyframeInterval} ticks and a delta against the
+ * previous tick in between. Viewers read through their own {@link Cursor},
+ * which is just a position in that ring and a read-only view of the arena,
+ * so a thousand viewers cost a thousand cursor bumps, not a thousand
+ * encodes, and the bytes handed out can go straight to a socket.
+ *
+ * The ring never waits for readers. A viewer that falls more than half a
+ * ring behind, or whose next frame has already been overwritten, jumps to
+ * the newest keyframe and carries on from there; a new viewer starts at the
+ * newest keyframe, so it is in sync after at most one keyframe interval of
+ * deltas. Each slot's tick is published after its bytes (a sequence lock),
+ * so a cursor never hands out a slot that is being rewritten.
+ */
+public final class SpectatorFeed {
+
+    private final int matchId;
+    private final int keyframeInterval;
+    private final int mask;
+    private final ByteBuffer arena;
+    private final ByteBuffer writer;
+    private final AtomicLongArray slotTick;
+    private final int[] slotLength;
+    private final GameSnapshot[] snapshots;
+
+    // Publisher only
+    private int published;
+    private int lastTick = Protocol.NO_TICK;
+
+    private volatile long framesPublished, bytesPublished;
+    private volatile long latest = Protocol.NO_TICK;
+    private volatile long latestKeyframe = Protocol.NO_TICK;
+
+    /**
+     * @param capacity frames kept, a power of two; viewers may lag by up to half of it
+     * @param keyframeInterval ticks between keyframes, i.e. the longest a new or skipping viewer replays
+     */
+    public SpectatorFeed(int matchId, int ghostCount, int capacity, int keyframeInterval) {
+        if (Integer.bitCount(capacity) != 1 || keyframeInterval < 1 || keyframeInterval > capacity / 2) {
+            throw new IllegalArgumentException("capacity must be a power of two at least twice the keyframe interval");
+        }
+        this.matchId = matchId;
+        this.keyframeInterval = keyframeInterval;
+        mask = capacity - 1;
+        arena = ByteBuffer.allocateDirect(capacity * Protocol.MAX_PACKET).order(ByteOrder.LITTLE_ENDIAN);
+        writer = arena.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        slotTick = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) slotTick.set(i, Protocol.NO_TICK);
+        slotLength = new int[capacity];
+        snapshots = new GameSnapshot[] { new GameSnapshot(ghostCount), new GameSnapshot(ghostCount) };
+    }
+
+    public int getMatchId() { return matchId; }
+
+    /** Tick of the newest frame, or -1 before the first. */
+    public long getLatest() { return latest; }
+
+    public long getFramesPublished() { return framesPublished; }
+    public long getBytesPublished() { return bytesPublished; }
+
+    // ── Publishing ────────────────────────────────────────────────────────────
+
+    /**
+     * Encodes the game's current state as frame {@code tick}. Single writer:
+     * call from the thread that steps the game, with increasing ticks.
+     */
+    public void publish(GameController c, int tick) {
+        if (tick <= lastTick) throw new IllegalArgumentException("tick " + tick + " after " + lastTick);
+        GameSnapshot frame = snapshots[published & 1];
+        GameSnapshot previous = snapshots[(published + 1) & 1];
+        frame.capture(c);
+        boolean keyframe = published % keyframeInterval == 0 || lastTick != tick - 1;
+
+        int slot = tick & mask;
+        slotTick.set(slot, Protocol.NO_TICK);   // readers treat the slot as gone from here on
+        int start = slot * Protocol.MAX_PACKET;
+        writer.limit(start + Protocol.MAX_PACKET).position(start);
+        writer.put(Protocol.FRAME).putInt(matchId).putInt(tick)
+                .putInt(keyframe ? Protocol.NO_TICK : lastTick).putInt(frame.contentHash());
+        frame.writeDelta(keyframe ? null : previous, writer);
+        slotLength[slot] = writer.position() - start;
+        slotTick.set(slot, tick);
+
+        published++;
+        framesPublished = published;
+        bytesPublished += slotLength[slot];
+        lastTick = tick;
+        if (keyframe) latestKeyframe = tick;
+        latest = tick;
+    }
+
+    /** A new viewer, starting at the newest keyframe. */
+    public Cursor subscribe() {
+        return new Cursor();
+    }
+
+    // ── Reading ───────────────────────────────────────────────────────────────
+
+    /** One viewer's position in the feed. Not thread-safe; each viewer owns its cursor. */
+    public final class Cursor {
+        private final ByteBuffer view = arena.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+        private long next = Protocol.NO_TICK;
+        private long held = Protocol.NO_TICK;
+        private long delivered, skips;
+
+        private Cursor() {}
+
+        /**
+         * The next frame's bytes, from position to limit, or null when the
+         * viewer is caught up. The buffer is this cursor's own view and is
+         * repositioned by the next call; the bytes stay valid until the ring
+         * laps them, which {@link #isIntact()} can confirm afterwards.
+         */
+        public ByteBuffer poll() {
+            long newest = latest;
+            if (newest < 0) return null;
+            if (next < 0 || newest - next > (mask + 1) / 2 || slotTick.get((int) next & mask) != next) {
+                if (next > newest) return null;
+                if (next >= 0) skips++;
+                next = latestKeyframe;
+            }
+            int slot = (int) next & mask;
+            if (slotTick.get(slot) != next) return null;   // keyframe overwritten under us; retry next poll
+            int length = slotLength[slot];
+            if (slotTick.get(slot) != next) return null;
+            int start = slot * Protocol.MAX_PACKET;
+            view.limit(start + length).position(start);
+            held = next++;
+            delivered++;
+            return view;
+        }
+
+        /** Whether the frame returned by the last {@link #poll()} has not been overwritten since. */
+        public boolean isIntact() {
+            return held >= 0 && slotTick.get((int) held & mask) == held;
+        }
+
+        /** Frames behind the newest one. */
+        public long getLag() {
+            return next < 0 ? 0 : Math.max(0, latest - next + 1);
+        }
+
+        public SpectatorFeed getFeed() { return SpectatorFeed.this; }
+
+        public long getDelivered() { return delivered; }
+
+        /** Times this viewer fell behind and jumped to a keyframe. */
+        public long getSkips() { return skips; }
+    }
+}
@@ -0,0 +1,159 @@
+package pacman.replay;
+
+import pacman.game.Simulation;
+
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * A recorded game: the random state at {@code startGame()} plus every input
+ * with the tick it was applied on, relative to the start.
+ *
+ * Binary layout (all integers unsigned LEB128 varints unless noted):
+ * <pre>
+ *   "PMRP"                 magic, 4 bytes
+ *   version                1 byte
+ *   seed                   8 bytes, big-endian
+ *   eventCount
+ *   eventCount x ((tickDelta << 3) | input)
+ *   length                 frames from start to the end of the recording
+ *   finalScore, finalLevel recorded outcome, used for verification
+ * </pre>
+ * Consecutive inputs are usually a few frames apart, so most events take one byte.
+ */
+public final class Replay {
+
+    private static final int MAGIC = 0x504D5250; // "PMRP"
+    private static final int VERSION = 2;   // 2: fixed-point movement; older recordings play out differently
+
+    public final long seed;
+    private final int[] ticks;
+    private final byte[] inputs;
+    public final int length;
+    public final int finalScore, finalLevel;
+
+    public Replay(long seed, int[] ticks, byte[] inputs, int length, int finalScore, int finalLevel) {
+        if (ticks.length != inputs.length) throw new IllegalArgumentException("ticks/inputs length mismatch");
+        for (byte input : inputs) {
+            if (input < 0 || input > Simulation.INPUT_PAUSE) throw new IllegalArgumentException("unknown input " + input);
+        }
+        this.seed = seed;
+        this.ticks = ticks;
+        this.inputs = inputs;
+        this.length = length;
+        this.finalScore = finalScore;
+        this.finalLevel = finalLevel;
+    }
+
+    public int eventCount() { return ticks.length; }
+    public int tickAt(int i) { return ticks[i]; }
+    public int inputAt(int i) { return inputs[i]; }
+
+    // ── Encoding ──────────────────────────────────────────────────────────────
+
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeLong(seed);
+        writeVarint(data, ticks.length);
+        int last = 0;
+        for (int i = 0; i < ticks.length; i++) {
+            writeVarint(data, ((long) (ticks[i] - last) << 3) | inputs[i]);
+            last = ticks[i];
+        }
+        writeVarint(data, length);
+        writeVarint(data, finalScore);
+        writeVarint(data, finalLevel);
+        data.flush();
+    }
+
+    /**
+     * Decodes a replay, rejecting anything {@link #write} could not have
+     * produced with an {@code IOException}: the file may come from anywhere.
+     */
+    public static Replay read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) throw new IOException("not a replay file");
+        int version = data.readUnsignedByte();
+        if (version != VERSION) throw new IOException("unsupported replay version " + version);
+        long seed = data.readLong();
+        int count = readInt(data);
+        // Every event takes at least a byte, so a count larger than the file
+        // ends in EOF; grow as events arrive rather than trusting it up front.
+        // The arrays end up exactly count long.
+        int capacity = Math.min(count, 1024);
+        int[] ticks = new int[capacity];
+        byte[] inputs = new byte[capacity];
+        long tick = 0;
+        for (int i = 0; i < count; i++) {
+            long v = readVarint(data);
+            tick += v >>> 3;
+            int input = (int) (v & 7);
+            if (tick > Integer.MAX_VALUE) throw new IOException("event " + i + " is past the end of time");
+            if (input > Simulation.INPUT_PAUSE) throw new IOException("event " + i + " has unknown input " + input);
+            if (i == capacity) {
+                capacity = (int) Math.min(count, capacity * 2L);
+                ticks = Arrays.copyOf(ticks, capacity);
+                inputs = Arrays.copyOf(inputs, capacity);
+            }
+            ticks[i] = (int) tick;
+            inputs[i] = (byte) input;
+        }
+        int length = readInt(data);
+        int score = readInt(data);
+        int level = readInt(data);
+        return new Replay(seed, ticks, inputs, length, score, level);
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 + ticks.length * 2);
+        try {
+            write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static Replay fromBytes(byte[] bytes) throws IOException {
+        return read(new ByteArrayInputStream(bytes));
+    }
+
+    private static void writeVarint(DataOutput out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) (v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static int readInt(DataInput in) throws IOException {
+        long v = readVarint(in);
+        if (v < 0 || v > Integer.MAX_VALUE) throw new IOException("value out of range: " + Long.toUnsignedString(v));
+        return (int) v;
+    }
+
+    private static long readVarint(DataInput in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("malformed varint");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Replay)) return false;
+        Replay r = (Replay) o;
+        return seed == r.seed && length == r.length && finalScore == r.finalScore
+                && finalLevel == r.finalLevel && Arrays.equals(ticks, r.ticks) && Arrays.equals(inputs, r.inputs);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(seed) * 31 + Arrays.hashCode(ticks);
+    }
+}
@@ -0,0 +1,30 @@
+package pacman.replay;
+
+import pacman.game.GameController;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Command-line modes for recorded games, dispatched from {@link pacman.Main}. */
+public final class ReplayCommands {
+
+    private ReplayCommands() {}
+
+    /** {@code --replay file...}: replays each recorded game at full speed and checks it reaches the recorded score. */
+    public static void verify(String[] args) {
+        if (args.length == 0) throw new IllegalArgumentException("expected replay files");
+        for (String path : args) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(path))) {
+                Replay replay = Replay.read(in);
+                GameController c = ReplayPlayer.play(replay).getController();
+                boolean ok = c.score == replay.finalScore && c.level == replay.finalLevel;
+                System.out.printf("%s: %d frames, score=%d level=%d (recorded %d/%d) %s%n", path, replay.length,
+                        c.score, c.level, replay.finalScore, replay.finalLevel, ok ? "OK" : "MISMATCH");
+            } catch (IOException e) {
+                System.out.println(path + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package pacman.replay;
+
+import pacman.game.GameController;
+import pacman.game.Simulation;
+import pacman.utils.Direction;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Re-runs recorded games through the headless {@link Simulation} at full speed.
+ *
+ * A game is a pure function of its seed and inputs, so replaying reproduces it
+ * exactly; comparing the outcome with the recorded one verifies score claims.
+ */
+public final class ReplayPlayer {
+
+    private ReplayPlayer() {}
+
+    /** Replays the whole recording and returns the simulation in its final state. */
+    public static Simulation play(Replay replay) {
+        Simulation sim = new Simulation(new GameController(replay.seed));
+        int next = 0;
+        for (int tick = 0; tick < replay.length; tick++) {
+            while (next < replay.eventCount() && replay.tickAt(next) == tick) {
+                apply(sim, replay.inputAt(next++));
+            }
+            sim.step();
+        }
+        return sim;
+    }
+
+    /** True if replaying reproduces the recorded final score and level. */
+    public static boolean verify(Replay replay) {
+        GameController c = play(replay).getController();
+        return c.score == replay.finalScore && c.level == replay.finalLevel;
+    }
+
+    /**
+     * Verifies many replays in parallel.
+     * @return indices of replays that did not reproduce
+     */
+    public static int[] verifyAll(Replay[] replays, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            int[] ok = new int[replays.length];
+            pool.submit(() -> Arrays.parallelSetAll(ok, i -> verify(replays[i]) ? 1 : 0)).join();
+            int bad = 0;
+            int[] failed = new int[replays.length];
+            for (int i = 0; i < ok.length; i++) if (ok[i] == 0) failed[bad++] = i;
+            return Arrays.copyOf(failed, bad);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void apply(Simulation sim, int input) {
+        switch (input) {
+            case Simulation.INPUT_START -> sim.start();
+            case Simulation.INPUT_PAUSE -> sim.togglePause();
+            default -> sim.setDirection(Direction.MOVES[input]);
+        }
+    }
+}
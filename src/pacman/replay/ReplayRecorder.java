@@ -0,0 +1,69 @@
+package pacman.replay;
+
+import pacman.game.GameController;
+import pacman.game.Simulation;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Records each game played on a {@link Simulation}.
+ *
+ * Recording begins at every START input, capturing the random state just
+ * before {@code startGame()} runs, and ends when the game reaches GAME_OVER;
+ * the finished {@link Replay} is handed to the sink on the stepping thread.
+ */
+public class ReplayRecorder implements Simulation.Listener {
+
+    private final Simulation simulation;
+    private final Consumer<Replay> sink;
+
+    private boolean recording;
+    private long seed, startTick;
+    private int[] ticks = new int[256];
+    private byte[] inputs = new byte[256];
+    private int count;
+
+    public ReplayRecorder(Simulation simulation, Consumer<Replay> sink) {
+        this.simulation = simulation;
+        this.sink = sink;
+    }
+
+    /** Starts listening to the simulation; recording begins at the next START. */
+    public void attach() {
+        simulation.setListener(this);
+    }
+
+    @Override
+    public void onInput(long tick, int input) {
+        if (input == Simulation.INPUT_START) {
+            recording = true;
+            seed = simulation.getController().getRngState();
+            startTick = tick;
+            count = 0;
+        }
+        if (!recording) return;
+        if (count == ticks.length) {
+            ticks = Arrays.copyOf(ticks, count * 2);
+            inputs = Arrays.copyOf(inputs, count * 2);
+        }
+        ticks[count] = (int) (tick - startTick);
+        inputs[count] = (byte) input;
+        count++;
+    }
+
+    @Override
+    public void onStep(long tick) {
+        if (recording && simulation.isGameOver()) {
+            recording = false;
+            sink.accept(finish(tick));
+        }
+    }
+
+    /** The replay of the game in progress (or just finished) up to {@code tick}. */
+    private Replay finish(long tick) {
+        GameController c = simulation.getController();
+        return new Replay(seed, Arrays.copyOf(ticks, count), Arrays.copyOf(inputs, count),
+                (int) (tick - startTick), c.score, c.level);
+    }
+}
@@ -0,0 +1,28 @@
+package pacman.rl;
+
+import pacman.utils.Rng;
+
+/** Command-line modes for the reinforcement-learning environment, dispatched from {@link pacman.Main}. */
+public final class RlCommands {
+
+    private RlCommands() {}
+
+    /** {@code --rl [envs] [steps] [threads]}: steps a vectorized environment with random actions and prints its throughput. */
+    public static void randomActions(String[] args) {
+        int envs = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        try (VecEnv env = new VecEnv(envs, 4, 1, 0, threads)) {
+            int[] actions = new int[envs];
+            Rng rng = new Rng(1);
+            long t0 = System.nanoTime();
+            for (int s = 0; s < steps; s++) {
+                for (int i = 0; i < envs; i++) actions[i] = rng.nextInt(VecEnv.ACTIONS);
+                env.step(actions);
+            }
+            double seconds = (System.nanoTime() - t0) / 1e9;
+            System.out.printf("%d envs x %d steps on %d threads in %.2f s: %.0f env steps/s, %d episodes, mean return %.1f%n",
+                    envs, steps, threads, seconds, (double) envs * steps / seconds, env.getEpisodes(), env.getMeanReturn());
+        }
+    }
+}
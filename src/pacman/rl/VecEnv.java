@@ -0,0 +1,375 @@
+package pacman.rl;
+
+import pacman.entities.Ghost;
+import pacman.entities.PacMan;
+import pacman.game.GameController;
+import pacman.game.GameMap;
+import pacman.game.LevelPack;
+import pacman.game.Maze;
+import pacman.utils.Constants;
+import pacman.utils.Direction;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Many headless games stepped together, for training agents.
+ *
+ * One {@link #step(int[])} applies an action to every game, advances each by
+ * {@code frameSkip} frames, and leaves the results in three direct buffers
+ * owned by this object: observations, rewards and done flags, one slot per
+ * game. The buffers are filled in place on every step, so a trainer can hand
+ * them to native code once and read them after each call. Nothing is
+ * allocated per step.
+ *
+ * Each game's observation is {@link #getObservationSize()} floats:
+ * <pre>
+ *   4 tile planes, rows x cols each, row-major: wall, pellet, power pellet, door (1 or 0)
+ *   PacMan:     x, y (0..1 across the maze), dx, dy
+ *   each ghost: x, y, dx, dy, frightened, frightened time left (0..1), eaten
+ *   lives / 3, pellets left / total, level
+ * </pre>
+ * The tile planes are patched from the map's change log, as
+ * {@link pacman.ui.MazeRenderer} does, so a step usually writes a few dozen
+ * floats rather than the whole maze.
+ *
+ * A step's reward is the score gained, plus {@link #DEATH_REWARD} if PacMan
+ * died and {@link #LEVEL_REWARD} if he cleared a level. Death and level-clear
+ * animations are played out inside the step that caused them, so every
+ * observation is of a game in play. When a game ends, or reaches the
+ * episode cap, its done flag is {@link #TERMINATED} or {@link #TRUNCATED}
+ * and it has already been restarted: the observation is the new game's first.
+ *
+ * With more than one thread, the games are split into fixed slices and each
+ * extra thread owns one for its lifetime; the caller of {@code step} does the
+ * first slice itself. Results depend only on the seed and the actions, never
+ * on the thread count.
+ */
+public final class VecEnv implements AutoCloseable {
+
+    public static final int PLANES = 4;
+    /** Per-game floats describing PacMan, and each ghost. */
+    public static final int PACMAN_FEATURES = 4, GHOST_FEATURES = 7, GLOBAL_FEATURES = 3;
+
+    /** Action 0 keeps PacMan's current heading; 1 to 4 turn him up, down, left or right. */
+    public static final int ACTIONS = 5;
+
+    public static final float DEATH_REWARD = -500f;
+    public static final float LEVEL_REWARD = 1000f;
+
+    /** Done flags: still running, game over, or cut off at the episode cap. */
+    public static final byte RUNNING = 0, TERMINATED = 1, TRUNCATED = 2;
+
+    public static final int DEFAULT_MAX_EPISODE_STEPS = 10_000;
+
+    private static final int SPINS_BEFORE_PARKING = 1_000;
+
+    private final int envs, frameSkip, maxEpisodeSteps;
+    private final int rows, cols, planeSize, obsSize, ghostCount;
+    private final float width, height;
+    private final GameController[] games;
+
+    private final FloatBuffer observations;
+    private final FloatBuffer rewards;
+    private final ByteBuffer dones;
+
+    // Per-game bookkeeping; each slot is written only by the thread owning its slice
+    private final int[] generation;     // map generation the tile planes reflect
+    private final int[] changesSynced;  // entries of that generation's change log already applied
+    private final int[] episodeSteps;
+    private final float[] episodeReturn;
+    private final long[] episodesDone;
+    private final double[] returnSum;
+
+    // Step hand-off to the slice owners
+    private final Worker[] workers;
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile int epoch;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+    private int[] actions;   // published to workers by the write of epoch
+
+    public VecEnv(int envs, long seed) {
+        this(envs, 4, 1, seed, 1);
+    }
+
+    /**
+     * @param envs      games stepped per call
+     * @param ghosts    ghosts per game
+     * @param frameSkip frames each action is held for
+     * @param seed      game {@code i} is seeded with {@code seed + i}
+     * @param threads   threads stepping the games, including the caller's
+     */
+    public VecEnv(int envs, int ghosts, int frameSkip, long seed, int threads) {
+        this(envs, ghosts, frameSkip, seed, threads, DEFAULT_MAX_EPISODE_STEPS);
+    }
+
+    /** Like {@link #VecEnv(int, int, int, long, int)}, truncating episodes after {@code maxEpisodeSteps} steps. */
+    public VecEnv(int envs, int ghosts, int frameSkip, long seed, int threads, int maxEpisodeSteps) {
+        if (envs < 1) throw new IllegalArgumentException("need at least one environment");
+        if (frameSkip < 1) throw new IllegalArgumentException("frameSkip must be positive");
+        if (threads < 1) throw new IllegalArgumentException("need at least one thread");
+        if (maxEpisodeSteps < 1) throw new IllegalArgumentException("maxEpisodeSteps must be positive");
+        this.envs = envs;
+        this.frameSkip = frameSkip;
+        this.maxEpisodeSteps = maxEpisodeSteps;
+        this.ghostCount = ghosts;
+
+        games = new GameController[envs];
+        for (int i = 0; i < envs; i++) games[i] = new GameController(seed + i, LevelPack.CLASSIC, ghosts);
+        Maze maze = games[0].map.getMaze();
+        rows = maze.rows;
+        cols = maze.cols;
+        width = cols * Constants.TILE_UNITS;
+        height = rows * Constants.TILE_UNITS;
+        planeSize = rows * cols;
+        obsSize = PLANES * planeSize + PACMAN_FEATURES + ghosts * GHOST_FEATURES + GLOBAL_FEATURES;
+
+        observations = ByteBuffer.allocateDirect(envs * obsSize * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        rewards = ByteBuffer.allocateDirect(envs * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        dones = ByteBuffer.allocateDirect(envs);
+
+        generation = new int[envs];
+        changesSynced = new int[envs];
+        episodeSteps = new int[envs];
+        episodeReturn = new float[envs];
+        episodesDone = new long[envs];
+        returnSum = new double[envs];
+
+        threads = Math.min(threads, envs);
+        workers = new Worker[threads - 1];
+        for (int t = 1; t < threads; t++) {
+            workers[t - 1] = new Worker(t * envs / threads, (t + 1) * envs / threads, "pacman-rl-" + t);
+            workers[t - 1].start();
+        }
+        reset();
+    }
+
+    public int getEnvCount() { return envs; }
+
+    public int getObservationSize() { return obsSize; }
+
+    public int getGhostCount() { return ghostCount; }
+
+    public int getRows() { return rows; }
+
+    public int getCols() { return cols; }
+
+    /** {@code getEnvCount() x getObservationSize()} floats, game-major; valid until the next step. */
+    public FloatBuffer getObservations() { return observations; }
+
+    /** One float per game: the reward of the last step. */
+    public FloatBuffer getRewards() { return rewards; }
+
+    /** One byte per game: {@link #RUNNING}, {@link #TERMINATED} or {@link #TRUNCATED} after the last step. */
+    public ByteBuffer getDones() { return dones; }
+
+    /** The game behind slot {@code env}, for inspection between steps. */
+    public GameController getGame(int env) { return games[env]; }
+
+    /** Episodes finished, by game over or truncation, since construction. */
+    public long getEpisodes() {
+        long n = 0;
+        for (long e : episodesDone) n += e;
+        return n;
+    }
+
+    /** Mean undiscounted return of the finished episodes. */
+    public double getMeanReturn() {
+        double sum = 0;
+        for (double r : returnSum) sum += r;
+        long n = getEpisodes();
+        return n == 0 ? 0 : sum / n;
+    }
+
+    /** Restarts every game and rewrites all observations. */
+    public void reset() {
+        for (int e = 0; e < envs; e++) {
+            restart(e);
+            rewards.put(e, 0f);
+            dones.put(e, RUNNING);
+        }
+    }
+
+    // ── Stepping ──────────────────────────────────────────────────────────────
+
+    /**
+     * Applies {@code actions[i]} to game {@code i} and advances every game.
+     * Returns once all observations, rewards and done flags are written.
+     * Call from one thread at a time. If a game throws, the exception is
+     * raised here once every thread has finished the step, and the games
+     * that threw are left as they were at the throw.
+     */
+    public void step(int[] actions) {
+        if (closed) throw new IllegalStateException("closed");
+        if (actions.length != envs) throw new IllegalArgumentException("expected " + envs + " actions");
+        for (int a : actions) {
+            if (Integer.compareUnsigned(a, ACTIONS) >= 0) throw new IllegalArgumentException("bad action " + a);
+        }
+        this.actions = actions;
+        if (workers.length == 0) {
+            stepRange(0, envs);
+            return;
+        }
+        failure = null;
+        pending.set(workers.length);
+        epoch++;   // volatile write: publishes actions
+        for (Worker w : workers) LockSupport.unpark(w);
+        try {
+            stepRange(0, envs / (workers.length + 1));
+        } finally {
+            // Even when our own slice throws, the workers must be done with the buffers before we return
+            int spins = 0;
+            while (pending.get() != 0) {
+                if (++spins < SPINS_BEFORE_PARKING) Thread.onSpinWait();
+                else Thread.yield();
+            }
+        }
+        Throwable t = failure;
+        if (t != null) throw new IllegalStateException("environment step failed", t);
+    }
+
+    private void stepRange(int from, int to) {
+        int[] actions = this.actions;
+        for (int e = from; e < to; e++) stepOne(e, actions[e]);
+    }
+
+    private void stepOne(int e, int action) {
+        GameController game = games[e];
+        int scoreBefore = game.score, levelBefore = game.level;
+        boolean died = false;
+        Direction turn = action == 0 ? null : Direction.MOVES[action - 1];
+        for (int f = 0; f < frameSkip && game.state == GameController.State.PLAYING; f++) {
+            if (turn != null) game.setDirection(turn);
+            game.update();
+            if (game.state == GameController.State.DYING) died = true;
+            // Play out death and level-clear pauses; an agent has nothing to decide in them
+            while (game.state == GameController.State.DYING || game.state == GameController.State.LEVEL_CLEAR) {
+                game.update();
+            }
+        }
+
+        float reward = game.score - scoreBefore;
+        if (died) reward += DEATH_REWARD;
+        if (game.level > levelBefore) reward += LEVEL_REWARD;
+        rewards.put(e, reward);
+        episodeReturn[e] += reward;
+
+        byte done = game.state == GameController.State.GAME_OVER ? TERMINATED
+                : ++episodeSteps[e] >= maxEpisodeSteps ? TRUNCATED : RUNNING;
+        dones.put(e, done);
+        if (done != RUNNING) {
+            episodesDone[e]++;
+            returnSum[e] += episodeReturn[e];
+            restart(e);
+        } else {
+            observe(e);
+        }
+    }
+
+    private void restart(int e) {
+        games[e].startGame();
+        episodeSteps[e] = 0;
+        episodeReturn[e] = 0;
+        generation[e] = games[e].map.getGeneration() - 1;   // force a full rewrite of the tile planes
+        observe(e);
+    }
+
+    // ── Observations ──────────────────────────────────────────────────────────
+
+    private void observe(int e) {
+        GameController game = games[e];
+        int base = e * obsSize;
+        syncTiles(e, game.map, base);
+
+        int o = base + PLANES * planeSize;
+        PacMan p = game.pacman;
+        observations.put(o++, p.x / width).put(o++, p.y / height).put(o++, p.dir.dx).put(o++, p.dir.dy);
+        for (int i = 0; i < ghostCount; i++) {
+            Ghost g = game.ghosts.get(i);
+            observations.put(o++, g.x / width).put(o++, g.y / height).put(o++, g.dir.dx).put(o++, g.dir.dy)
+                    .put(o++, g.frightened ? 1f : 0f)
+                    .put(o++, (float) g.frightenTimer / Constants.POWER_PELLET_DURATION)
+                    .put(o++, g.eaten ? 1f : 0f);
+        }
+        GameMap map = game.map;
+        observations.put(o++, p.lives / 3f)
+                .put(o++, (float) map.getRemainingPellets() / Math.max(1, map.getTotalPellets()))
+                .put(o, game.level);
+    }
+
+    /** Brings game {@code e}'s tile planes up to date with its map. */
+    private void syncTiles(int e, GameMap map, int base) {
+        if (map.getGeneration() != generation[e]) {
+            for (int i = 0; i < planeSize; i++) writeTile(base, i, map.getTile(i / cols, i % cols));
+            generation[e] = map.getGeneration();
+            changesSynced[e] = map.getChangeCount();
+            return;
+        }
+        int count = map.getChangeCount();
+        for (int k = changesSynced[e]; k < count; k++) {
+            int i = map.getChange(k);
+            writeTile(base, i, map.getTile(i / cols, i % cols));
+        }
+        changesSynced[e] = count;
+    }
+
+    private void writeTile(int base, int i, int tile) {
+        observations.put(base + i, tile == GameMap.WALL ? 1f : 0f);
+        observations.put(base + planeSize + i, tile == GameMap.PELLET ? 1f : 0f);
+        observations.put(base + 2 * planeSize + i, tile == GameMap.POWER_PELLET ? 1f : 0f);
+        observations.put(base + 3 * planeSize + i, tile == GameMap.DOOR ? 1f : 0f);
+    }
+
+    // ── Workers ───────────────────────────────────────────────────────────────
+
+    /** Owns one slice of the games and steps it whenever the epoch moves. */
+    private final class Worker extends Thread {
+        private final int from, to;
+        private int seen = epoch;   // read before start(), so a step issued meanwhile is not missed
+
+        Worker(int from, int to, String name) {
+            super(name);
+            this.from = from;
+            this.to = to;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                int spins = 0;
+                while (epoch == seen && !closed) {
+                    if (++spins < SPINS_BEFORE_PARKING) Thread.onSpinWait();
+                    else LockSupport.park(this);
+                }
+                if (closed) return;
+                seen = epoch;
+                try {
+                    stepRange(from, to);
+                } catch (Throwable t) {
+                    failure = t;
+                }
+                pending.decrementAndGet();
+            }
+        }
+    }
+
+    /** Stops the worker threads. The buffers stay readable. */
+    @Override
+    public void close() {
+        closed = true;
+        for (Worker w : workers) {
+            LockSupport.unpark(w);
+            try {
+                w.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
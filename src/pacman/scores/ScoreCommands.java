@@ -0,0 +1,29 @@
+package pacman.scores;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+
+/** Command-line modes for high-score files, dispatched from {@link pacman.Main}. */
+public final class ScoreCommands {
+
+    private ScoreCommands() {}
+
+    /** {@code --scores file [n]}: prints the leaderboards of a high-score file. */
+    public static void print(String[] args) throws IOException {
+        if (args.length == 0) throw new IllegalArgumentException("expected a score file");
+        Path file = Paths.get(args[0]);
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        try (ScoreStore store = ScoreStore.open(file)) {
+            System.out.printf("%s: %d games by %d players%n", file, store.getGameCount(), store.getPlayerCount());
+            List<ScoreRecord> top = store.top(n);
+            for (int i = 0; i < top.size(); i++) {
+                ScoreRecord r = top.get(i);
+                System.out.printf("%3d. %-16s %8d  level %d  %s%n", i + 1, r.player, r.score, r.level,
+                        Instant.ofEpochMilli(r.timestamp));
+            }
+        }
+    }
+}
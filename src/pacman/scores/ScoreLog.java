@@ -0,0 +1,190 @@
+package pacman.scores;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped file of {@link ScoreRecord}s.
+ *
+ * Layout, all little-endian:
+ * <pre>
+ *   int    magic "PMHS", short version, short 0
+ *   long   games dropped by earlier compactions
+ *   then, back to back, one entry per game:
+ *     int    payload length, int CRC32 of the payload
+ *     long   timestamp, long replayId, int score, short level,
+ *     byte   name length, then UTF-8 name bytes
+ *   zeros up to the end of the file
+ * </pre>
+ *
+ * The file is grown a megabyte at a time and mapped whole, so an append is a
+ * few stores into the page cache with no system call. The payload and
+ * checksum go in first and the length last, so after a killed process the
+ * log ends cleanly at a zero length; after a power cut the checksum catches
+ * pages that reached the disk out of order. Opening replays every entry up to
+ * the first zero length or damaged entry and clears everything after it, so
+ * later appends never sit behind garbage.
+ */
+final class ScoreLog implements AutoCloseable {
+
+    private static final int MAGIC = 0x53484D50;   // "PMHS"
+    private static final short VERSION = 1;
+    private static final int HEADER = 16;
+    private static final int ENTRY_HEADER = 8;
+    private static final int FIXED_PAYLOAD = 8 + 8 + 4 + 2 + 1;
+    private static final int MAX_PAYLOAD = FIXED_PAYLOAD + ScoreRecord.MAX_NAME_BYTES;
+    private static final int GROW = 1 << 20;
+
+    private final Path file;
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_PAYLOAD).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32 crc = new CRC32();
+
+    private int end = HEADER;
+    private int entries;
+    private long droppedGames;
+    private int discardedBytes;
+
+    private ScoreLog(Path file) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Opens (or creates) a log and hands every intact record to {@code each},
+     * oldest first.
+     * @throws IOException if the file is not a score log
+     */
+    static ScoreLog open(Path file, Consumer<ScoreRecord> each) throws IOException {
+        ScoreLog log = new ScoreLog(file);
+        try {
+            if (log.channel.size() == 0) {
+                log.map(GROW);
+                log.map.putInt(0, MAGIC).putShort(4, VERSION);
+            } else {
+                log.map((int) Math.min(log.channel.size(), Integer.MAX_VALUE));
+                if (log.map.capacity() < HEADER || log.map.getInt(0) != MAGIC || log.map.getShort(4) != VERSION) {
+                    throw new IOException(file + ": not a score log");
+                }
+                log.droppedGames = log.map.getLong(8);
+                log.replay(each);
+            }
+            return log;
+        } catch (IOException | RuntimeException e) {
+            log.channel.close();
+            throw e;
+        }
+    }
+
+    /** Games recorded by this log since it was created, kept or not. */
+    long getGameCount() { return droppedGames + entries; }
+
+    /** Entries in the file now. */
+    int getEntryCount() { return entries; }
+
+    /** Bytes after a damaged entry that were cleared on open; 0 after a clean shutdown. */
+    int getDiscardedBytes() { return discardedBytes; }
+
+    long getSize() { return end; }
+
+    private void replay(Consumer<ScoreRecord> each) {
+        int capacity = map.capacity();
+        while (end + ENTRY_HEADER <= capacity) {
+            int length = map.getInt(end);
+            if (length < FIXED_PAYLOAD || length > MAX_PAYLOAD || end + ENTRY_HEADER + length > capacity) break;
+            map.get(end + ENTRY_HEADER, scratch.array(), 0, length);
+            crc.reset();
+            crc.update(scratch.array(), 0, length);
+            if ((int) crc.getValue() != map.getInt(end + 4)) break;
+            ScoreRecord r = decode(scratch.clear().limit(length));
+            if (r == null) break;
+            each.accept(r);
+            end += ENTRY_HEADER + length;
+            entries++;
+        }
+        // End of the log or a damaged entry: clear the rest, including a torn payload
+        // behind a zero length, so a shorter entry written over it does not expose stale bytes
+        for (int i = end; i < capacity; i++) {
+            if (map.get(i) != 0) {
+                discardedBytes++;
+                map.put(i, (byte) 0);
+            }
+        }
+    }
+
+    private static ScoreRecord decode(ByteBuffer in) {
+        long timestamp = in.getLong(), replayId = in.getLong();
+        int score = in.getInt(), level = in.getShort();
+        int nameLength = in.get() & 0xFF;
+        if (nameLength != in.remaining()) return null;
+        String player = new String(in.array(), in.position(), nameLength, StandardCharsets.UTF_8);
+        try {
+            return new ScoreRecord(player, score, level, replayId, timestamp);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    void append(ScoreRecord r) throws IOException {
+        byte[] name = r.player.getBytes(StandardCharsets.UTF_8);
+        scratch.clear();
+        scratch.putLong(r.timestamp).putLong(r.replayId).putInt(r.score).putShort((short) r.level)
+                .put((byte) name.length).put(name);
+        int length = scratch.position();
+        if (end + ENTRY_HEADER + length > map.capacity()) map(map.capacity() + GROW);
+
+        crc.reset();
+        crc.update(scratch.array(), 0, length);
+        map.put(end + ENTRY_HEADER, scratch.array(), 0, length);
+        map.putInt(end + 4, (int) crc.getValue());
+        map.putInt(end, length);   // last: a nonzero length marks a complete entry
+        end += ENTRY_HEADER + length;
+        entries++;
+    }
+
+    /** Writes mapped changes through to the disk, for durability across a power cut. */
+    void force() {
+        map.force();
+    }
+
+    /**
+     * Replaces the file with one holding only {@code keep}, counting every
+     * other entry as dropped, and returns the new log. The new file is
+     * written and forced beside the old one, then renamed over it, so a
+     * crash leaves one or the other intact. This log must not be used after.
+     */
+    ScoreLog rewrite(Iterable<ScoreRecord> keep, int kept) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.deleteIfExists(tmp);
+        long dropped = droppedGames + entries - kept;
+        try (ScoreLog fresh = open(tmp, r -> {})) {
+            fresh.map.putLong(8, dropped);
+            for (ScoreRecord r : keep) fresh.append(r);
+            fresh.force();
+        }
+        close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(file, r -> {});
+    }
+
+    private void map(int size) throws IOException {
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        map.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,58 @@
+package pacman.scores;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+
+/**
+ * One finished game as kept by the {@link ScoreStore}. Immutable.
+ */
+public final class ScoreRecord {
+
+    /** Longest player name, in UTF-8 bytes. */
+    public static final int MAX_NAME_BYTES = 64;
+
+    /** Best first: higher score, then higher level, then whoever got there first. */
+    public static final Comparator<ScoreRecord> BEST_FIRST = Comparator
+            .comparingInt((ScoreRecord r) -> -r.score)
+            .thenComparingInt(r -> -r.level)
+            .thenComparingLong(r -> r.timestamp)
+            .thenComparing(r -> r.player);
+
+    public final String player;
+    public final int score;
+    public final int level;
+    /** Identifies the game's saved replay, or 0 if none was saved. */
+    public final long replayId;
+    /** When the game ended, in epoch milliseconds. */
+    public final long timestamp;
+
+    public ScoreRecord(String player, int score, int level, long replayId, long timestamp) {
+        if (player == null || player.isEmpty() || player.getBytes(StandardCharsets.UTF_8).length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("player name must be 1 to " + MAX_NAME_BYTES + " bytes");
+        }
+        if (score < 0 || level < 1 || level > Short.MAX_VALUE) throw new IllegalArgumentException("bad score or level");
+        this.player = player;
+        this.score = score;
+        this.level = level;
+        this.replayId = replayId;
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ScoreRecord)) return false;
+        ScoreRecord r = (ScoreRecord) o;
+        return score == r.score && level == r.level && replayId == r.replayId
+                && timestamp == r.timestamp && player.equals(r.player);
+    }
+
+    @Override
+    public int hashCode() {
+        return (player.hashCode() * 31 + score) * 31 + Long.hashCode(timestamp);
+    }
+
+    @Override
+    public String toString() {
+        return player + " " + score + " (level " + level + ")";
+    }
+}
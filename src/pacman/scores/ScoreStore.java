@@ -0,0 +1,157 @@
+package pacman.scores;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Embedded high-score service: every finished game goes to a {@link ScoreLog}
+ * on disk, and the leaderboards are answered from memory.
+ *
+ * Two indexes are rebuilt from the log on open and kept current on every
+ * {@link #record}: the best {@code topSize} games overall, and each player's
+ * best game (also kept sorted, for a one-entry-per-player board). Queries
+ * copy out of them and never touch the file.
+ *
+ * The log keeps every game, so it is compacted once it holds several times
+ * more entries than the indexes need: the survivors (the top games plus each
+ * player's best) are rewritten in their original order and the rest are
+ * only counted. That keeps the file proportional to the number of players,
+ * however many games a cabinet records. All methods are synchronized; a
+ * record costs a few microseconds, so the game thread can call it directly.
+ */
+public final class ScoreStore implements AutoCloseable {
+
+    public static final int DEFAULT_TOP = 100;
+
+    /** Compact when the log holds this many times the entries the indexes keep ... */
+    private static final int COMPACT_RATIO = 4;
+    /** ... and at least this many, so small logs are left alone. */
+    private static final int COMPACT_MIN = 10_000;
+
+    private final int topSize;
+    private final List<ScoreRecord> top = new ArrayList<>();
+    private final Map<String, ScoreRecord> bests = new HashMap<>();
+    private final TreeSet<ScoreRecord> playerBoard = new TreeSet<>(ScoreRecord.BEST_FIRST);
+    private ScoreLog log;
+    private int compactions;
+
+    private ScoreStore(int topSize) {
+        this.topSize = topSize;
+    }
+
+    public static ScoreStore open(Path file) throws IOException {
+        return open(file, DEFAULT_TOP);
+    }
+
+    /**
+     * Opens or creates the store at {@code file}, recovering from a crash if
+     * the last write was cut short.
+     * @param topSize games kept in the overall leaderboard
+     */
+    public static ScoreStore open(Path file, int topSize) throws IOException {
+        if (topSize < 1) throw new IllegalArgumentException("topSize must be positive");
+        ScoreStore store = new ScoreStore(topSize);
+        store.log = ScoreLog.open(file, store::index);
+        return store;
+    }
+
+    /** Appends a finished game and updates the leaderboards; may compact the log. */
+    public synchronized void record(ScoreRecord r) throws IOException {
+        log.append(r);
+        index(r);
+        if (log.getEntryCount() >= COMPACT_MIN && log.getEntryCount() > COMPACT_RATIO * liveBound()) compact();
+    }
+
+    private void index(ScoreRecord r) {
+        if (top.size() < topSize || ScoreRecord.BEST_FIRST.compare(r, top.get(top.size() - 1)) < 0) {
+            int at = Collections.binarySearch(top, r, ScoreRecord.BEST_FIRST);
+            top.add(at < 0 ? -at - 1 : at, r);
+            if (top.size() > topSize) top.remove(top.size() - 1);
+        }
+        ScoreRecord previous = bests.get(r.player);
+        if (previous == null || ScoreRecord.BEST_FIRST.compare(r, previous) < 0) {
+            bests.put(r.player, r);
+            if (previous != null) playerBoard.remove(previous);
+            playerBoard.add(r);
+        }
+    }
+
+    private int liveBound() {
+        return top.size() + bests.size();
+    }
+
+    // ── Queries ───────────────────────────────────────────────────────────────
+
+    /** The best {@code n} games, best first; a player may appear more than once. */
+    public synchronized List<ScoreRecord> top(int n) {
+        return List.copyOf(top.subList(0, Math.min(n, top.size())));
+    }
+
+    /** The {@code n} players with the best personal bests, one game each, best first. */
+    public synchronized List<ScoreRecord> topPlayers(int n) {
+        List<ScoreRecord> out = new ArrayList<>(Math.min(n, playerBoard.size()));
+        for (ScoreRecord r : playerBoard) {
+            if (out.size() == n) break;
+            out.add(r);
+        }
+        return out;
+    }
+
+    /** A player's best game, or null if they have none. */
+    public synchronized ScoreRecord best(String player) {
+        return bests.get(player);
+    }
+
+    /** 1-based position of {@code player} on the one-per-player board, or 0 if absent. */
+    public synchronized int rankOf(String player) {
+        ScoreRecord r = bests.get(player);
+        return r == null ? 0 : playerBoard.headSet(r).size() + 1;
+    }
+
+    /** Games ever recorded, including those compaction has since dropped. */
+    public synchronized long getGameCount() { return log.getGameCount(); }
+
+    public synchronized int getPlayerCount() { return bests.size(); }
+
+    /** Entries currently in the log file. */
+    public synchronized int getLogEntries() { return log.getEntryCount(); }
+
+    public synchronized long getLogBytes() { return log.getSize(); }
+
+    /** Bytes of a torn or damaged final write that were discarded when the store was opened. */
+    public synchronized int getRecoveredBytes() { return log.getDiscardedBytes(); }
+
+    public synchronized int getCompactions() { return compactions; }
+
+    // ── Maintenance ───────────────────────────────────────────────────────────
+
+    /** Rewrites the log with only the games the indexes hold. */
+    public synchronized void compact() throws IOException {
+        Set<ScoreRecord> keep = new LinkedHashSet<>(top);
+        keep.addAll(bests.values());
+        List<ScoreRecord> ordered = new ArrayList<>(keep);
+        ordered.sort(Comparator.comparingLong((ScoreRecord r) -> r.timestamp));
+        log = log.rewrite(ordered, ordered.size());
+        compactions++;
+    }
+
+    /** Forces recorded games to disk. Not needed to survive the process dying, only the machine. */
+    public synchronized void flush() {
+        log.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        log.force();
+        log.close();
+    }
+}
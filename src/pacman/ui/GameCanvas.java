@@ -0,0 +1,111 @@
+package pacman.ui;
+
+import pacman.game.Policy;
+import pacman.game.Simulation;
+import pacman.metrics.GameMetrics;
+import pacman.scores.ScoreStore;
+import pacman.utils.Constants;
+import pacman.utils.Direction;
+
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Actively rendered game surface.
+ *
+ * A {@link GameLoop} thread owns the simulation and draws straight into a
+ * page-flipped {@link BufferStrategy}, bypassing the Swing repaint manager.
+ * Key events arrive on the EDT and are queued for the loop thread, so the
+ * simulation is only ever touched from one thread.
+ */
+public class GameCanvas extends Canvas {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Simulation simulation;
+    private final transient GameRenderer renderer;
+    private final transient GameLoop loop;
+    private final transient ConcurrentLinkedQueue<Integer> pendingKeys = new ConcurrentLinkedQueue<>();
+    private transient volatile Policy policy;
+
+    public GameCanvas(Simulation simulation) {
+        this(simulation, Constants.FPS, Constants.FPS);
+    }
+
+    /**
+     * @param tickRate  simulation ticks per second
+     * @param frameRate displayed frames per second, or 0 for uncapped
+     */
+    public GameCanvas(Simulation simulation, int tickRate, int frameRate) {
+        this.simulation = simulation;
+        renderer = new GameRenderer(simulation.getController());
+        loop = new GameLoop(simulation, this::applyInput, this::renderFrame, tickRate, frameRate);
+
+        setPreferredSize(new Dimension(GameRenderer.WIDTH, GameRenderer.HEIGHT));
+        setBackground(Color.BLACK);
+        setIgnoreRepaint(true);
+        setFocusable(true);
+
+        addKeyListener(new KeyAdapter() {
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyBindings.TOGGLE_METRICS) renderer.toggleMetricsOverlay();
+                else pendingKeys.add(e.getKeyCode());
+            }
+        });
+    }
+
+    /** Starts the loop; the canvas must already be displayable (e.g. after {@code pack()}). */
+    public void start() {
+        createBufferStrategy(2);
+        loop.start();
+    }
+
+    public void stop() {
+        loop.stop();
+    }
+
+    /** Times ticks and frames into {@code metrics}; F3 then toggles the overlay. Call before {@link #start()}. */
+    public void setMetrics(GameMetrics metrics) {
+        simulation.setMetrics(metrics);
+        renderer.setMetrics(metrics);
+    }
+
+    /** Shows the store's leaderboard on the menu screen. */
+    public void setScores(ScoreStore scores) {
+        renderer.setScores(scores);
+    }
+
+    /** Lets a policy (e.g. the autopilot) steer PacMan; keyboard input still works alongside it. */
+    public void setPolicy(Policy policy) {
+        this.policy = policy;
+    }
+
+    private void applyInput() {
+        Integer key;
+        while ((key = pendingKeys.poll()) != null) KeyBindings.apply(simulation, key);
+        Policy p = policy;
+        if (p != null) {
+            Direction d = p.decide(simulation.getController());
+            if (d != Direction.NONE) simulation.setDirection(d);
+        }
+    }
+
+    private void renderFrame(float alpha) {
+        BufferStrategy strategy = getBufferStrategy();
+        do {
+            do {
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    renderer.render(g, alpha);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+    }
+}
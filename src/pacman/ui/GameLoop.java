@@ -0,0 +1,129 @@
+package pacman.ui;
+
+import pacman.game.Simulation;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Dedicated game-loop thread with a fixed simulation timestep.
+ *
+ * Elapsed {@link System#nanoTime()} is accumulated and drained in whole
+ * simulation ticks; whatever is left over becomes the interpolation factor
+ * handed to the renderer. Simulation and display rates are independent: the
+ * display rate only controls how long the loop sleeps between frames
+ * (0 renders as fast as possible).
+ */
+public class GameLoop implements Runnable {
+
+    /**
+     * Wall time the loop may fall behind before it drops time instead of
+     * catching up. Measured in time rather than ticks, so a high tick rate
+     * never loses ticks in normal running.
+     */
+    private static final long MAX_BACKLOG_NANOS = 250_000_000L;
+    /** Sleep granularity margin; the last stretch before a frame is spent yielding. */
+    private static final long SPIN_NANOS = 1_000_000L;
+
+    /** Called on the loop thread once per displayed frame. */
+    public interface Frame {
+        void render(float alpha);
+    }
+
+    private final Simulation simulation;
+    private final Runnable beforeTick;
+    private final Frame frame;
+    private final long tickNanos;
+    private final long frameNanos;
+    private final long maxBacklogNanos;
+    private final LongSupplier clock;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    // Timing state, touched only by the loop thread
+    private long previous, accumulator, nextFrame;
+
+    /**
+     * @param beforeTick runs on the loop thread before every tick, e.g. to apply queued input
+     * @param tickRate   simulation ticks per second
+     * @param frameRate  displayed frames per second, or 0 for uncapped
+     * @throws IllegalArgumentException if {@code tickRate} is not positive or {@code frameRate} is negative
+     */
+    public GameLoop(Simulation simulation, Runnable beforeTick, Frame frame, int tickRate, int frameRate) {
+        this(simulation, beforeTick, frame, tickRate, frameRate, System::nanoTime);
+    }
+
+    /** Like {@link #GameLoop(Simulation, Runnable, Frame, int, int)}, reading time in nanoseconds from {@code clock}. */
+    GameLoop(Simulation simulation, Runnable beforeTick, Frame frame, int tickRate, int frameRate, LongSupplier clock) {
+        if (tickRate <= 0) throw new IllegalArgumentException("tick rate must be positive: " + tickRate);
+        if (frameRate < 0) throw new IllegalArgumentException("frame rate must not be negative: " + frameRate);
+        this.simulation = simulation;
+        this.beforeTick = beforeTick;
+        this.frame = frame;
+        this.tickNanos = 1_000_000_000L / tickRate;
+        this.frameNanos = frameRate > 0 ? 1_000_000_000L / frameRate : 0;
+        // Never less than one frame or one tick, or slow rates would stall
+        this.maxBacklogNanos = Math.max(MAX_BACKLOG_NANOS, Math.max(frameNanos, tickNanos));
+        this.clock = clock;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this, "pacman-game-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) thread.interrupt();
+    }
+
+    @Override
+    public void run() {
+        begin();
+        while (running) waitUntil(pass());
+    }
+
+    /** Starts timing from now, with nothing owed. */
+    void begin() {
+        previous = clock.getAsLong();
+        accumulator = 0;
+        nextFrame = previous;
+    }
+
+    /**
+     * One turn of the loop: runs the ticks the time since the last turn pays
+     * for, renders a frame, and returns the time the next frame is due.
+     */
+    long pass() {
+        long now = clock.getAsLong();
+        accumulator += now - previous;
+        previous = now;
+        if (accumulator > maxBacklogNanos) accumulator = maxBacklogNanos;
+
+        while (accumulator >= tickNanos) {
+            beforeTick.run();
+            simulation.step();
+            accumulator -= tickNanos;
+        }
+
+        frame.render(accumulator / (float) tickNanos);
+
+        if (frameNanos == 0) return now;
+        nextFrame += frameNanos;
+        // After a long stall, restart pacing rather than rendering a burst of frames
+        if (nextFrame < now) nextFrame = now + frameNanos;
+        return nextFrame;
+    }
+
+    private void waitUntil(long deadline) {
+        long remaining;
+        while (running && (remaining = deadline - clock.getAsLong()) > 0) {
+            if (remaining > SPIN_NANOS) LockSupport.parkNanos(remaining - SPIN_NANOS);
+            else Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package pacman.ui;
+
+import pacman.entities.Ghost;
+import pacman.entities.PacMan;
+import pacman.game.GameController;
+import pacman.metrics.FlightEvents;
+import pacman.metrics.GameMetrics;
+import pacman.metrics.PaintEvent;
+import pacman.scores.ScoreRecord;
+import pacman.scores.ScoreStore;
+import pacman.utils.Constants;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Draws a complete frame of the game: cached maze, entities, HUD and overlays.
+ *
+ * Shared by the passive {@link GamePanel} and the active {@link GameCanvas}.
+ * Drawing respects the graphics clip, so callers repainting a small region only
+ * pay for what intersects it.
+ */
+public class GameRenderer {
+
+    public static final int HUD_HEIGHT = 40;
+    public static final int WIDTH = Constants.SCREEN_WIDTH;
+    public static final int HEIGHT = Constants.SCREEN_HEIGHT + HUD_HEIGHT;
+
+    private static final int TILE = Constants.TILE_SIZE;
+    private static final int LEADERBOARD_ROWS = 5;
+    private static final Color MENU_SHADE = new Color(0, 0, 0, 180);
+    private static final Color OVERLAY_SHADE = new Color(0, 0, 0, 160);
+    private static final Color TITLE_SHADOW = new Color(255, 220, 0);
+    private static final Color SUBTITLE_COLOR = new Color(200, 200, 255);
+
+    private static final Font HUD_FONT = new Font("Monospaced", Font.BOLD, 16);
+    private static final Font TITLE_FONT = new Font("Arial Rounded MT Bold", Font.BOLD, 48);
+    private static final Font SUBTITLE_FONT = new Font("Monospaced", Font.PLAIN, 18);
+    private static final Font CONTROLS_FONT = new Font("Monospaced", Font.PLAIN, 14);
+    private static final Font SCORES_FONT = new Font("Monospaced", Font.PLAIN, 13);
+    private static final Font OVERLAY_TITLE_FONT = new Font("Arial Rounded MT Bold", Font.BOLD, 30);
+    private static final Font OVERLAY_SUB_FONT = new Font("Monospaced", Font.PLAIN, 15);
+
+    private final GameController controller;
+    private final MazeRenderer maze;
+    private final SpriteAtlas sprites;
+    private final Rectangle scratch = new Rectangle();
+
+    // Optional instrumentation; set before the first frame
+    private GameMetrics metrics;
+    private MetricsOverlay overlay;
+    private volatile boolean overlayVisible;
+    private long lastFrameStart;
+    private ScoreStore scores;
+
+    public GameRenderer(GameController controller) {
+        this.controller = controller;
+        maze = new MazeRenderer(WIDTH, HEIGHT);
+        List<Color> ghostColors = new ArrayList<>();
+        for (Ghost ghost : controller.ghosts) ghostColors.add(ghost.color);
+        sprites = new SpriteAtlas(ghostColors);
+    }
+
+    public MazeRenderer getMaze() { return maze; }
+
+    /** Records paint time and frame intervals into {@code metrics} and enables the F3 overlay. */
+    public void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+        overlay = new MetricsOverlay(metrics);
+    }
+
+    /** Adds the store's top scores to the menu screen. */
+    public void setScores(ScoreStore scores) {
+        this.scores = scores;
+    }
+
+    /** Shows or hides the metrics overlay; a no-op without metrics. Safe from any thread. */
+    public void toggleMetricsOverlay() {
+        if (overlay != null) overlayVisible = !overlayVisible;
+    }
+
+    public boolean isMetricsOverlayVisible() { return overlayVisible; }
+
+    /**
+     * Renders one frame.
+     * @param alpha fraction of the way from the previous simulation tick to the
+     *              current one, used to interpolate sprite positions (1 = current)
+     */
+    public void render(Graphics2D g, float alpha) {
+        if (FlightEvents.isActive()) renderRecorded(g, alpha);
+        else renderTimed(g, alpha);
+    }
+
+    private void renderTimed(Graphics2D g, float alpha) {
+        GameMetrics m = metrics;
+        if (m == null) {
+            draw(g, alpha);
+            return;
+        }
+        long start = System.nanoTime();
+        draw(g, alpha);
+        if (overlayVisible) overlay.draw(g, start);
+        m.recordFrame(System.nanoTime() - start, lastFrameStart == 0 ? 0 : start - lastFrameStart);
+        lastFrameStart = start;
+    }
+
+    private void renderRecorded(Graphics2D g, float alpha) {
+        PaintEvent event = new PaintEvent();
+        event.begin();
+        renderTimed(g, alpha);
+        if (event.shouldCommit()) {
+            Rectangle clip = g.getClipBounds();
+            event.state = controller.state.name();
+            event.clipWidth = clip == null ? WIDTH : clip.width;
+            event.clipHeight = clip == null ? HEIGHT : clip.height;
+            event.commit();
+        }
+    }
+
+    private void draw(Graphics2D g, float alpha) {
+        // Entities only move while playing; blending a stale previous position would jitter
+        if (controller.state != GameController.State.PLAYING) alpha = 1f;
+
+        // The cached maze covers the whole frame, so no background fill is needed
+        maze.sync(controller.map, scratch);
+        g.drawImage(maze.getImage(), 0, 0, null);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        if (controller.state == GameController.State.MENU) {
+            drawMenu(g);
+        } else if (controller.state == GameController.State.GAME_OVER) {
+            drawEntities(g, alpha);
+            drawHUD(g);
+            drawOverlay(g, "GAME OVER", "Press ENTER to restart", Color.RED);
+        } else if (controller.state == GameController.State.PAUSED) {
+            drawEntities(g, alpha);
+            drawHUD(g);
+            drawOverlay(g, "PAUSED", "Press P or ESC to resume", Color.CYAN);
+        } else if (controller.state == GameController.State.LEVEL_CLEAR) {
+            drawHUD(g);
+            drawOverlay(g, "LEVEL " + (controller.level - 1) + " CLEAR!", "Get ready...", Color.YELLOW);
+        } else {
+            drawEntities(g, alpha);
+            drawHUD(g);
+        }
+    }
+
+    private void drawEntities(Graphics2D g, float alpha) {
+        for (int i = 0; i < controller.ghosts.size(); i++) {
+            Ghost ghost = controller.ghosts.get(i);
+            int px = (int) ghost.renderX(alpha), py = (int) ghost.renderY(alpha);
+            if (g.hitClip(px - 1, py - 1, TILE + 2, TILE + 2)) sprites.drawGhost(g, ghost, px, py);
+        }
+        PacMan pac = controller.pacman;
+        int px = (int) pac.renderX(alpha), py = (int) pac.renderY(alpha);
+        if (pac.alive && g.hitClip(px - 1, py - 1, TILE + 2, TILE + 2)) sprites.drawPacMan(g, pac, px, py);
+    }
+
+    private void drawHUD(Graphics2D g) {
+        if (!g.hitClip(0, Constants.SCREEN_HEIGHT, Constants.SCREEN_WIDTH, HUD_HEIGHT)) return;
+        int hudY = Constants.SCREEN_HEIGHT + 6;
+
+        g.setColor(Color.YELLOW);
+        g.setFont(HUD_FONT);
+        g.drawString("SCORE: " + controller.score, 10, hudY + 14);
+
+        g.setColor(Color.CYAN);
+        g.drawString("LVL: " + controller.level, Constants.SCREEN_WIDTH / 2 - 30, hudY + 14);
+
+        // Lives
+        g.setColor(Color.YELLOW);
+        g.drawString("LIVES:", Constants.SCREEN_WIDTH - 120, hudY + 14);
+        for (int i = 0; i < controller.pacman.lives; i++) {
+            g.fillArc(Constants.SCREEN_WIDTH - 60 + i * 18, hudY + 2, 12, 12, 30, 300);
+        }
+    }
+
+    private void drawMenu(Graphics2D g) {
+        // Dark overlay
+        g.setColor(MENU_SHADE);
+        g.fillRect(0, 0, WIDTH, HEIGHT);
+
+        // Title
+        g.setFont(TITLE_FONT);
+        FontMetrics fm = g.getFontMetrics();
+        String title = "PAC-MAN";
+        int tx = (WIDTH - fm.stringWidth(title)) / 2;
+        g.setColor(TITLE_SHADOW);
+        g.drawString(title, tx + 2, 100 + 2); // shadow
+        g.setColor(Color.YELLOW);
+        g.drawString(title, tx, 100);
+
+        // Subtitle
+        g.setFont(SUBTITLE_FONT);
+        fm = g.getFontMetrics();
+        String sub = "Press ENTER to Start";
+        g.setColor(SUBTITLE_COLOR);
+        g.drawString(sub, (WIDTH - fm.stringWidth(sub)) / 2, 160);
+
+        // Controls
+        String[] controls = {
+            "Controls:",
+            "WASD or Arrow Keys - Move",
+            "P / ESC - Pause",
+            "ENTER - Start / Restart"
+        };
+        g.setFont(CONTROLS_FONT);
+        fm = g.getFontMetrics();
+        int sy = 220;
+        for (String line : controls) {
+            g.setColor(line.equals("Controls:") ? Color.CYAN : Color.LIGHT_GRAY);
+            g.drawString(line, (WIDTH - fm.stringWidth(line)) / 2, sy);
+            sy += 22;
+        }
+
+        // Scores info
+        g.setFont(SCORES_FONT);
+        fm = g.getFontMetrics();
+        String[] pts = {
+            "· = 10 pts",
+            "O = 50 pts  (Power Pellet)",
+            "Ghost = 200 pts"
+        };
+        sy = 330;
+        for (String pt : pts) {
+            g.setColor(Color.ORANGE);
+            g.drawString(pt, (WIDTH - fm.stringWidth(pt)) / 2, sy);
+            sy += 20;
+        }
+
+        if (scores != null) drawLeaderboard(g, sy + 30);
+    }
+
+    private void drawLeaderboard(Graphics2D g, int sy) {
+        List<ScoreRecord> best = scores.top(LEADERBOARD_ROWS);
+        if (best.isEmpty()) return;
+        g.setFont(CONTROLS_FONT);
+        FontMetrics fm = g.getFontMetrics();
+        g.setColor(Color.CYAN);
+        g.drawString("High Scores:", (WIDTH - fm.stringWidth("High Scores:")) / 2, sy);
+        g.setFont(SCORES_FONT);
+        fm = g.getFontMetrics();
+        g.setColor(Color.LIGHT_GRAY);
+        for (int i = 0; i < best.size(); i++) {
+            ScoreRecord r = best.get(i);
+            String line = String.format("%d. %-12.12s %7d  L%d", i + 1, r.player, r.score, r.level);
+            sy += 18;
+            g.drawString(line, (WIDTH - fm.stringWidth(line)) / 2, sy);
+        }
+    }
+
+    private void drawOverlay(Graphics2D g, String title, String sub, Color titleColor) {
+        int cx = WIDTH / 2, cy = HEIGHT / 2 - 20;
+
+        g.setColor(OVERLAY_SHADE);
+        g.fillRoundRect(cx - 160, cy - 50, 320, 100, 20, 20);
+
+        g.setFont(OVERLAY_TITLE_FONT);
+        FontMetrics fm = g.getFontMetrics();
+        g.setColor(titleColor);
+        g.drawString(title, cx - fm.stringWidth(title) / 2, cy);
+
+        g.setFont(OVERLAY_SUB_FONT);
+        fm = g.getFontMetrics();
+        g.setColor(Color.WHITE);
+        g.drawString(sub, cx - fm.stringWidth(sub) / 2, cy + 28);
+    }
+}
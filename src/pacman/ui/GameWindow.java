@@ -1,18 +1,89 @@
 package pacman.ui;
 
+import pacman.ai.Autopilot;
+import pacman.game.GameController;
+import pacman.game.LevelPack;
+import pacman.game.MazeCache;
+import pacman.game.Simulation;
+import pacman.metrics.GameMetrics;
+import pacman.replay.Replay;
+import pacman.replay.ReplayRecorder;
+import pacman.scores.ScoreRecord;
+import pacman.scores.ScoreStore;
+import pacman.utils.Constants;
+
 import javax.swing.*;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 public class GameWindow extends JFrame {
 
+    /**
+     * Uses the actively rendered {@link GameCanvas} by default. System properties:
+     * {@code pacman.tickRate} and {@code pacman.frameRate} (0 = uncapped) set the
+     * simulation and display rates; {@code pacman.renderer=swing} switches to the
+     * timer-driven {@link GamePanel}. {@code pacman.replayDir} saves a replay of every
+     * finished game into that directory; {@code pacman.autopilot=true} lets the MCTS
+     * autopilot play (canvas only). {@code pacman.mazes} names a directory of maze
+     * files to rotate through level by level; the window stays sized for the
+     * classic 21x23 layout, and replays (which assume that layout) are not saved.
+     * {@code pacman.scores} names a high-score file that every finished game is
+     * recorded in, as {@code pacman.player} (default: the OS user name); the
+     * menu then shows the leaderboard.
+     * Tick, frame and GC timings are published over JMX as
+     * {@value GameMetrics#OBJECT_NAME} and shown on screen with F3;
+     * {@code pacman.metrics=false} turns them off.
+     */
     public GameWindow() {
         setTitle("PAC-MAN");
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setResizable(false);
 
-        GamePanel panel = new GamePanel();
-        add(panel);
-        pack();
+        String mazeDir = System.getProperty("pacman.mazes");
+        Simulation simulation = new Simulation(new GameController(System.nanoTime(), loadLevels(mazeDir)));
+        String replayDir = mazeDir == null ? System.getProperty("pacman.replayDir") : null;
+        ScoreStore scores = openScores(System.getProperty("pacman.scores"));
+        if (replayDir != null || scores != null) {
+            String player = System.getProperty("pacman.player", System.getProperty("user.name", "player"));
+            new ReplayRecorder(simulation, r -> gameOver(r, replayDir, scores, player)).attach();
+        }
+
+        GameMetrics metrics = "false".equals(System.getProperty("pacman.metrics"))
+                ? null : new GameMetrics().register();
+
+        if ("swing".equals(System.getProperty("pacman.renderer"))) {
+            GamePanel panel = new GamePanel(simulation);
+            if (metrics != null) panel.setMetrics(metrics);
+            if (scores != null) panel.setScores(scores);
+            add(panel);
+            pack();
+            panel.start();
+        } else {
+            int tickRate = Integer.getInteger("pacman.tickRate", Constants.FPS);
+            int frameRate = Integer.getInteger("pacman.frameRate", Constants.FPS);
+            GameCanvas canvas = new GameCanvas(simulation, tickRate, frameRate);
+            if (metrics != null) canvas.setMetrics(metrics);
+            if (scores != null) canvas.setScores(scores);
+            add(canvas);
+            pack();
+            if (Boolean.getBoolean("pacman.autopilot")) {
+                int workers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+                canvas.setPolicy(new Autopilot(workers, 2_000_000L, System.nanoTime()));
+            }
+            canvas.start();
+            addWindowListener(new WindowAdapter() {
+                public void windowOpened(WindowEvent e) {
+                    canvas.requestFocusInWindow();
+                }
+            });
+        }
 
         // Center on screen
         setLocationRelativeTo(null);
@@ -20,4 +91,50 @@ public class GameWindow extends JFrame {
         // Set icon color (just title bar stuff, optional)
         getContentPane().setBackground(Color.BLACK);
     }
+
+    private static LevelPack loadLevels(String dir) {
+        if (dir == null) return LevelPack.CLASSIC;
+        try {
+            return LevelPack.directory(Paths.get(dir), new MazeCache(16));
+        } catch (IOException e) {
+            System.err.println("Could not load mazes from " + dir + ": " + e.getMessage());
+            return LevelPack.CLASSIC;
+        }
+    }
+
+    private static ScoreStore openScores(String file) {
+        if (file == null) return null;
+        try {
+            return ScoreStore.open(Paths.get(file));
+        } catch (IOException e) {
+            System.err.println("Could not open high scores " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Saves the finished game's replay and/or score; the score links to the replay by its timestamp. */
+    private static void gameOver(Replay replay, String replayDir, ScoreStore scores, String player) {
+        long now = System.currentTimeMillis();
+        boolean saved = replayDir != null && saveReplay(replayDir, replay, now);
+        if (scores == null) return;
+        try {
+            scores.record(new ScoreRecord(player, replay.finalScore, replay.finalLevel, saved ? now : 0, now));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not record score: " + e.getMessage());
+        }
+    }
+
+    private static boolean saveReplay(String dir, Replay replay, long id) {
+        Path file = Paths.get(dir, "pacman-" + id + "-" + replay.finalScore + ".pmr");
+        try {
+            Files.createDirectories(file.getParent());
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                replay.write(out);
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Could not save replay " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
 }
@@ -0,0 +1,33 @@
+package pacman.ui;
+
+import pacman.game.GameController;
+import pacman.game.Simulation;
+import pacman.utils.Direction;
+
+import java.awt.event.KeyEvent;
+
+/** Maps key codes to simulation input; shared by every front end. */
+final class KeyBindings {
+
+    /** Shows or hides the metrics overlay; handled by the front end, not the simulation. */
+    static final int TOGGLE_METRICS = KeyEvent.VK_F3;
+
+    private KeyBindings() {}
+
+    static void apply(Simulation simulation, int key) {
+        GameController controller = simulation.getController();
+        switch (key) {
+            case KeyEvent.VK_LEFT, KeyEvent.VK_A  -> simulation.setDirection(Direction.LEFT);
+            case KeyEvent.VK_RIGHT, KeyEvent.VK_D -> simulation.setDirection(Direction.RIGHT);
+            case KeyEvent.VK_UP, KeyEvent.VK_W    -> simulation.setDirection(Direction.UP);
+            case KeyEvent.VK_DOWN, KeyEvent.VK_S  -> simulation.setDirection(Direction.DOWN);
+            case KeyEvent.VK_ENTER -> {
+                if (controller.state == GameController.State.MENU
+                        || controller.state == GameController.State.GAME_OVER) {
+                    simulation.start();
+                }
+            }
+            case KeyEvent.VK_P, KeyEvent.VK_ESCAPE -> simulation.togglePause();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package pacman.ui;
+
+import pacman.game.GameMap;
+import pacman.utils.Constants;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Keeps the static maze pre-rendered in an offscreen image.
+ *
+ * Walls, door and pellets are drawn once per map generation; after that only
+ * the tiles recorded in the map's change log are patched, so a frame costs one
+ * image blit instead of hundreds of rounded rectangles.
+ */
+public class MazeRenderer {
+
+    private static final int TILE = Constants.TILE_SIZE;
+    private static final Color WALL_COLOR = new Color(33, 33, 255);
+    private static final Color WALL_EDGE_COLOR = new Color(80, 80, 255);
+    private static final Color PELLET_COLOR = new Color(255, 200, 150);
+    private static final Color POWER_COLOR = new Color(255, 200, 50);
+    private static final Color DOOR_COLOR = new Color(255, 180, 180, 80);
+    private static final Color BG_COLOR = Color.BLACK;
+
+    private final BufferedImage image;
+    private int generation = -1;
+    private int applied;
+
+    /** Sized to the whole panel; the strip below the maze stays background for the HUD. */
+    public MazeRenderer(int width, int height) {
+        image = createImage(width, height);
+    }
+
+    /** A display-compatible image when a screen is available, so blits stay accelerated. */
+    private static BufferedImage createImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDefaultConfiguration()
+                .createCompatibleImage(width, height, Transparency.OPAQUE);
+    }
+
+    public Image getImage() { return image; }
+
+    /**
+     * Brings the cached image up to date with {@code map}.
+     * @param dirty receives the union of patched tile areas (left untouched if none)
+     * @return true if the whole image was redrawn
+     */
+    public boolean sync(GameMap map, Rectangle dirty) {
+        if (map.getGeneration() != generation) {
+            redrawAll(map);
+            return true;
+        }
+        int count = map.getChangeCount();
+        if (applied == count) return false;
+
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            for (int i = applied; i < count; i++) {
+                int index = map.getChange(i);
+                int r = index / map.getCols(), c = index % map.getCols();
+                g.setColor(BG_COLOR);
+                g.fillRect(c * TILE, r * TILE, TILE, TILE);
+                drawTile(g, map.getTile(r, c), c * TILE, r * TILE);
+                if (dirty.isEmpty()) {
+                    dirty.setBounds(c * TILE, r * TILE, TILE, TILE);
+                } else {
+                    dirty.add(c * TILE, r * TILE);
+                    dirty.add((c + 1) * TILE, (r + 1) * TILE);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        applied = count;
+        return false;
+    }
+
+    private void redrawAll(GameMap map) {
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(BG_COLOR);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            for (int r = 0; r < map.getRows(); r++) {
+                for (int c = 0; c < map.getCols(); c++) {
+                    drawTile(g, map.getTile(r, c), c * TILE, r * TILE);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        generation = map.getGeneration();
+        applied = map.getChangeCount();
+    }
+
+    private static void drawTile(Graphics2D g, int tile, int px, int py) {
+        switch (tile) {
+            case GameMap.WALL -> {
+                g.setColor(WALL_COLOR);
+                g.fillRoundRect(px + 1, py + 1, TILE - 2, TILE - 2, 6, 6);
+                g.setColor(WALL_EDGE_COLOR);
+                g.drawRoundRect(px + 1, py + 1, TILE - 2, TILE - 2, 6, 6);
+            }
+            case GameMap.PELLET -> {
+                g.setColor(PELLET_COLOR);
+                g.fillOval(px + TILE/2 - 2, py + TILE/2 - 2, 5, 5);
+            }
+            case GameMap.POWER_PELLET -> {
+                g.setColor(POWER_COLOR);
+                g.fillOval(px + TILE/2 - 5, py + TILE/2 - 5, 10, 10);
+            }
+            case GameMap.DOOR -> {
+                g.setColor(DOOR_COLOR);
+                g.fillRect(px, py, TILE, TILE);
+            }
+        }
+    }
+}
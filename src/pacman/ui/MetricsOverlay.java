@@ -0,0 +1,73 @@
+package pacman.ui;
+
+import pacman.metrics.GameMetrics;
+import pacman.metrics.Histogram;
+
+import java.awt.*;
+
+/**
+ * Small performance readout in the top-left corner, toggled with F3.
+ *
+ * The text is rebuilt from the histograms a few times a second rather than
+ * every frame, so the overlay itself adds little to the paint time it shows.
+ */
+final class MetricsOverlay {
+
+    static final int X = 4, Y = 4, WIDTH = 312, HEIGHT = 96;
+
+    private static final long REFRESH_NANOS = 250_000_000L;
+    private static final int LINE_HEIGHT = 15;
+    private static final Color SHADE = new Color(0, 0, 0, 190);
+    private static final Color TEXT_COLOR = new Color(120, 255, 120);
+    private static final Font FONT = new Font("Monospaced", Font.PLAIN, 12);
+
+    private final GameMetrics metrics;
+    private final String[] lines = new String[6];
+    private long refreshedAt;
+
+    MetricsOverlay(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    void draw(Graphics2D g, long now) {
+        if (!g.hitClip(X, Y, WIDTH, HEIGHT)) return;
+        if (lines[0] == null || now - refreshedAt >= REFRESH_NANOS) {
+            refresh();
+            refreshedAt = now;
+        }
+        g.setColor(SHADE);
+        g.fillRect(X, Y, WIDTH, HEIGHT);
+        g.setFont(FONT);
+        g.setColor(TEXT_COLOR);
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], X + 6, Y + 16 + i * LINE_HEIGHT);
+        }
+    }
+
+    private void refresh() {
+        lines[0] = timeLine("frame", metrics.frameIntervalNanos);
+        lines[1] = timeLine("paint", metrics.paintNanos);
+        lines[2] = timeLine("update", metrics.updateNanos);
+        lines[3] = countLine("turns", metrics.ghostDecisions);
+        lines[4] = countLine("checks", metrics.collisionChecks);
+        Histogram gc = metrics.gcPauseNanos;
+        lines[5] = String.format("%-8s n %-6d max %s", "gc", gc.count(), time(gc.max()));
+    }
+
+    private static String timeLine(String label, Histogram h) {
+        return String.format("%-8s p50 %s p99 %s max %s",
+                label, time(h.percentile(50)), time(h.percentile(99)), time(h.max()));
+    }
+
+    private static String countLine(String label, Histogram h) {
+        return String.format("%-8s avg %5.2f/tick  p99 %3d max %3d",
+                label, h.mean(), h.percentile(99), h.max());
+    }
+
+    /** Nanoseconds as a fixed-width value in the most readable unit. */
+    private static String time(long nanos) {
+        if (nanos < 10_000L) return String.format("%4dns", nanos);
+        if (nanos < 10_000_000L) return String.format("%4dus", nanos / 1_000);
+        return String.format("%4dms", nanos / 1_000_000);
+    }
+}
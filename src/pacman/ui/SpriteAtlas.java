@@ -0,0 +1,177 @@
+package pacman.ui;
+
+import pacman.entities.Ghost;
+import pacman.entities.PacMan;
+import pacman.utils.Constants;
+import pacman.utils.Direction;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Every PacMan and ghost frame, rasterised once into a single sheet.
+ *
+ * The sheet is a grid with one column per {@link Direction} (PacMan's mouth
+ * and the ghosts' pupils follow the direction) and one row per look: PacMan's
+ * three mouth frames, frightened, flashing and eyes-only ghosts, then one row
+ * per ghost colour. Drawing an entity is a single {@code drawImage} of its
+ * cell, so a frame costs the same however many arcs and ovals a sprite is
+ * made of. Ghost colours seen for the first time add a row and rebuild the
+ * sheet; the game's palette is known up front, so that never happens mid-play.
+ *
+ * Cells are larger than a tile because the ghosts' wavy hem hangs a few
+ * pixels below the body.
+ */
+public final class SpriteAtlas {
+
+    private static final int TILE = Constants.TILE_SIZE;
+    private static final int PAD = 4;
+    private static final int CELL = TILE + 2 * PAD;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private static final int PACMAN_FRAMES = 3;
+    private static final int ROW_FRIGHTENED = PACMAN_FRAMES;
+    private static final int ROW_FLASHING = ROW_FRIGHTENED + 1;
+    private static final int ROW_EYES = ROW_FLASHING + 1;
+    private static final int ROW_FIRST_COLOR = ROW_EYES + 1;
+
+    private static final Color FRIGHTENED_COLOR = new Color(0, 0, 180);
+    private static final Color PUPIL_COLOR = new Color(0, 0, 200);
+
+    private final List<Color> colors = new ArrayList<>();
+    private BufferedImage sheet;
+
+    public SpriteAtlas(List<Color> ghostColors) {
+        for (Color c : ghostColors) {
+            if (!colors.contains(c)) colors.add(c);
+        }
+        sheet = rasterise();
+    }
+
+    /** The whole sheet, e.g. for inspection. */
+    public Image getImage() { return sheet; }
+
+    // ── Blitting ──────────────────────────────────────────────────────────────
+
+    /** Draws PacMan with his top-left corner at {@code (px, py)}. */
+    public void drawPacMan(Graphics2D g, PacMan pacman, int px, int py) {
+        blit(g, Math.min(pacman.animFrame, PACMAN_FRAMES - 1), pacman.dir, px, py);
+    }
+
+    /** Draws a ghost with its top-left corner at {@code (px, py)}. */
+    public void drawGhost(Graphics2D g, Ghost ghost, int px, int py) {
+        int row;
+        if (ghost.frightened) row = ghost.isFlashing() ? ROW_FLASHING : ROW_FRIGHTENED;
+        else if (ghost.eaten) row = ROW_EYES;
+        else row = ROW_FIRST_COLOR + colorRow(ghost.color);
+        blit(g, row, ghost.dir, px, py);
+    }
+
+    private void blit(Graphics2D g, int row, Direction dir, int px, int py) {
+        int sx = dir.ordinal() * CELL, sy = row * CELL;
+        int dx = px - PAD, dy = py - PAD;
+        g.drawImage(sheet, dx, dy, dx + CELL, dy + CELL, sx, sy, sx + CELL, sy + CELL, null);
+    }
+
+    private int colorRow(Color color) {
+        for (int i = 0; i < colors.size(); i++) {
+            if (colors.get(i).equals(color)) return i;
+        }
+        colors.add(color);
+        sheet = rasterise();
+        return colors.size() - 1;
+    }
+
+    // ── Rasterising ───────────────────────────────────────────────────────────
+
+    private BufferedImage rasterise() {
+        BufferedImage image = createImage(DIRECTIONS.length * CELL, (ROW_FIRST_COLOR + colors.size()) * CELL);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            for (Direction dir : DIRECTIONS) {
+                int x = dir.ordinal() * CELL + PAD;
+                for (int frame = 0; frame < PACMAN_FRAMES; frame++) {
+                    paintPacMan(g, x, frame * CELL + PAD, frame, dir);
+                }
+                paintGhost(g, x, ROW_FRIGHTENED * CELL + PAD, FRIGHTENED_COLOR, dir);
+                paintGhost(g, x, ROW_FLASHING * CELL + PAD, Color.WHITE, dir);
+                paintEyes(g, x + 1, ROW_EYES * CELL + PAD + 1, TILE - 2, TILE - 2, dir, true);
+                for (int i = 0; i < colors.size(); i++) {
+                    paintGhost(g, x, (ROW_FIRST_COLOR + i) * CELL + PAD, colors.get(i), dir);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /** A translucent display-compatible image when a screen is available, so blits stay accelerated. */
+    private static BufferedImage createImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDefaultConfiguration()
+                .createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+
+    private static void paintPacMan(Graphics2D g, int px, int py, int frame, Direction dir) {
+        g.setColor(Color.YELLOW);
+
+        double mouthOpen = (frame == 1) ? 20 : (frame == 0 ? 5 : 35);
+        double startAngle = startAngle(dir) + mouthOpen / 2;
+        double arcAngle = 360 - mouthOpen;
+
+        g.fillArc(px + 1, py + 1, TILE - 2, TILE - 2, (int) startAngle, (int) arcAngle);
+
+        // Eye
+        g.setColor(Color.BLACK);
+        int ex = px + TILE / 2 + dir.dx * 3 + (dir.dy != 0 ? 4 : 0);
+        int ey = py + 4 + dir.dy * 3;
+        g.fillOval(ex, ey, 3, 3);
+    }
+
+    private static int startAngle(Direction dir) {
+        return switch (dir) {
+            case RIGHT -> 0;
+            case LEFT -> 180;
+            case UP -> 90;
+            case DOWN -> 270;
+            default -> 0;
+        };
+    }
+
+    private static void paintGhost(Graphics2D g, int px, int py, Color bodyColor, Direction dir) {
+        int w = TILE - 2, h = TILE - 2;
+        int ox = px + 1, oy = py + 1;
+
+        g.setColor(bodyColor);
+        g.fillArc(ox, oy, w, h, 0, 180);          // dome top
+        g.fillRect(ox, oy + h / 2, w, h / 2);     // body
+
+        // Wavy bottom
+        int waveW = w / 3;
+        g.setColor(Color.BLACK);
+        for (int i = 0; i < 3; i++) {
+            g.fillArc(ox + i * waveW, oy + h - waveW / 2, waveW, waveW, 0, -180);
+        }
+
+        paintEyes(g, ox, oy, w, h, dir, false);
+    }
+
+    private static void paintEyes(Graphics2D g, int ox, int oy, int w, int h, Direction dir, boolean onlyPupils) {
+        if (!onlyPupils) {
+            g.setColor(Color.WHITE);
+            g.fillOval(ox + w / 5,       oy + h / 5, w / 4, h / 3);
+            g.fillOval(ox + w / 2,       oy + h / 5, w / 4, h / 3);
+        }
+        g.setColor(PUPIL_COLOR);
+        int pdx = dir.dx * 2, pdy = dir.dy * 2;
+        g.fillOval(ox + w / 5 + 2 + pdx, oy + h / 5 + 2 + pdy, w / 7, h / 5);
+        g.fillOval(ox + w / 2 + 2 + pdx, oy + h / 5 + 2 + pdy, w / 7, h / 5);
+    }
+}
@@ -7,8 +7,17 @@ public class Constants {
     public static final int SCREEN_WIDTH = COLS * TILE_SIZE;
     public static final int SCREEN_HEIGHT = ROWS * TILE_SIZE;
 
-    public static final int PACMAN_SPEED = 2;
-    public static final int GHOST_SPEED = 2;
+    // Entity positions are fixed point with 2^TILE_BITS units per tile, so the
+    // tile under a point is a shift and grid alignment is a mask
+    public static final int TILE_BITS = 10;
+    public static final int TILE_UNITS = 1 << TILE_BITS;
+    public static final int TILE_MASK = TILE_UNITS - 1;
+
+    // Speeds as whole frames per tile, so movement lands exactly on tile boundaries
+    public static final int PACMAN_FRAMES_PER_TILE = 12;      // 2 px per frame
+    public static final int GHOST_FRAMES_PER_TILE = 12;
+    public static final int FRIGHTENED_FRAMES_PER_TILE = 17;  // about 0.7x
+    public static final int EATEN_FRAMES_PER_TILE = 6;        // 2x
 
     public static final int FPS = 60;
     public static final long FRAME_TIME = 1000 / FPS;
@@ -1,12 +1,35 @@
 package pacman.utils;
 
 public enum Direction {
-    UP(0, -1), DOWN(0, 1), LEFT(-1, 0), RIGHT(1, 0), NONE(0, 0);
+    UP(0, -1, 1), DOWN(0, 1, 2), LEFT(-1, 0, 4), RIGHT(1, 0, 8), NONE(0, 0, 0);
 
     public final int dx, dy;
+    /** Single-bit flag used in per-tile exit masks (0 for NONE). */
+    public final int bit;
 
-    Direction(int dx, int dy) {
+    /** The four movement directions in ghost tie-break order; shared to avoid {@code values()} copies. */
+    public static final Direction[] MOVES = { UP, DOWN, LEFT, RIGHT };
+
+    private static final Direction[] BY_ORDINAL = values();
+
+    private Direction opposite;
+
+    static {
+        UP.opposite = DOWN;
+        DOWN.opposite = UP;
+        LEFT.opposite = RIGHT;
+        RIGHT.opposite = LEFT;
+        NONE.opposite = NONE;
+    }
+
+    Direction(int dx, int dy, int bit) {
         this.dx = dx;
         this.dy = dy;
+        this.bit = bit;
     }
+
+    public Direction opposite() { return opposite; }
+
+    /** Inverse of {@link #ordinal()} without the array copy made by {@code values()}. */
+    public static Direction of(int ordinal) { return BY_ORDINAL[ordinal]; }
 }
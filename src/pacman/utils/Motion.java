@@ -0,0 +1,67 @@
+package pacman.utils;
+
+/**
+ * Integer movement along one axis at a fixed number of frames per tile.
+ *
+ * A tile of {@link Constants#TILE_UNITS} rarely divides evenly by the frame
+ * count, so each speed has a step table instead of a fractional speed: the
+ * tile is split at {@code i * TILE_UNITS / frames} for every frame
+ * {@code i}, and a step moves to the next split point ahead. Starting on a
+ * tile boundary, an entity crosses the tile in exactly {@code frames} steps
+ * and lands on the next boundary with nothing left over. After a speed change
+ * mid-tile it falls in with the new speed's split points at its next step.
+ * Everything is integer arithmetic, so movement is the same on every JVM.
+ */
+public final class Motion {
+
+    public static final Motion PACMAN = new Motion(Constants.PACMAN_FRAMES_PER_TILE);
+    public static final Motion GHOST = new Motion(Constants.GHOST_FRAMES_PER_TILE);
+    public static final Motion FRIGHTENED = new Motion(Constants.FRIGHTENED_FRAMES_PER_TILE);
+    public static final Motion EATEN = new Motion(Constants.EATEN_FRAMES_PER_TILE);
+
+    private static final float PIXELS_PER_UNIT = (float) Constants.TILE_SIZE / Constants.TILE_UNITS;
+
+    private final int frames;
+    private final short[] steps;   // by units already travelled into the tile
+
+    public Motion(int framesPerTile) {
+        if (framesPerTile < 1 || framesPerTile > Constants.TILE_UNITS) throw new IllegalArgumentException("bad speed");
+        frames = framesPerTile;
+        steps = new short[Constants.TILE_UNITS];
+        for (int i = 0, q = 0; i < framesPerTile; i++) {
+            int next = (i + 1) * Constants.TILE_UNITS / framesPerTile;
+            for (; q < next; q++) steps[q] = (short) (next - q);
+        }
+    }
+
+    public int getFramesPerTile() { return frames; }
+
+    /** Units per frame, rounded down; for moves that do not follow the tile grid. */
+    public int average() { return Constants.TILE_UNITS / frames; }
+
+    /**
+     * Position after one step from {@code pos} in direction {@code sign}
+     * (1 or -1; 0 stays put). Moving backwards, progress is measured from
+     * the far side of the tile, so both directions land on boundaries.
+     */
+    public int advance(int pos, int sign) {
+        if (sign > 0) return pos + steps[pos & Constants.TILE_MASK];
+        if (sign < 0) return pos - steps[-pos & Constants.TILE_MASK];
+        return pos;
+    }
+
+    /** True when a position lies exactly on a tile boundary. */
+    public static boolean aligned(int pos) {
+        return (pos & Constants.TILE_MASK) == 0;
+    }
+
+    /** Tile under a point, rounding towards the nearest tile as entities' getRow/getCol do. */
+    public static int tileOf(int pos) {
+        return (pos + Constants.TILE_UNITS / 2) >> Constants.TILE_BITS;
+    }
+
+    /** Converts a position or distance to screen pixels. */
+    public static float toPixels(float units) {
+        return units * PIXELS_PER_UNIT;
+    }
+}
@@ -0,0 +1,31 @@
+package pacman.utils;
+
+/**
+ * Small seeded random generator (SplitMix64).
+ *
+ * Each game owns its own instance so games are reproducible from their seed and
+ * never contend on a shared {@code java.util.Random}. The whole state is one long,
+ * which makes it trivial to save and restore.
+ */
+public final class Rng {
+    private long state;
+
+    public Rng(long seed) {
+        this.state = seed;
+    }
+
+    public long nextLong() {
+        long z = (state += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Uniform value in {@code [0, bound)}; {@code bound} must be positive. */
+    public int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    public long getState() { return state; }
+    public void setState(long state) { this.state = state; }
+}